@@ -0,0 +1,38 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.hal.HAL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class SwerveDriveBenchmark {
+  private SwerveDrive m_swerveDrive;
+  private double m_throttle;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    HAL.initialize(500, 0);
+    m_swerveDrive = new SwerveDrive();
+  }
+
+  @TearDown(Level.Trial)
+  public void shutdown() throws Exception {
+    m_swerveDrive.close();
+  }
+
+  @Benchmark
+  public void drive() {
+    // Vary the input so the module optimization doesn't hit the same branch every time
+    m_throttle = m_throttle > 0.9 ? -1 : m_throttle + 0.01;
+    m_swerveDrive.drive(m_throttle, 0.5, -m_throttle, true, false);
+  }
+
+  @Benchmark
+  public void updateOdometry() {
+    m_swerveDrive.updateOdometry();
+  }
+}
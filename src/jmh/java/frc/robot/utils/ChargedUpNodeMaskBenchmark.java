@@ -0,0 +1,56 @@
+package frc.robot.utils;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants.SCORING_STATE;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+public class ChargedUpNodeMaskBenchmark {
+  @Param({"LOW", "MID_CONE", "HIGH_CUBE"})
+  public SCORING_STATE scoringState;
+
+  private final ChargedUpNodeMask m_nodeMask = new ChargedUpNodeMask();
+  private final Pose2d m_robotPose = new Pose2d(2.5, 3.0, Rotation2d.fromDegrees(180));
+
+  @Setup
+  public void setup() {
+    HAL.initialize(500, 0);
+    m_nodeMask.updateNodeMask(m_robotPose, scoringState);
+  }
+
+  @Benchmark
+  public void updateNodeMask() {
+    m_nodeMask.updateNodeMask(m_robotPose, scoringState);
+  }
+
+  @Benchmark
+  public Pose2d getTargetNode() {
+    return m_nodeMask.getTargetNode(m_robotPose);
+  }
+
+  @Benchmark
+  public int getTargetNodeIndex() {
+    return m_nodeMask.getTargetNodeIndex(m_robotPose);
+  }
+
+  @Benchmark
+  public void forEachValidNode(Blackhole blackhole) {
+    m_nodeMask.forEachValidNode((node, x, y) -> blackhole.consume(x + y));
+  }
+
+  // Red node, so the mask being searched doesn't change
+  @Benchmark
+  @Threads(4)
+  public void toggleIgnoredNodeContended() {
+    m_nodeMask.addIgnoredNode(40);
+    m_nodeMask.removeIgnoredNode(40);
+  }
+}
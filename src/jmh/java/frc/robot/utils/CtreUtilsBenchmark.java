@@ -0,0 +1,19 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class CtreUtilsBenchmark {
+  private final SwerveModuleState m_desiredState =
+      new SwerveModuleState(2.0, Rotation2d.fromDegrees(170));
+  private final Rotation2d m_currentAngle = Rotation2d.fromDegrees(-725);
+
+  @Benchmark
+  public SwerveModuleState optimize() {
+    return CtreUtils.optimize(m_desiredState, m_currentAngle);
+  }
+}
@@ -0,0 +1,57 @@
+package frc.robot.utils;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.INTAKE.SENSOR_STATUS;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class DistanceSensorBenchmark {
+  private DistanceSensor m_distanceSensor;
+  private ByteBuffer m_jsonPacket;
+  private final ByteBuffer m_binaryPacket = ByteBuffer.allocate(DistanceSensor.kPacketLength);
+  private int m_sequenceNumber;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    HAL.initialize(500, 0);
+    m_distanceSensor = new DistanceSensor();
+    m_jsonPacket =
+        ByteBuffer.wrap(
+            ("{\"sensor1.mm\":112,\"sensor1.status\":\"connected\","
+                    + "\"sensor2.mm\":250,\"sensor2.status\":\"connected\","
+                    + "\"sensor3.mm\":68,\"sensor3.status\":\"timeout\"}")
+                .getBytes(StandardCharsets.UTF_8));
+  }
+
+  @TearDown(Level.Trial)
+  public void shutdown() throws Exception {
+    m_distanceSensor.close();
+  }
+
+  @Benchmark
+  public boolean decodeJsonPacket() {
+    m_jsonPacket.rewind();
+    return m_distanceSensor.decodePacket(m_jsonPacket);
+  }
+
+  @Benchmark
+  public boolean decodeBinaryPacket() {
+    // Packets with an old sequence number are dropped early, so keep it increasing
+    m_binaryPacket.clear();
+    m_binaryPacket.put(DistanceSensor.kPacketMagic0).put(DistanceSensor.kPacketMagic1);
+    m_binaryPacket.putInt(++m_sequenceNumber);
+    m_binaryPacket.putInt(m_sequenceNumber * 100);
+    m_binaryPacket.putShort((short) 112).putShort((short) 250).putShort((short) 68);
+    for (int i = 0; i < DistanceSensor.kSensorCount; i++)
+      m_binaryPacket.put((byte) SENSOR_STATUS.CONNECTED.ordinal());
+    m_binaryPacket.flip();
+    return m_distanceSensor.decodePacket(m_binaryPacket);
+  }
+}
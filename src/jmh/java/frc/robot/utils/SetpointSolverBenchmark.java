@@ -0,0 +1,37 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants.SCORING_STATE;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class SetpointSolverBenchmark {
+  private final SetpointSolver m_setpointSolver = SetpointSolver.getInstance();
+  private final Pose2d m_robotPose = new Pose2d(2.2, 2.7, Rotation2d.fromDegrees(175));
+  private final Pose2d m_targetPose = new Pose2d(0.36, 2.75, Rotation2d.fromDegrees(0));
+  private final SetpointSolver.NodeSolutions m_nodeSolutions = new SetpointSolver.NodeSolutions();
+  private ChargedUpNodeMask.Snapshot m_nodes;
+
+  @Setup
+  public void setup() {
+    var nodeMask = new ChargedUpNodeMask();
+    nodeMask.updateNodeMask(m_robotPose, SCORING_STATE.STOWED);
+    m_nodes = nodeMask.getSnapshot();
+  }
+
+  @Benchmark
+  public double solveSetpoints() {
+    m_setpointSolver.solveSetpoints(m_robotPose, m_targetPose, 0, SCORING_STATE.MID_CONE);
+    return m_setpointSolver.getElevatorSetpointMeters();
+  }
+
+  @Benchmark
+  public double solveAllNodes() {
+    m_nodeSolutions.solve(m_robotPose, m_nodes, 0, SCORING_STATE.MID_CONE);
+    return m_nodeSolutions.getBestNode();
+  }
+}
@@ -0,0 +1,41 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.util.Units;
+import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares the lookup table used by StateHandler against the branch logic it replaced. */
+@State(Scope.Benchmark)
+public class SuperStructureStateIndexBenchmark {
+  private static final int kSamples = 1024;
+
+  private final double[] m_elevatorPositions = new double[kSamples];
+  private final double[] m_wristPositions = new double[kSamples];
+  private int m_index;
+
+  @Setup
+  public void setup() {
+    var rand = new Random(4201);
+    for (int i = 0; i < kSamples; i++) {
+      m_elevatorPositions[i] = Units.inchesToMeters(rand.nextDouble() * 50);
+      m_wristPositions[i] = Units.degreesToRadians(rand.nextDouble() * 200 - 20);
+    }
+  }
+
+  @Benchmark
+  public SUPERSTRUCTURE_STATE lookup() {
+    m_index = (m_index + 1) & (kSamples - 1);
+    return SuperStructureStateIndex.lookup(m_elevatorPositions[m_index], m_wristPositions[m_index]);
+  }
+
+  @Benchmark
+  public SUPERSTRUCTURE_STATE evaluate() {
+    m_index = (m_index + 1) & (kSamples - 1);
+    return SuperStructureStateIndex.evaluate(
+        m_elevatorPositions[m_index], m_wristPositions[m_index]);
+  }
+}
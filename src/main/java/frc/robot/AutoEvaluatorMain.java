@@ -0,0 +1,57 @@
+package frc.robot;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.simulation.AutoEvaluator;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs Monte-Carlo trials of the autos on the physics sim and writes a CSV report, see {@link
+ * AutoEvaluator}. Run with ./gradlew evaluateAutos [-PevalTrials=200] [-PevalAutos="BumpTwo"]
+ * [-PevalOutput=build/autoEvaluation.csv]
+ */
+public final class AutoEvaluatorMain {
+  private AutoEvaluatorMain() {}
+
+  public static void main(String... args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("Usage: AutoEvaluatorMain <trials> <output.csv> [auto names]");
+      System.exit(1);
+    }
+    int trials = Integer.parseInt(args[0]);
+    var output = Path.of(args[1]);
+
+    List<String> autoNames = new ArrayList<>();
+    if (args.length > 2) {
+      for (var name : args[2].split(",")) if (!name.isBlank()) autoNames.add(name.strip());
+    }
+    if (autoNames.isEmpty()) {
+      if (!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+      Constants.initConstants();
+      try (var robotContainer = new RobotContainer()) {
+        autoNames.addAll(robotContainer.getAutoNames());
+      }
+    }
+
+    long startNs = System.nanoTime();
+    var summaries =
+        AutoEvaluator.evaluate(autoNames, trials, 4201, Runtime.getRuntime().availableProcessors());
+    AutoEvaluator.writeCsv(summaries, output);
+    for (var summary : summaries) {
+      System.out.printf(
+          "%s from %s: %.0f%% succeeded, %.0f%% balanced%n",
+          summary.autoName,
+          summary.station,
+          summary.getSuccessRate() * 100,
+          summary.getBalanceRate() * 100);
+    }
+    System.out.printf(
+        "Ran %d trials of %d autos in %.1f s, wrote %s%n",
+        trials,
+        autoNames.size(),
+        (System.nanoTime() - startNs) / 1e9,
+        output.toAbsolutePath());
+    System.exit(0);
+  }
+}
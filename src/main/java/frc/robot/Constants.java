@@ -8,6 +8,7 @@ import static frc.robot.Constants.CONSTANTS.kCANCoderSensorUnitsPerRotation;
 import static frc.robot.Constants.CONSTANTS.kFalconSensorUnitsPerRotation;
 
 import com.ctre.phoenix.motorcontrol.TalonFXInvertType;
+import com.pathplanner.lib.PathConstraints;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
@@ -17,14 +18,12 @@ import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color8Bit;
-import frc.robot.utils.ModuleMap;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * The Constants class provides a convenient place for teams to hold robot-wide numerical or boolean
@@ -272,20 +271,16 @@ public final class Constants {
     public static final double kTrackWidth = Units.inchesToMeters(24);
     public static final double kWheelBase = Units.inchesToMeters(24);
 
-    public static final Map<SWERVE_MODULE_POSITION, Translation2d> kModuleTranslations =
-        Map.of(
-            SWERVE_MODULE_POSITION.FRONT_LEFT,
-            new Translation2d(kWheelBase / 2, kTrackWidth / 2),
-            SWERVE_MODULE_POSITION.FRONT_RIGHT,
-            new Translation2d(kWheelBase / 2, -kTrackWidth / 2),
-            SWERVE_MODULE_POSITION.BACK_LEFT,
-            new Translation2d(-kWheelBase / 2, kTrackWidth / 2),
-            SWERVE_MODULE_POSITION.BACK_RIGHT,
-            new Translation2d(-kWheelBase / 2, -kTrackWidth / 2));
+    // Indexed by SWERVE_MODULE_POSITION ordinal
+    public static final Translation2d[] kModuleTranslations = {
+      new Translation2d(kWheelBase / 2, kTrackWidth / 2), // FRONT_LEFT
+      new Translation2d(kWheelBase / 2, -kTrackWidth / 2), // FRONT_RIGHT
+      new Translation2d(-kWheelBase / 2, kTrackWidth / 2), // BACK_LEFT
+      new Translation2d(-kWheelBase / 2, -kTrackWidth / 2) // BACK_RIGHT
+    };
 
     public static final SwerveDriveKinematics kSwerveKinematics =
-        new SwerveDriveKinematics(
-            ModuleMap.orderedValues(kModuleTranslations, new Translation2d[0]));
+        new SwerveDriveKinematics(kModuleTranslations);
 
     public static double frontLeftCANCoderOffset = 125.068;
     public static double frontRightCANCoderOffset = 62.051;
@@ -397,6 +392,15 @@ public final class Constants {
               Units.inchesToMeters(20)),
           new Rotation3d()),
     };
+
+    // Vision pose fusion
+    public static final int kPoseQueueDepth = 20;
+    public static final double kMaxMeasurementAgeSeconds = 0.5;
+    public static final double kMaxSingleTagDistanceMeters = 3.5;
+    public static final double kMaxMultiTagDistanceMeters = 6.0;
+    public static final double kMaxSingleTagPoseJumpMeters = 1.0;
+    public static final double kXYStdDevCoefficient = 0.05;
+    public static final double kThetaStdDevCoefficient = 0.1;
   }
 
   public static final class WRIST {
@@ -517,11 +521,16 @@ public final class Constants {
     public static final double elevatorSetpointTolerance = Units.inchesToMeters(2);
     public static final double wristSetpointTolerance = Units.degreesToRadians(4);
 
+    // Smaller changes than these don't make StateHandler re-evaluate its state, unless they cross
+    // a zone threshold or setpoint tolerance
+    public static final double elevatorChangeToleranceMeters = Units.inchesToMeters(0.05);
+    public static final double wristChangeToleranceRadians = Units.degreesToRadians(0.1);
+    public static final double poseChangeToleranceMeters = 0.01;
+    public static final double headingChangeToleranceRadians = Units.degreesToRadians(0.25);
+
     public static final double universalWristLowerLimitRadians = Units.degreesToRadians(25.0);
     public static final double universalWristUpperLimitRadians = Units.degreesToRadians(115.0);
 
-    public static boolean limitCanUtilization = false;
-
     public static final double mechanism2dXSize = ELEVATOR.THRESHOLD.ABSOLUTE_MAX.get() * 2;
     public static final double mechanism2dYSize = ELEVATOR.THRESHOLD.ABSOLUTE_MAX.get() * 2;
     public static final double mechanism2dXOffset = Units.inchesToMeters(3);
@@ -618,37 +627,69 @@ public final class Constants {
   public static class AUTO {
     public static double kAutoBalanceTimeout = 2.0;
     public static final double kAutoBalanceAngleThresholdDegrees = 2.0;
+    // Added to a setpoint move's planned time before an auto gives up waiting for the elevator and
+    // wrist to get there. The tuned waits were about this much longer than the plans
+    public static final double kTransitionTimeoutMarginSeconds = 0.5;
+
+    // DynamicPathGeneration
+    public static final double kAutoAlignMaxVelocityMetersPerSecond = Units.feetToMeters(8);
+    public static final double kAutoAlignMaxAccelerationMetersPerSecondSquared =
+        Units.feetToMeters(8);
+    // Distance from the robot's center to its bumper, where it stops in front of the grid
+    public static final double kAutoAlignGridOffsetMeters = Units.inchesToMeters(17);
+    // Distance kept from the charging station, at least half the robot's diagonal
+    public static final double kAutoAlignClearanceMeters = Units.inchesToMeters(28);
+    public static final double kAutoAlignToleranceMeters = Units.inchesToMeters(1);
+    public static final double kAutoAlignToleranceDegrees = 2;
+
+    // The max velocity and acceleration the autos drive their paths with. Every path is precompiled
+    // with each of these, see UTIL.kPrecompiledPathConstraints
+    public enum PATH_CONSTRAINTS {
+      FAST(Units.feetToMeters(16), Units.feetToMeters(13)),
+      SUBSTATION_THREE(Units.feetToMeters(16), Units.feetToMeters(16)),
+      BALANCE(Units.feetToMeters(8), Units.feetToMeters(8)),
+      SLOW(Units.feetToMeters(6), Units.feetToMeters(6)),
+      SIMULATION(Units.feetToMeters(4), Units.feetToMeters(4)),
+      HALF_SPEED(
+          SWERVE_DRIVE.kMaxSpeedMetersPerSecond * 0.5, SWERVE_DRIVE.kMaxSpeedMetersPerSecond * 0.5),
+      AUTO_VISUALIZER(1, 1);
+
+      private final PathConstraints value;
+
+      PATH_CONSTRAINTS(double maxVelocity, double maxAcceleration) {
+        this.value = new PathConstraints(maxVelocity, maxAcceleration);
+      }
 
-    public enum WAIT {
-      SCORE_HIGH_CONE(0.65), // good
-      SCORE_HIGH_CUBE(0.65), // good
-      SCORE_MID_CONE(0.4),
-      SCORE_MID_CUBE(0.4),
+      public PathConstraints get() {
+        return value;
+      }
+    }
 
+    // Elevator and wrist moves wait for AutoSetSetpoint, with
+    // StateHandler.getTransitionTimeoutSeconds() as their timeout
+    public enum WAIT {
       WAIT_TO_PLACE_CONE(1), // good
       WAIT_TO_PLACE_CUBE(1),
       WAIT_TO_PLACE_CUBE_MID(0.7), // good
 
       SCORING_CONE(0.75), // good
-      SCORING_CUBE(0.75), // good
-
-      STOW_HIGH_CONE(1.1), // 1.1 // good
-      STOW_HIGH_CUBE(1.1), // 1.1
-      STOW_HIGH_CUBE_FAST(0.7333333333), // good
-
-      STOW_MID_CONE(0.3),
-      STOW_MID_CUBE(0.1),
-
-      INTAKE_TO_STOW(0.5); // good
+      SCORING_CUBE(0.75); // good
 
       private final double value;
+      // Only changed in simulation, to see how sensitive the autos are to the timing
+      private static double m_scale = 1;
 
       WAIT(double value) {
         this.value = value;
       }
 
       public double get() {
-        return value;
+        return value * m_scale;
+      }
+
+      /** Scales every wait. Autos read the waits when they are built, so set this before. */
+      public static void setScale(double scale) {
+        m_scale = scale;
       }
     }
   }
@@ -660,6 +701,39 @@ public final class Constants {
 
   public static class UTIL {
     public static final String tempFileName = "initialize";
+
+    // LoopProfiler
+    public static final boolean kProfilerEnabledByDefault = false;
+    public static final int kProfilerWindowSize = 256;
+    public static final int kProfilerPublishPeriodLoops = 50;
+
+    // LogReplay
+    // NetworkTables published by the cameras, which are fed back in during replay
+    public static final String[] kReplayNetworkTables = {
+      "limelight", "lLocalizer", "rLocalizer", "fusedLocalizer"
+    };
+
+    // AutoRunner
+    public static final double kAutoRunnerDtSeconds = 0.02;
+    // Autos get 15 s in a match, but the sim paths are driven slower
+    public static final double kAutoRunnerTimeoutSeconds = 30;
+
+    // AutoEvaluator, the perturbations applied to each Monte-Carlo trial
+    public static final double kEvalStartPoseStdDevMeters = 0.05;
+    public static final double kEvalStartHeadingStdDevDegrees = 2;
+    public static final double kEvalMaxWheelSlip = 0.1; // Fraction of the wheel travel lost
+    public static final double kEvalWaitScaleStdDev = 0.1;
+    // A trial succeeds if it scores as many pieces as the unperturbed run and ends this close to it
+    public static final double kEvalPoseToleranceMeters = 0.3;
+    public static final int kEvalTrialsPerWorker = 25;
+
+    // TrajectoryCache
+    // The {max velocity, max acceleration} of every AUTO.PATH_CONSTRAINTS. ./gradlew
+    // compileTrajectories precompiles every path with each of these, others are generated at boot
+    public static final double[][] kPrecompiledPathConstraints =
+        Arrays.stream(AUTO.PATH_CONSTRAINTS.values())
+            .map(c -> new double[] {c.get().maxVelocity, c.get().maxAcceleration})
+            .toArray(double[][]::new);
   }
 
   public enum SCORING_STATE {
@@ -737,10 +811,6 @@ public final class Constants {
       initUnknown();
     }
 
-    if (!DriverStation.isFMSAttached()) {
-      STATE_HANDLER.limitCanUtilization = false;
-    }
-
     SmartDashboard.putString("Robot Name", robotName);
   }
 
@@ -0,0 +1,73 @@
+package frc.robot;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.utils.LogReplay;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.Telemetry;
+import java.io.File;
+
+/**
+ * Replays a match log through the robot code as fast as possible and writes the result to a new
+ * log, e.g. to re-tune the pose estimator or StateHandler against real match data. Run with
+ * ./gradlew replay -PreplayLog=path/to/log.wpilog
+ *
+ * <p>The sensor readings come from the recorded {@link frc.robot.utils.LoopRecord}s, through the
+ * subsystems' replay IO, and the camera NetworkTables entries, see {@link LogReplay}. Everything
+ * else (commands, StateHandler, the pose estimator, vision filtering) runs as it does on the robot.
+ */
+public final class ReplayMain {
+  private ReplayMain() {}
+
+  public static void main(String... args) throws Exception {
+    if (args.length < 1 || args[0].isEmpty()) {
+      System.err.println("Usage: ReplayMain <input.wpilog> [output directory]");
+      System.exit(1);
+    }
+    var input = new File(args[0]).getAbsoluteFile();
+    var outputDirectory = args.length > 1 && !args[1].isEmpty() ? args[1] : input.getParent();
+
+    if (!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+    // The sim clock only moves when the replay steps it
+    SimHooks.pauseTiming();
+    DataLogManager.start(outputDirectory, "replay_" + input.getName());
+
+    Constants.initConstants();
+    var replay = new LogReplay(input.getPath());
+    var robotContainer = new RobotContainer(replay.getRecord());
+    var swerveDrive = robotContainer.getSwerveDrive();
+    var poseEntry = new DoubleArrayLogEntry(DataLogManager.getLog(), "/replay/estimatedPose");
+    double[] pose = new double[3];
+
+    long startNs = System.nanoTime();
+    try (replay) {
+      replay.run(
+          () -> {
+            SensorCache.sampleAll();
+            CommandScheduler.getInstance().run();
+            robotContainer.periodic();
+            Telemetry.periodic();
+
+            var estimatedPose = swerveDrive.getPoseMeters();
+            pose[0] = estimatedPose.getX();
+            pose[1] = estimatedPose.getY();
+            pose[2] = estimatedPose.getRotation().getDegrees();
+            poseEntry.append(pose);
+          });
+
+      System.out.printf(
+          "Replayed %d loops (%.1f s of robot time) in %.1f s, skipped %d unreadable records%n",
+          replay.getLoopCount(),
+          replay.getLoopCount() * 0.02,
+          (System.nanoTime() - startNs) / 1e9,
+          replay.getRejectedRecordCount());
+    }
+
+    robotContainer.close();
+    DataLogManager.getLog().close();
+    System.exit(0);
+  }
+}
@@ -10,6 +10,9 @@ import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.Telemetry;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -22,6 +25,17 @@ public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
 
+  private final LoopProfiler.Section m_sensorCacheProfile =
+      LoopProfiler.register("SensorCache.sampleAll()");
+  private final LoopProfiler.Section m_schedulerProfile =
+      LoopProfiler.register("CommandScheduler.run()");
+  private final LoopProfiler.Section m_robotContainerProfile =
+      LoopProfiler.register("RobotContainer.periodic()");
+  private final LoopProfiler.Section m_robotContainerSimProfile =
+      LoopProfiler.register("RobotContainer.simulationPeriodic()");
+  private final LoopProfiler.Section m_telemetryProfile =
+      LoopProfiler.register("Telemetry.periodic()");
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
@@ -39,9 +53,15 @@ public class Robot extends TimedRobot {
       addPeriodic(() -> m_robotContainer.getWrist().updateHorizontalTranslation(), 0.04, 0.01);
     }
     //    addPeriodic(() -> m_robotContainer.getFieldSim().updateValidNodes(), 0.04, 0.01);
-    //    if (m_robotContainer.getDistanceSensor().isInitialized())
-    //      addPeriodic(() -> m_robotContainer.getDistanceSensor().pollDistanceSensors(), 0.1,
-    // 0.05);
+  }
+
+  @Override
+  protected void loopFunc() {
+    // Read every sensor once, before the mode init/periodic functions and the commands use them
+    m_sensorCacheProfile.start();
+    SensorCache.sampleAll();
+    m_sensorCacheProfile.stop();
+    super.loopFunc();
   }
 
   /**
@@ -57,8 +77,19 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    m_schedulerProfile.start();
     CommandScheduler.getInstance().run();
+    m_schedulerProfile.stop();
+
+    m_robotContainerProfile.start();
     m_robotContainer.periodic();
+    m_robotContainerProfile.stop();
+
+    m_telemetryProfile.start();
+    Telemetry.periodic();
+    m_telemetryProfile.stop();
+
+    LoopProfiler.periodic();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -122,6 +153,8 @@ public class Robot extends TimedRobot {
   /** This function is called periodically whilst in simulation. */
   @Override
   public void simulationPeriodic() {
+    m_robotContainerSimProfile.start();
     m_robotContainer.simulationPeriodic();
+    m_robotContainerSimProfile.stop();
   }
 }
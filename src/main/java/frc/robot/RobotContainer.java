@@ -13,17 +13,20 @@ import edu.wpi.first.wpilibj.GenericHID.RumbleType;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.ConditionalCommand;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
 import edu.wpi.first.wpilibj2.command.button.CommandPS4Controller;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.ELEVATOR;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.SCORING_STATE;
 import frc.robot.Constants.STATE_HANDLER;
 import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
+import frc.robot.Constants.SWERVE_DRIVE.SWERVE_MODULE_POSITION;
 import frc.robot.Constants.USB;
 import frc.robot.Constants.WRIST;
 import frc.robot.commands.auto.BumpTwo;
@@ -32,6 +35,7 @@ import frc.robot.commands.auto.CenterOneBalance;
 // import frc.robot.commands.auto.CenterOneBalance;
 import frc.robot.commands.auto.CenterOneBalanceCross;
 import frc.robot.commands.auto.DriveForward;
+import frc.robot.commands.auto.DynamicPathGeneration;
 import frc.robot.commands.auto.HighConeTimerTest;
 import frc.robot.commands.auto.HighCubeTimerTest;
 import frc.robot.commands.auto.MidCubeTimerTest;
@@ -55,11 +59,26 @@ import frc.robot.commands.wrist.*;
 import frc.robot.simulation.FieldSim;
 import frc.robot.simulation.MemoryLog;
 import frc.robot.subsystems.*;
+import frc.robot.subsystems.io.ElevatorIOReplay;
+import frc.robot.subsystems.io.GyroIOReplay;
+import frc.robot.subsystems.io.IntakeIOReplay;
+import frc.robot.subsystems.io.SwerveModuleIO;
+import frc.robot.subsystems.io.SwerveModuleIOReplay;
+import frc.robot.subsystems.io.WristIOReplay;
 import frc.robot.utils.LogManager;
+import frc.robot.utils.LoopRecord;
+import frc.robot.utils.LoopRecorder;
+import frc.robot.utils.TrajectoryCache;
 import frc.robot.utils.TrajectoryUtils;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * This class is where the bulk of the robot should be declared. Since Command-based is a
@@ -76,18 +95,29 @@ public class RobotContainer implements AutoCloseable {
   //  private final DistanceSensor m_distanceSensor = new DistanceSensor();
 
   // The robot's subsystems and commands are defined here...
-  private final SwerveDrive m_swerveDrive = new SwerveDrive();
-  private final Elevator m_elevator = new Elevator();
-  private final Intake m_intake = new Intake();
-  private final Wrist m_wrist = new Wrist(m_intake);
-  private final Controls m_controls = new Controls();
-  private final Vision m_vision = new Vision(m_swerveDrive, m_logger, m_controls, m_intake);
-  private final SendableChooser<Command> m_autoChooser = new SendableChooser<>();
-  private final LEDSubsystem m_led = new LEDSubsystem(m_controls);
-  private final StateHandler m_stateHandler =
-      new StateHandler(m_intake, m_wrist, m_swerveDrive, m_elevator, m_vision);
-  private final FieldSim m_fieldSim =
-      new FieldSim(m_swerveDrive, m_vision, m_elevator, m_wrist, m_stateHandler, m_controls);
+  private final SwerveDrive m_swerveDrive;
+  private final Elevator m_elevator;
+  private final Intake m_intake;
+  private final Wrist m_wrist;
+  private final Controls m_controls;
+  private final Vision m_vision;
+  // Holds factories, so only the selected auto is built
+  private final SendableChooser<Supplier<Command>> m_autoChooser = new SendableChooser<>();
+  // The chooser's options by name, so autos can also be run without the dashboard
+  private final Map<String, Supplier<Command>> m_autoFactories = new LinkedHashMap<>();
+  // Loads each auto's precompiled path group on TrajectoryCache's thread
+  private final Map<Supplier<Command>, Supplier<CompletableFuture<?>>> m_autoPreloads =
+      new LinkedHashMap<>();
+  // The selected auto, built while disabled once its path is loaded so autonomousInit doesn't
+  // have to
+  private Supplier<Command> m_preloadedAutoFactory;
+  private CompletableFuture<?> m_autoPreload = CompletableFuture.completedFuture(null);
+  private Supplier<Command> m_builtAutoFactory;
+  private Command m_builtAuto;
+  private final LEDSubsystem m_led;
+  private final StateHandler m_stateHandler;
+  private final FieldSim m_fieldSim;
+  private final LoopRecorder m_loopRecorder;
 
   private SendableChooser<List<PathPlannerTrajectory>> autoPlotter;
 
@@ -104,6 +134,39 @@ public class RobotContainer implements AutoCloseable {
   private final Trigger[] rightJoystickTriggers = new Trigger[2]; // right joystick buttons
 
   public RobotContainer() {
+    this(null);
+  }
+
+  /**
+   * Creates the container, optionally replaying the sensors from a log.
+   *
+   * @param replayRecord if not null, the subsystems read their sensors from this record instead of
+   *     the hardware, see {@link frc.robot.utils.LogReplay}
+   */
+  public RobotContainer(LoopRecord replayRecord) {
+    if (replayRecord == null) {
+      m_swerveDrive = new SwerveDrive();
+      m_elevator = new Elevator();
+      m_intake = new Intake();
+      m_wrist = new Wrist(m_intake);
+    } else {
+      var moduleIOs = new SwerveModuleIO[SWERVE_MODULE_POSITION.values().length];
+      for (int i = 0; i < moduleIOs.length; i++)
+        moduleIOs[i] = new SwerveModuleIOReplay(replayRecord, i);
+      m_swerveDrive = new SwerveDrive(new GyroIOReplay(replayRecord), moduleIOs);
+      m_elevator = new Elevator(new ElevatorIOReplay(replayRecord));
+      m_intake = new Intake(new IntakeIOReplay());
+      m_wrist = new Wrist(new WristIOReplay(replayRecord), m_intake);
+    }
+    m_controls = new Controls();
+    m_vision = new Vision(m_swerveDrive, m_logger, m_controls, m_intake);
+    m_led = new LEDSubsystem(m_controls);
+    m_stateHandler = new StateHandler(m_intake, m_wrist, m_swerveDrive, m_elevator, m_vision);
+    m_fieldSim =
+        new FieldSim(m_swerveDrive, m_vision, m_elevator, m_wrist, m_stateHandler, m_controls);
+    m_loopRecorder =
+        new LoopRecorder(m_logger, m_swerveDrive, m_elevator, m_wrist, m_intake, m_stateHandler);
+
     resetSubsystemPositions();
     initializeSubsystems();
     m_logger.pause();
@@ -159,6 +222,8 @@ public class RobotContainer implements AutoCloseable {
             () -> rightJoystick.getRawAxis(0)));
 
     rightJoystickTriggers[0].whileTrue(new LimitSwerveJoystickInput(m_swerveDrive));
+    // Drives to the nearest node for the scoring state and lines up with it
+    rightJoystickTriggers[1].whileTrue(new DynamicPathGeneration(m_swerveDrive, m_stateHandler));
 
     xboxController
         .leftTrigger(0.1)
@@ -354,53 +419,65 @@ public class RobotContainer implements AutoCloseable {
 
     // Main Autos
 
-    m_autoChooser.addOption(
+    addAutoOption(
         "SubstationThree",
-        new SubstationThree(
-            "SubstationTwoPickup",
-            m_swerveDrive,
-            m_fieldSim,
-            m_wrist,
-            m_intake,
-            m_vision,
-            m_elevator,
-            m_stateHandler));
-
-    m_autoChooser.addOption(
+        "SubstationTwoPickup",
+        getAutoPathConstraints(PATH_CONSTRAINTS.SUBSTATION_THREE),
+        () ->
+            new SubstationThree(
+                "SubstationTwoPickup",
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_vision,
+                m_elevator,
+                m_stateHandler));
+
+    addAutoOption(
         "SubstationTwoBalance",
-        new SubstationTwoBalance(
-            "SubstationTwoBalance",
-            m_swerveDrive,
-            m_fieldSim,
-            m_wrist,
-            m_intake,
-            m_vision,
-            m_elevator,
-            m_stateHandler));
-
-    m_autoChooser.addOption(
+        "SubstationTwoBalance",
+        getAutoPathConstraints(PATH_CONSTRAINTS.FAST),
+        () ->
+            new SubstationTwoBalance(
+                "SubstationTwoBalance",
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_vision,
+                m_elevator,
+                m_stateHandler));
+
+    addAutoOption(
         "CenterOneBalanceCross",
-        new CenterOneBalanceCross(
-            "CenterOneBalanceCross",
-            m_swerveDrive,
-            m_fieldSim,
-            m_wrist,
-            m_intake,
-            m_elevator,
-            m_vision,
-            m_stateHandler));
-
-    m_autoChooser.addOption(
+        "CenterOneBalanceCross",
+        getAutoPathConstraints(PATH_CONSTRAINTS.SLOW),
+        () ->
+            new CenterOneBalanceCross(
+                "CenterOneBalanceCross",
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_elevator,
+                m_vision,
+                m_stateHandler));
+
+    addAutoOption(
         "BumpTwo",
-        new BumpTwo(
-            "BumpTwo",
-            m_swerveDrive,
-            m_fieldSim,
-            m_wrist,
-            m_intake,
-            m_vision,
-            m_elevator,
-            m_stateHandler));
+        "BumpTwo",
+        getAutoPathConstraints(PATH_CONSTRAINTS.FAST),
+        () ->
+            new BumpTwo(
+                "BumpTwo",
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_vision,
+                m_elevator,
+                m_stateHandler));
 
     // Back Up Autos
 
@@ -416,17 +493,20 @@ public class RobotContainer implements AutoCloseable {
     //       m_elevator,
     //       m_stateHandler));
 
-    m_autoChooser.addOption(
+    addAutoOption(
         "CenterOneBalance",
-        new CenterOneBalance(
-            "CenterOneBalance",
-            m_swerveDrive,
-            m_fieldSim,
-            m_wrist,
-            m_intake,
-            m_elevator,
-            m_vision,
-            m_stateHandler));
+        "CenterOneBalance",
+        getAutoPathConstraints(PATH_CONSTRAINTS.BALANCE),
+        () ->
+            new CenterOneBalance(
+                "CenterOneBalance",
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_elevator,
+                m_vision,
+                m_stateHandler));
 
     // m_autoChooser.addOption(
     //   "BumpOnePickUp",
@@ -440,12 +520,15 @@ public class RobotContainer implements AutoCloseable {
     //       m_elevator,
     //       m_stateHandler));
 
-    m_autoChooser.addOption(
+    addAutoOption(
+        "DriveForward",
         "DriveForward",
-        new DriveForward(
-            "DriveForward", m_swerveDrive, m_fieldSim, m_wrist, m_elevator, m_stateHandler));
+        getAutoPathConstraints(PATH_CONSTRAINTS.SLOW),
+        () ->
+            new DriveForward(
+                "DriveForward", m_swerveDrive, m_fieldSim, m_wrist, m_elevator, m_stateHandler));
 
-    m_autoChooser.setDefaultOption("Do Nothing", new WaitCommand(0));
+    setDefaultAutoOption("Do Nothing", () -> new WaitCommand(0));
 
     // Test Autos
 
@@ -454,20 +537,41 @@ public class RobotContainer implements AutoCloseable {
     //     new JustBalance(
     //         "JustBalance", m_swerveDrive, m_fieldSim, m_wrist, m_intake, m_elevator, m_vision));
 
-    m_autoChooser.addOption(
+    addAutoOption(
         "TEST: HighConeTimer",
-        new HighConeTimerTest(
-            m_swerveDrive, m_fieldSim, m_wrist, m_intake, m_vision, m_elevator, m_stateHandler));
-
-    m_autoChooser.addOption(
+        () ->
+            new HighConeTimerTest(
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_vision,
+                m_elevator,
+                m_stateHandler));
+
+    addAutoOption(
         "TEST: HighCubeTimer",
-        new HighCubeTimerTest(
-            m_swerveDrive, m_fieldSim, m_wrist, m_intake, m_vision, m_elevator, m_stateHandler));
-
-    m_autoChooser.addOption(
+        () ->
+            new HighCubeTimerTest(
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_vision,
+                m_elevator,
+                m_stateHandler));
+
+    addAutoOption(
         "TEST: MidCubeTimer",
-        new MidCubeTimerTest(
-            m_swerveDrive, m_fieldSim, m_wrist, m_intake, m_vision, m_elevator, m_stateHandler));
+        () ->
+            new MidCubeTimerTest(
+                m_swerveDrive,
+                m_fieldSim,
+                m_wrist,
+                m_intake,
+                m_vision,
+                m_elevator,
+                m_stateHandler));
 
     // m_autoChooser.addOption(
     //     "JustBalance",
@@ -489,10 +593,18 @@ public class RobotContainer implements AutoCloseable {
     // m_autoChooser.addOption("AutoBalance", new AutoBalance(m_swerveDrive));
 
     if (RobotBase.isSimulation()) {
-      m_autoChooser.setDefaultOption(
+      setDefaultAutoOption(
           "TestSimAuto",
-          new TestSimAuto(
-              "TestSimAuto Copy", m_swerveDrive, m_elevator, m_wrist, m_stateHandler, m_fieldSim));
+          "TestSimAuto Copy",
+          PATH_CONSTRAINTS.HALF_SPEED.get(),
+          () ->
+              new TestSimAuto(
+                  "TestSimAuto Copy",
+                  m_swerveDrive,
+                  m_elevator,
+                  m_wrist,
+                  m_stateHandler,
+                  m_fieldSim));
     }
 
     SmartDashboard.putData("Auto Selector", m_autoChooser);
@@ -511,7 +623,8 @@ public class RobotContainer implements AutoCloseable {
           var filename = filepath.getName();
           if (filename.endsWith(".path")) {
             filename = filename.replace(".path", "");
-            var trajectories = TrajectoryUtils.readTrajectory(filename, new PathConstraints(1, 1));
+            var trajectories =
+                TrajectoryUtils.readTrajectory(filename, PATH_CONSTRAINTS.AUTO_VISUALIZER.get());
 
             autoPlotter.addOption(filename, trajectories);
           }
@@ -524,9 +637,56 @@ public class RobotContainer implements AutoCloseable {
     }
   }
 
+  private void addAutoOption(String name, Supplier<Command> factory) {
+    m_autoChooser.addOption(name, factory);
+    m_autoFactories.put(name, factory);
+  }
+
+  private void addAutoOption(
+      String name, String pathName, PathConstraints constraints, Supplier<Command> factory) {
+    addAutoOption(name, factory);
+    m_autoPreloads.put(factory, () -> TrajectoryCache.preload(pathName, constraints));
+  }
+
+  private void setDefaultAutoOption(String name, Supplier<Command> factory) {
+    m_autoChooser.setDefaultOption(name, factory);
+    m_autoFactories.put(name, factory);
+  }
+
+  private void setDefaultAutoOption(
+      String name, String pathName, PathConstraints constraints, Supplier<Command> factory) {
+    setDefaultAutoOption(name, factory);
+    m_autoPreloads.put(factory, () -> TrajectoryCache.preload(pathName, constraints));
+  }
+
+  // The constraints the autos read their path with, they all drive slower in simulation
+  private static PathConstraints getAutoPathConstraints(PATH_CONSTRAINTS constraints) {
+    return RobotBase.isSimulation() ? PATH_CONSTRAINTS.SIMULATION.get() : constraints.get();
+  }
+
+  /** Returns the names of every auto in the chooser, in the order they were added. */
+  public Set<String> getAutoNames() {
+    return Collections.unmodifiableSet(m_autoFactories.keySet());
+  }
+
+  /** Builds a new instance of the chooser's auto with the given name, or null if there is none. */
+  public Command getAutoCommand(String name) {
+    var factory = m_autoFactories.get(name);
+    return factory == null ? null : factory.get();
+  }
+
   public Command getAutonomousCommand() {
-    // An example command will be run in autonomous
-    return m_autoChooser.getSelected();
+    return buildSelectedAuto();
+  }
+
+  // Builds the selected auto, unless it was already built since it was selected
+  private Command buildSelectedAuto() {
+    var factory = m_autoChooser.getSelected();
+    if (factory != m_builtAutoFactory) {
+      m_builtAuto = factory == null ? null : factory.get();
+      m_builtAutoFactory = factory;
+    }
+    return m_builtAuto;
   }
 
   public SwerveDrive getSwerveDrive() {
@@ -579,9 +739,20 @@ public class RobotContainer implements AutoCloseable {
     xboxController.getHID().setRumble(RumbleType.kBothRumble, m_stateHandler.isOnTarget() ? 1 : 0);
     //    m_distanceSensor.periodic();
     // m_logManager.periodic();
+    m_loopRecorder.periodic();
   }
 
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    // Trajectories are loaded in the background when the selection changes, and the command is
+    // built once they are, not at boot or in autonomousInit
+    var factory = m_autoChooser.getSelected();
+    if (factory != m_preloadedAutoFactory) {
+      var preload = m_autoPreloads.get(factory);
+      m_autoPreload = preload == null ? CompletableFuture.completedFuture(null) : preload.get();
+      m_preloadedAutoFactory = factory;
+    }
+    if (m_autoPreload.isDone()) buildSelectedAuto();
+  }
 
   public void testPeriodic() {
     m_stateHandler.testPeriodic();
@@ -604,6 +775,20 @@ public class RobotContainer implements AutoCloseable {
     m_elevator.close();
     m_intake.close();
     m_controls.close();
+    // Stop the scheduler from running the closed subsystems and bindings, e.g. when another
+    // container is created in the same JVM
+    CommandScheduler.getInstance()
+        .unregisterSubsystem(
+            m_fieldSim,
+            m_stateHandler,
+            m_vision,
+            m_led,
+            m_wrist,
+            m_swerveDrive,
+            m_elevator,
+            m_intake,
+            m_controls);
+    CommandScheduler.getInstance().getDefaultButtonLoop().clear();
 
     //    m_distanceSensor.close();
     m_logger.close();
@@ -0,0 +1,51 @@
+package frc.robot;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import frc.robot.simulation.AutoRunner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs autos on the physics sim as fast as possible and prints how each one ended, see {@link
+ * AutoRunner}. Run with ./gradlew simAutos [-PsimAutos="BumpTwo,CenterOneBalance"]
+ *
+ * <p>Every auto in the chooser is run from both alliances unless a list of names is given. Exits
+ * with 1 if any auto did not finish, so it can be run on every commit.
+ */
+public final class SimAutoMain {
+  private static final AllianceStationID[] kStations = {
+    AllianceStationID.Blue1, AllianceStationID.Red1
+  };
+
+  private SimAutoMain() {}
+
+  public static void main(String... args) throws Exception {
+    if (!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+    Constants.initConstants();
+
+    List<String> autoNames = new ArrayList<>();
+    for (var arg : args) {
+      for (var name : arg.split(",")) if (!name.isBlank()) autoNames.add(name.strip());
+    }
+    if (autoNames.isEmpty()) {
+      try (var robotContainer = new RobotContainer()) {
+        autoNames.addAll(robotContainer.getAutoNames());
+      }
+    }
+
+    int failures = 0;
+    for (var autoName : autoNames) {
+      for (var station : kStations) {
+        var result = AutoRunner.run(autoName, station);
+        System.out.println(station + " " + result);
+        if (!result.finished) failures++;
+      }
+    }
+    System.out.printf(
+        "Ran %d autos from %s, %d did not finish%n",
+        autoNames.size(), Arrays.toString(kStations), failures);
+    System.exit(failures == 0 ? 0 : 1);
+  }
+}
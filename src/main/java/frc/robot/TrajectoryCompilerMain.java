@@ -0,0 +1,37 @@
+package frc.robot;
+
+import frc.robot.Constants.UTIL;
+import frc.robot.utils.TrajectoryCache;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Precompiles every PathPlanner path in the deploy directory, see {@link TrajectoryCache}. Runs
+ * before every deploy, or with ./gradlew compileTrajectories
+ */
+public final class TrajectoryCompilerMain {
+  private TrajectoryCompilerMain() {}
+
+  public static void main(String... args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: TrajectoryCompilerMain <path directory> <output directory>");
+      System.exit(1);
+    }
+    var paths = new File(args[0]).listFiles((directory, name) -> name.endsWith(".path"));
+    var output = new File(args[1]);
+    if (paths == null) throw new IOException("Could not list " + args[0]);
+    if (!output.isDirectory() && !output.mkdirs()) {
+      throw new IOException("Could not create " + output);
+    }
+    // Drop the paths that were deleted since the last run
+    var stale = output.listFiles((directory, name) -> name.endsWith(".traj"));
+    if (stale != null) for (var file : stale) file.delete();
+
+    for (var path : paths) {
+      var pathName = path.getName().replace(".path", "");
+      TrajectoryCache.compile(pathName, UTIL.kPrecompiledPathConstraints, output);
+      System.out.println("Compiled " + pathName);
+    }
+    System.exit(0);
+  }
+}
@@ -2,11 +2,11 @@ package frc.robot.commands.auto;
 
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.pathplanner.lib.PathConstraints;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.AUTO.WAIT;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.STATE_HANDLER.SETPOINT;
@@ -35,18 +35,20 @@ public class CenterOneBalance extends SequentialCommandGroup {
       Vision vision,
       StateHandler stateHandler) {
 
-    double maxVel = Units.feetToMeters(8);
-    double maxAccel = Units.feetToMeters(8);
-    if (RobotBase.isSimulation()) {
-      maxVel = Units.feetToMeters(4);
-      maxAccel = Units.feetToMeters(4);
-    }
-    PathConstraints constraints = new PathConstraints(maxVel, maxAccel);
+    PathConstraints constraints =
+        RobotBase.isSimulation()
+            ? PATH_CONSTRAINTS.SIMULATION.get()
+            : PATH_CONSTRAINTS.BALANCE.get();
 
     var trajectories = TrajectoryUtils.readTrajectory(pathName, constraints);
     var swerveCommands =
         TrajectoryUtils.generatePPSwerveControllerCommand(swerveDrive, trajectories);
 
+    double scoreHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CONE);
+    double stowHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.SCORE_HIGH_CONE, SETPOINT.STOWED);
+
     addCommands(
         /** Setting Up Auto Zeros robot to path flips path if necessary */
         new SetSwerveOdometry(swerveDrive, trajectories.get(0).getInitialHolonomicPose(), fieldSim),
@@ -55,9 +57,9 @@ public class CenterOneBalance extends SequentialCommandGroup {
         /** Brings elevator & wrist to High Pulls up cone */
         new ParallelCommandGroup(
             new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.SCORE_HIGH_CONE)
-                .withTimeout(WAIT.SCORE_HIGH_CONE.get()),
+                .withTimeout(scoreHighConeSeconds),
             new AutoSetIntakeSetpoint(intake, INTAKE_STATE.HOLDING_CONE, vision, swerveDrive)
-                .withTimeout(WAIT.SCORE_HIGH_CONE.get())),
+                .withTimeout(scoreHighConeSeconds)),
         /** Outakes cone */
         new WaitCommand(WAIT.WAIT_TO_PLACE_CONE.get()),
         new AutoSetIntakeSetpoint(intake, INTAKE_STATE.SCORING_CONE, vision, swerveDrive)
@@ -66,10 +68,10 @@ public class CenterOneBalance extends SequentialCommandGroup {
         /** Stows Wrist, Elevator, and Stops intake */
         new ParallelCommandGroup(
             new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED)
-                .withTimeout(WAIT.STOW_HIGH_CONE.get()),
+                .withTimeout(stowHighConeSeconds),
             new AutoSetIntakeSetpoint(intake, INTAKE_STATE.NONE, vision, swerveDrive)
-                .withTimeout(WAIT.STOW_HIGH_CONE.get())),
-        new WaitCommand(WAIT.STOW_HIGH_CONE.get()),
+                .withTimeout(stowHighConeSeconds)),
+        new WaitCommand(stowHighConeSeconds),
         swerveCommands.get(0),
         new AutoBalance(swerveDrive),
         new SetSwerveNeutralMode(swerveDrive, NeutralMode.Brake)
@@ -2,9 +2,9 @@ package frc.robot.commands.auto;
 
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.pathplanner.lib.PathConstraints;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.*;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.AUTO.WAIT;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.STATE_HANDLER.SETPOINT;
@@ -38,18 +38,18 @@ public class CenterOneBalanceCross extends SequentialCommandGroup {
       Vision vision,
       StateHandler stateHandler) {
 
-    double maxVel = Units.feetToMeters(6);
-    double maxAccel = Units.feetToMeters(6);
-    if (RobotBase.isSimulation()) {
-      maxVel = Units.feetToMeters(4);
-      maxAccel = Units.feetToMeters(4);
-    }
-    PathConstraints constraints = new PathConstraints(maxVel, maxAccel);
+    PathConstraints constraints =
+        RobotBase.isSimulation() ? PATH_CONSTRAINTS.SIMULATION.get() : PATH_CONSTRAINTS.SLOW.get();
 
     var m_trajectories = TrajectoryUtils.readTrajectory(pathName, constraints);
     var swerveCommands =
         TrajectoryUtils.generatePPSwerveControllerCommand(swerveDrive, m_trajectories);
 
+    double scoreHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CONE);
+    double stowHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.SCORE_HIGH_CONE, SETPOINT.STOWED);
+
     addCommands(
         new SetSwerveOdometry(
             swerveDrive, m_trajectories.get(0).getInitialHolonomicPose(), fieldSim),
@@ -59,7 +59,7 @@ public class CenterOneBalanceCross extends SequentialCommandGroup {
         new ParallelCommandGroup(
                 new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.SCORE_HIGH_CONE),
                 new AutoSetIntakeSetpoint(intake, INTAKE_STATE.HOLDING_CONE, vision, swerveDrive))
-            .withTimeout(WAIT.SCORE_HIGH_CONE.get()),
+            .withTimeout(scoreHighConeSeconds),
         /** Outakes cone */
         new WaitCommand(WAIT.WAIT_TO_PLACE_CONE.get()),
         new AutoSetIntakeSetpoint(intake, INTAKE_STATE.SCORING_CONE, vision, swerveDrive)
@@ -69,7 +69,7 @@ public class CenterOneBalanceCross extends SequentialCommandGroup {
         new ParallelCommandGroup(
                 new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED),
                 new AutoSetIntakeSetpoint(intake, INTAKE_STATE.NONE, vision, swerveDrive))
-            .withTimeout(WAIT.STOW_HIGH_CONE.get()),
+            .withTimeout(stowHighConeSeconds),
         new InstantCommand(() -> vision.setPipeline(CAMERA_SERVER.INTAKE, PIPELINE.CUBE.get())),
 
         /** Runs Path with Intaking cube during */
@@ -4,9 +4,9 @@ import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.pathplanner.lib.PathConstraints;
 import com.pathplanner.lib.PathPlannerTrajectory;
 import com.pathplanner.lib.commands.PPSwerveControllerCommand;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.STATE_HANDLER;
 import frc.robot.commands.statehandler.AutoSetSetpoint;
 import frc.robot.commands.swerve.SetSwerveNeutralMode;
@@ -28,13 +28,8 @@ public class DriveForward extends SequentialCommandGroup {
       Elevator elevator,
       StateHandler stateHandler) {
 
-    double maxVel = Units.feetToMeters(6);
-    double maxAccel = Units.feetToMeters(6);
-    if (RobotBase.isSimulation()) {
-      maxVel = Units.feetToMeters(4);
-      maxAccel = Units.feetToMeters(4);
-    }
-    PathConstraints constraints = new PathConstraints(maxVel, maxAccel);
+    PathConstraints constraints =
+        RobotBase.isSimulation() ? PATH_CONSTRAINTS.SIMULATION.get() : PATH_CONSTRAINTS.SLOW.get();
 
     List<PathPlannerTrajectory> trajectories =
         TrajectoryUtils.readTrajectory(pathName, constraints);
@@ -4,49 +4,242 @@
 
 package frc.robot.commands.auto;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.math.trajectory.TrajectoryGenerator;
-import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants.AUTO;
+import frc.robot.Constants.SCORING_STATE;
 import frc.robot.Constants.SWERVE_DRIVE;
+import frc.robot.simulation.SimConstants;
+import frc.robot.subsystems.StateHandler;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.utils.ChargedUpNodeMask;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Drives to the nearest valid node for the current scoring state ({@link
+ * ChargedUpNodeMask#getTargetNode(Pose2d)}) and lines up in front of it, going around the charging
+ * station. The trajectory is generated on a worker thread, the robot holds still until it's ready.
+ */
 public class DynamicPathGeneration extends CommandBase {
-  /** Creates a new DynamicPathGeneration. */
-  public DynamicPathGeneration() {
+  // Generating a trajectory can take longer than a loop
+  private static final ExecutorService m_generator =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "DynamicPathGeneration");
+            thread.setDaemon(true);
+            return thread;
+          });
 
-    TrajectoryConfig config =
-        new TrajectoryConfig(Units.feetToMeters(3), Units.feetToMeters(3))
-            .setKinematics(SWERVE_DRIVE.kSwerveKinematics);
+  private final SwerveDrive m_swerveDrive;
+  private final StateHandler m_stateHandler;
+  private final Timer m_timer = new Timer();
+
+  private CompletableFuture<Trajectory> m_trajectoryFuture;
+  private Trajectory m_trajectory;
+  private Pose2d m_goal;
+
+  /** Creates a new DynamicPathGeneration. */
+  public DynamicPathGeneration(SwerveDrive swerveDrive, StateHandler stateHandler) {
+    m_swerveDrive = swerveDrive;
+    m_stateHandler = stateHandler;
 
-    Trajectory trajectory =
-        TrajectoryGenerator.generateTrajectory(
-            new Pose2d(0, 0, new Rotation2d(0)),
-            List.of(new Translation2d(1, 1), new Translation2d(2, -1)),
-            new Pose2d(3, 0, new Rotation2d(0)),
-            config);
     // Use addRequirements() here to declare subsystem dependencies.
+    addRequirements(m_swerveDrive);
   }
 
   // Called when the command is initially scheduled.
   @Override
-  public void initialize() {}
+  public void initialize() {
+    m_trajectory = null;
+    m_goal = null;
+    m_timer.stop();
+    m_timer.reset();
+    m_swerveDrive.getXPidController().reset();
+    m_swerveDrive.getYPidController().reset();
+    m_swerveDrive.getThetaPidController().reset();
+
+    var pose = m_swerveDrive.getPoseMeters();
+    var scoringState = m_stateHandler.getScoringState();
+    var nodeMask = m_stateHandler.getNodeMask();
+    nodeMask.updateNodeMask(pose, scoringState);
+    // Read once, so the nodes can't change between the check and the search
+    var nodes = nodeMask.getSnapshot();
+    if (nodes.validNodeMask == 0) return;
+
+    m_goal = getScoringPose(nodes.getTargetNode(pose), scoringState);
+    var start = pose.getTranslation();
+    var goal = m_goal.getTranslation();
+    m_trajectoryFuture = CompletableFuture.supplyAsync(() -> generate(start, goal), m_generator);
+  }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
-  public void execute() {}
+  public void execute() {
+    if (m_trajectory == null) {
+      if (m_trajectoryFuture == null || !m_trajectoryFuture.isDone()) {
+        m_swerveDrive.setChassisSpeed(new ChassisSpeeds());
+        return;
+      }
+      if (m_trajectoryFuture.isCompletedExceptionally()) {
+        // Ends the command
+        m_goal = null;
+        return;
+      }
+      m_trajectory = m_trajectoryFuture.join();
+      m_timer.start();
+    }
+
+    var pose = m_swerveDrive.getPoseMeters();
+    var state = m_trajectory.sample(m_timer.get());
+    var heading = state.poseMeters.getRotation();
+    double vx =
+        state.velocityMetersPerSecond * heading.getCos()
+            + m_swerveDrive.getXPidController().calculate(pose.getX(), state.poseMeters.getX());
+    double vy =
+        state.velocityMetersPerSecond * heading.getSin()
+            + m_swerveDrive.getYPidController().calculate(pose.getY(), state.poseMeters.getY());
+    double omega =
+        MathUtil.clamp(
+            m_swerveDrive
+                .getThetaPidController()
+                .calculate(pose.getRotation().getRadians(), m_goal.getRotation().getRadians()),
+            -SWERVE_DRIVE.kMaxRotationRadiansPerSecond,
+            SWERVE_DRIVE.kMaxRotationRadiansPerSecond);
+
+    m_swerveDrive.setChassisSpeed(
+        ChassisSpeeds.fromFieldRelativeSpeeds(vx, vy, omega, pose.getRotation()));
+  }
 
   // Called once the command ends or is interrupted.
   @Override
-  public void end(boolean interrupted) {}
+  public void end(boolean interrupted) {
+    if (m_trajectoryFuture != null) m_trajectoryFuture.cancel(false);
+    m_trajectoryFuture = null;
+    m_timer.stop();
+    m_swerveDrive.drive(0, 0, 0, true, false);
+  }
 
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return false;
+    if (m_goal == null) return true;
+    if (m_trajectory == null || m_timer.get() < m_trajectory.getTotalTimeSeconds()) return false;
+
+    var error = m_goal.relativeTo(m_swerveDrive.getPoseMeters());
+    return error.getTranslation().getNorm() < AUTO.kAutoAlignToleranceMeters
+        && Math.abs(error.getRotation().getDegrees()) < AUTO.kAutoAlignToleranceDegrees;
+  }
+
+  /** Where the robot's center stops to score on the node, facing its grid. */
+  static Pose2d getScoringPose(Pose2d node, SCORING_STATE scoringState) {
+    boolean redGrid = node.getX() > SimConstants.fieldLength / 2;
+    double x = SimConstants.Grids.outerX + AUTO.kAutoAlignGridOffsetMeters;
+    var heading = Rotation2d.fromDegrees(redGrid ? 0 : 180);
+    if (scoringState == SCORING_STATE.LOW_REVERSE) {
+      heading = heading.rotateBy(Rotation2d.fromDegrees(180));
+    }
+    return new Pose2d(redGrid ? SimConstants.fieldLength - x : x, node.getY(), heading);
+  }
+
+  private static Trajectory generate(Translation2d start, Translation2d goal) {
+    // Plan in the blue alliance's frame, where the charging station is defined
+    boolean redGrid = goal.getX() > SimConstants.fieldLength / 2;
+    var waypoints = planWaypoints(mirror(start, redGrid), mirror(goal, redGrid));
+    for (int i = 0; i < waypoints.size(); i++) waypoints.set(i, mirror(waypoints.get(i), redGrid));
+
+    var config =
+        new TrajectoryConfig(
+                AUTO.kAutoAlignMaxVelocityMetersPerSecond,
+                AUTO.kAutoAlignMaxAccelerationMetersPerSecondSquared)
+            .setKinematics(SWERVE_DRIVE.kSwerveKinematics);
+    var first = waypoints.isEmpty() ? goal : waypoints.get(0);
+    var last = waypoints.isEmpty() ? start : waypoints.get(waypoints.size() - 1);
+    return TrajectoryGenerator.generateTrajectory(
+        new Pose2d(start, first.minus(start).getAngle()),
+        waypoints,
+        new Pose2d(goal, goal.minus(last).getAngle()),
+        config);
+  }
+
+  /**
+   * Returns the interior waypoints from start to goal, in the blue alliance's frame. The path goes
+   * around whichever side of the charging station is shorter if the straight line would cross it.
+   */
+  static List<Translation2d> planWaypoints(Translation2d start, Translation2d goal) {
+    double minX = SimConstants.Community.chargingStationInnerX - AUTO.kAutoAlignClearanceMeters;
+    double maxX = SimConstants.Community.chargingStationOuterX + AUTO.kAutoAlignClearanceMeters;
+    double minY = SimConstants.Community.chargingStationRightY - AUTO.kAutoAlignClearanceMeters;
+    double maxY = SimConstants.Community.chargingStationLeftY + AUTO.kAutoAlignClearanceMeters;
+
+    var waypoints = new ArrayList<Translation2d>();
+    boolean startInside =
+        start.getX() > minX && start.getX() < maxX && start.getY() > minY && start.getY() < maxY;
+    // Already on the charging station, drive straight off it
+    if (startInside || !crosses(start, goal, minX, maxX, minY, maxY)) return waypoints;
+
+    List<Translation2d> best = null;
+    double bestLength = Double.POSITIVE_INFINITY;
+    for (double y : new double[] {minY, maxY}) {
+      var candidate = new ArrayList<Translation2d>();
+      // Corners on the way, the goal is always on the grid's side
+      if (start.getX() > maxX) candidate.add(new Translation2d(maxX, y));
+      if (goal.getX() < minX) candidate.add(new Translation2d(minX, y));
+
+      double length = 0;
+      var previous = start;
+      for (var corner : candidate) {
+        length += previous.getDistance(corner);
+        previous = corner;
+      }
+      length += previous.getDistance(goal);
+      if (length < bestLength) {
+        bestLength = length;
+        best = candidate;
+      }
+    }
+    waypoints.addAll(best);
+    return waypoints;
+  }
+
+  // Liang-Barsky, true if the segment passes through the rectangle
+  private static boolean crosses(
+      Translation2d start, Translation2d end, double minX, double maxX, double minY, double maxY) {
+    double dx = end.getX() - start.getX();
+    double dy = end.getY() - start.getY();
+    double[] p = {-dx, dx, -dy, dy};
+    double[] q = {
+      start.getX() - minX, maxX - start.getX(), start.getY() - minY, maxY - start.getY()
+    };
+    double t0 = 0;
+    double t1 = 1;
+    for (int i = 0; i < p.length; i++) {
+      if (p[i] == 0) {
+        if (q[i] < 0) return false;
+      } else {
+        double t = q[i] / p[i];
+        if (p[i] < 0) t0 = Math.max(t0, t);
+        else t1 = Math.min(t1, t);
+        if (t0 > t1) return false;
+      }
+    }
+    return true;
+  }
+
+  private static Translation2d mirror(Translation2d translation, boolean mirror) {
+    return mirror
+        ? new Translation2d(SimConstants.fieldLength - translation.getX(), translation.getY())
+        : translation;
   }
 }
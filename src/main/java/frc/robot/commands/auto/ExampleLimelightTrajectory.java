@@ -1,9 +1,9 @@
 package frc.robot.commands.auto;
 
 import com.pathplanner.lib.PathConstraints;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.*;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.STATE_HANDLER;
 import frc.robot.Constants.VISION.CAMERA_SERVER;
@@ -28,13 +28,8 @@ public class ExampleLimelightTrajectory extends SequentialCommandGroup {
       Elevator elevator,
       StateHandler stateHandler) {
 
-    double maxVel = Units.feetToMeters(16);
-    double maxAccel = Units.feetToMeters(13);
-    if (RobotBase.isSimulation()) {
-      maxVel = Units.feetToMeters(4);
-      maxAccel = Units.feetToMeters(4);
-    }
-    PathConstraints constraints = new PathConstraints(maxVel, maxAccel);
+    PathConstraints constraints =
+        RobotBase.isSimulation() ? PATH_CONSTRAINTS.SIMULATION.get() : PATH_CONSTRAINTS.FAST.get();
 
     var m_trajectories = TrajectoryUtils.readTrajectory(pathName, constraints);
     var swerveCommands =
@@ -32,6 +32,11 @@ public class HighConeTimerTest extends SequentialCommandGroup {
 
     Timer timer = new Timer();
 
+    double scoreHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CONE);
+    double stowHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.SCORE_HIGH_CONE, SETPOINT.STOWED);
+
     addCommands(
         new InstantCommand(() -> timer.reset()),
         new InstantCommand(() -> timer.start()),
@@ -42,7 +47,7 @@ public class HighConeTimerTest extends SequentialCommandGroup {
                     new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.SCORE_HIGH_CONE),
                     new AutoSetIntakeSetpoint(
                         intake, INTAKE_STATE.HOLDING_CONE, vision, swerveDrive))
-                .withTimeout(WAIT.SCORE_HIGH_CONE.get()),
+                .withTimeout(scoreHighConeSeconds),
 
             /** Outakes cone */
             new WaitCommand(WAIT.WAIT_TO_PLACE_CONE.get()),
@@ -55,7 +60,7 @@ public class HighConeTimerTest extends SequentialCommandGroup {
             new ParallelCommandGroup(
                     new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED),
                     new AutoSetIntakeSetpoint(intake, INTAKE_STATE.NONE, vision, swerveDrive))
-                .withTimeout(WAIT.STOW_HIGH_CONE.get()),
+                .withTimeout(stowHighConeSeconds),
 
             /** Runs Path with Intaking cube during */
             new PrintCommand(String.format("Command Ends at: %f", timer.get()))));
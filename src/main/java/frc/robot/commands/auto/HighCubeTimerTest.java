@@ -32,6 +32,11 @@ public class HighCubeTimerTest extends SequentialCommandGroup {
 
     Timer timer = new Timer();
 
+    double scoreHighCubeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CUBE);
+    double stowHighCubeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.SCORE_HIGH_CUBE, SETPOINT.STOWED);
+
     addCommands(
         new InstantCommand(() -> timer.reset()),
         new InstantCommand(() -> timer.start()),
@@ -42,7 +47,7 @@ public class HighCubeTimerTest extends SequentialCommandGroup {
                     new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.SCORE_HIGH_CUBE),
                     new AutoSetIntakeSetpoint(
                         intake, INTAKE_STATE.HOLDING_CUBE, vision, swerveDrive))
-                .withTimeout(WAIT.SCORE_HIGH_CUBE.get()),
+                .withTimeout(scoreHighCubeSeconds),
 
             /** Outakes cone */
             new WaitCommand(WAIT.WAIT_TO_PLACE_CUBE.get()),
@@ -55,7 +60,7 @@ public class HighCubeTimerTest extends SequentialCommandGroup {
             new ParallelCommandGroup(
                     new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED),
                     new AutoSetIntakeSetpoint(intake, INTAKE_STATE.NONE, vision, swerveDrive))
-                .withTimeout(WAIT.STOW_HIGH_CUBE.get()),
+                .withTimeout(stowHighCubeSeconds),
 
             /** Runs Path with Intaking cube during */
             new PrintCommand(String.format("Command Ends at: %f", timer.get()))));
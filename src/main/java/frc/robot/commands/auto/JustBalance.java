@@ -1,9 +1,8 @@
 package frc.robot.commands.auto;
 
 import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.pathplanner.lib.PathConstraints;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.commands.swerve.AutoBalance;
 import frc.robot.commands.swerve.SetSwerveNeutralMode;
 import frc.robot.commands.swerve.SetSwerveOdometry;
@@ -25,9 +24,7 @@ public class JustBalance extends SequentialCommandGroup {
       Elevator elevator,
       Vision vision) {
 
-    var trajectories =
-        TrajectoryUtils.readTrajectory(
-            pathName, new PathConstraints(Units.feetToMeters(6), Units.feetToMeters(6)));
+    var trajectories = TrajectoryUtils.readTrajectory(pathName, PATH_CONSTRAINTS.SLOW.get());
     var swerveCommands =
         TrajectoryUtils.generatePPSwerveControllerCommand(swerveDrive, trajectories);
 
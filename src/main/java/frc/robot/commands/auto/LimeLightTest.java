@@ -1,13 +1,12 @@
 package frc.robot.commands.auto;
 
-import com.pathplanner.lib.PathConstraints;
 import com.pathplanner.lib.PathPlannerTrajectory;
 import com.pathplanner.lib.commands.PPSwerveControllerCommand;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.STATE_HANDLER;
-import frc.robot.Constants.SWERVE_DRIVE;
 import frc.robot.Constants.VISION.CAMERA_SERVER;
 import frc.robot.Constants.VISION.PIPELINE;
 import frc.robot.commands.InterruptingCommand;
@@ -38,12 +37,7 @@ public class LimeLightTest extends SequentialCommandGroup {
       Elevator elevator,
       StateHandler stateHandler) {
 
-    m_trajectories =
-        TrajectoryUtils.readTrajectory(
-            pathName,
-            new PathConstraints(
-                SWERVE_DRIVE.kMaxSpeedMetersPerSecond * 0.5,
-                SWERVE_DRIVE.kMaxSpeedMetersPerSecond * 0.5));
+    m_trajectories = TrajectoryUtils.readTrajectory(pathName, PATH_CONSTRAINTS.HALF_SPEED.get());
 
     List<PPSwerveControllerCommand> swerveCommands =
         TrajectoryUtils.generatePPSwerveControllerCommand(swerveDrive, m_trajectories);
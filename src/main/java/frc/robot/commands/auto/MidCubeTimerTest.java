@@ -31,6 +31,11 @@ public class MidCubeTimerTest extends SequentialCommandGroup {
       StateHandler stateHandler) {
     Timer timer = new Timer();
 
+    double scoreMidCubeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.STOWED, SETPOINT.SCORE_MID_CUBE);
+    double stowMidCubeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.SCORE_MID_CUBE, SETPOINT.STOWED);
+
     addCommands(
         new InstantCommand(() -> timer.reset()),
         new InstantCommand(() -> timer.start()),
@@ -41,7 +46,7 @@ public class MidCubeTimerTest extends SequentialCommandGroup {
                     new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.SCORE_MID_CUBE),
                     new AutoSetIntakeSetpoint(
                         intake, INTAKE_STATE.HOLDING_CUBE, vision, swerveDrive))
-                .withTimeout(WAIT.SCORE_MID_CUBE.get()),
+                .withTimeout(scoreMidCubeSeconds),
 
             /** Outakes cone */
             new WaitCommand(WAIT.WAIT_TO_PLACE_CUBE.get()),
@@ -54,7 +59,7 @@ public class MidCubeTimerTest extends SequentialCommandGroup {
             new ParallelCommandGroup(
                     new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED),
                     new AutoSetIntakeSetpoint(intake, INTAKE_STATE.NONE, vision, swerveDrive))
-                .withTimeout(WAIT.STOW_MID_CUBE.get()),
+                .withTimeout(stowMidCubeSeconds),
 
             /** Runs Path with Intaking cube during */
             new PrintCommand(String.format("Command Ends at: %f", timer.get()))));
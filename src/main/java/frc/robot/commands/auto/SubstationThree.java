@@ -2,9 +2,9 @@ package frc.robot.commands.auto;
 
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.pathplanner.lib.PathConstraints;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.*;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.AUTO.WAIT;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.STATE_HANDLER.SETPOINT;
@@ -37,18 +37,26 @@ public class SubstationThree extends SequentialCommandGroup {
       Elevator elevator,
       StateHandler stateHandler) {
 
-    double maxVel = Units.feetToMeters(16);
-    double maxAccel = Units.feetToMeters(16);
-    if (RobotBase.isSimulation()) {
-      maxVel = Units.feetToMeters(4);
-      maxAccel = Units.feetToMeters(4);
-    }
-    PathConstraints constraints = new PathConstraints(maxVel, maxAccel);
+    PathConstraints constraints =
+        RobotBase.isSimulation()
+            ? PATH_CONSTRAINTS.SIMULATION.get()
+            : PATH_CONSTRAINTS.SUBSTATION_THREE.get();
 
     var m_trajectories = TrajectoryUtils.readTrajectory(pathName, constraints);
     var swerveCommands =
         TrajectoryUtils.generatePPSwerveControllerCommand(swerveDrive, m_trajectories);
 
+    double scoreHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CONE);
+    double stowHighConeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.SCORE_HIGH_CONE, SETPOINT.STOWED);
+    double intakeToStowSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.INTAKING_LOW_CUBE, SETPOINT.STOWED);
+    double scoreHighCubeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CUBE);
+    double stowHighCubeSeconds =
+        stateHandler.getTransitionTimeoutSeconds(SETPOINT.SCORE_HIGH_CUBE, SETPOINT.STOWED);
+
     addCommands(
         new SetSwerveOdometry(
             swerveDrive, m_trajectories.get(0).getInitialHolonomicPose(), fieldSim),
@@ -58,7 +66,7 @@ public class SubstationThree extends SequentialCommandGroup {
         new ParallelCommandGroup(
                 new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.SCORE_HIGH_CONE),
                 new AutoSetIntakeSetpoint(intake, INTAKE_STATE.HOLDING_CONE, vision, swerveDrive))
-            .withTimeout(WAIT.SCORE_HIGH_CONE.get()),
+            .withTimeout(scoreHighConeSeconds),
         /** Outakes cone */
         new WaitCommand(WAIT.WAIT_TO_PLACE_CONE.get()),
         new AutoSetIntakeSetpoint(intake, INTAKE_STATE.SCORING_CONE, vision, swerveDrive)
@@ -68,7 +76,7 @@ public class SubstationThree extends SequentialCommandGroup {
         new ParallelCommandGroup(
                 new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED),
                 new AutoSetIntakeSetpoint(intake, INTAKE_STATE.NONE, vision, swerveDrive))
-            .withTimeout(WAIT.STOW_HIGH_CONE.get()),
+            .withTimeout(stowHighConeSeconds),
         new InstantCommand(() -> vision.setPipeline(CAMERA_SERVER.INTAKE, PIPELINE.CUBE.get())),
 
         /** Runs Path with Intaking cube during */
@@ -88,11 +96,11 @@ public class SubstationThree extends SequentialCommandGroup {
         new ParallelCommandGroup(
             swerveCommands.get(1),
             new SetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED)
-                .withTimeout(WAIT.INTAKE_TO_STOW.get())),
+                .withTimeout(intakeToStowSeconds)),
         new ParallelCommandGroup(
                 new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.SCORE_HIGH_CUBE),
                 new AutoSetIntakeSetpoint(intake, INTAKE_STATE.HOLDING_CUBE, vision, swerveDrive))
-            .withTimeout(WAIT.SCORE_HIGH_CUBE.get()),
+            .withTimeout(scoreHighCubeSeconds),
         /** Outakes cone */
         new WaitCommand(WAIT.WAIT_TO_PLACE_CUBE.get()),
         new AutoSetIntakeSetpoint(intake, INTAKE_STATE.SCORING_CUBE, vision, swerveDrive)
@@ -102,7 +110,7 @@ public class SubstationThree extends SequentialCommandGroup {
         new ParallelCommandGroup(
                 new AutoSetSetpoint(stateHandler, elevator, wrist, SETPOINT.STOWED),
                 new AutoSetIntakeSetpoint(intake, INTAKE_STATE.NONE, vision, swerveDrive))
-            .withTimeout(WAIT.STOW_HIGH_CUBE.get()),
+            .withTimeout(stowHighCubeSeconds),
         new ParallelDeadlineGroup(
             new WaitCommand(m_trajectories.get(2).getTotalTimeSeconds() + 0.95),
             new DelayedInterruptingCommand(
@@ -1,11 +1,10 @@
 package frc.robot.commands.auto;
 
-import com.pathplanner.lib.PathConstraints;
 import com.pathplanner.lib.PathPlannerTrajectory;
 import com.pathplanner.lib.commands.PPSwerveControllerCommand;
 import edu.wpi.first.wpilibj2.command.*;
+import frc.robot.Constants.AUTO.PATH_CONSTRAINTS;
 import frc.robot.Constants.STATE_HANDLER;
-import frc.robot.Constants.SWERVE_DRIVE;
 import frc.robot.commands.statehandler.SetSetpoint;
 import frc.robot.commands.swerve.SetSwerveOdometry;
 import frc.robot.simulation.FieldSim;
@@ -26,12 +25,7 @@ public class TestSimAuto extends SequentialCommandGroup {
       Wrist wrist,
       StateHandler stateHandler,
       FieldSim fieldSim) {
-    m_trajectories =
-        TrajectoryUtils.readTrajectory(
-            pathName,
-            new PathConstraints(
-                SWERVE_DRIVE.kMaxSpeedMetersPerSecond * 0.5,
-                SWERVE_DRIVE.kMaxSpeedMetersPerSecond * 0.5));
+    m_trajectories = TrajectoryUtils.readTrajectory(pathName, PATH_CONSTRAINTS.HALF_SPEED.get());
 
     List<PPSwerveControllerCommand> swerveCommands =
         TrajectoryUtils.generatePPSwerveControllerCommand(swerveDrive, m_trajectories);
@@ -11,6 +11,7 @@ import frc.robot.Constants.STATE_HANDLER;
 import frc.robot.subsystems.Elevator;
 import frc.robot.subsystems.StateHandler;
 import frc.robot.subsystems.Wrist;
+import frc.robot.utils.SuperstructurePlanner;
 
 public class AutoSetSetpoint extends CommandBase {
   /** Creates a new AutoSetSetpoint. */
@@ -56,12 +57,14 @@ public class AutoSetSetpoint extends CommandBase {
     m_elevator.setUserSetpoint(false);
   }
 
-  // Returns true when the command should end.
+  // Returns true once the move is done and both mechanisms have actually gotten there. The wrist
+  // goal may be clamped to the elevator's zone
   @Override
   public boolean isFinished() {
-    return Math.abs(m_elevator.getHeightMeters() - m_desiredState.getElevatorSetpointMeters())
+    double wristGoalRadians = SuperstructurePlanner.getWristGoalRadians(m_desiredState);
+    return m_StateHandler.getTimeToSetpointSeconds() == 0
+        && Math.abs(m_elevator.getHeightMeters() - m_desiredState.getElevatorSetpointMeters())
             < Units.inchesToMeters(1)
-        && Math.abs(m_wrist.getPositionRadians() - m_desiredState.getWristSetpointRadians())
-            < Units.degreesToRadians(4);
+        && Math.abs(m_wrist.getPositionRadians() - wristGoalRadians) < Units.degreesToRadians(4);
   }
 }
@@ -36,8 +36,8 @@ public class DriveForwardWithVisionInput extends CommandBase {
   @Override
   public void execute() {
     double strafeOutput = 0;
-    if (m_vision.getValidTarget(CAMERA_SERVER.INTAKE))
-      strafeOutput = strafePIDController.calculate(-m_vision.getTargetXAngle(CAMERA_SERVER.INTAKE));
+    var frame = m_vision.getFrame(CAMERA_SERVER.INTAKE);
+    if (frame.hasTarget()) strafeOutput = strafePIDController.calculate(-frame.getTargetXAngle());
 
     var chassisSpeeds = new ChassisSpeeds(m_throttleInput.getAsDouble(), strafeOutput, 0);
     var states = SWERVE_DRIVE.kSwerveKinematics.toSwerveModuleStates(chassisSpeeds);
@@ -0,0 +1,240 @@
+package frc.robot.simulation;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants;
+import frc.robot.Constants.UTIL;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many perturbed trials of each auto and summarizes how reliable they are, e.g. how often
+ * BumpTwo still scores both pieces with a few centimeters of start pose error and some wheel slip.
+ * See {@link AutoRunner.Perturbation} for what is perturbed.
+ *
+ * <p>The HAL sim, the CTRE sim devices, the CommandScheduler and the DriverStation sim are global
+ * to a JVM, so two robots can't run side by side in one process. Trials are split into batches of
+ * {@link UTIL#kEvalTrialsPerWorker} that each run in a forked JVM ({@link #main(String...)}), and a
+ * ForkJoinPool keeps one batch running per core. Every batch first runs the auto unperturbed as
+ * the reference: a trial succeeds if it finishes, scores as many pieces as the reference and ends
+ * within {@link UTIL#kEvalPoseToleranceMeters} of it.
+ */
+public final class AutoEvaluator {
+  // Marks the worker's result lines, the robot code prints to stdout as well
+  private static final String kTrialPrefix = "TRIAL,";
+  private static final int kErrorContextLines = 20;
+
+  private AutoEvaluator() {}
+
+  /** The results of every trial of one auto from one alliance station. */
+  public static final class Summary {
+    public final String autoName;
+    public final AllianceStationID station;
+    private int m_trials;
+    private int m_successes;
+    private int m_finished;
+    private int m_balanced;
+    private int m_scored;
+    private double m_timeToScoreSum;
+    private double m_maxTimeToScore;
+
+    private Summary(String autoName, AllianceStationID station) {
+      this.autoName = autoName;
+      this.station = station;
+    }
+
+    private void add(String[] trial) {
+      m_trials++;
+      if (Boolean.parseBoolean(trial[1])) m_successes++;
+      if (Boolean.parseBoolean(trial[2])) m_finished++;
+      if (Boolean.parseBoolean(trial[3])) m_balanced++;
+      double timeToScore = Double.parseDouble(trial[4]);
+      if (!Double.isNaN(timeToScore)) {
+        m_scored++;
+        m_timeToScoreSum += timeToScore;
+        m_maxTimeToScore = Math.max(m_maxTimeToScore, timeToScore);
+      }
+    }
+
+    public int getTrials() {
+      return m_trials;
+    }
+
+    public double getSuccessRate() {
+      return m_trials == 0 ? 0 : (double) m_successes / m_trials;
+    }
+
+    public double getFinishedRate() {
+      return m_trials == 0 ? 0 : (double) m_finished / m_trials;
+    }
+
+    /**
+     * How often the robot ended within the charging station's footprint, see {@link
+     * AutoRunner.Result#balanced}.
+     */
+    public double getBalanceRate() {
+      return m_trials == 0 ? 0 : (double) m_balanced / m_trials;
+    }
+
+    /** Mean sim time until the first piece was scored, over the trials that scored. */
+    public double getMeanTimeToScoreSeconds() {
+      return m_scored == 0 ? Double.NaN : m_timeToScoreSum / m_scored;
+    }
+
+    public double getMaxTimeToScoreSeconds() {
+      return m_scored == 0 ? Double.NaN : m_maxTimeToScore;
+    }
+  }
+
+  /**
+   * Runs the trials of every auto from both alliances.
+   *
+   * @param autoNames the autos' names in the auto chooser
+   * @param trials perturbed trials per auto and alliance
+   * @param seed makes the perturbations repeatable
+   * @param parallelism how many worker JVMs run at once
+   */
+  public static List<Summary> evaluate(
+      List<String> autoNames, int trials, long seed, int parallelism) throws Exception {
+    var stations = new AllianceStationID[] {AllianceStationID.Blue1, AllianceStationID.Red1};
+    var summaries = new ArrayList<Summary>();
+    var batches = new ArrayList<List<Future<List<String[]>>>>();
+    var pool = new ForkJoinPool(parallelism);
+    try {
+      for (var autoName : autoNames) {
+        for (var station : stations) {
+          summaries.add(new Summary(autoName, station));
+          var futures = new ArrayList<Future<List<String[]>>>();
+          for (int first = 0; first < trials; first += UTIL.kEvalTrialsPerWorker) {
+            int count = Math.min(UTIL.kEvalTrialsPerWorker, trials - first);
+            long batchSeed = seed + 31L * (autoName.hashCode() * 31L + station.ordinal()) + first;
+            futures.add(pool.submit(() -> runWorker(autoName, station, batchSeed, count)));
+          }
+          batches.add(futures);
+        }
+      }
+
+      for (int i = 0; i < summaries.size(); i++) {
+        for (var future : batches.get(i)) {
+          for (var trial : future.get()) summaries.get(i).add(trial);
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return summaries;
+  }
+
+  /** Writes one row per auto and alliance station. */
+  public static void writeCsv(List<Summary> summaries, Path path) throws IOException {
+    try (var writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+      writer.println(
+          "auto,station,trials,success_rate,finished_rate,balance_rate,"
+              + "mean_time_to_score_s,max_time_to_score_s");
+      for (var summary : summaries) {
+        writer.printf(
+            "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+            summary.autoName,
+            summary.station,
+            summary.getTrials(),
+            summary.getSuccessRate(),
+            summary.getFinishedRate(),
+            summary.getBalanceRate(),
+            summary.getMeanTimeToScoreSeconds(),
+            summary.getMaxTimeToScoreSeconds());
+      }
+    }
+  }
+
+  private static List<String[]> runWorker(
+      String autoName, AllianceStationID station, long seed, int count) throws Exception {
+    var command =
+        List.of(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp",
+            System.getProperty("java.class.path"),
+            "-Djava.library.path=" + System.getProperty("java.library.path"),
+            AutoEvaluator.class.getName(),
+            autoName,
+            station.name(),
+            Long.toString(seed),
+            Integer.toString(count));
+    var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+    var trials = new ArrayList<String[]>();
+    var lastLines = new ArrayDeque<String>();
+    try (var reader =
+        new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (line.startsWith(kTrialPrefix)) {
+          trials.add(line.split(","));
+        } else {
+          if (lastLines.size() == kErrorContextLines) lastLines.removeFirst();
+          lastLines.addLast(line);
+        }
+      }
+    }
+
+    int exitCode = process.waitFor();
+    if (exitCode != 0 || trials.size() != count) {
+      throw new IOException(
+          String.format(
+              "Worker for %s from %s exited with %d after %d of %d trials:%n%s",
+              autoName,
+              station,
+              exitCode,
+              trials.size(),
+              count,
+              String.join(System.lineSeparator(), lastLines)));
+    }
+    return trials;
+  }
+
+  /**
+   * Worker entry point, started by {@link #evaluate}. Prints one line per trial: the prefix,
+   * success, finished, balanced and the sim time until the first piece was scored (NaN if none).
+   *
+   * <p>Usage: AutoEvaluator &lt;auto name&gt; &lt;alliance station&gt; &lt;seed&gt; &lt;trials&gt;
+   */
+  public static void main(String... args) throws Exception {
+    var autoName = args[0];
+    var station = AllianceStationID.valueOf(args[1]);
+    var random = new Random(Long.parseLong(args[2]));
+    int count = Integer.parseInt(args[3]);
+
+    if (!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+    Constants.initConstants();
+
+    var reference = AutoRunner.run(autoName, station);
+    for (int i = 0; i < count; i++) {
+      var result = AutoRunner.run(autoName, station, AutoRunner.Perturbation.random(random));
+      boolean success =
+          result.finished
+              && result.scoredPieces.size() >= reference.scoredPieces.size()
+              && result.truePose.getTranslation().getDistance(reference.truePose.getTranslation())
+                  <= UTIL.kEvalPoseToleranceMeters;
+      double timeToScore =
+          result.scoredPieces.isEmpty() ? Double.NaN : result.scoredPieces.get(0).timeSeconds;
+      System.out.println(
+          String.join(
+              ",",
+              kTrialPrefix + success,
+              Boolean.toString(result.finished),
+              Boolean.toString(result.balanced),
+              Double.toString(timeToScore)));
+    }
+    System.exit(0);
+  }
+}
@@ -0,0 +1,262 @@
+package frc.robot.simulation;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.AUTO;
+import frc.robot.Constants.AUTO.WAIT;
+import frc.robot.Constants.INTAKE.INTAKE_STATE;
+import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
+import frc.robot.Constants.SWERVE_DRIVE;
+import frc.robot.Constants.UTIL;
+import frc.robot.RobotContainer;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.utils.SensorCache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs autonomous routines headless and faster than real time, e.g. to check that every auto still
+ * finishes and scores after a change. Run every auto with ./gradlew simAutos
+ *
+ * <p>Each run builds a new {@link RobotContainer} on the physics sim, enables autonomous through
+ * the DriverStation sim and steps the same loop as the robot: sample the sensors, run the
+ * CommandScheduler (every subsystem's periodic() and simulationPeriodic()) and the RobotContainer.
+ * The HAL clock is paused and only moved by {@link SimHooks#stepTiming(double)}, a fixed {@link
+ * UTIL#kAutoRunnerDtSeconds} per loop, so nothing waits on the wall clock and the result does not
+ * depend on how fast the host is. The HAL must be initialized before running.
+ *
+ * <p>The sim has no field, so the robot's true pose is integrated from the wheel travel next to
+ * the odometry. A {@link Perturbation} can make the two disagree, the same way start pose error
+ * and wheel slip do on the field.
+ */
+public final class AutoRunner {
+  private AutoRunner() {}
+
+  /** Errors applied to one run, see {@link AutoEvaluator}. */
+  public static final class Perturbation {
+    public static final Perturbation kNone = new Perturbation(new Transform2d(), 0, 1);
+
+    /** Where the robot really starts relative to the auto's start pose. */
+    public final Transform2d startPoseError;
+    /** Fraction of the wheel travel that doesn't move the robot. */
+    public final double wheelSlip;
+    /** Multiplies every {@link WAIT}. */
+    public final double waitScale;
+
+    public Perturbation(Transform2d startPoseError, double wheelSlip, double waitScale) {
+      this.startPoseError = startPoseError;
+      this.wheelSlip = wheelSlip;
+      this.waitScale = waitScale;
+    }
+
+    /** Draws a perturbation with the magnitudes set in {@link UTIL}. */
+    public static Perturbation random(Random random) {
+      return new Perturbation(
+          new Transform2d(
+              new Translation2d(
+                  random.nextGaussian() * UTIL.kEvalStartPoseStdDevMeters,
+                  random.nextGaussian() * UTIL.kEvalStartPoseStdDevMeters),
+              Rotation2d.fromDegrees(random.nextGaussian() * UTIL.kEvalStartHeadingStdDevDegrees)),
+          random.nextDouble() * UTIL.kEvalMaxWheelSlip,
+          Math.max(0, 1 + random.nextGaussian() * UTIL.kEvalWaitScaleStdDev));
+    }
+  }
+
+  /** A game piece the intake started scoring. */
+  public static final class ScoredPiece {
+    public final SUPERSTRUCTURE_STATE state;
+    /** Sim time since the auto started. */
+    public final double timeSeconds;
+
+    private ScoredPiece(SUPERSTRUCTURE_STATE state, double timeSeconds) {
+      this.state = state;
+      this.timeSeconds = timeSeconds;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s at %.2f s", state, timeSeconds);
+    }
+  }
+
+  /** The outcome of one auto. */
+  public static final class Result {
+    public final String autoName;
+    /** False if the auto was still running after {@link UTIL#kAutoRunnerTimeoutSeconds}. */
+    public final boolean finished;
+    public final double simTimeSeconds;
+    public final double wallTimeSeconds;
+    /** Where the robot's odometry ended. */
+    public final Pose2d finalPose;
+    /** Where the robot really ended, which differs from the odometry when perturbed. */
+    public final Pose2d truePose;
+    /**
+     * True if the robot ended on its alliance's charging station. The sim gyro never tilts, so this
+     * only checks that the robot is within the charging station's footprint.
+     */
+    public final boolean balanced;
+    public final List<ScoredPiece> scoredPieces;
+
+    private Result(
+        String autoName,
+        boolean finished,
+        double simTimeSeconds,
+        double wallTimeSeconds,
+        Pose2d finalPose,
+        Pose2d truePose,
+        boolean balanced,
+        List<ScoredPiece> scoredPieces) {
+      this.autoName = autoName;
+      this.finished = finished;
+      this.simTimeSeconds = simTimeSeconds;
+      this.wallTimeSeconds = wallTimeSeconds;
+      this.finalPose = finalPose;
+      this.truePose = truePose;
+      this.balanced = balanced;
+      this.scoredPieces = Collections.unmodifiableList(scoredPieces);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s: %s after %.2f s of sim time (%.2f s wall), final pose (%.2f, %.2f, %.1f deg),"
+              + " %s, scored %d %s",
+          autoName,
+          finished ? "finished" : "timed out",
+          simTimeSeconds,
+          wallTimeSeconds,
+          finalPose.getX(),
+          finalPose.getY(),
+          finalPose.getRotation().getDegrees(),
+          balanced ? "balanced" : "not balanced",
+          scoredPieces.size(),
+          scoredPieces);
+    }
+  }
+
+  /** Runs one auto without any perturbation. */
+  public static Result run(String autoName, AllianceStationID station) throws Exception {
+    return run(autoName, station, Perturbation.kNone);
+  }
+
+  /**
+   * Runs one auto from the auto chooser until it finishes or times out.
+   *
+   * @param autoName the auto's name in the chooser, see {@link RobotContainer#getAutoNames()}
+   * @param station the DriverStation position, which is set before the autos are built
+   * @param perturbation errors to apply to the run
+   */
+  public static Result run(String autoName, AllianceStationID station, Perturbation perturbation)
+      throws Exception {
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAllianceStationId(station);
+    setEnabled(false);
+    WAIT.setScale(perturbation.waitScale);
+
+    try (var robotContainer = new RobotContainer()) {
+      var auto = robotContainer.getAutoCommand(autoName);
+      if (auto == null) throw new IllegalArgumentException("There is no auto named " + autoName);
+
+      var swerveDrive = robotContainer.getSwerveDrive();
+      var intake = robotContainer.getIntake();
+      var stateHandler = robotContainer.getStateHandler();
+      var scoredPieces = new ArrayList<ScoredPiece>();
+
+      setEnabled(true);
+      long startNs = System.nanoTime();
+      double startTime = Timer.getFPGATimestamp();
+      SensorCache.sampleAll();
+      robotContainer.autonomousInit();
+      // Autos reset the odometry to their start pose when they are scheduled
+      auto.schedule();
+
+      var truePose = swerveDrive.getPoseMeters().transformBy(perturbation.startPoseError);
+      var wheelTravel = new double[SWERVE_DRIVE.kModuleTranslations.length];
+      var wheelDeltas = new SwerveModulePosition[wheelTravel.length];
+      readWheelTravel(swerveDrive, wheelTravel, wheelDeltas, 0);
+
+      var lastIntakeState = intake.getIntakeState();
+      while (true) {
+        CommandScheduler.getInstance().run();
+        robotContainer.periodic();
+        robotContainer.simulationPeriodic();
+
+        var intakeState = intake.getIntakeState();
+        if (intakeState != lastIntakeState
+            && (intakeState == INTAKE_STATE.SCORING_CONE
+                || intakeState == INTAKE_STATE.SCORING_CUBE)) {
+          scoredPieces.add(
+              new ScoredPiece(
+                  stateHandler.getCurrentState(), Timer.getFPGATimestamp() - startTime));
+        }
+        lastIntakeState = intakeState;
+
+        if (!auto.isScheduled()
+            || Timer.getFPGATimestamp() - startTime >= UTIL.kAutoRunnerTimeoutSeconds) break;
+
+        SimHooks.stepTiming(UTIL.kAutoRunnerDtSeconds);
+        SensorCache.sampleAll();
+        readWheelTravel(swerveDrive, wheelTravel, wheelDeltas, perturbation.wheelSlip);
+        truePose = truePose.exp(SWERVE_DRIVE.kSwerveKinematics.toTwist2d(wheelDeltas));
+      }
+
+      var result =
+          new Result(
+              autoName,
+              !auto.isScheduled(),
+              Timer.getFPGATimestamp() - startTime,
+              (System.nanoTime() - startNs) / 1e9,
+              swerveDrive.getPoseMeters(),
+              truePose,
+              isBalanced(swerveDrive, truePose),
+              scoredPieces);
+      CommandScheduler.getInstance().cancelAll();
+      setEnabled(false);
+      return result;
+    } finally {
+      WAIT.setScale(1);
+      SimHooks.resumeTiming();
+    }
+  }
+
+  // Fills deltas with the wheel travel that moved the robot since the last call
+  private static void readWheelTravel(
+      SwerveDrive swerveDrive, double[] lastTravel, SwerveModulePosition[] deltas, double slip) {
+    var positions = swerveDrive.getSwerveDriveModulePositionsArray();
+    for (int i = 0; i < positions.length; i++) {
+      double travel = positions[i].distanceMeters;
+      deltas[i] =
+          new SwerveModulePosition((travel - lastTravel[i]) * (1 - slip), positions[i].angle);
+      lastTravel[i] = travel;
+    }
+  }
+
+  // The pitch and roll checks only matter on the robot, the sim gyro always reads level
+  private static boolean isBalanced(SwerveDrive swerveDrive, Pose2d truePose) {
+    // The charging station is stored for the blue alliance
+    var position = SimConstants.allianceFlip(truePose.getTranslation());
+    return position.getX() > SimConstants.Community.chargingStationInnerX
+        && position.getX() < SimConstants.Community.chargingStationOuterX
+        && position.getY() > SimConstants.Community.chargingStationRightY
+        && position.getY() < SimConstants.Community.chargingStationLeftY
+        && Math.abs(swerveDrive.getPitchDegrees()) < AUTO.kAutoBalanceAngleThresholdDegrees
+        && Math.abs(swerveDrive.getRollDegrees()) < AUTO.kAutoBalanceAngleThresholdDegrees;
+  }
+
+  private static void setEnabled(boolean enabled) {
+    DriverStationSim.setAutonomous(enabled);
+    DriverStationSim.setEnabled(enabled);
+    DriverStationSim.notifyNewData();
+  }
+}
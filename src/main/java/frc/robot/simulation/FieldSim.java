@@ -4,8 +4,6 @@
 
 package frc.robot.simulation;
 
-import static frc.robot.utils.ChargedUpNodeMask.*;
-
 import com.pathplanner.lib.PathPlannerTrajectory;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -18,13 +16,15 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.VISION.CAMERA_SERVER;
 import frc.robot.subsystems.*;
-import frc.robot.utils.ChargedUpNodeMask;
-import frc.robot.utils.ModuleMap;
+import frc.robot.utils.LoopProfiler;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class FieldSim extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+
   private final SwerveDrive m_swerveDrive;
   private final Vision m_vision;
   private final Elevator m_elevator;
@@ -59,23 +59,12 @@ public class FieldSim extends SubsystemBase implements AutoCloseable {
     initSim();
   }
 
-  public void initSim() {
-    initializeScoringNodes();
-  }
+  public void initSim() {}
 
   public Field2d getField2d() {
     return m_field2d;
   }
 
-  /**
-   * Initialize arrays with all the scoring positions on the field based on alliance color, game
-   * piece type, and if it is a coopertition node. Ideally, this is a pre-processing step that we
-   * only need to do once to improve robot code performance by avoiding unnecessary repeated calls.
-   */
-  private void initializeScoringNodes() {
-    initializeNodeMaps();
-  }
-
   public void setTrajectory(List<PathPlannerTrajectory> trajectories) {
     if (!m_displayedTrajectories.equals(trajectories)
         || !m_displayedAlliance.equals(Controls.getAllianceColor())) {
@@ -104,14 +93,12 @@ public class FieldSim extends SubsystemBase implements AutoCloseable {
   }
 
   public void resetRobotPose(Pose2d pose) {
-    m_field2d
-        .getObject("Swerve Modules")
-        .setPoses(ModuleMap.orderedValues(m_swerveDrive.getModulePoses(), new Pose2d[0]));
+    m_field2d.getObject("Swerve Modules").setPoses(m_swerveDrive.getModulePoses());
     m_field2d.setRobotPose(pose);
   }
 
   public ArrayList<Translation2d> getValidNodes() {
-    return ChargedUpNodeMask.getValidNodes();
+    return m_stateHandler.getNodeMask().getValidNodes();
   }
 
   /**
@@ -121,7 +108,7 @@ public class FieldSim extends SubsystemBase implements AutoCloseable {
    * @return {@link Pose2d} Nearest Pose to robot
    */
   public Pose2d getTargetNode() {
-    return ChargedUpNodeMask.getTargetNode(m_swerveDrive.getPoseMeters());
+    return m_stateHandler.getNodeMask().getTargetNode(m_swerveDrive.getPoseMeters());
   }
 
   // TODO: Unit Test this with new node mask implementation
@@ -141,7 +128,9 @@ public class FieldSim extends SubsystemBase implements AutoCloseable {
    * the same level as our elevator. [4] - Node is closest to our robot
    */
   public void updateValidNodes() {
-    updateNodeMask(m_swerveDrive.getPoseMeters(), m_stateHandler.getScoringState());
+    m_stateHandler
+        .getNodeMask()
+        .updateNodeMask(m_swerveDrive.getPoseMeters(), m_stateHandler.getScoringState());
   }
 
   private void updateRobotPoses() {
@@ -190,9 +179,7 @@ public class FieldSim extends SubsystemBase implements AutoCloseable {
                 .collect(Collectors.toList()));
 
     if (RobotBase.isSimulation()) {
-      m_field2d
-          .getObject("Swerve Modules")
-          .setPoses(ModuleMap.orderedValues(m_swerveDrive.getModulePoses(), new Pose2d[0]));
+      m_field2d.getObject("Swerve Modules").setPoses(m_swerveDrive.getModulePoses());
 
       if (getTargetNode().equals(new Pose2d())) {
         m_field2d.getObject("RobotToNodeF").setPoses(new Pose2d(-5, -5, Rotation2d.fromDegrees(0)));
@@ -219,6 +206,7 @@ public class FieldSim extends SubsystemBase implements AutoCloseable {
 
   @Override
   public void periodic() {
+    m_periodicProfile.start();
     updateRobotPoses();
 
     try {
@@ -226,6 +214,7 @@ public class FieldSim extends SubsystemBase implements AutoCloseable {
     } catch (NullPointerException e) {
       //      e.printStackTrace();
     }
+    m_periodicProfile.stop();
   }
 
   @Override
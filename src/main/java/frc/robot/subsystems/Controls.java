@@ -7,9 +7,13 @@ import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.utils.LoopProfiler;
 
 @SuppressWarnings("RedundantThrows")
 public class Controls extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+
   private StringPublisher allianceString;
   private BooleanPublisher allianceBoolean;
 
@@ -81,11 +85,13 @@ public class Controls extends SubsystemBase implements AutoCloseable {
 
   @Override
   public void periodic() {
+    m_periodicProfile.start();
     if (RobotBase.isSimulation() || (RobotBase.isReal() && DriverStation.isDisabled())) {
       updateAllianceColor();
     }
     // This method will be called once per scheduler run
     updateSmartDashboard();
+    m_periodicProfile.stop();
   }
 
   @Override
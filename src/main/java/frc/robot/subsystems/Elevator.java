@@ -7,48 +7,43 @@ package frc.robot.subsystems;
 import static frc.robot.Constants.ELEVATOR.centerOffset;
 import static frc.robot.subsystems.StateHandler.m_elevatorRoot2d;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.DemandType;
-import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatorCurrentLimitConfiguration;
-import com.ctre.phoenix.motorcontrol.StatusFrame;
-import com.ctre.phoenix.motorcontrol.TalonFXControlMode;
-import com.ctre.phoenix.motorcontrol.TalonFXInvertType;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.networktables.BooleanPublisher;
-import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StringPublisher;
 import edu.wpi.first.util.datalog.DataLog;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
 import edu.wpi.first.wpilibj.*;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
-import edu.wpi.first.wpilibj.simulation.ElevatorSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants.CAN;
 import frc.robot.Constants.CONTROL_MODE;
 import frc.robot.Constants.ELEVATOR;
 import frc.robot.Constants.ELEVATOR.THRESHOLD;
-import frc.robot.Constants.STATE_HANDLER;
+import frc.robot.subsystems.io.ElevatorIO;
+import frc.robot.subsystems.io.ElevatorIO.ElevatorIOInputs;
+import frc.robot.subsystems.io.ElevatorIOSim;
+import frc.robot.subsystems.io.ElevatorIOTalonFX;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.MotionProfile;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.RATE;
 
 public class Elevator extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+  private final LoopProfiler.Section m_simulationPeriodicProfile =
+      LoopProfiler.register(getName() + ".simulationPeriodic()");
 
-  // Initializing both motors
-  private final TalonFX[] elevatorMotors = {
-    new TalonFX(CAN.elevatorMotorLeft), new TalonFX(CAN.elevatorMotorRight)
-  };
-  private boolean m_elevatorInitialized;
+  private final ElevatorIO m_io;
+  private final ElevatorIOInputs m_inputs = new ElevatorIOInputs();
+  // Samples m_inputs at the start of every loop
+  private final SensorCache.Entry m_sensors;
 
   // Initializing limit switch at bottom of elevator
   //  private final DigitalInput lowerLimitSwitch = new DigitalInput(DIO.elevatorLowerLimitSwitch);
@@ -59,7 +54,6 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
   private CONTROL_MODE m_controlMode = CONTROL_MODE.CLOSED_LOOP;
   private boolean m_testMode = false;
 
-  private final boolean m_limitCanUtil = STATE_HANDLER.limitCanUtilization;
   private NeutralMode m_neutralMode = NeutralMode.Brake;
 
   // Positional limits set by the state handler
@@ -72,42 +66,23 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
   private boolean m_userSetpoint;
 
   // Trapezoid profile setup
-  private TrapezoidProfile m_currentProfile;
   private TrapezoidProfile.Constraints m_currentConstraints = ELEVATOR.m_Constraints;
-  private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
-  private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+  private final MotionProfile m_profile = new MotionProfile(m_currentConstraints);
+  private final TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+  // Set when m_setpoint was given by setSetpointState() for the next periodic
+  private boolean m_followSetpointState;
   private final SimpleMotorFeedforward m_feedForward =
       new SimpleMotorFeedforward(ELEVATOR.kG, ELEVATOR.kV, ELEVATOR.kA);
   private SimpleMotorFeedforward m_currentFeedForward = m_feedForward;
   // This timer is used to calculate the time since the previous periodic run to determine our new
   // setpoint
-  private static int m_simEncoderSign = 1;
   private final Timer m_timer = new Timer();
   private boolean m_unitTestBoolean = false; // DO NOT MAKE FINAL. WILL BREAK UNIT TESTS
   private double m_lastTimestamp = 0;
   private double m_currentTimestamp = 0;
 
-  // Simulation setup
-  private final ElevatorSim elevatorSim =
-      new ElevatorSim(
-          ELEVATOR.gearbox,
-          ELEVATOR.gearRatio,
-          ELEVATOR.massKg,
-          ELEVATOR.drumRadiusMeters,
-          THRESHOLD.ABSOLUTE_MIN.get(),
-          THRESHOLD.ABSOLUTE_MAX.get(),
-          true);
-
   // Shuffleboard setup
-  private DoublePublisher kHeightPub,
-      kEncoderCountsPub,
-      kDesiredHeightPub,
-      kHeightInchesPub,
-      kPercentOutputPub,
-      kCurrentAccelPub,
-      kCurrentVelPub;
-  private StringPublisher kClosedLoopModePub, currentCommandStatePub;
-  private BooleanPublisher lowerLimitSwitchPub;
+  private final Telemetry m_telemetry = new Telemetry("Elevator");
 
   // Mechanism2d visualization setup
   private MechanismLigament2d m_elevatorLigament2d;
@@ -118,41 +93,19 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
   private final DoubleLogEntry setpointMetersEntry = new DoubleLogEntry(log, "/elevator/setpoint");
   private final DoubleLogEntry positionMetersEntry = new DoubleLogEntry(log, "/elevator/position");
 
-  /* Constructs a new Elevator. Mostly motor setup */
+  /* Constructs a new Elevator on the TalonFXs, or on the physics sim when simulating */
   public Elevator() {
-    for (TalonFX motor : elevatorMotors) {
-      motor.configFactoryDefault();
-      motor.setNeutralMode(m_neutralMode);
-      motor.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor);
-      //      motor.setSelectedSensorPosition(0.0);
-
-      // Config PID
-      motor.selectProfileSlot(ELEVATOR.kSlotIdx, ELEVATOR.kPIDLoopIdx);
-      motor.config_kP(ELEVATOR.kSlotIdx, ELEVATOR.kP, ELEVATOR.kTimeoutMs);
-      motor.config_kI(ELEVATOR.kSlotIdx, ELEVATOR.kI, ELEVATOR.kTimeoutMs);
-      motor.config_kD(ELEVATOR.kSlotIdx, ELEVATOR.kD, ELEVATOR.kTimeoutMs);
-      // motor.config_IntegralZone(ELEVATOR.kSlotIdx, 0);
-
-      // Setting hard limits as to how fast the elevator can move forward and backward
-      //      motor.configPeakOutputForward(ELEVATOR.kMaxForwardOutput, ELEVATOR.kTimeoutMs);
-      // TODO: Review after new elevator is integrated
-      motor.configStatorCurrentLimit(new StatorCurrentLimitConfiguration(true, 40, 50, 0.1));
-    }
-    elevatorMotors[0].configPeakOutputReverse(ELEVATOR.kMaxReverseOutput, ELEVATOR.kTimeoutMs);
+    this(RobotBase.isReal() ? new ElevatorIOTalonFX() : new ElevatorIOSim());
+  }
 
-    // Setting the right motor to output the same as the left motor
-    elevatorMotors[0].setInverted(ELEVATOR.mainMotorInversionType);
-    // elevatorMotors[1].set(TalonFXControlMode.Follower, elevatorMotors[0].getDeviceID());
-    // elevatorMotors[1].setInverted(TalonFXInvertType.OpposeMaster);
-    elevatorMotors[1].setStatusFramePeriod(StatusFrame.Status_1_General, 255);
-    elevatorMotors[1].setStatusFramePeriod(StatusFrame.Status_2_Feedback0, 255);
+  public Elevator(ElevatorIO io) {
+    m_io = io;
+    m_sensors = SensorCache.register("Elevator", () -> m_io.updateInputs(m_inputs));
 
     initShuffleboard();
     m_timer.reset();
     m_timer.start();
 
-    m_simEncoderSign = elevatorMotors[0].getInverted() ? -1 : 1;
-
     try {
       m_elevatorLigament2d =
           m_elevatorRoot2d.append(
@@ -164,18 +117,10 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
     }
   }
 
-  private void initElevatorMotorFollower() {
-    if (DriverStation.isDisabled() && m_elevatorInitialized) {
-      elevatorMotors[1].set(TalonFXControlMode.Follower, elevatorMotors[0].getDeviceID());
-      elevatorMotors[1].setInverted(TalonFXInvertType.OpposeMaster);
-
-      if (elevatorMotors[1].getControlMode() == ControlMode.Follower) m_elevatorInitialized = true;
-    }
-  }
-
   // Elevator's motor output as a percentage
   public double getPercentOutput() {
-    return elevatorMotors[0].getMotorOutputPercent();
+    m_sensors.assertFresh();
+    return m_inputs.percentOutput;
   }
 
   public void setPercentOutput(double output) {
@@ -194,43 +139,59 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
       if (getHeightMeters() < (getLowerLimitMeters() + 0.005)) output = Math.max(output, 0);
     }
 
-    elevatorMotors[0].set(ControlMode.PercentOutput, output);
+    m_io.setPercentOutput(output);
   }
 
   // Sets the calculated trapezoid state of the motors
   public void setSetpointTrapezoidState(TrapezoidProfile.State state) {
     // TODO: Find out why feedforward is no longer needed?
-    elevatorMotors[0].set(
-        TalonFXControlMode.Position,
-        state.position / ELEVATOR.encoderCountsToMeters,
-        DemandType.ArbitraryFeedForward,
+    m_io.setPosition(
+        state.position,
         //        calculateFeedforward(state)
         0);
-    elevatorMotors[1].set(ControlMode.PercentOutput, elevatorMotors[0].getMotorOutputPercent());
   }
 
   private double calculateFeedforward(TrapezoidProfile.State state) {
     return (m_feedForward.calculate(state.position, state.velocity) / 12.0);
   }
 
+  // Follows a setpoint that was already profiled, e.g. by a StateHandler transition, on the next
+  // periodic instead of profiling towards it again. The trapezoid profile continues from it after.
+  public void setSetpointState(double positionMeters, double velocityMetersPerSecond) {
+    m_desiredPositionMeters = positionMeters;
+    m_profile.setGoal(positionMeters);
+    m_setpoint.position = positionMeters;
+    m_setpoint.velocity = velocityMetersPerSecond;
+    m_followSetpointState = true;
+  }
+
   // Sets the setpoint to our current height, effectively keeping the elevator in place.
   public void resetTrapezoidState() {
-    m_setpoint = new TrapezoidProfile.State(getHeightMeters(), getVelocityMetersPerSecond());
+    m_profile.reset(getHeightMeters(), getVelocityMetersPerSecond());
+    m_setpoint.position = m_profile.getPosition();
+    m_setpoint.velocity = m_profile.getVelocity();
+  }
+
+  // Time until the trapezoid setpoint reaches the desired position, 0 once it has
+  public double getTimeToGoalSeconds() {
+    return m_profile.getTimeToGoalSeconds();
   }
 
   // Elevator's height position
   public double getHeightMeters() {
-    return getHeightEncoderCounts() * ELEVATOR.encoderCountsToMeters;
+    m_sensors.assertFresh();
+    return m_inputs.positionMeters;
   }
 
   // Returns the elevator's velocity in meters per second.
   public double getVelocityMetersPerSecond() {
-    return elevatorMotors[0].getSelectedSensorVelocity() * ELEVATOR.encoderCountsToMeters * 10;
+    m_sensors.assertFresh();
+    return m_inputs.velocityMetersPerSecond;
   }
 
   // Returns the raw sensor position with no conversions
   public double getHeightEncoderCounts() {
-    return elevatorMotors[0].getSelectedSensorPosition();
+    return getHeightMeters() / ELEVATOR.encoderCountsToMeters;
   }
 
   // Returns true if elevator is within half of an inch of its set position
@@ -249,13 +210,12 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
   // Sets the perceived position of the motors
   // Usually used to zero the motors if the robot is started in a non-stowed position
   public void setSensorPosition(double meters) {
-    elevatorMotors[0].setSelectedSensorPosition(meters / ELEVATOR.encoderCountsToMeters);
+    m_io.setSensorPosition(meters);
   }
 
   public void setNeutralMode(NeutralMode mode) {
     m_neutralMode = mode;
-    elevatorMotors[0].setNeutralMode(mode);
-    elevatorMotors[1].setNeutralMode(mode);
+    m_io.setNeutralMode(mode);
   }
 
   public NeutralMode getNeutralMode() {
@@ -264,6 +224,7 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
 
   public void setDesiredPositionMeters(double meters) {
     m_desiredPositionMeters = meters;
+    m_profile.setGoal(meters);
   }
 
   public double getDesiredPositionMeters() {
@@ -295,11 +256,7 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
   }
 
   public void setPIDvalues(double f, double p, double i, double d, double iZone) {
-    elevatorMotors[0].config_kF(ELEVATOR.kSlotIdx, f);
-    elevatorMotors[0].config_kP(ELEVATOR.kSlotIdx, p);
-    elevatorMotors[0].config_kI(ELEVATOR.kSlotIdx, i);
-    elevatorMotors[0].config_kD(ELEVATOR.kSlotIdx, d);
-    elevatorMotors[0].config_IntegralZone(ELEVATOR.kSlotIdx, iZone);
+    m_io.setPID(f, p, i, d, iZone);
   }
 
   public void setSimpleMotorFeedForward(double g, double v, double a) {
@@ -308,6 +265,7 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
 
   public void setTrapezoidalConstraints(double maxVel, double maxAccel) {
     m_currentConstraints = new TrapezoidProfile.Constraints(maxVel, maxAccel);
+    m_profile.setConstraints(maxVel, maxAccel);
   }
 
   public void setJoystickLimit(boolean limit) {
@@ -353,24 +311,47 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
     m_elevatorLigament2d = ligament;
   }
 
-  // Initializes shuffleboard values. Does not update them
+  // Registers shuffleboard values. They are published by Telemetry.periodic()
   private void initShuffleboard() {
     SmartDashboard.putData("Elevator Subsystem", this);
 
+    var smartDashboard = Telemetry.getSmartDashboardTable();
+    m_telemetry.addBoolean(
+        smartDashboard, "Elevator Closed Loop", this::isClosedLoopControl, RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        smartDashboard,
+        "Elevator Height Inches",
+        () -> Units.metersToInches(getHeightMeters()),
+        RATE.HZ_10);
+    m_telemetry.addDouble(smartDashboard, "motorspeed", this::getPercentOutput, RATE.HZ_10);
+
+    m_telemetry.addString(
+        "Closed-Loop Mode", () -> getClosedLoopControlMode().name(), RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "Height Inches", () -> Units.metersToInches(getHeightMeters()), RATE.HZ_50);
+    m_telemetry.addDouble(
+        "Desired Height Inches",
+        () -> Units.metersToInches(getDesiredPositionMeters()),
+        RATE.ON_CHANGE);
+    m_telemetry.addBoolean("Lower Limit Switch", this::getLimitSwitch, RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "Current Acceleration",
+        () -> Units.metersToInches(m_currentConstraints.maxAcceleration),
+        RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "Current Velocity",
+        () -> Units.metersToInches(m_currentConstraints.maxVelocity),
+        RATE.ON_CHANGE);
+
+    // Not required during matches
+    m_telemetry.addDouble("Encoder Counts", this::getHeightEncoderCounts, RATE.HZ_10);
+    m_telemetry.addDouble("Height Meters", this::getHeightMeters, RATE.HZ_10);
+    m_telemetry.addDouble("Percent Output", this::getPercentOutput, RATE.HZ_10);
+    m_telemetry.addString(
+        "Current Command State", () -> getClosedLoopControlMode().name(), RATE.ON_CHANGE);
+
     NetworkTable elevatorNtTab =
         NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("Elevator");
-
-    kHeightPub = elevatorNtTab.getDoubleTopic("Height Meters").publish();
-    kHeightInchesPub = elevatorNtTab.getDoubleTopic("Height Inches").publish();
-    kDesiredHeightPub = elevatorNtTab.getDoubleTopic("Desired Height Inches").publish();
-    kEncoderCountsPub = elevatorNtTab.getDoubleTopic("Encoder Counts").publish();
-    kPercentOutputPub = elevatorNtTab.getDoubleTopic("Percent Output").publish();
-    kClosedLoopModePub = elevatorNtTab.getStringTopic("Closed-Loop Mode").publish();
-    currentCommandStatePub = elevatorNtTab.getStringTopic("Current Command State").publish();
-    lowerLimitSwitchPub = elevatorNtTab.getBooleanTopic("Lower Limit Switch").publish();
-    kCurrentAccelPub = elevatorNtTab.getDoubleTopic("Current Acceleration").publish();
-    kCurrentVelPub = elevatorNtTab.getDoubleTopic("Current Velocity").publish();
-
     try {
       elevatorNtTab.getDoubleTopic("setpoint").publish().set(0);
     } catch (Exception m_ignored) {
@@ -378,29 +359,8 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
     }
   }
 
-  public void updateShuffleboard() {
-    SmartDashboard.putBoolean("Elevator Closed Loop", isClosedLoopControl());
-    SmartDashboard.putNumber("Elevator Height Inches", Units.metersToInches(getHeightMeters()));
-    SmartDashboard.putNumber("motorspeed", getPercentOutput());
-
-    kClosedLoopModePub.set(getClosedLoopControlMode().toString());
-    kHeightInchesPub.set(Units.metersToInches(getHeightMeters()));
-    kDesiredHeightPub.set(Units.metersToInches(getDesiredPositionMeters()));
-    lowerLimitSwitchPub.set(getLimitSwitch());
-    kCurrentAccelPub.set(Units.metersToInches(m_currentConstraints.maxAcceleration));
-    kCurrentVelPub.set(Units.metersToInches(m_currentConstraints.maxVelocity));
-
-    if (!m_limitCanUtil) {
-      // Put not required stuff here
-      kEncoderCountsPub.set(getHeightEncoderCounts());
-      kHeightPub.set(getHeightMeters());
-      kPercentOutputPub.set(getPercentOutput());
-      currentCommandStatePub.set(getClosedLoopControlMode().toString());
-    }
-  }
-
   public void updateLog() {
-    outputCurrentEntry.append(elevatorMotors[0].getStatorCurrent());
+    outputCurrentEntry.append(m_inputs.statorCurrentAmps);
     setpointMetersEntry.append(m_desiredPositionMeters);
     positionMetersEntry.append(getHeightMeters());
   }
@@ -426,10 +386,10 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
   // This method will be called once per scheduler run
   @Override
   public void periodic() {
-    // initElevatorMotorFollower();
+    m_periodicProfile.start();
     updateLog();
-    updateShuffleboard(); // Yes, this needs to be called in the periodic. The simulation does not
-    // work without this
+    // Dashboard values are published by Telemetry.periodic(). The simulation no longer depends on
+    // them, ElevatorIOSim is stepped when SensorCache samples the inputs (see ElevatorTest)
     if (!m_testMode) {
       updateHeightMeters();
     }
@@ -451,56 +411,30 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
         break;
       default:
       case CLOSED_LOOP:
-        // Updates our trapezoid profile state based on the time since our last periodic and our
-        // recorded change in height
-        m_goal = new TrapezoidProfile.State(m_desiredPositionMeters, 0);
-        m_currentProfile = new TrapezoidProfile(m_currentConstraints, m_goal, m_setpoint);
         m_currentTimestamp = m_timer.get();
-        m_setpoint = m_currentProfile.calculate(m_currentTimestamp - m_lastTimestamp);
+        if (m_followSetpointState) {
+          m_profile.reset(m_setpoint.position, m_setpoint.velocity);
+          m_followSetpointState = false;
+        } else {
+          // Steps our trapezoid profile by the time since our last periodic. It's only planned
+          // again when the setters change the desired position or the constraints
+          m_profile.update(m_currentTimestamp - m_lastTimestamp);
+          m_setpoint.position = m_profile.getPosition();
+          m_setpoint.velocity = m_profile.getVelocity();
+        }
         m_lastTimestamp = m_currentTimestamp;
 
         setSetpointTrapezoidState(m_setpoint);
         break;
     }
+    m_periodicProfile.stop();
   }
 
   @Override
   public void simulationPeriodic() {
-    elevatorSim.setInput(MathUtil.clamp(elevatorMotors[0].getMotorOutputVoltage(), -12, 12));
-
-    double dt = StateHandler.getSimDt();
-    elevatorSim.update(dt);
-
-    // Internally sets the position of the motors in encoder counts based on our current height in
-    // meters
-    elevatorMotors[0]
-        .getSimCollection()
-        .setIntegratedSensorRawPosition(
-            (int)
-                (m_simEncoderSign
-                    * elevatorSim.getPositionMeters()
-                    / ELEVATOR.encoderCountsToMeters));
-
-    // Internally sets the velocity of the motors in encoder counts per 100 ms based on our velocity
-    // in meters per second (1000 ms)
-    elevatorMotors[0]
-        .getSimCollection()
-        .setIntegratedSensorVelocity(
-            (int)
-                (m_simEncoderSign
-                    * elevatorSim.getVelocityMetersPerSecond()
-                    / ELEVATOR.encoderCountsToMeters
-                    * 10));
-
-    // Sets the simulated voltage of the roboRio based on our current draw from the elevator
-    RoboRioSim.setVInVoltage(
-        BatterySim.calculateDefaultBatteryLoadedVoltage(elevatorSim.getCurrentDrawAmps()));
-
-    elevatorMotors[0].getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
-    elevatorMotors[1].getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
-
-    if (m_elevatorLigament2d != null)
-      m_elevatorLigament2d.setLength(elevatorSim.getPositionMeters());
+    m_simulationPeriodicProfile.start();
+    if (m_elevatorLigament2d != null) m_elevatorLigament2d.setLength(getHeightMeters());
+    m_simulationPeriodicProfile.stop();
   }
 
   @Override
@@ -508,5 +442,7 @@ public class Elevator extends SubsystemBase implements AutoCloseable {
   public void close() throws Exception {
     //    lowerLimitSwitch.close();
     if (m_elevatorLigament2d != null) m_elevatorLigament2d.close();
+    m_telemetry.close();
+    SensorCache.remove(m_sensors);
   }
 }
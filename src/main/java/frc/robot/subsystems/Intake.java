@@ -4,30 +4,29 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatorCurrentLimitConfiguration;
-import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
-import com.ctre.phoenix.motorcontrol.TalonFXFeedbackDevice;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import com.ctre.phoenix.unmanaged.Unmanaged;
-import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.system.plant.LinearSystemId;
 import edu.wpi.first.util.datalog.DataLog;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
 import edu.wpi.first.wpilibj.DataLogManager;
-import edu.wpi.first.wpilibj.RobotController;
-import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants.CAN;
 import frc.robot.Constants.INTAKE;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
+import frc.robot.subsystems.io.IntakeIO;
+import frc.robot.subsystems.io.IntakeIO.IntakeIOInputs;
+import frc.robot.subsystems.io.IntakeIOSim;
+import frc.robot.subsystems.io.IntakeIOTalonFX;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.RATE;
 
 public class Intake extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+
   /** Creates a new Intake. */
   private boolean m_isIntaking = false;
 
@@ -36,7 +35,10 @@ public class Intake extends SubsystemBase implements AutoCloseable {
 
   private INTAKE_STATE m_state = INTAKE_STATE.NONE;
 
-  private final TalonFX intakeMotor = new TalonFX(CAN.intakeMotor);
+  private final IntakeIO m_io;
+  private final IntakeIOInputs m_inputs = new IntakeIOInputs();
+  // Samples m_inputs at the start of every loop
+  private final SensorCache.Entry m_sensors;
 
   //  private final DistanceSensor m_distanceSensor;
 
@@ -44,37 +46,21 @@ public class Intake extends SubsystemBase implements AutoCloseable {
   private final DataLog log = DataLogManager.getLog();
   private final DoubleLogEntry currentEntry = new DoubleLogEntry(log, "/intake/current");
 
-  private final FlywheelSim m_intakeSim =
-      new FlywheelSim(
-          // Sim Values
-          LinearSystemId.identifyVelocitySystem(0.8, 0.6), INTAKE.gearBox, INTAKE.gearRatio);
-  private double m_simDistance;
+  private final Telemetry m_telemetry = new Telemetry(Telemetry.getSmartDashboardTable());
 
   // Mech2d setup
   private final MechanismLigament2d m_intakeLigament2d =
       new MechanismLigament2d("Intake", INTAKE.length, 0);
 
   public Intake() {
+    this(RobotBase.isReal() ? new IntakeIOTalonFX() : new IntakeIOSim());
+  }
+
+  public Intake(IntakeIO io) {
     //    m_distanceSensor = distanceSensor;
     // one or two motors
-
-    // factory default configs
-    intakeMotor.configFactoryDefault();
-    intakeMotor.setInverted(true);
-
-    intakeMotor.configSelectedFeedbackSensor(TalonFXFeedbackDevice.IntegratedSensor, 0, 0);
-
-    // set current limit on TalonFX motors
-    intakeMotor.configSupplyCurrentLimit(new SupplyCurrentLimitConfiguration(true, 35, 40, 0.1));
-    intakeMotor.configStatorCurrentLimit(new StatorCurrentLimitConfiguration(true, 40, 50, 0.1));
-    intakeMotor.setStatusFramePeriod(1, 255);
-    intakeMotor.setStatusFramePeriod(2, 255);
-    intakeMotor.setNeutralMode(NeutralMode.Brake);
-    intakeMotor.configVoltageCompSaturation(10);
-    intakeMotor.enableVoltageCompensation(true);
-
-    intakeMotor.config_kF(0, INTAKE.kF);
-    intakeMotor.config_kP(0, INTAKE.kP);
+    m_io = io;
+    m_sensors = SensorCache.register("Intake", () -> m_io.updateInputs(m_inputs));
 
     initSmartDashboard();
 
@@ -116,20 +102,27 @@ public class Intake extends SubsystemBase implements AutoCloseable {
   }
 
   public double getMotorOutputCurrent() {
-    return intakeMotor.getStatorCurrent();
+    m_sensors.assertFresh();
+    return m_inputs.statorCurrentAmps;
   }
 
   public double getIntakeVelocity() {
-    return intakeMotor.getSelectedSensorVelocity();
+    m_sensors.assertFresh();
+    return m_inputs.velocityEncoderUnits;
   }
 
   // set percent output function
   public void setPercentOutput(double value) {
-    intakeMotor.set(ControlMode.PercentOutput, value);
+    m_io.setPercentOutput(value);
+  }
+
+  public double getPercentOutput() {
+    m_sensors.assertFresh();
+    return m_inputs.percentOutput;
   }
 
-  public TalonFX getIntakeMotor() {
-    return intakeMotor;
+  public IntakeIO getIO() {
+    return m_io;
   }
 
   private void updateIntakeState() {
@@ -167,12 +160,10 @@ public class Intake extends SubsystemBase implements AutoCloseable {
   }
 
   // Shuffleboard or SmartDashboard function
-  public void initSmartDashboard() {}
-
-  public void updateSmartDashboard() {
-    SmartDashboard.putString("Intake State", getIntakeState().toString());
-    SmartDashboard.putNumber("Intake Velocity", getIntakeVelocity());
-    SmartDashboard.putNumber("Intake Percent Output", intakeMotor.getMotorOutputPercent());
+  public void initSmartDashboard() {
+    m_telemetry.addString("Intake State", () -> getIntakeState().name(), RATE.ON_CHANGE);
+    m_telemetry.addDouble("Intake Velocity", this::getIntakeVelocity, RATE.HZ_10);
+    m_telemetry.addDouble("Intake Percent Output", this::getPercentOutput, RATE.HZ_10);
   }
 
   public void updateLog() {
@@ -181,39 +172,20 @@ public class Intake extends SubsystemBase implements AutoCloseable {
 
   @Override
   public void periodic() {
+    m_periodicProfile.start();
     // This method will be called once per scheduler run
-    updateSmartDashboard();
     updateLog();
     updateIntakeState();
     // TODO: If the cube or cone distance sensors see a game object, run the intake intakeMotor to
     // hold the game piece in.
-  }
-
-  @Override
-  public void simulationPeriodic() {
-    m_intakeSim.setInputVoltage(MathUtil.clamp(intakeMotor.getMotorOutputVoltage(), -12, 12));
-
-    double dt = StateHandler.getSimDt();
-    m_intakeSim.update(dt);
-    m_simDistance += m_intakeSim.getAngularVelocityRadPerSec() * dt;
-
-    Unmanaged.feedEnable(20);
-
-    intakeMotor
-        .getSimCollection()
-        .setIntegratedSensorRawPosition((int) (m_simDistance / INTAKE.kMotorDistancePerPulse));
-    intakeMotor
-        .getSimCollection()
-        .setIntegratedSensorVelocity(
-            (int)
-                (m_intakeSim.getAngularVelocityRadPerSec() / (INTAKE.kMotorDistancePerPulse * 10)));
-
-    intakeMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+    m_periodicProfile.stop();
   }
 
   @SuppressWarnings("RedundantThrows")
   @Override
   public void close() throws Exception {
     m_intakeLigament2d.close();
+    m_telemetry.close();
+    SensorCache.remove(m_sensors);
   }
 }
@@ -33,9 +33,17 @@ import frc.robot.Constants.CAN;
 import frc.robot.Constants.LED;
 import frc.robot.Constants.LED.*;
 import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.RATE;
 
 // creates LED subsystem
 public class LEDSubsystem extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+  private final LoopProfiler.Section m_simulationPeriodicProfile =
+      LoopProfiler.register(getName() + ".simulationPeriodic()");
+
   private final CANdle m_candle = new CANdle(CAN.CANdle); // LED In constants)
   private int red = 0;
   private int green = 0; // setting all LED colors to none: there is no color when robot activates
@@ -45,6 +53,7 @@ public class LEDSubsystem extends SubsystemBase implements AutoCloseable {
   private Animation m_toAnimate = null;
 
   private final StringPublisher ledStatePub;
+  private final Telemetry m_telemetry = new Telemetry(Telemetry.getSmartDashboardTable());
 
   // Mechanism2d visualization setup
   public final Mechanism2d m_mech2d = new Mechanism2d(1, 1);
@@ -76,6 +85,7 @@ public class LEDSubsystem extends SubsystemBase implements AutoCloseable {
     var nt_instance =
         NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("Controls");
     ledStatePub = nt_instance.getStringTopic("LED State").publish();
+    m_telemetry.addString("LED Mode", () -> currentRobotState.name(), RATE.ON_CHANGE);
 
     // Initialize visualization
     m_ligament2d.setLineWeight(1000); // making the line THICK
@@ -198,11 +208,14 @@ public class LEDSubsystem extends SubsystemBase implements AutoCloseable {
 
   @Override
   public void simulationPeriodic() {
+    m_simulationPeriodicProfile.start();
     m_ligament2d.setColor(new Color8Bit(this.red, this.green, this.blue));
+    m_simulationPeriodicProfile.stop();
   }
 
   @Override
   public void periodic() {
+    m_periodicProfile.start();
     // null indicates that the animation is "Solid"
     if (m_toAnimate == null && !setSolid) {
       setSolid = true;
@@ -218,11 +231,12 @@ public class LEDSubsystem extends SubsystemBase implements AutoCloseable {
         expressState(SUPERSTRUCTURE_STATE.LOW_BATTERY);
       }
     }
-
-    SmartDashboard.putString("LED Mode", currentRobotState.toString());
+    m_periodicProfile.stop();
   }
 
   @SuppressWarnings("RedundantThrows")
   @Override
-  public void close() throws Exception {}
+  public void close() throws Exception {
+    m_telemetry.close();
+  }
 }
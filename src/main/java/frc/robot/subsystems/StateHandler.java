@@ -4,20 +4,11 @@
 
 package frc.robot.subsystems;
 
-import static frc.robot.Constants.STATE_HANDLER.elevatorSetpointTolerance;
-import static frc.robot.Constants.STATE_HANDLER.wristSetpointTolerance;
-import static frc.robot.utils.ChargedUpNodeMask.getTargetNode;
-import static frc.robot.utils.ChargedUpNodeMask.getValidNodes;
-
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.networktables.BooleanPublisher;
-import edu.wpi.first.networktables.DoublePublisher;
-import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StringPublisher;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.Timer;
@@ -26,6 +17,7 @@ import edu.wpi.first.wpilibj.smartdashboard.MechanismRoot2d;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.AUTO;
 import frc.robot.Constants.ELEVATOR;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.SCORING_STATE;
@@ -34,10 +26,22 @@ import frc.robot.Constants.STATE_HANDLER.SETPOINT;
 import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
 import frc.robot.Constants.STATE_HANDLER.ZONE;
 import frc.robot.Constants.WRIST;
+import frc.robot.utils.ChargedUpNodeMask;
+import frc.robot.utils.LoopProfiler;
 import frc.robot.utils.SetpointSolver;
+import frc.robot.utils.SuperStructureStateIndex;
+import frc.robot.utils.SuperstructurePlanner;
+import frc.robot.utils.SuperstructureTrajectory;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.RATE;
 import java.util.ArrayList;
 
 public class StateHandler extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+  private final LoopProfiler.Section m_simulationPeriodicProfile =
+      LoopProfiler.register(getName() + ".simulationPeriodic()");
+
   /**
    * StateHandler Zones: Alpha, Beta, and Gamma Alpha is when elevator height is between 0-4 inches
    * Beta is when elevator height is between 3.5-28 inches Gamma is when elevator height is between
@@ -53,8 +57,6 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
   private SETPOINT m_desiredSetpoint = SETPOINT.STOWED;
   private ZONE m_currentZone = ZONE.UNDEFINED;
 
-  private final boolean m_limitCanUtil = STATE_HANDLER.limitCanUtilization;
-
   private boolean m_smartScoringEnabled;
   private boolean m_canScore;
   private boolean m_isOnTarget;
@@ -79,8 +81,40 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
   private final SwerveDrive m_swerveDrive;
   private final Elevator m_elevator;
   private final Vision m_vision;
-  private final SetpointSolver m_setpointSolver;
+  private final SetpointSolver.NodeSolutions m_nodeSolutions = new SetpointSolver.NodeSolutions();
+  private final ChargedUpNodeMask m_nodeMask = new ChargedUpNodeMask();
+  private final SuperstructurePlanner m_planner = new SuperstructurePlanner();
+  private final SuperstructureTrajectory.State m_transitionState =
+      new SuperstructureTrajectory.State();
+  private final Timer m_transitionTimer = new Timer();
+  private SuperstructureTrajectory m_transition;
   private boolean m_isStateHandlerEnabled = true;
+  private int m_targetNode = -1;
+
+  // What the zone logic and smart scoring last ran with. Loops where none of it changed skip them
+  private boolean m_changeDetectionEnabled = true;
+  private long m_elevatorBucket;
+  private long m_wristBucket;
+  private int m_elevatorCell;
+  private int m_wristCell;
+  private long m_lastElevatorBucket = Long.MIN_VALUE;
+  private long m_lastWristBucket = Long.MIN_VALUE;
+  private int m_lastElevatorCell = -1;
+  private int m_lastWristCell = -1;
+  private double m_lastElevatorDesiredSetpointMeters = Double.NaN;
+  private double m_lastWristDesiredSetpointRadians = Double.NaN;
+  private SUPERSTRUCTURE_STATE m_lastEvaluatedState;
+  private SUPERSTRUCTURE_STATE m_lastEvaluatedDesiredState;
+  private long m_lastScoringElevatorBucket = Long.MIN_VALUE;
+  private long m_lastScoringWristBucket = Long.MIN_VALUE;
+  private long m_lastPoseXBucket;
+  private long m_lastPoseYBucket;
+  private long m_lastHeadingBucket;
+  private INTAKE_STATE m_lastIntakeState;
+  private SUPERSTRUCTURE_STATE m_lastScoringDesiredState;
+  private ChargedUpNodeMask.Snapshot m_lastNodeSnapshot;
+  private long m_loopCount;
+  private long m_skippedLoops;
 
   public static final Mechanism2d m_superStructureMech2d =
       new Mechanism2d(STATE_HANDLER.mechanism2dXSize, STATE_HANDLER.mechanism2dYSize);
@@ -93,7 +127,7 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
           STATE_HANDLER.mechanism2dXOffset,
           STATE_HANDLER.mechanism2dYOffset + Units.inchesToMeters(3));
 
-  private static final Timer m_simTimer = new Timer();
+  // Read from the HAL clock, so the sim follows SimHooks.stepTiming() when timing is paused
   private static double m_lastSimTime;
   private static double m_currentSimTime;
 
@@ -101,15 +135,7 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
   private final SendableChooser<SCORING_STATE> m_scoringStateChooser = new SendableChooser<>();
   private boolean m_testScoringState;
 
-  private StringPublisher m_currentStatePub, m_desiredStatePub, m_currentZonePub;
-
-  private BooleanPublisher m_isEnabledPub;
-  private DoublePublisher m_elevatorHeightMetersPub,
-      m_elevatorLowerLimitPub,
-      m_elevatorUpperLimitPub,
-      m_wristAnglePub,
-      m_wristLowerLimitPub,
-      m_wristUpperLimitPub;
+  private final Telemetry m_telemetry = new Telemetry("StateHandler");
 
   public StateHandler(
       Intake intake, Wrist wrist, SwerveDrive swerveDrive, Elevator elevator, Vision vision) {
@@ -118,7 +144,6 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
     m_elevator = elevator;
     m_vision = vision;
     m_wrist = wrist;
-    m_setpointSolver = SetpointSolver.getInstance();
     initSmartDashboard();
 
     m_inactiveTimer.reset();
@@ -136,8 +161,8 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
         //        System.out.println("Ignoring WPILib Error");
       }
       SmartDashboard.putData("SuperStructure Sim", m_superStructureMech2d);
-      m_simTimer.reset();
-      m_simTimer.start();
+      m_currentSimTime = Timer.getFPGATimestamp();
+      m_lastSimTime = m_currentSimTime;
     }
   }
 
@@ -230,6 +255,11 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
     return m_scoringState;
   }
 
+  /** The nodes the robot can currently score on. Safe to read and update from any thread. */
+  public ChargedUpNodeMask getNodeMask() {
+    return m_nodeMask;
+  }
+
   public boolean isSmartScoring() {
     return m_smartScoringEnabled;
   }
@@ -246,6 +276,13 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
     return m_isOnTarget;
   }
 
+  // How long until both the elevator and wrist profiles reach their desired positions
+  public double getTimeToSetpointSeconds() {
+    double time = Math.max(m_elevator.getTimeToGoalSeconds(), m_wrist.getTimeToGoalSeconds());
+    if (m_transition == null) return time;
+    return Math.max(m_transition.getTotalTimeSeconds() - m_transitionTimer.get(), time);
+  }
+
   public void enable() {
     m_isStateHandlerEnabled = true;
   }
@@ -281,6 +318,7 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
   // Sets desired setpoint from setpoint enums created, clamps the setpoints before settings based
   // on local limits which are based on the current zone
   public void setDesiredSetpoint(STATE_HANDLER.SETPOINT desiredSetpoint) {
+    if (desiredSetpoint != m_desiredSetpoint) startTransition(desiredSetpoint);
     m_desiredSetpoint = desiredSetpoint;
     SetElevatorDesiredSetpoint(desiredSetpoint);
     SetWristDesiredSetpoint(desiredSetpoint);
@@ -294,17 +332,67 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
     m_elevatorDesiredSetpointMeters = desiredSetpoint.getElevatorSetpointMeters();
   }
 
+  /** How long the planned move between two setpoints takes. */
+  public double getTransitionTimeSeconds(SETPOINT start, SETPOINT goal) {
+    return m_planner.getTransitionTimeSeconds(start, goal);
+  }
+
+  /** How long an auto should wait for a move between two setpoints before moving on anyway. */
+  public double getTransitionTimeoutSeconds(SETPOINT start, SETPOINT goal) {
+    return getTransitionTimeSeconds(start, goal) + AUTO.kTransitionTimeoutMarginSeconds;
+  }
+
   public STATE_HANDLER.SETPOINT getDesiredSetpoint() {
     return m_desiredSetpoint;
   }
 
+  // Moves both mechanisms along a planned trajectory to the new setpoint. The precomputed one is
+  // used if they're still at the last setpoint
+  private void startTransition(STATE_HANDLER.SETPOINT goal) {
+    var trajectory = m_planner.getTrajectory(m_desiredSetpoint, goal);
+    double elevatorMeters = m_elevator.getHeightMeters();
+    double wristRadians = m_wrist.getPositionRadians();
+    if (Math.abs(elevatorMeters - trajectory.getElevatorWaypointMeters(0))
+            > STATE_HANDLER.elevatorSetpointTolerance
+        || Math.abs(wristRadians - trajectory.getWristWaypointRadians(0))
+            > STATE_HANDLER.wristSetpointTolerance) {
+      trajectory =
+          m_planner.plan(
+              elevatorMeters,
+              wristRadians,
+              goal.getElevatorSetpointMeters(),
+              goal.getWristSetpointRadians());
+    }
+    m_transition = trajectory;
+    m_transitionTimer.reset();
+    m_transitionTimer.start();
+  }
+
   private void updateCommandedSetpoints() {
     if (m_isStateHandlerEnabled) {
-      setElevatorCommandedSetpoint();
-      setWristCommandedSetpoint();
+      // A planned trajectory already stays within the zone limits
+      if (m_transition != null) {
+        followTransition();
+      } else {
+        setElevatorCommandedSetpoint();
+        setWristCommandedSetpoint();
+      }
     }
   }
 
+  private void followTransition() {
+    double time = m_transitionTimer.get();
+    m_transition.sample(time, m_transitionState);
+    // The trajectory is already profiled and keeps both mechanisms out of each other's way, so it
+    // is followed as is instead of being a goal for their own profiles
+    m_elevator.setSetpointState(
+        m_transitionState.elevatorPositionMeters,
+        m_transitionState.elevatorVelocityMetersPerSecond);
+    m_wrist.setSetpointState(
+        m_transitionState.wristPositionRadians, m_transitionState.wristVelocityRadiansPerSecond);
+    if (time >= m_transition.getTotalTimeSeconds()) m_transition = null;
+  }
+
   private void setElevatorCommandedSetpoint() {
     if ((m_currentState.getZone() == m_desiredState.getZone())
         || (m_wrist.getPositionRadians() >= universalWristLowerLimitRadians
@@ -326,82 +414,16 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
   // Determines the current state based off current wrist/elevator positions.
   public SUPERSTRUCTURE_STATE determineSuperStructureState(
       double elevatorPositionMeters, double wristPositionRadians) {
-    SUPERSTRUCTURE_STATE assumedZone = SUPERSTRUCTURE_STATE.DANGER_ZONE;
-
-    // Specific states defined by elevator/wrist setpoints
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.STOWED.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.STOWED.get()) < wristSetpointTolerance)
-      return SUPERSTRUCTURE_STATE.STOWED;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.INTAKING_LOW.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.INTAKING_LOW_CONE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.INTAKE_LOW_CONE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.INTAKING_LOW.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.INTAKING_LOW_CUBE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.INTAKE_LOW_CUBE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.SCORE_LOW_REVERSE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.SCORE_LOW_REVERSE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.SCORE_LOW_REVERSE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.INTAKING_EXTENDED_CONE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.INTAKING_EXTENDED_CONE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.INTAKE_EXTENDED;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.SCORE_LOW_CONE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.SCORE_LOW_CONE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.SCORE_LOW_CONE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.SCORE_LOW_CUBE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.SCORE_LOW_CUBE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.SCORE_LOW_CUBE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.SCORE_MID_CONE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.SCORE_MID_CONE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.SCORE_MID_CONE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.SCORE_MID_CUBE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.SCORE_MID_CUBE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.SCORE_MID_CUBE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.SCORE_HIGH_CONE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.SCORE_HIGH_CONE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.SCORE_HIGH_CONE;
-    if (Math.abs(elevatorPositionMeters - ELEVATOR.SETPOINT.SCORE_HIGH_CUBE.get())
-            < elevatorSetpointTolerance
-        && Math.abs(wristPositionRadians - WRIST.SETPOINT.SCORE_HIGH_CUBE.get())
-            < wristSetpointTolerance) return SUPERSTRUCTURE_STATE.SCORE_HIGH_CUBE;
-
-    // General states (zones) defined by region
-    if (elevatorPositionMeters <= ELEVATOR.THRESHOLD.ALPHA_MAX.get()) {
-      if (WRIST.THRESHOLD.ALPHA_MIN.get() < wristPositionRadians
-          && wristPositionRadians <= WRIST.THRESHOLD.ALPHA_MAX.get())
-        return SUPERSTRUCTURE_STATE.ALPHA_ZONE;
-      else assumedZone = SUPERSTRUCTURE_STATE.ALPHA_ZONE;
-    }
-    if (ELEVATOR.THRESHOLD.BETA_MIN.get() < elevatorPositionMeters
-        && elevatorPositionMeters < ELEVATOR.THRESHOLD.BETA_MAX.get()) {
-      if (WRIST.THRESHOLD.BETA_MIN.get() < wristPositionRadians
-          && wristPositionRadians <= WRIST.THRESHOLD.BETA_MAX.get())
-        return SUPERSTRUCTURE_STATE.BETA_ZONE;
-      else assumedZone = SUPERSTRUCTURE_STATE.BETA_ZONE;
-    }
-    if (ELEVATOR.THRESHOLD.GAMMA_MIN.get() < elevatorPositionMeters
-        && elevatorPositionMeters <= ELEVATOR.THRESHOLD.GAMMA_MAX.get()) {
-      if (WRIST.THRESHOLD.GAMMA_MIN.get() < wristPositionRadians
-          && wristPositionRadians <= WRIST.THRESHOLD.GAMMA_MAX.get())
-        return SUPERSTRUCTURE_STATE.GAMMA_ZONE;
-      else assumedZone = SUPERSTRUCTURE_STATE.GAMMA_ZONE;
-    }
+    SUPERSTRUCTURE_STATE state =
+        SuperStructureStateIndex.lookup(elevatorPositionMeters, wristPositionRadians);
 
     // Undefined state, put a breakpoint here when debugging to check logic
-    if (assumedZone == SUPERSTRUCTURE_STATE.DANGER_ZONE)
+    if (state == SUPERSTRUCTURE_STATE.DANGER_ZONE)
       System.out.println("This should never be reached");
 
-    return assumedZone;
+    return state;
   }
+
   // Sets a zone transition based on ordinals of alpha, beta, gamma zones (1,2,3)
   public void zoneAdvancement() {
     // Check current mechanism positions before advancing zones
@@ -500,74 +522,144 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
   }
 
   private void initSmartDashboard() {
-    var stateHandlerTab =
-        NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("StateHandler");
-
-    try {
-      stateHandlerTab.getBooleanTopic("limitCANUtilization").publish().set(m_limitCanUtil);
-    } catch (Exception m_ignored) {
-
-    }
-
-    m_isEnabledPub = stateHandlerTab.getBooleanTopic("isEnabled").publish();
-    m_currentStatePub = stateHandlerTab.getStringTopic("currentState").publish();
-    m_desiredStatePub = stateHandlerTab.getStringTopic("desiredState").publish();
-    m_currentZonePub = stateHandlerTab.getStringTopic("currentZone").publish();
-    m_elevatorHeightMetersPub = stateHandlerTab.getDoubleTopic("elevatorHeightInches").publish();
-    m_elevatorLowerLimitPub = stateHandlerTab.getDoubleTopic("elevatorMinLimit").publish();
-    m_elevatorUpperLimitPub = stateHandlerTab.getDoubleTopic("elevatorMaxLimit").publish();
-    m_wristAnglePub = stateHandlerTab.getDoubleTopic("wristAngleDegrees").publish();
-    m_wristLowerLimitPub = stateHandlerTab.getDoubleTopic("wristMinLimit").publish();
-    m_wristUpperLimitPub = stateHandlerTab.getDoubleTopic("wristMaxLimit").publish();
-  }
-
-  private void updateSmartDashboard() {
-    SmartDashboard.putString("Superstructure State", getCurrentState().toString());
-    m_isEnabledPub.set(getIsStateHandlerEnabled());
-    m_currentStatePub.set(getCurrentDisplayedState().toString());
-    m_desiredStatePub.set(getDesiredState().toString());
-    m_currentZonePub.set(getCurrentZone().toString());
-    m_elevatorHeightMetersPub.set(Units.metersToInches(m_elevator.getHeightMeters()));
-    m_wristAnglePub.set(m_wrist.getPositionDegrees());
-
-    if (!m_limitCanUtil) {
-      m_elevatorUpperLimitPub.set(Units.metersToInches(elevatorUpperLimitMeters));
-      m_elevatorLowerLimitPub.set(Units.metersToInches(elevatorLowerLimitMeters));
-      m_wristUpperLimitPub.set(Units.radiansToDegrees(wristUpperLimitRadians));
-      m_wristLowerLimitPub.set(Units.radiansToDegrees(wristLowerLimitRadians));
-    }
+    m_telemetry.addString(
+        Telemetry.getSmartDashboardTable(),
+        "Superstructure State",
+        () -> getCurrentState().name(),
+        RATE.ON_CHANGE);
+    m_telemetry.addBoolean("isEnabled", this::getIsStateHandlerEnabled, RATE.ON_CHANGE);
+    m_telemetry.addString("currentState", () -> getCurrentDisplayedState().name(), RATE.ON_CHANGE);
+    m_telemetry.addString("desiredState", () -> getDesiredState().name(), RATE.ON_CHANGE);
+    m_telemetry.addString("currentZone", () -> getCurrentZone().name(), RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "elevatorHeightInches",
+        () -> Units.metersToInches(m_elevator.getHeightMeters()),
+        RATE.HZ_10);
+    m_telemetry.addDouble("wristAngleDegrees", m_wrist::getPositionDegrees, RATE.HZ_10);
+    m_telemetry.addDouble("skipRate", this::getSkipRate, RATE.HZ_1);
+
+    // Not required during matches
+    m_telemetry.addDouble(
+        "elevatorMaxLimit", () -> Units.metersToInches(elevatorUpperLimitMeters), RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "elevatorMinLimit", () -> Units.metersToInches(elevatorLowerLimitMeters), RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "wristMaxLimit", () -> Units.radiansToDegrees(wristUpperLimitRadians), RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "wristMinLimit", () -> Units.radiansToDegrees(wristLowerLimitRadians), RATE.ON_CHANGE);
   }
 
   // TODO: Fix this
   public void switchTargetNode(boolean left) {
-    ArrayList<Translation2d> possibleNodes = getValidNodes();
+    ArrayList<Translation2d> possibleNodes = m_nodeMask.getValidNodes();
+  }
+
+  /** The fraction of loops that skipped the zone logic and smart scoring, as nothing changed. */
+  public double getSkipRate() {
+    return m_loopCount == 0 ? 0 : (double) m_skippedLoops / m_loopCount;
+  }
+
+  /**
+   * Runs the zone logic and smart scoring every loop when disabled, e.g. to compare against them
+   * only running on a change.
+   */
+  public void setChangeDetectionEnabled(boolean enabled) {
+    m_changeDetectionEnabled = enabled;
+  }
+
+  // True if the mechanisms, the desired setpoint or the state changed since the zone logic last
+  // ran. A change made by the zone logic itself makes it run again on the next loop. Crossing a
+  // threshold always counts as a change, even within one bucket, so the zone logic sees every
+  // crossing on the loop it happens
+  private boolean hasSuperstructureChanged() {
+    if (m_changeDetectionEnabled
+        && m_elevatorBucket == m_lastElevatorBucket
+        && m_wristBucket == m_lastWristBucket
+        && m_elevatorCell == m_lastElevatorCell
+        && m_wristCell == m_lastWristCell
+        && m_elevatorDesiredSetpointMeters == m_lastElevatorDesiredSetpointMeters
+        && m_wristDesiredSetpointRadians == m_lastWristDesiredSetpointRadians
+        && m_currentState == m_lastEvaluatedState
+        && m_desiredState == m_lastEvaluatedDesiredState) return false;
+
+    m_lastElevatorBucket = m_elevatorBucket;
+    m_lastWristBucket = m_wristBucket;
+    m_lastElevatorCell = m_elevatorCell;
+    m_lastWristCell = m_wristCell;
+    m_lastElevatorDesiredSetpointMeters = m_elevatorDesiredSetpointMeters;
+    m_lastWristDesiredSetpointRadians = m_wristDesiredSetpointRadians;
+    m_lastEvaluatedState = m_currentState;
+    m_lastEvaluatedDesiredState = m_desiredState;
+    return true;
+  }
+
+  // True if anything the node solutions depend on changed since they were last solved
+  private boolean hasScoringChanged() {
+    var pose = m_swerveDrive.getPoseMeters();
+    long poseXBucket = Math.round(pose.getX() / STATE_HANDLER.poseChangeToleranceMeters);
+    long poseYBucket = Math.round(pose.getY() / STATE_HANDLER.poseChangeToleranceMeters);
+    long headingBucket =
+        Math.round(pose.getRotation().getRadians() / STATE_HANDLER.headingChangeToleranceRadians);
+    var nodes = m_nodeMask.getSnapshot();
+    var intakeState = m_intake.getIntakeState();
+    if (m_changeDetectionEnabled
+        && !m_testScoringState
+        && nodes == m_lastNodeSnapshot
+        && poseXBucket == m_lastPoseXBucket
+        && poseYBucket == m_lastPoseYBucket
+        && headingBucket == m_lastHeadingBucket
+        && m_elevatorBucket == m_lastScoringElevatorBucket
+        && m_wristBucket == m_lastScoringWristBucket
+        && intakeState == m_lastIntakeState
+        && m_desiredState == m_lastScoringDesiredState) return false;
+
+    m_lastNodeSnapshot = nodes;
+    m_lastPoseXBucket = poseXBucket;
+    m_lastPoseYBucket = poseYBucket;
+    m_lastHeadingBucket = headingBucket;
+    m_lastScoringElevatorBucket = m_elevatorBucket;
+    m_lastScoringWristBucket = m_wristBucket;
+    m_lastIntakeState = intakeState;
+    m_lastScoringDesiredState = m_desiredState;
+    return true;
   }
 
   @Override
   public void periodic() {
-    updateSmartDashboard();
-    updateZoneLimits();
+    m_periodicProfile.start();
+    m_loopCount++;
+    m_elevatorBucket =
+        Math.round(m_elevator.getHeightMeters() / STATE_HANDLER.elevatorChangeToleranceMeters);
+    m_wristBucket =
+        Math.round(m_wrist.getPositionRadians() / STATE_HANDLER.wristChangeToleranceRadians);
+    m_elevatorCell = SuperStructureStateIndex.getElevatorCell(m_elevator.getHeightMeters());
+    m_wristCell = SuperStructureStateIndex.getWristCell(m_wrist.getPositionRadians());
+    boolean superstructureChanged = hasSuperstructureChanged();
+
+    if (superstructureChanged) updateZoneLimits();
     updateCommandedSetpoints();
 
-    // Undefined behavior, use previous zone as a backup
-    if (m_currentState.getZone() == SUPERSTRUCTURE_STATE.DANGER_ZONE.getZone()) {
-      m_currentState = m_lastState;
-    } else {
-      m_lastState = m_currentState;
-    }
+    if (superstructureChanged) {
+      // Undefined behavior, use previous zone as a backup
+      if (m_currentState.getZone() == SUPERSTRUCTURE_STATE.DANGER_ZONE.getZone()) {
+        m_currentState = m_lastState;
+      } else {
+        m_lastState = m_currentState;
+      }
 
-    // Displayed state for easier debugging
-    m_currentDisplayedState =
-        determineSuperStructureState(m_elevator.getHeightMeters(), m_wrist.getPositionRadians());
+      // Displayed state for easier debugging
+      m_currentDisplayedState =
+          determineSuperStructureState(m_elevator.getHeightMeters(), m_wrist.getPositionRadians());
 
-    // Determine desired zone based on elevator/wrist setpoints
-    m_desiredState =
-        determineSuperStructureState(
-            m_elevatorDesiredSetpointMeters, m_wristDesiredSetpointRadians);
+      // Determine desired zone based on elevator/wrist setpoints
+      m_desiredState =
+          determineSuperStructureState(
+              m_elevatorDesiredSetpointMeters, m_wristDesiredSetpointRadians);
 
-    // Limit wrist/elevator setpoints to safe thresholds based on where you are and where you want
-    // to go
-    zoneAdvancement();
+      // Limit wrist/elevator setpoints to safe thresholds based on where you are and where you
+      // want to go
+      zoneAdvancement();
+    }
 
     // If no user input for more than one second, then reset elevator to stowed
     if (m_isAutoStowEnabled) {
@@ -596,20 +688,56 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
     //      }
     //    }
 
+    boolean scoringChanged = false;
     if (m_smartScoringEnabled) {
-      updateScoringState();
-
-      var targetNode = getTargetNode(m_swerveDrive.getPoseMeters());
-      m_isOnTarget = isRobotOnTarget(targetNode, Units.inchesToMeters(1));
-      m_wristOffset = m_wrist.getHorizontalTranslation().getX();
-      m_setpointSolver.solveSetpoints(
-          m_swerveDrive.getPoseMeters(), targetNode, m_wristOffset, getScoringState());
-      m_canScore = m_setpointSolver.canScore();
+      scoringChanged = hasScoringChanged();
+      if (scoringChanged) {
+        updateScoringState();
+
+        // Solve every valid node and go for the nearest one the elevator can reach
+        var nodes = m_lastNodeSnapshot;
+        m_wristOffset = m_wrist.getHorizontalTranslation().getX();
+        m_nodeSolutions.solve(
+            m_swerveDrive.getPoseMeters(), nodes, m_wristOffset, getScoringState());
+        m_targetNode = m_nodeSolutions.getBestNode();
+        if (m_targetNode >= 0) {
+          m_isOnTarget = isRobotOnTarget(nodes.getNodePose(m_targetNode), Units.inchesToMeters(1));
+          m_canScore = m_nodeSolutions.canScore(m_targetNode);
+        } else {
+          m_isOnTarget = false;
+          m_canScore = false;
+        }
+      }
+      if (m_targetNode >= 0) {
+        m_elevator.setDesiredPositionMeters(
+            m_nodeSolutions.getElevatorSetpointMeters(m_targetNode));
+      }
       m_wrist.setSetpointPositionRadians(WRIST.SETPOINT.SCORE_HIGH_CONE.get());
-      m_elevator.setDesiredPositionMeters(m_setpointSolver.getElevatorSetpointMeters());
       // TODO: Add this to the SwerveDrive
-      // m_drive.setHeadingSetpoint(m_setpointSolver.getChassisSetpointRotation2d());
+      // m_drive.setHeadingSetpoint(m_nodeSolutions.getChassisHeadingRadians(m_targetNode));
+    } else {
+      // Solve again when smart scoring is turned back on
+      m_lastNodeSnapshot = null;
     }
+
+    if (!superstructureChanged && !scoringChanged) m_skippedLoops++;
+    m_periodicProfile.stop();
+  }
+
+  public double getElevatorLowerLimitMeters() {
+    return elevatorLowerLimitMeters;
+  }
+
+  public double getElevatorUpperLimitMeters() {
+    return elevatorUpperLimitMeters;
+  }
+
+  public double getWristLowerLimitRadians() {
+    return wristLowerLimitRadians;
+  }
+
+  public double getWristUpperLimitRadians() {
+    return wristUpperLimitRadians;
   }
 
   private void setElevatorLowerLimitMeters(double lowerLimitMeters) {
@@ -634,8 +762,9 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
 
   @Override
   public void simulationPeriodic() {
+    m_simulationPeriodicProfile.start();
     m_lastSimTime = m_currentSimTime;
-    m_currentSimTime = m_simTimer.get();
+    m_currentSimTime = Timer.getFPGATimestamp();
 
     // This will fail unit tests for some reason
     try {
@@ -648,6 +777,7 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
     } catch (Exception ignored) {
 
     }
+    m_simulationPeriodicProfile.stop();
   }
 
   @SuppressWarnings("RedundantThrows")
@@ -656,5 +786,6 @@ public class StateHandler extends SubsystemBase implements AutoCloseable {
     m_superStructureMech2d.close();
     m_chassisRoot2d.close();
     m_elevatorRoot2d.close();
+    m_telemetry.close();
   }
 }
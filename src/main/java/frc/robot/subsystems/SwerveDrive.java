@@ -7,10 +7,6 @@ package frc.robot.subsystems;
 import static frc.robot.subsystems.StateHandler.m_chassisRoot2d;
 
 import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import com.ctre.phoenix.sensors.CANCoder;
-import com.ctre.phoenix.sensors.Pigeon2;
-import com.ctre.phoenix.unmanaged.Unmanaged;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
@@ -22,62 +18,57 @@ import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.networktables.DoublePublisher;
-import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color8Bit;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.CAN;
-import frc.robot.Constants.STATE_HANDLER;
 import frc.robot.Constants.SWERVE_DRIVE;
 import frc.robot.Constants.SWERVE_DRIVE.SWERVE_MODULE_POSITION;
-import frc.robot.utils.ModuleMap;
-import java.util.HashMap;
-import java.util.Map;
+import frc.robot.subsystems.io.GyroIO;
+import frc.robot.subsystems.io.GyroIO.GyroIOInputs;
+import frc.robot.subsystems.io.GyroIOPigeon2;
+import frc.robot.subsystems.io.GyroIOSim;
+import frc.robot.subsystems.io.SwerveModuleIO;
+import frc.robot.subsystems.io.SwerveModuleIOSim;
+import frc.robot.subsystems.io.SwerveModuleIOTalonFX;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.RATE;
 
 public class SwerveDrive extends SubsystemBase implements AutoCloseable {
-
-  private final HashMap<SWERVE_MODULE_POSITION, SwerveModule> m_swerveModules =
-      new HashMap<>(
-          Map.of(
-              SWERVE_MODULE_POSITION.FRONT_LEFT,
-                  new SwerveModule(
-                      SWERVE_MODULE_POSITION.FRONT_LEFT,
-                      new TalonFX(CAN.frontLeftTurnMotor),
-                      new TalonFX(CAN.frontLeftDriveMotor),
-                      new CANCoder(CAN.frontLeftCanCoder),
-                      SWERVE_DRIVE.frontLeftCANCoderOffset),
-              SWERVE_MODULE_POSITION.FRONT_RIGHT,
-                  new SwerveModule(
-                      SWERVE_MODULE_POSITION.FRONT_RIGHT,
-                      new TalonFX(CAN.frontRightTurnMotor),
-                      new TalonFX(CAN.frontRightDriveMotor),
-                      new CANCoder(CAN.frontRightCanCoder),
-                      SWERVE_DRIVE.frontRightCANCoderOffset),
-              SWERVE_MODULE_POSITION.BACK_LEFT,
-                  new SwerveModule(
-                      SWERVE_MODULE_POSITION.BACK_LEFT,
-                      new TalonFX(CAN.backLeftTurnMotor),
-                      new TalonFX(CAN.backLeftDriveMotor),
-                      new CANCoder(CAN.backLeftCanCoder),
-                      SWERVE_DRIVE.backLeftCANCoderOffset),
-              SWERVE_MODULE_POSITION.BACK_RIGHT,
-                  new SwerveModule(
-                      SWERVE_MODULE_POSITION.BACK_RIGHT,
-                      new TalonFX(CAN.backRightTurnMotor),
-                      new TalonFX(CAN.backRightDriveMotor),
-                      new CANCoder(CAN.backRightCanCoder),
-                      SWERVE_DRIVE.backRightCANCoderOffset)));
-
-  private final Pigeon2 m_pigeon = new Pigeon2(CAN.pigeon, "rio");
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+
+  private static final double[] kCANCoderOffsets = {
+    SWERVE_DRIVE.frontLeftCANCoderOffset,
+    SWERVE_DRIVE.frontRightCANCoderOffset,
+    SWERVE_DRIVE.backLeftCANCoderOffset,
+    SWERVE_DRIVE.backRightCANCoderOffset
+  };
+
+  // Indexed by SWERVE_MODULE_POSITION ordinal
+  private final SwerveModule[] m_swerveModules =
+      new SwerveModule[SWERVE_MODULE_POSITION.values().length];
+
+  // Preallocated buffers so the drive/odometry/sim loops don't allocate collections every cycle
+  private final SwerveModuleState[] m_moduleStates =
+      new SwerveModuleState[SWERVE_MODULE_POSITION.values().length];
+  private final SwerveModulePosition[] m_modulePositions =
+      new SwerveModulePosition[SWERVE_MODULE_POSITION.values().length];
+  private final Pose2d[] m_modulePoses = new Pose2d[SWERVE_MODULE_POSITION.values().length];
+
+  private final GyroIO m_gyroIO;
+  private final GyroIOInputs m_gyroInputs = new GyroIOInputs();
+  // Samples m_gyroInputs at the start of every loop, after the modules
+  private final SensorCache.Entry m_gyroSensors;
   private double m_rollOffset;
 
-  private final boolean m_limitCanUtil = STATE_HANDLER.limitCanUtilization;
-
   private boolean m_limitJoystickInput = false;
 
   private final SwerveDrivePoseEstimator m_odometry;
@@ -87,9 +78,9 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   @SuppressWarnings("CanBeFinal")
   private boolean m_simOverride = false; // DO NOT MAKE FINAL. WILL BREAK UNIT TESTS
 
-  private double m_simYaw;
   private double m_simRoll;
-  private DoublePublisher pitchPub, rollPub, yawPub, odometryXPub, odometryYPub, odometryYawPub;
+
+  private final Telemetry m_telemetry = new Telemetry("Swerve");
 
   private boolean useHeadingTarget = false;
   private double m_desiredHeadingRadians;
@@ -108,9 +99,33 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   private final double m_limitedVelocity = SWERVE_DRIVE.kLimitedSpeedMetersPerSecond;
   private double m_currentMaxVelocity = m_maxVelocity;
 
+  /** Creates a SwerveDrive on the CTRE hardware, or on the physics sim when simulating. */
   public SwerveDrive() {
-    m_pigeon.configFactoryDefault();
-    m_pigeon.setYaw(0);
+    this(RobotBase.isReal() ? createTalonFXModuleIOs() : createSimModuleIOs());
+  }
+
+  private SwerveDrive(SwerveModuleIO[] moduleIOs) {
+    // The simulated gyro integrates the simulated modules' states
+    this(
+        moduleIOs instanceof SwerveModuleIOSim[]
+            ? new GyroIOSim((SwerveModuleIOSim[]) moduleIOs)
+            : new GyroIOPigeon2(),
+        moduleIOs);
+  }
+
+  /**
+   * Creates a SwerveDrive on the given IO.
+   *
+   * @param moduleIOs one per module, indexed by {@link SWERVE_MODULE_POSITION} ordinal
+   */
+  public SwerveDrive(GyroIO gyroIO, SwerveModuleIO[] moduleIOs) {
+    for (int i = 0; i < m_swerveModules.length; i++) {
+      m_swerveModules[i] =
+          new SwerveModule(SWERVE_MODULE_POSITION.values()[i], moduleIOs[i], kCANCoderOffsets[i]);
+    }
+    m_gyroIO = gyroIO;
+    // Registered after the modules, which the simulated gyro integrates
+    m_gyroSensors = SensorCache.register("Gyro", () -> m_gyroIO.updateInputs(m_gyroInputs));
     m_odometry =
         new SwerveDrivePoseEstimator(
             SWERVE_DRIVE.kSwerveKinematics,
@@ -138,9 +153,34 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
     }
   }
 
+  private static SwerveModuleIO[] createTalonFXModuleIOs() {
+    return new SwerveModuleIO[] {
+      new SwerveModuleIOTalonFX(
+          CAN.frontLeftTurnMotor, CAN.frontLeftDriveMotor, CAN.frontLeftCanCoder),
+      new SwerveModuleIOTalonFX(
+          CAN.frontRightTurnMotor, CAN.frontRightDriveMotor, CAN.frontRightCanCoder),
+      new SwerveModuleIOTalonFX(
+          CAN.backLeftTurnMotor, CAN.backLeftDriveMotor, CAN.backLeftCanCoder),
+      new SwerveModuleIOTalonFX(
+          CAN.backRightTurnMotor, CAN.backRightDriveMotor, CAN.backRightCanCoder)
+    };
+  }
+
+  private static SwerveModuleIOSim[] createSimModuleIOs() {
+    return new SwerveModuleIOSim[] {
+      new SwerveModuleIOSim(CAN.frontLeftTurnMotor, CAN.frontLeftDriveMotor, CAN.frontLeftCanCoder),
+      new SwerveModuleIOSim(
+          CAN.frontRightTurnMotor, CAN.frontRightDriveMotor, CAN.frontRightCanCoder),
+      new SwerveModuleIOSim(CAN.backLeftTurnMotor, CAN.backLeftDriveMotor, CAN.backLeftCanCoder),
+      new SwerveModuleIOSim(CAN.backRightTurnMotor, CAN.backRightDriveMotor, CAN.backRightCanCoder)
+    };
+  }
+
   private void resetModulesToAbsolute() {
-    for (SwerveModule module : ModuleMap.orderedValuesList(m_swerveModules))
+    for (SwerveModule module : m_swerveModules) {
+      module.updateInputs();
       module.resetAngleToAbsolute();
+    }
   }
 
   public void setJoystickLimit(boolean limit) {
@@ -176,14 +216,13 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
               : new ChassisSpeeds(throttle, strafe, rotation);
     }
 
-    Map<SWERVE_MODULE_POSITION, SwerveModuleState> moduleStates =
-        ModuleMap.of(SWERVE_DRIVE.kSwerveKinematics.toSwerveModuleStates(chassisSpeeds));
+    SwerveModuleState[] moduleStates =
+        SWERVE_DRIVE.kSwerveKinematics.toSwerveModuleStates(chassisSpeeds);
 
-    SwerveDriveKinematics.desaturateWheelSpeeds(
-        ModuleMap.orderedValues(moduleStates, new SwerveModuleState[0]), m_currentMaxVelocity);
+    SwerveDriveKinematics.desaturateWheelSpeeds(moduleStates, m_currentMaxVelocity);
 
-    for (SwerveModule module : ModuleMap.orderedValuesList(m_swerveModules))
-      module.setDesiredState(moduleStates.get(module.getModulePosition()), isOpenLoop);
+    for (int i = 0; i < m_swerveModules.length; i++)
+      m_swerveModules[i].setDesiredState(moduleStates[i], isOpenLoop);
   }
 
   /** Set robot heading to a clear target */
@@ -209,8 +248,8 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   public void setSwerveModuleStates(SwerveModuleState[] states, boolean isOpenLoop) {
     SwerveDriveKinematics.desaturateWheelSpeeds(states, m_currentMaxVelocity);
 
-    for (SwerveModule module : ModuleMap.orderedValuesList(m_swerveModules))
-      module.setDesiredState(states[module.getModulePosition().ordinal()], isOpenLoop);
+    for (int i = 0; i < m_swerveModules.length; i++)
+      m_swerveModules[i].setDesiredState(states[i], isOpenLoop);
   }
 
   public void setSwerveModuleStatesAuto(SwerveModuleState[] states) {
@@ -223,23 +262,18 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   }
 
   public void setOdometry(Pose2d pose) {
-    if (RobotBase.isSimulation()) {
-      m_pigeon.getSimCollection().setRawHeading(pose.getRotation().getDegrees());
-    } else m_pigeon.setYaw(pose.getRotation().getDegrees());
+    m_gyroIO.setYaw(pose.getRotation().getDegrees());
     m_odometry.resetPosition(getHeadingRotation2d(), getSwerveDriveModulePositionsArray(), pose);
 
-    for (var position : SWERVE_MODULE_POSITION.values()) {
-      var transform =
-          new Transform2d(
-              SWERVE_DRIVE.kModuleTranslations.get(position), Rotation2d.fromDegrees(0));
-      var modulePose = pose.plus(transform);
-      getSwerveModule(position).resetAngle(pose.getRotation().getDegrees());
-      getSwerveModule(position).setModulePose(modulePose);
+    for (int i = 0; i < m_swerveModules.length; i++) {
+      var transform = new Transform2d(SWERVE_DRIVE.kModuleTranslations[i], new Rotation2d());
+      m_swerveModules[i].resetAngle(pose.getRotation().getDegrees());
+      m_swerveModules[i].setModulePose(pose.plus(transform));
     }
   }
 
   public void setRollOffset() {
-    m_rollOffset = -m_pigeon.getRoll(); // -2.63
+    m_rollOffset = -m_gyroInputs.rollDegrees; // -2.63
   }
 
   public double getRollOffsetDegrees() {
@@ -247,16 +281,19 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   }
 
   public double getPitchDegrees() {
-    return m_pigeon.getPitch();
+    m_gyroSensors.assertFresh();
+    return m_gyroInputs.pitchDegrees;
   }
 
   public double getRollDegrees() {
+    m_gyroSensors.assertFresh();
     if (m_simOverride) return m_simRoll;
-    else return m_pigeon.getRoll();
+    else return m_gyroInputs.rollDegrees;
   }
 
   public double getHeadingDegrees() {
-    return m_pigeon.getYaw();
+    m_gyroSensors.assertFresh();
+    return m_gyroInputs.yawDegrees;
   }
 
   public Rotation2d getHeadingRotation2d() {
@@ -268,37 +305,42 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   }
 
   public SwerveModule getSwerveModule(SWERVE_MODULE_POSITION modulePosition) {
-    return m_swerveModules.get(modulePosition);
-  }
-
-  public Map<SWERVE_MODULE_POSITION, SwerveModuleState> getModuleStates() {
-    Map<SWERVE_MODULE_POSITION, SwerveModuleState> map = new HashMap<>();
-    for (SWERVE_MODULE_POSITION i : m_swerveModules.keySet())
-      map.put(i, m_swerveModules.get(i).getState());
-    return map;
+    return m_swerveModules[modulePosition.ordinal()];
   }
 
-  public Map<SWERVE_MODULE_POSITION, SwerveModulePosition> getModulePositions() {
-    Map<SWERVE_MODULE_POSITION, SwerveModulePosition> map = new HashMap<>();
-    for (SWERVE_MODULE_POSITION i : m_swerveModules.keySet())
-      map.put(i, m_swerveModules.get(i).getPosition());
-    return map;
+  /**
+   * Returns the current module states, indexed by {@link SWERVE_MODULE_POSITION} ordinal. The array
+   * is reused between calls.
+   */
+  public SwerveModuleState[] getModuleStates() {
+    for (int i = 0; i < m_swerveModules.length; i++)
+      m_moduleStates[i] = m_swerveModules[i].getState();
+    return m_moduleStates;
   }
 
+  /**
+   * Returns the current module positions, indexed by {@link SWERVE_MODULE_POSITION} ordinal. The
+   * array is reused between calls.
+   */
   public SwerveModulePosition[] getSwerveDriveModulePositionsArray() {
-    return ModuleMap.orderedValues(getModulePositions(), new SwerveModulePosition[0]);
+    for (int i = 0; i < m_swerveModules.length; i++)
+      m_modulePositions[i] = m_swerveModules[i].getPosition();
+    return m_modulePositions;
   }
 
-  public Map<SWERVE_MODULE_POSITION, Pose2d> getModulePoses() {
-    Map<SWERVE_MODULE_POSITION, Pose2d> map = new HashMap<>();
-    for (SWERVE_MODULE_POSITION i : m_swerveModules.keySet())
-      map.put(i, m_swerveModules.get(i).getModulePose());
-    return map;
+  /**
+   * Returns the current module poses, indexed by {@link SWERVE_MODULE_POSITION} ordinal. The array
+   * is reused between calls.
+   */
+  public Pose2d[] getModulePoses() {
+    for (int i = 0; i < m_swerveModules.length; i++)
+      m_modulePoses[i] = m_swerveModules[i].getModulePose();
+    return m_modulePoses;
   }
 
   public boolean getModuleInitStatus() {
-    for (SWERVE_MODULE_POSITION i : m_swerveModules.keySet()) {
-      if (!m_swerveModules.get(i).getInitSuccess()) {
+    for (SwerveModule module : m_swerveModules) {
+      if (!module.getInitSuccess()) {
         return false;
       }
     }
@@ -326,7 +368,7 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   }
 
   public void setNeutralMode(NeutralMode mode) {
-    for (SwerveModule module : m_swerveModules.values()) {
+    for (SwerveModule module : m_swerveModules) {
       //      module.setDriveNeutralMode(mode);
       module.setTurnNeutralMode(mode);
     }
@@ -341,82 +383,64 @@ public class SwerveDrive extends SubsystemBase implements AutoCloseable {
   }
 
   public void resetGyro() {
-    //    if (DriverStation.isFMSAttached() && Controls.getAllianceColor() ==
-    // DriverStation.Alliance.Red)
-    //      m_pigeon.setYaw(180);
-    //    else
-    m_pigeon.setYaw(0);
-    m_pigeon.setAccumZAngle(0);
+    m_gyroIO.reset();
   }
 
   public void updateOdometry() {
     m_odometry.update(getHeadingRotation2d(), getSwerveDriveModulePositionsArray());
 
-    for (SwerveModule module : ModuleMap.orderedValuesList(m_swerveModules)) {
+    Pose2d robotPose = getPoseMeters();
+    for (int i = 0; i < m_swerveModules.length; i++) {
       Transform2d moduleTransform =
-          new Transform2d(
-              SWERVE_DRIVE.kModuleTranslations.get(module.getModulePosition()),
-              module.getHeadingRotation2d());
-      module.setModulePose(getPoseMeters().transformBy(moduleTransform));
+          new Transform2d(SWERVE_DRIVE.kModuleTranslations[i], m_modulePositions[i].angle);
+      m_swerveModules[i].setModulePose(robotPose.transformBy(moduleTransform));
     }
   }
 
   private void initSmartDashboard() {
     SmartDashboard.putData(this);
 
-    var swerveTab =
-        NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("Swerve");
-    pitchPub = swerveTab.getDoubleTopic("Pitch").publish();
-    rollPub = swerveTab.getDoubleTopic("Roll").publish();
-    yawPub = swerveTab.getDoubleTopic("Yaw").publish();
-    odometryXPub = swerveTab.getDoubleTopic("Odometry X").publish();
-    odometryYPub = swerveTab.getDoubleTopic("Odometry Y").publish();
-    odometryYawPub = swerveTab.getDoubleTopic("Odometry Yaw").publish();
-  }
-
-  private void updateSmartDashboard() {
-    SmartDashboard.putNumber("gyro " + m_pigeon + " heading", getHeadingDegrees());
-    SmartDashboard.putBoolean("Swerve Module Init Status", getModuleInitStatus());
-    SmartDashboard.putNumber("Roll Offset", m_rollOffset);
-
-    pitchPub.set(getPitchDegrees());
-    rollPub.set(getRollDegrees() + getRollOffsetDegrees());
-    yawPub.set(getHeadingDegrees());
-
-    if (!m_limitCanUtil) {
-      // Put not required stuff here
-      odometryXPub.set(getOdometry().getEstimatedPosition().getX());
-      odometryYPub.set(getOdometry().getEstimatedPosition().getY());
-      odometryYawPub.set(getOdometry().getEstimatedPosition().getRotation().getDegrees());
-    }
+    var smartDashboard = Telemetry.getSmartDashboardTable();
+    // The key is built once here instead of every loop
+    m_telemetry.addDouble(
+        smartDashboard, "gyro " + CAN.pigeon + " heading", this::getHeadingDegrees, RATE.HZ_10);
+    m_telemetry.addBoolean(
+        smartDashboard, "Swerve Module Init Status", this::getModuleInitStatus, RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        smartDashboard, "Roll Offset", this::getRollOffsetDegrees, RATE.ON_CHANGE);
+
+    m_telemetry.addDouble("Pitch", this::getPitchDegrees, RATE.HZ_50);
+    m_telemetry.addDouble("Roll", () -> getRollDegrees() + getRollOffsetDegrees(), RATE.HZ_50);
+    m_telemetry.addDouble("Yaw", this::getHeadingDegrees, RATE.HZ_50);
+
+    // Not required during matches
+    m_telemetry.addDouble(
+        "Odometry X", () -> getOdometry().getEstimatedPosition().getX(), RATE.HZ_10);
+    m_telemetry.addDouble(
+        "Odometry Y", () -> getOdometry().getEstimatedPosition().getY(), RATE.HZ_10);
+    m_telemetry.addDouble(
+        "Odometry Yaw",
+        () -> getOdometry().getEstimatedPosition().getRotation().getDegrees(),
+        RATE.HZ_10);
   }
 
   @Override
   public void periodic() {
+    m_periodicProfile.start();
     if (DriverStation.isEnabled() && useHeadingTarget) {
       calculateRotationSpeed();
     }
 
     updateOdometry();
-    updateSmartDashboard();
-  }
-
-  @Override
-  public void simulationPeriodic() {
-    ChassisSpeeds chassisSpeed =
-        SWERVE_DRIVE.kSwerveKinematics.toChassisSpeeds(
-            ModuleMap.orderedValues(getModuleStates(), new SwerveModuleState[0]));
-
-    double dt = StateHandler.getSimDt();
-    m_simYaw += chassisSpeed.omegaRadiansPerSecond * dt;
-
-    Unmanaged.feedEnable(20);
-    m_pigeon.getSimCollection().setRawHeading(-Units.radiansToDegrees(m_simYaw));
+    m_periodicProfile.stop();
   }
 
   @Override
   public void close() throws Exception {
     if (m_swerveChassis2d != null) m_swerveChassis2d.close();
-    for (var module : ModuleMap.orderedValuesList(m_swerveModules)) module.close();
+    for (var module : m_swerveModules) module.close();
+    CommandScheduler.getInstance().unregisterSubsystem(m_swerveModules);
+    m_telemetry.close();
+    SensorCache.remove(m_gyroSensors);
   }
 }
@@ -4,50 +4,47 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.DemandType;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import com.ctre.phoenix.sensors.CANCoder;
-import com.ctre.phoenix.sensors.CANCoderStatusFrame;
-import com.ctre.phoenix.unmanaged.Unmanaged;
-import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.math.system.plant.LinearSystemId;
-import edu.wpi.first.networktables.BooleanPublisher;
-import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.util.datalog.DataLog;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
 import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.simulation.FlywheelSim;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants.STATE_HANDLER;
 import frc.robot.Constants.SWERVE_DRIVE;
 import frc.robot.Constants.SWERVE_DRIVE.SWERVE_MODULE_POSITION;
 import frc.robot.Constants.SWERVE_MODULE;
+import frc.robot.subsystems.io.SwerveModuleIO;
+import frc.robot.subsystems.io.SwerveModuleIO.SwerveModuleIOInputs;
 import frc.robot.utils.CtreUtils;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.RATE;
 
 public class SwerveModule extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile;
+
   private final SWERVE_MODULE_POSITION m_modulePosition;
   private final int m_moduleNumber;
-  private final TalonFX m_turnMotor;
-  private final TalonFX m_driveMotor;
-  private final CANCoder m_angleEncoder;
+  private final SwerveModuleIO m_io;
+  private final SwerveModuleIOInputs m_inputs = new SwerveModuleIOInputs();
+  // Samples m_inputs at the start of every loop
+  private final SensorCache.Entry m_sensors;
   private final double m_angleOffset;
   private double m_lastAngle;
   private Pose2d m_pose;
   private boolean m_initSuccess = false;
 
-  private final boolean m_limitCanUtil = STATE_HANDLER.limitCanUtilization;
+  // Reused every loop so that odometry/kinematics don't generate garbage
+  private final SwerveModuleState m_state = new SwerveModuleState();
+  private final SwerveModulePosition m_position = new SwerveModulePosition();
 
   private final SimpleMotorFeedforward feedforward =
       new SimpleMotorFeedforward(
@@ -55,64 +52,24 @@ public class SwerveModule extends SubsystemBase implements AutoCloseable {
           SWERVE_MODULE.kvDriveVoltSecondsSquaredPerMeter,
           SWERVE_MODULE.kaDriveVoltSecondsSquaredPerMeter);
 
-  private final FlywheelSim m_turnMotorSim =
-      new FlywheelSim(
-          // Sim Values
-          LinearSystemId.identifyVelocitySystem(0.25, 0.000001),
-          SWERVE_MODULE.kTurnGearbox,
-          SWERVE_MODULE.kTurningMotorGearRatio,
-          VecBuilder.fill(0));
-
-  private final FlywheelSim m_driveMotorSim =
-      new FlywheelSim(
-          // Sim Values
-          LinearSystemId.identifyVelocitySystem(0.8, 0.6),
-          SWERVE_MODULE.kDriveGearbox,
-          SWERVE_MODULE.kDriveMotorGearRatio);
-
-  private double m_driveMotorSimDistance;
-  private double m_turnMotorSimDistance;
-
-  private final int m_driveEncoderSimSign;
-  private final int m_turnEncoderSimSign;
-
   // Logging setup
 
   private final DoubleLogEntry moduleTurnCurrentEntry;
   private final DoubleLogEntry moduleDriveCurrentEntry;
 
-  private DoublePublisher moduleMotorHeadingPub, moduleEncoderHeadingPub;
-  private BooleanPublisher moduleEncoderHealthPub;
+  private final Telemetry m_telemetry = new Telemetry("Swerve");
 
   public SwerveModule(
-      SWERVE_MODULE_POSITION modulePosition,
-      TalonFX turnMotor,
-      TalonFX driveMotor,
-      CANCoder angleEncoder,
-      double angleOffset) {
+      SWERVE_MODULE_POSITION modulePosition, SwerveModuleIO io, double angleOffset) {
     m_modulePosition = modulePosition;
     m_moduleNumber = m_modulePosition.ordinal();
-    m_turnMotor = turnMotor;
-    m_driveMotor = driveMotor;
-    m_angleEncoder = angleEncoder;
+    m_io = io;
     m_angleOffset = angleOffset;
+    m_sensors =
+        SensorCache.register("SwerveModule_" + m_moduleNumber, () -> m_io.updateInputs(m_inputs));
 
     initModuleHeading();
 
-    m_turnMotor.configFactoryDefault();
-    m_turnMotor.configAllSettings(CtreUtils.generateTurnMotorConfig());
-    m_turnMotor.setInverted(true);
-    m_turnMotor.setSelectedSensorPosition(0);
-    m_turnEncoderSimSign = m_turnMotor.getInverted() ? -1 : 1;
-
-    m_driveMotor.configFactoryDefault();
-    m_driveMotor.configAllSettings(CtreUtils.generateDriveMotorConfig());
-    m_driveMotor.setInverted(false);
-    m_driveMotor.setNeutralMode(NeutralMode.Brake);
-    m_turnMotor.setNeutralMode(NeutralMode.Brake);
-
-    m_driveEncoderSimSign = m_driveMotor.getInverted() ? -1 : 1;
-
     // m_angleEncoder.configMagnetOffset(m_angleOffset);
     m_lastAngle = getHeadingDegrees();
 
@@ -125,22 +82,17 @@ public class SwerveModule extends SubsystemBase implements AutoCloseable {
 
     // To distinguish modules in CommandScheduler
     setName("SwerveModule_" + m_modulePosition.ordinal());
+    m_periodicProfile = LoopProfiler.register(getName() + ".periodic()");
   }
 
   private void initModuleHeading() {
-    if (RobotBase.isReal()) Timer.delay(0.2);
-    m_angleEncoder.configFactoryDefault();
-    m_angleEncoder.configAllSettings(CtreUtils.generateCanCoderConfig());
-    m_angleEncoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, 255);
-    m_angleEncoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, 255);
-    resetAngleToAbsolute();
-
     // Check if the offset was applied properly. Delay to give it some time to set
     if (RobotBase.isReal()) {
+      resetAngleToAbsolute();
       Timer.delay(0.1);
+      updateInputs();
       m_initSuccess =
-          Math.abs(getHeadingDegrees() + m_angleOffset - m_angleEncoder.getAbsolutePosition())
-              < 1.0;
+          Math.abs(getHeadingDegrees() + m_angleOffset - m_inputs.absoluteHeadingDegrees) < 1.0;
     } else m_initSuccess = true;
   }
 
@@ -157,12 +109,18 @@ public class SwerveModule extends SubsystemBase implements AutoCloseable {
   }
 
   public void resetAngle(double angle) {
-    double newAngle = m_angleEncoder.getAbsolutePosition() - m_angleOffset + angle;
-    m_turnMotor.setSelectedSensorPosition(newAngle / SWERVE_MODULE.kTurningMotorDistancePerPulse);
+    double newAngle = m_inputs.absoluteHeadingDegrees - m_angleOffset + angle;
+    m_io.setTurnSensorPosition(newAngle);
+  }
+
+  /** Reads every sensor again, outside of the sample at the start of the loop. */
+  public void updateInputs() {
+    m_sensors.sample();
   }
 
   public double getHeadingDegrees() {
-    return m_turnMotor.getSelectedSensorPosition() * SWERVE_MODULE.kTurningMotorDistancePerPulse;
+    m_sensors.assertFresh();
+    return m_inputs.headingDegrees;
   }
 
   public Rotation2d getHeadingRotation2d() {
@@ -170,13 +128,13 @@ public class SwerveModule extends SubsystemBase implements AutoCloseable {
   }
 
   public double getVelocityMetersPerSecond() {
-    return m_driveMotor.getSelectedSensorVelocity()
-        * SWERVE_MODULE.kDriveMotorDistancePerPulse
-        * 10;
+    m_sensors.assertFresh();
+    return m_inputs.driveVelocityMetersPerSecond;
   }
 
   public double getDriveMeters() {
-    return m_driveMotor.getSelectedSensorPosition() * SWERVE_MODULE.kDriveMotorDistancePerPulse;
+    m_sensors.assertFresh();
+    return m_inputs.driveMeters;
   }
 
   public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop) {
@@ -185,14 +143,10 @@ public class SwerveModule extends SubsystemBase implements AutoCloseable {
     if (isOpenLoop) {
       double percentOutput =
           desiredState.speedMetersPerSecond / SWERVE_DRIVE.kMaxSpeedMetersPerSecond;
-      m_driveMotor.set(ControlMode.PercentOutput, percentOutput);
+      m_io.setDrivePercentOutput(percentOutput);
     } else {
-      double velocity =
-          desiredState.speedMetersPerSecond / (SWERVE_MODULE.kDriveMotorDistancePerPulse * 10);
-      m_driveMotor.set(
-          ControlMode.Velocity,
-          velocity,
-          DemandType.ArbitraryFeedForward,
+      m_io.setDriveVelocity(
+          desiredState.speedMetersPerSecond,
           feedforward.calculate(desiredState.speedMetersPerSecond));
     }
 
@@ -203,16 +157,28 @@ public class SwerveModule extends SubsystemBase implements AutoCloseable {
             : desiredState.angle
                 .getDegrees(); // Prevent rotating module if speed is less than 1%. Prevents
     // Jittering.
-    m_turnMotor.set(ControlMode.Position, angle / SWERVE_MODULE.kTurningMotorDistancePerPulse);
+    m_io.setTurnPosition(angle);
     m_lastAngle = angle;
   }
 
+  /**
+   * Returns this module's current state. The returned object is owned by the module and is updated
+   * in place on every call, so copy it if it needs to be kept.
+   */
   public SwerveModuleState getState() {
-    return new SwerveModuleState(getVelocityMetersPerSecond(), getHeadingRotation2d());
+    m_state.speedMetersPerSecond = getVelocityMetersPerSecond();
+    m_state.angle = getHeadingRotation2d();
+    return m_state;
   }
 
+  /**
+   * Returns this module's current position. The returned object is owned by the module and is
+   * updated in place on every call, so copy it if it needs to be kept.
+   */
   public SwerveModulePosition getPosition() {
-    return new SwerveModulePosition(getDriveMeters(), getHeadingRotation2d());
+    m_position.distanceMeters = getDriveMeters();
+    m_position.angle = getHeadingRotation2d();
+    return m_position;
   }
 
   public void setModulePose(Pose2d pose) {
@@ -224,95 +190,47 @@ public class SwerveModule extends SubsystemBase implements AutoCloseable {
   }
 
   public void setDriveNeutralMode(NeutralMode mode) {
-    m_driveMotor.setNeutralMode(mode);
+    m_io.setDriveNeutralMode(mode);
   }
 
   public void setTurnNeutralMode(NeutralMode mode) {
-    m_turnMotor.setNeutralMode(mode);
+    m_io.setTurnNeutralMode(mode);
   }
 
   private void initSmartDashboard() {
-    var moduleTab =
-        NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("Swerve");
-    moduleEncoderHeadingPub =
-        moduleTab.getDoubleTopic("Module (" + m_moduleNumber + ") Encoder Heading").publish();
-    moduleTab
+    NetworkTableInstance.getDefault()
+        .getTable("Shuffleboard")
+        .getSubTable("Swerve")
         .getDoubleTopic("Module (" + m_moduleNumber + ") Encoder Offset")
         .publish()
         .set(m_angleOffset);
-    moduleEncoderHealthPub =
-        moduleTab.getBooleanTopic("Module (" + m_moduleNumber + ") Encoder Health").publish();
-    moduleMotorHeadingPub =
-        moduleTab.getDoubleTopic("Module (" + m_moduleNumber + ") Motor Heading").publish();
-  }
-
-  private void updateSmartDashboard() {
-    moduleMotorHeadingPub.set(getHeadingDegrees());
-    moduleEncoderHealthPub.set(getInitSuccess());
-    if (!m_limitCanUtil) {
-      moduleEncoderHeadingPub.set(m_angleEncoder.getAbsolutePosition());
-    }
+    m_telemetry.addDouble(
+        "Module (" + m_moduleNumber + ") Motor Heading", this::getHeadingDegrees, RATE.HZ_50);
+    m_telemetry.addBoolean(
+        "Module (" + m_moduleNumber + ") Encoder Health", this::getInitSuccess, RATE.ON_CHANGE);
+    // Not required during matches
+    m_telemetry.addDouble(
+        "Module (" + m_moduleNumber + ") Encoder Heading",
+        () -> m_inputs.absoluteHeadingDegrees,
+        RATE.HZ_10);
   }
 
   public void updateLog() {
-    moduleTurnCurrentEntry.append(m_turnMotor.getMotorOutputVoltage());
-    moduleDriveCurrentEntry.append(m_driveMotor.getMotorOutputVoltage());
+    moduleTurnCurrentEntry.append(m_inputs.turnOutputVoltage);
+    moduleDriveCurrentEntry.append(m_inputs.driveOutputVoltage);
   }
 
   @Override
   public void periodic() {
-    updateSmartDashboard();
+    m_periodicProfile.start();
     //    updateLog();
-  }
-
-  @Override
-  public void simulationPeriodic() {
-    m_turnMotorSim.setInputVoltage(MathUtil.clamp(m_turnMotor.getMotorOutputVoltage(), -12, 12));
-    m_driveMotorSim.setInputVoltage(MathUtil.clamp(m_driveMotor.getMotorOutputVoltage(), -12, 12));
-
-    double dt = StateHandler.getSimDt();
-    m_turnMotorSim.update(dt);
-    m_driveMotorSim.update(dt);
-
-    m_turnMotorSimDistance += m_turnMotorSim.getAngularVelocityRadPerSec() * dt;
-    m_driveMotorSimDistance += m_driveMotorSim.getAngularVelocityRadPerSec() * dt;
-
-    Unmanaged.feedEnable(20);
-
-    m_turnMotor
-        .getSimCollection()
-        .setIntegratedSensorRawPosition(
-            (int)
-                (m_turnEncoderSimSign
-                    * m_turnMotorSimDistance
-                    / SWERVE_MODULE.kTurningMotorDistancePerPulse));
-    m_turnMotor
-        .getSimCollection()
-        .setIntegratedSensorVelocity(
-            (int)
-                (m_turnEncoderSimSign
-                    * m_turnMotorSim.getAngularVelocityRadPerSec()
-                    / (SWERVE_MODULE.kTurningMotorDistancePerPulse * 10)));
-    m_driveMotor
-        .getSimCollection()
-        .setIntegratedSensorRawPosition(
-            (int)
-                (m_driveEncoderSimSign
-                    * m_driveMotorSimDistance
-                    / SWERVE_MODULE.kDriveMotorDistancePerPulse));
-    m_driveMotor
-        .getSimCollection()
-        .setIntegratedSensorVelocity(
-            (int)
-                (m_driveEncoderSimSign
-                    * m_driveMotorSim.getAngularVelocityRadPerSec()
-                    / (SWERVE_MODULE.kDriveMotorDistancePerPulse * 10)));
-
-    m_turnMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
-    m_driveMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+    m_periodicProfile.stop();
   }
 
   @SuppressWarnings("RedundantThrows")
   @Override
-  public void close() throws Exception {}
+  public void close() throws Exception {
+    m_telemetry.close();
+    SensorCache.remove(m_sensors);
+  }
 }
@@ -6,16 +6,22 @@ package frc.robot.subsystems;
 
 import static frc.robot.subsystems.StateHandler.m_chassisRoot2d;
 
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.net.PortForwarder;
 import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.IntegerPublisher;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
 import edu.wpi.first.util.datalog.DataLog;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -25,9 +31,14 @@ import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.VISION;
 import frc.robot.Constants.VISION.CAMERA_SERVER;
 import frc.robot.Constants.VISION.PIPELINE;
-import java.util.stream.DoubleStream;
+import frc.robot.simulation.SimConstants;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.VisionFrame;
 
 public class Vision extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
+
   private final SwerveDrive m_swerveDrive;
   private final Controls m_controls;
   private final Intake m_intakeSub;
@@ -35,10 +46,142 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   // Mech2d setup
   private MechanismLigament2d m_limelightLigament2d;
 
-  private final NetworkTable m_intakeNt;
-  private final NetworkTable m_leftLocalizer;
-  private final NetworkTable m_rightLocalizer;
-  private final NetworkTable m_fLocalizer;
+  /** Typed subscribers for one camera, created once so the loop never looks entries up by name */
+  private static class CameraSubscribers {
+    private final CAMERA_SERVER camera;
+    private final DoubleSubscriber tv, tx, ty, ta, tl, pipeline, json, timestamp;
+    private final DoubleArraySubscriber botPose, tid;
+    private final DoubleArraySubscriber robotPoseX, robotPoseY, robotPoseYaw, tagPoseX, tagPoseY;
+    // The tags that came with the botpose sample being fused, see advanceTagsTo()
+    private double[] sampleTagIds = new double[] {};
+    private double[] sampleTagPosesX = new double[] {};
+    private double[] sampleTagPosesY = new double[] {};
+    private final TagQueue tagIdQueue = new TagQueue();
+    private final TagQueue tagPoseXQueue = new TagQueue();
+    private final TagQueue tagPoseYQueue = new TagQueue();
+
+    private CameraSubscribers(CAMERA_SERVER camera, NetworkTable table) {
+      // botpose and the tags it was computed from keep a queue, so every sample between loops can
+      // be fused with its own tags, not just the latest
+      this.camera = camera;
+      tv = table.getDoubleTopic("tv").subscribe(0);
+      tx = table.getDoubleTopic("tx").subscribe(0);
+      ty = table.getDoubleTopic("ty").subscribe(0);
+      ta = table.getDoubleTopic("ta").subscribe(0);
+      tl = table.getDoubleTopic("tl").subscribe(0);
+      pipeline = table.getDoubleTopic("pipeline").subscribe(0);
+      json = table.getDoubleTopic("json").subscribe(0);
+      timestamp = table.getDoubleTopic("timestamp").subscribe(0);
+      botPose =
+          table
+              .getDoubleArrayTopic("botpose")
+              .subscribe(
+                  new double[] {},
+                  PubSubOption.keepDuplicates(true),
+                  PubSubOption.pollStorage(VISION.kPoseQueueDepth));
+      tid = subscribeQueue(table, "tid");
+      robotPoseX = table.getDoubleArrayTopic("Robot Pose X").subscribe(new double[] {});
+      robotPoseY = table.getDoubleArrayTopic("Robot Pose Y").subscribe(new double[] {});
+      robotPoseYaw = table.getDoubleArrayTopic("Robot Pose Yaw").subscribe(new double[] {});
+      tagPoseX = subscribeQueue(table, "Tag Pose X");
+      tagPoseY = subscribeQueue(table, "Tag Pose Y");
+    }
+
+    private static DoubleArraySubscriber subscribeQueue(NetworkTable table, String name) {
+      return table
+          .getDoubleArrayTopic(name)
+          .subscribe(
+              new double[] {},
+              PubSubOption.keepDuplicates(true),
+              PubSubOption.pollStorage(VISION.kPoseQueueDepth));
+    }
+
+    /** Reads the tag samples received since the last loop. */
+    private void readTagQueues() {
+      tagIdQueue.read(tid);
+      tagPoseXQueue.read(tagPoseX);
+      tagPoseYQueue.read(tagPoseY);
+    }
+
+    /**
+     * Moves the sample tags to the ones published with, or most recently before, the botpose
+     * sample received at this time.
+     */
+    private void advanceTagsTo(long ntTimestamp) {
+      sampleTagIds = tagIdQueue.advanceTo(ntTimestamp, sampleTagIds);
+      sampleTagPosesX = tagPoseXQueue.advanceTo(ntTimestamp, sampleTagPosesX);
+      sampleTagPosesY = tagPoseYQueue.advanceTo(ntTimestamp, sampleTagPosesY);
+    }
+
+    private VisionFrame sample() {
+      return new VisionFrame(
+          camera,
+          tv.get(),
+          tx.get(),
+          ty.get(),
+          ta.get(),
+          tl.get(),
+          pipeline.get(),
+          timestamp.get(),
+          botPose.get(),
+          tid.get(),
+          robotPoseX.get(),
+          robotPoseY.get(),
+          robotPoseYaw.get(),
+          tagPoseX.get(),
+          tagPoseY.get());
+    }
+
+    private void close() {
+      tv.close();
+      tx.close();
+      ty.close();
+      ta.close();
+      tl.close();
+      pipeline.close();
+      json.close();
+      timestamp.close();
+      botPose.close();
+      tid.close();
+      robotPoseX.close();
+      robotPoseY.close();
+      robotPoseYaw.close();
+      tagPoseX.close();
+      tagPoseY.close();
+    }
+  }
+
+  /** One loop's samples of a tag topic, walked in order alongside the botpose samples. */
+  private static class TagQueue {
+    private TimestampedDoubleArray[] samples = new TimestampedDoubleArray[] {};
+    private int next;
+
+    private void read(DoubleArraySubscriber subscriber) {
+      samples = subscriber.readQueue();
+      next = 0;
+    }
+
+    private double[] advanceTo(long ntTimestamp, double[] current) {
+      while (next < samples.length && samples[next].timestamp <= ntTimestamp)
+        current = samples[next++].value;
+      return current;
+    }
+  }
+
+  // Indexed by CAMERA_SERVER ordinal
+  private final CameraSubscribers[] m_cameras =
+      new CameraSubscribers[CAMERA_SERVER.values().length];
+  private final VisionFrame[] m_frames = new VisionFrame[CAMERA_SERVER.values().length];
+
+  private static final CAMERA_SERVER[] kLocalizers = {
+    CAMERA_SERVER.LEFT_LOCALIZER, CAMERA_SERVER.RIGHT_LOCALIZER, CAMERA_SERVER.FUSED_LOCALIZER
+  };
+
+  private final DoublePublisher m_intakePipelinePub;
+
+  private long m_measurementsAccepted;
+  private long m_measurementsRejected;
+  private IntegerPublisher m_measurementsAcceptedPub, m_measurementsRejectedPub;
 
   private final DoubleArrayPublisher m_leftLocalizerPositionPub;
   private final DoubleArrayPublisher m_rightLocalizerPositionPub;
@@ -74,10 +217,16 @@ public class Vision extends SubsystemBase implements AutoCloseable {
     m_controls = controls;
     m_intakeSub = intake;
 
-    m_intakeNt = NetworkTableInstance.getDefault().getTable("limelight");
-    m_leftLocalizer = NetworkTableInstance.getDefault().getTable("lLocalizer");
-    m_rightLocalizer = NetworkTableInstance.getDefault().getTable("rLocalizer");
-    m_fLocalizer = NetworkTableInstance.getDefault().getTable("fusedLocalizer");
+    var intakeNt = NetworkTableInstance.getDefault().getTable("limelight");
+    initCamera(CAMERA_SERVER.INTAKE, intakeNt);
+    initCamera(
+        CAMERA_SERVER.LEFT_LOCALIZER, NetworkTableInstance.getDefault().getTable("lLocalizer"));
+    initCamera(
+        CAMERA_SERVER.RIGHT_LOCALIZER, NetworkTableInstance.getDefault().getTable("rLocalizer"));
+    initCamera(
+        CAMERA_SERVER.FUSED_LOCALIZER,
+        NetworkTableInstance.getDefault().getTable("fusedLocalizer"));
+    m_intakePipelinePub = intakeNt.getDoubleTopic("pipeline").publish();
 
     PortForwarder.add(5800, CAMERA_SERVER.INTAKE.toString(), 5800);
     PortForwarder.add(5801, CAMERA_SERVER.INTAKE.toString(), 5801);
@@ -118,6 +267,24 @@ public class Vision extends SubsystemBase implements AutoCloseable {
     }
   }
 
+  private void initCamera(CAMERA_SERVER location, NetworkTable table) {
+    m_cameras[location.ordinal()] = new CameraSubscribers(location, table);
+    m_frames[location.ordinal()] = VisionFrame.empty(location);
+  }
+
+  /** Sample every camera once. Called at the start of {@link #periodic()}. */
+  private void updateFrames() {
+    for (int i = 0; i < m_cameras.length; i++) m_frames[i] = m_cameras[i].sample();
+  }
+
+  /**
+   * Returns the latest snapshot of the given camera's data. The frame is only updated once per
+   * loop, so all reads within a loop are consistent.
+   */
+  public VisionFrame getFrame(CAMERA_SERVER location) {
+    return m_frames[location.ordinal()];
+  }
+
   public MechanismLigament2d getLimelightLigament() {
     return m_limelightLigament2d;
   }
@@ -135,26 +302,15 @@ public class Vision extends SubsystemBase implements AutoCloseable {
    * Whether the limelight has any valid targets (0 or 1)
    */
   public double getValidTargetType(CAMERA_SERVER location) {
-    switch (location) {
-      case INTAKE:
-        return m_intakeNt.getEntry("tv").getDouble(0);
-      case LEFT_LOCALIZER:
-        return m_leftLocalizer.getEntry("tv").getDouble(0);
-      case RIGHT_LOCALIZER:
-        return m_rightLocalizer.getEntry("tv").getDouble(0);
-      case FUSED_LOCALIZER:
-        return m_fLocalizer.getEntry("tv").getDouble(0);
-      default:
-        return 0;
-    }
+    return getFrame(location).getValidTargetType();
   }
 
   public double[] getAprilTagIds(CAMERA_SERVER location) {
     switch (location) {
       case LEFT_LOCALIZER:
-        return m_leftLocalizer.getEntry("tid").getDoubleArray(defaultDoubleArray);
       case RIGHT_LOCALIZER:
-        return m_rightLocalizer.getEntry("tid").getDoubleArray(defaultDoubleArray);
+        var tagIds = getFrame(location).getTagIds();
+        return tagIds.length > 0 ? tagIds : defaultDoubleArray;
       default:
         return defaultDoubleArray;
     }
@@ -166,7 +322,7 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   public double getTargetXAngle(CAMERA_SERVER location) {
     switch (location) {
       case INTAKE:
-        return -m_intakeNt.getEntry("tx").getDouble(0);
+        return getFrame(location).getTargetXAngle();
       default:
         return 0;
     }
@@ -178,7 +334,7 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   public double getTargetYAngle(CAMERA_SERVER location) {
     switch (location) {
       case INTAKE:
-        return m_intakeNt.getEntry("ty").getDouble(0);
+        return getFrame(location).getTargetYAngle();
       default:
         return 0;
     }
@@ -190,7 +346,7 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   public double getCameraLatency(CAMERA_SERVER location) {
     switch (location) {
       case INTAKE:
-        return m_intakeNt.getEntry("tl").getDouble(0);
+        return getFrame(location).getCameraLatency();
       default:
         return 0;
     }
@@ -202,7 +358,7 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   public double getTargetArea(CAMERA_SERVER location) {
     switch (location) {
       case INTAKE:
-        return m_intakeNt.getEntry("ta").getDouble(0);
+        return getFrame(location).getTargetArea();
       default:
         return 0;
     }
@@ -214,9 +370,8 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   public double getJSON(CAMERA_SERVER location) {
     switch (location) {
       case LEFT_LOCALIZER:
-        return m_leftLocalizer.getEntry("json").getDouble(0);
       case RIGHT_LOCALIZER:
-        return m_rightLocalizer.getEntry("json").getDouble(0);
+        return m_cameras[location.ordinal()].json.get();
       default:
         return 0;
     }
@@ -231,13 +386,13 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   }
 
   public void updatePipeline() {
-    m_intakeNt.getEntry("pipeline").setDouble(1);
+    m_intakePipelinePub.set(1);
   }
 
   public double getPipeline(CAMERA_SERVER location) {
     switch (location) {
       case INTAKE:
-        return m_intakeNt.getEntry("pipeline").getDouble(0);
+        return getFrame(location).getPipeline();
       default:
         return 0.0;
     }
@@ -352,45 +507,14 @@ public class Vision extends SubsystemBase implements AutoCloseable {
    * Collects transformation/rotation data from limelight
    */
   public double[] getBotPose(CAMERA_SERVER location) {
-    DriverStation.Alliance allianceColor = Controls.getAllianceColor();
-    double[] botPose = new double[0];
     switch (location) {
       case LEFT_LOCALIZER:
-        botPose = m_leftLocalizer.getEntry("botpose").getDoubleArray(defaultDoubleArray);
-        break;
-        //      case RIGHT_LOCALIZER:
-        //        var rawBotPose = defaultDoubleArray;
-        //        switch (allianceColor) {
-        //          case Red:
-        //            rawBotPose =
-        //
-        // m_rightLocalizer.getEntry("botpose_wpired").getDoubleArray(defaultDoubleArray);
-        //            break;
-        //          case Blue:
-        //            rawBotPose =
-        //
-        // m_rightLocalizer.getEntry("botpose_wpiblue").getDoubleArray(defaultDoubleArray);
-        //            break;
-        //          default:
-        //            rawBotPose =
-        // m_rightLocalizer.getEntry("botpose").getDoubleArray(defaultDoubleArray);
-        //
-        //            if (rawBotPose.length > 0) {
-        //              rawBotPose[0] = 15.980 / 2 + rawBotPose[0];
-        //              rawBotPose[1] = 8.210 / 2 + rawBotPose[1];
-        //              return rawBotPose;
-        //            }
-        //            break;
-        //        }
       case RIGHT_LOCALIZER:
-        botPose = m_rightLocalizer.getEntry("botpose").getDoubleArray(defaultDoubleArray);
-        break;
       case FUSED_LOCALIZER:
-        botPose = m_fLocalizer.getEntry("botpose").getDoubleArray(defaultDoubleArray);
-        break;
+        return getFrame(location).getBotPose();
+      default:
+        return defaultDoubleArray;
     }
-    if (botPose.length > 0) return botPose;
-    else return defaultDoubleArray;
   }
 
   /**
@@ -401,44 +525,36 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   public double getDetectionTimestamp(CAMERA_SERVER location) {
     switch (location) {
       case LEFT_LOCALIZER:
-        return m_leftLocalizer.getEntry("timestamp").getDouble(0);
       case RIGHT_LOCALIZER:
-        return m_rightLocalizer.getEntry("timestamp").getDouble(0);
       case FUSED_LOCALIZER:
-        return m_fLocalizer.getEntry("timestamp").getDouble(0);
+        return getFrame(location).getDetectionTimestamp();
       default:
         return 0;
     }
   }
 
   public Pose2d getRobotPose2d(CAMERA_SERVER location) {
-    double[] pose = getBotPose(location);
-    return new Pose2d(pose[0], pose[1], Rotation2d.fromDegrees(pose[5]));
+    switch (location) {
+      case LEFT_LOCALIZER:
+      case RIGHT_LOCALIZER:
+      case FUSED_LOCALIZER:
+        return getFrame(location).getRobotPose2d();
+      default:
+        return new Pose2d();
+    }
   }
 
   public Pose2d[] getRobotPoses2d(CAMERA_SERVER location) {
     Pose2d[] poseArray = {defaultPose};
-    NetworkTable localizer = null;
-
-    if (getValidTarget(location)) {
-      switch (location) {
-        case INTAKE:
-          break;
-        case RIGHT_LOCALIZER:
-          localizer = m_rightLocalizer;
-          break;
-        case LEFT_LOCALIZER:
-          localizer = m_leftLocalizer;
-          break;
-        case FUSED_LOCALIZER:
-          localizer = m_fLocalizer;
-          break;
-      }
-      robotPosX = localizer.getEntry("Robot Pose X").getDoubleArray(new double[] {});
-      robotPosY = localizer.getEntry("Robot Pose Y").getDoubleArray(new double[] {});
-      robotPosYaw = localizer.getEntry("Robot Pose Yaw").getDoubleArray(new double[] {});
-      poseArray = new Pose2d[robotPosX.length];
-      for (int i = 0; i < robotPosX.length; i++)
+    var frame = getFrame(location);
+
+    if (location != CAMERA_SERVER.INTAKE && frame.hasTarget()) {
+      robotPosX = frame.getRobotPosesX();
+      robotPosY = frame.getRobotPosesY();
+      robotPosYaw = frame.getRobotPosesYaw();
+      int length = Math.min(robotPosX.length, Math.min(robotPosY.length, robotPosYaw.length));
+      poseArray = new Pose2d[length];
+      for (int i = 0; i < length; i++)
         poseArray[i] =
             new Pose2d(robotPosX[i], robotPosY[i], Rotation2d.fromDegrees(robotPosYaw[i]));
     }
@@ -447,31 +563,18 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   }
 
   public Pose2d[] getTagPoses2d(CAMERA_SERVER location) {
-    NetworkTable localizer;
     Pose2d[] poseArray = {defaultPose};
+    // The intake camera doesn't report tags, so fall back to the fused localizer
+    var frame =
+        getFrame(location == CAMERA_SERVER.INTAKE ? CAMERA_SERVER.FUSED_LOCALIZER : location);
 
     if (getValidTarget(location)) {
-      switch (location) {
-        case LEFT_LOCALIZER:
-          localizer = m_leftLocalizer;
-          break;
-        case RIGHT_LOCALIZER:
-          localizer = m_rightLocalizer;
-          break;
-        default:
-        case FUSED_LOCALIZER:
-          localizer = m_fLocalizer;
-          break;
-      }
-      try {
-        tagPosX = localizer.getEntry("Tag Pose X").getDoubleArray(new double[] {});
-        tagPosY = localizer.getEntry("Tag Pose Y").getDoubleArray(new double[] {});
-        poseArray = new Pose2d[tagPosY.length];
-        for (int i = 0; i < tagPosY.length; i++)
-          poseArray[i] = new Pose2d(tagPosX[i], tagPosY[i], Rotation2d.fromDegrees(0));
-      } catch (Exception e) {
-        poseArray = new Pose2d[] {defaultPose};
-      }
+      tagPosX = frame.getTagPosesX();
+      tagPosY = frame.getTagPosesY();
+      int length = Math.min(tagPosX.length, tagPosY.length);
+      poseArray = new Pose2d[length];
+      for (int i = 0; i < length; i++)
+        poseArray[i] = new Pose2d(tagPosX[i], tagPosY[i], Rotation2d.fromDegrees(0));
     }
 
     return poseArray;
@@ -479,34 +582,99 @@ public class Vision extends SubsystemBase implements AutoCloseable {
 
   public int[] getTagIds(CAMERA_SERVER location) {
     var tags = tagIds;
-    double[] rawTags;
-    if (getValidTarget(location)) {
-      switch (location) {
-        case LEFT_LOCALIZER:
-          rawTags = m_leftLocalizer.getEntry("tid").getDoubleArray(new double[] {});
-          tags = DoubleStream.of(rawTags).mapToInt(d -> (int) d).toArray();
-          break;
-        case RIGHT_LOCALIZER:
-          rawTags = m_rightLocalizer.getEntry("tid").getDoubleArray(new double[] {});
-          tags = DoubleStream.of(rawTags).mapToInt(d -> (int) d).toArray();
-          break;
-        case FUSED_LOCALIZER:
-          rawTags = m_fLocalizer.getEntry("tid").getDoubleArray(new double[] {});
-          tags = DoubleStream.of(rawTags).mapToInt(d -> (int) d).toArray();
-          break;
-        default:
-        case INTAKE:
-          break;
-      }
+    if (location != CAMERA_SERVER.INTAKE && getValidTarget(location)) {
+      double[] rawTags = getFrame(location).getTagIds();
+      tags = new int[rawTags.length];
+      for (int i = 0; i < rawTags.length; i++) tags[i] = (int) rawTags[i];
     }
     return tags;
   }
 
-  private void updateVisionPose(CAMERA_SERVER location) {
-    if (getValidTarget(location))
-      m_swerveDrive
-          .getOdometry()
-          .addVisionMeasurement(getRobotPose2d(location), getDetectionTimestamp(location));
+  /**
+   * Feeds every botpose sample received since the last loop from each localizer into the pose
+   * estimator. Samples are queued by NetworkTables, so none are dropped if a camera publishes
+   * faster than the robot loop.
+   */
+  private void updateVisionPose() {
+    for (var location : kLocalizers) {
+      var camera = m_cameras[location.ordinal()];
+      camera.readTagQueues();
+      for (var sample : camera.botPose.readQueue()) {
+        camera.advanceTagsTo(sample.timestamp);
+        if (addVisionMeasurement(camera, sample.timestamp, sample.value)) m_measurementsAccepted++;
+        else m_measurementsRejected++;
+      }
+      // Tags newer than the last botpose sample belong to one that arrives next loop
+      camera.advanceTagsTo(Long.MAX_VALUE);
+    }
+  }
+
+  public long getMeasurementsAccepted() {
+    return m_measurementsAccepted;
+  }
+
+  public long getMeasurementsRejected() {
+    return m_measurementsRejected;
+  }
+
+  /**
+   * Validate a single botpose sample and add it to the pose estimator.
+   *
+   * @param camera The camera the sample is from, holding the tags published with it
+   * @param ntTimestamp When the sample was received, in microseconds. NetworkTables uses the FPGA
+   *     clock as its local time base on the robot and in simulation.
+   * @param botPose x, y, z, roll, pitch, yaw, total latency (ms)
+   * @return true if the measurement was used
+   */
+  private boolean addVisionMeasurement(
+      CameraSubscribers camera, long ntTimestamp, double[] botPose) {
+    if (botPose.length < 7) return false;
+
+    double captureTime = ntTimestamp / 1e6 - botPose[6] / 1000.0;
+    if (Timer.getFPGATimestamp() - captureTime > VISION.kMaxMeasurementAgeSeconds) return false;
+
+    var visionPose = new Pose2d(botPose[0], botPose[1], Rotation2d.fromDegrees(botPose[5]));
+    if (visionPose.getX() < 0
+        || visionPose.getX() > SimConstants.fieldLength
+        || visionPose.getY() < 0
+        || visionPose.getY() > SimConstants.fieldWidth) {
+      return false;
+    }
+
+    int tagCount = camera.sampleTagIds.length;
+    if (tagCount == 0) return false;
+
+    double[] tagX = camera.sampleTagPosesX;
+    double[] tagY = camera.sampleTagPosesY;
+    int tagPoses = Math.min(tagX.length, tagY.length);
+    if (tagPoses == 0) return false;
+    double averageDistance = 0;
+    for (int i = 0; i < tagPoses; i++)
+      averageDistance += Math.hypot(tagX[i] - visionPose.getX(), tagY[i] - visionPose.getY());
+    averageDistance /= tagPoses;
+
+    var estimator = m_swerveDrive.getOdometry();
+    if (tagCount == 1) {
+      // A single tag is ambiguous, so only use it to correct small drift
+      if (averageDistance > VISION.kMaxSingleTagDistanceMeters) return false;
+      var estimatedTranslation = estimator.getEstimatedPosition().getTranslation();
+      if (estimatedTranslation.getDistance(visionPose.getTranslation())
+          > VISION.kMaxSingleTagPoseJumpMeters) {
+        return false;
+      }
+    } else if (averageDistance > VISION.kMaxMultiTagDistanceMeters) {
+      return false;
+    }
+
+    // Trust measurements less the further away the tags are, and more the more tags are seen
+    double scale = averageDistance * averageDistance / tagCount;
+    double xyStdDev = VISION.kXYStdDevCoefficient * scale;
+    // Heading from a single tag is too noisy to use, so rely on the gyro instead
+    double thetaStdDev = tagCount > 1 ? VISION.kThetaStdDevCoefficient * scale : 1e6;
+
+    estimator.addVisionMeasurement(
+        visionPose, captureTime, VecBuilder.fill(xyStdDev, xyStdDev, thetaStdDev));
+    return true;
   }
 
   private void logData() {
@@ -515,14 +683,24 @@ public class Vision extends SubsystemBase implements AutoCloseable {
 
   public void initSmartDashboard() {
     SmartDashboard.putData(this);
+
+    var visionTab =
+        NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("Vision");
+    m_measurementsAcceptedPub = visionTab.getIntegerTopic("Measurements Accepted").publish();
+    m_measurementsRejectedPub = visionTab.getIntegerTopic("Measurements Rejected").publish();
   }
 
   public void updateSmartDashboard() {
     SmartDashboard.putNumber("pipeline", getPipeline(CAMERA_SERVER.INTAKE));
+    m_measurementsAcceptedPub.set(m_measurementsAccepted);
+    m_measurementsRejectedPub.set(m_measurementsRejected);
   }
 
   @Override
   public void periodic() {
+    m_periodicProfile.start();
+    updateFrames();
+
     m_leftLocalizerPositionPub.set(
         new double[] {
           VISION.LOCALIZER_CAMERA_POSITION[0].getTranslation().getX(),
@@ -543,11 +721,12 @@ public class Vision extends SubsystemBase implements AutoCloseable {
         });
     // This method will be called once per scheduler run
     updateSmartDashboard();
-    // updateVisionPose(CAMERA_SERVER.FUSED_LOCALIZER);
+    updateVisionPose();
     // searchLimelightPipeline(CAMERA_SERVER.INTAKE);
     updatePipeline();
     // searchforCube(CAMERA_SERVER.INTAKE, 1.0);
     logData();
+    m_periodicProfile.stop();
   }
 
   @Override
@@ -559,5 +738,9 @@ public class Vision extends SubsystemBase implements AutoCloseable {
   @Override
   public void close() throws Exception {
     if (m_limelightLigament2d != null) m_limelightLigament2d.close();
+    for (var camera : m_cameras) camera.close();
+    m_intakePipelinePub.close();
+    m_measurementsAcceptedPub.close();
+    m_measurementsRejectedPub.close();
   }
 }
@@ -4,14 +4,6 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.DemandType;
-import com.ctre.phoenix.motorcontrol.FeedbackDevice;
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatorCurrentLimitConfiguration;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import com.ctre.phoenix.unmanaged.Unmanaged;
-import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.ArmFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
@@ -20,26 +12,36 @@ import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StringPublisher;
 import edu.wpi.first.util.datalog.DataLog;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
 import edu.wpi.first.wpilibj.*;
-import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants.CAN;
 import frc.robot.Constants.CONTROL_MODE;
 import frc.robot.Constants.DIO;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.WRIST;
 import frc.robot.Constants.WRIST.THRESHOLD;
+import frc.robot.subsystems.io.WristIO;
+import frc.robot.subsystems.io.WristIO.WristIOInputs;
+import frc.robot.subsystems.io.WristIOSim;
+import frc.robot.subsystems.io.WristIOTalonFX;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.MotionProfile;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.RATE;
 
 public class Wrist extends SubsystemBase implements AutoCloseable {
+  private final LoopProfiler.Section m_periodicProfile =
+      LoopProfiler.register(getName() + ".periodic()");
 
-  // Initialize single wrist motor
-  private static final TalonFX wristMotor = new TalonFX(CAN.wristMotor);
+  private final WristIO m_io;
+  private final WristIOInputs m_inputs = new WristIOInputs();
+  // Samples m_inputs at the start of every loop
+  private final SensorCache.Entry m_sensors;
   private boolean m_wristInitialized = false;
 
   private final DigitalInput resetSwitch = new DigitalInput(DIO.resetWristSwitch);
@@ -61,8 +63,10 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
 
   private Translation2d m_wristHorizontalTranslation = new Translation2d();
 
-  private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
-  private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+  private final MotionProfile m_profile = new MotionProfile(m_currentConstraints);
+  private final TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+  // Set when m_setpoint was given by setSetpointState() for the next periodic
+  private boolean m_followSetpointState;
 
   // Create a new ArmFeedforward with gains kS, kG, kV, and kA
   private final ArmFeedforward m_feedForward =
@@ -77,20 +81,6 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
   private double m_currentKI = 0;
   private double m_newKI = 0;
 
-  // Simulation setup
-  private final SingleJointedArmSim m_armSim =
-      new SingleJointedArmSim(
-          WRIST.gearBox,
-          WRIST.gearRatio,
-          SingleJointedArmSim.estimateMOI(WRIST.length, WRIST.mass),
-          WRIST.length,
-          THRESHOLD.ABSOLUTE_MIN.get(),
-          THRESHOLD.ABSOLUTE_MAX.get(),
-          false
-          // VecBuilder.fill(2.0 * Math.PI / 2048.0) // Add noise with a std-dev of 1 tick
-          );
-  private static int m_simEncoderSign = 1;
-
   // Mech2d setup
   private final MechanismLigament2d m_wristGearboxLigament2d =
       new MechanismLigament2d("FourbarGearbox", WRIST.fourbarGearboxHeight, 90);
@@ -109,38 +99,24 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
       new DoubleLogEntry(log, "/wrist/positionDegrees");
 
   private DoublePublisher kCommandedAngleDegreesPub;
-  private DoublePublisher kDesiredAngleDegreesPub;
-  private DoublePublisher kCurrentAngleDegreesPub;
   private DoublePublisher currentTrapezoidVelocity;
   private DoublePublisher currentTrapezoidAcceleration;
-  private StringPublisher currentCommandStatePub;
+  private final Telemetry m_telemetry = new Telemetry("Wrist");
 
-  /** Creates a new Wrist. */
+  /** Creates a new Wrist on the TalonFX, or on the physics sim when simulating. */
   public Wrist(Intake intake) {
-    m_intake = intake;
-
-    // Factory default configs
-    wristMotor.configFactoryDefault();
-    wristMotor.setNeutralMode(NeutralMode.Brake);
-    wristMotor.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, 0, 0);
-    wristMotor.config_kP(0, WRIST.kP);
-    wristMotor.config_kI(0, WRIST.kI);
-    wristMotor.config_kD(0, WRIST.kD);
-    wristMotor.configPeakOutputForward(WRIST.kMaxPercentOutput, WRIST.kTimeoutMs);
-    wristMotor.configPeakOutputReverse(-WRIST.kMaxPercentOutput, WRIST.kTimeoutMs);
-    wristMotor.setInverted(WRIST.motorInversionType);
-
-    // TODO: Review limits, test to see what is appropriate or not
-    wristMotor.configStatorCurrentLimit(new StatorCurrentLimitConfiguration(true, 40, 30, 0.2));
+    this(RobotBase.isReal() ? new WristIOTalonFX() : new WristIOSim(), intake);
+  }
 
-    wristMotor.configAllowableClosedloopError(0, 1 / WRIST.encoderUnitsToDegrees);
+  public Wrist(WristIO io, Intake intake) {
+    m_io = io;
+    m_intake = intake;
+    m_sensors = SensorCache.register("Wrist", () -> m_io.updateInputs(m_inputs));
 
     initSmartDashboard();
     m_timer.reset();
     m_timer.start();
 
-    m_simEncoderSign = wristMotor.getInverted() ? -1 : 1;
-
     m_wristLigament2d.setColor(new Color8Bit(144, 238, 144)); // Light green
   }
 
@@ -168,7 +144,8 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
   }
 
   public double getPercentOutput() {
-    return wristMotor.getMotorOutputPercent();
+    m_sensors.assertFresh();
+    return m_inputs.percentOutput;
   }
 
   public void setUserInput(double input) {
@@ -214,27 +191,25 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
       }
     }
 
-    wristMotor.set(ControlMode.PercentOutput, output);
+    m_io.setPercentOutput(output);
   }
 
   // code to limit the minimum/maximum setpoint of the wrist/ might be status frames
   // Returns the amount of voltage the motors are outputting.
   public double getMotorOutputVoltage() {
-    return wristMotor.getMotorOutputVoltage();
+    m_sensors.assertFresh();
+    return m_inputs.outputVoltage;
   }
 
   // Returns the amount of voltage the motors are being supplied.
   public double getMotorOutputCurrent() {
-    return wristMotor.getSupplyCurrent();
+    m_sensors.assertFresh();
+    return m_inputs.supplyCurrentAmps;
   }
 
   // Sets the setpoint of the wrist using a state calculated in periodic
   public void setSetpointTrapezoidState(TrapezoidProfile.State state) {
-    wristMotor.set(
-        ControlMode.Position,
-        Units.radiansToDegrees(state.position) / WRIST.encoderUnitsToDegrees,
-        DemandType.ArbitraryFeedForward,
-        calculateFeedforward(state));
+    m_io.setPosition(Units.radiansToDegrees(state.position), calculateFeedforward(state));
   }
 
   private double calculateFeedforward(TrapezoidProfile.State state) {
@@ -246,11 +221,7 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
   }
 
   public void setPIDvalues(double f, double p, double i, double d, double izone) {
-    wristMotor.config_kF(WRIST.kSlotIdx, f);
-    wristMotor.config_kP(WRIST.kSlotIdx, p);
-    wristMotor.config_kI(WRIST.kSlotIdx, i);
-    wristMotor.config_kD(WRIST.kSlotIdx, d);
-    wristMotor.config_IntegralZone(WRIST.kSlotIdx, izone);
+    m_io.setPID(f, p, i, d, izone);
   }
 
   public void setArmMotorFeedForward(double s, double g, double v, double a) {
@@ -259,17 +230,34 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
 
   public void setTrapezoidalConstraints(double maxVel, double maxAccel) {
     m_currentConstraints = new TrapezoidProfile.Constraints(maxVel, maxAccel);
+    m_profile.setConstraints(maxVel, maxAccel);
+  }
+
+  // Follows a setpoint that was already profiled, e.g. by a StateHandler transition, on the next
+  // periodic instead of profiling towards it again. The trapezoid profile continues from it after.
+  public void setSetpointState(double positionRadians, double velocityRadiansPerSecond) {
+    m_desiredSetpointRadians = positionRadians;
+    m_profile.setGoal(positionRadians);
+    m_setpoint.position = positionRadians;
+    m_setpoint.velocity = velocityRadiansPerSecond;
+    m_followSetpointState = true;
   }
 
   // Sets the setpoint of the wrist to its current position to keep it in place
   public void resetTrapezoidState() {
-    m_setpoint =
-        new TrapezoidProfile.State(
-            getPositionRadians(), Units.degreesToRadians(getVelocityDegreesPerSecond()));
+    m_profile.reset(getPositionRadians(), Units.degreesToRadians(getVelocityDegreesPerSecond()));
+    m_setpoint.position = m_profile.getPosition();
+    m_setpoint.velocity = m_profile.getVelocity();
+  }
+
+  // Time until the trapezoid setpoint reaches the desired angle, 0 once it has
+  public double getTimeToGoalSeconds() {
+    return m_profile.getTimeToGoalSeconds();
   }
 
   public void setSetpointPositionRadians(double desiredAngleRadians) {
     m_desiredSetpointRadians = desiredAngleRadians;
+    m_profile.setGoal(desiredAngleRadians);
   }
 
   public double getDesiredPositionRadians() {
@@ -281,11 +269,13 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
   }
 
   public double getPositionDegrees() {
-    return getSensorPosition() * WRIST.encoderUnitsToDegrees;
+    m_sensors.assertFresh();
+    return m_inputs.positionDegrees;
   }
 
   public double getVelocityDegreesPerSecond() {
-    return wristMotor.getSelectedSensorVelocity() * WRIST.encoderUnitsToDegrees * 10;
+    m_sensors.assertFresh();
+    return m_inputs.velocityDegreesPerSecond;
   }
 
   // Converts the angle of the wrist into a Rotation2d object to be applied to a Pose2d
@@ -293,15 +283,10 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
     return Rotation2d.fromDegrees(getPositionDegrees());
   }
 
-  // Returns the raw sensor value in encoder counts
-  private double getSensorPosition() {
-    return wristMotor.getSelectedSensorPosition();
-  }
-
   // reset angle of the wrist. ~-15 degrees is the position of the wrist when the intake is touching
   // the ground.
   public void resetAngleDegrees(double angleDegrees) {
-    wristMotor.setSelectedSensorPosition(angleDegrees / WRIST.encoderUnitsToDegrees);
+    m_io.setSensorPosition(angleDegrees);
   }
 
   public void setLowerLimit(double radians) {
@@ -349,7 +334,7 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
     else if (getPositionDegrees() >= 30) m_newKI = 0;
 
     if (m_currentKI != m_newKI) {
-      wristMotor.config_kI(0, m_newKI);
+      m_io.setI(m_newKI);
       m_currentKI = m_newKI;
     }
   }
@@ -361,29 +346,36 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
         NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("Wrist");
 
     kCommandedAngleDegreesPub = wristTab.getDoubleTopic("Commanded Angle Degrees").publish();
-    kDesiredAngleDegreesPub = wristTab.getDoubleTopic("Desired Angle Degrees").publish();
-    kCurrentAngleDegreesPub = wristTab.getDoubleTopic("Current Angle Degrees").publish();
-    currentCommandStatePub = wristTab.getStringTopic("Command State").publish();
     currentTrapezoidAcceleration = wristTab.getDoubleTopic("Trapezoid Acceleration").publish();
     currentTrapezoidVelocity = wristTab.getDoubleTopic("Trapezoid Velocity").publish();
 
-    SmartDashboard.putNumber("WristPercentOutput", getPercentOutput());
-    SmartDashboard.putNumber("Wrist m_setpoint", m_setpoint.position * 180 / Math.PI);
-    SmartDashboard.putNumber(
-        "Wrist Error", (m_setpoint.position * 180 / Math.PI) - getPositionDegrees());
-  }
-
-  public void updateSmartDashboard() {
-    SmartDashboard.putString("Wrist Closed Loop", getClosedLoopControlMode().name());
-    SmartDashboard.putNumber("Wrist Angles Degrees", getPositionDegrees());
-    SmartDashboard.putNumber("Wrist m_setpoint", m_setpoint.position * 180 / Math.PI);
-    SmartDashboard.putNumber(
-        "Wrist Error", (m_setpoint.position * 180 / Math.PI) - getPositionDegrees());
-
-    SmartDashboard.putNumber("WristPercentOutput", getPercentOutput());
-    currentCommandStatePub.set(getClosedLoopControlMode().toString());
-    kDesiredAngleDegreesPub.set(Units.radiansToDegrees(getDesiredPositionRadians()));
-    kCurrentAngleDegreesPub.set(getPositionDegrees());
+    var smartDashboard = Telemetry.getSmartDashboardTable();
+    m_telemetry.addString(
+        smartDashboard,
+        "Wrist Closed Loop",
+        () -> getClosedLoopControlMode().name(),
+        RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        smartDashboard, "Wrist Angles Degrees", this::getPositionDegrees, RATE.HZ_50);
+    m_telemetry.addDouble(
+        smartDashboard,
+        "Wrist m_setpoint",
+        () -> Units.radiansToDegrees(m_setpoint.position),
+        RATE.HZ_10);
+    m_telemetry.addDouble(
+        smartDashboard,
+        "Wrist Error",
+        () -> Units.radiansToDegrees(m_setpoint.position) - getPositionDegrees(),
+        RATE.HZ_10);
+    m_telemetry.addDouble(smartDashboard, "WristPercentOutput", this::getPercentOutput, RATE.HZ_10);
+
+    m_telemetry.addString("Command State", () -> getClosedLoopControlMode().name(), RATE.ON_CHANGE);
+    m_telemetry.addDouble(
+        "Desired Angle Degrees",
+        () -> Units.radiansToDegrees(getDesiredPositionRadians()),
+        RATE.ON_CHANGE);
+    m_telemetry.addDouble("Current Angle Degrees", this::getPositionDegrees, RATE.HZ_50);
+    m_telemetry.publishAll();
   }
 
   public void updateLog() {
@@ -395,16 +387,15 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
 
   @Override
   public void periodic() {
+    m_periodicProfile.start();
     initializeWristAngle();
 
     if (!m_testMode) {
       updateIValue();
     }
 
-    updateSmartDashboard();
     //    updateLog();
 
-    TrapezoidProfile profile;
     double currentTime = m_timer.get();
     switch (m_controlMode) {
       case OPEN_LOOP:
@@ -419,44 +410,21 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
         break;
       case CLOSED_LOOP:
       default:
-        m_goal = new TrapezoidProfile.State(m_desiredSetpointRadians, 0);
-        profile = new TrapezoidProfile(m_currentConstraints, m_goal, m_setpoint);
-        m_setpoint = profile.calculate(currentTime - m_lastTimestamp);
+        if (m_followSetpointState) {
+          m_profile.reset(m_setpoint.position, m_setpoint.velocity);
+          m_followSetpointState = false;
+        } else {
+          // Only planned again when the setters change the desired angle or the constraints
+          m_profile.update(currentTime - m_lastTimestamp);
+          m_setpoint.position = m_profile.getPosition();
+          m_setpoint.velocity = m_profile.getVelocity();
+        }
         m_lastTimestamp = currentTime;
 
         setSetpointTrapezoidState(m_setpoint);
         break;
     }
-  }
-
-  @Override
-  public void simulationPeriodic() {
-    m_armSim.setInputVoltage(MathUtil.clamp(wristMotor.getMotorOutputVoltage(), -12, 12));
-
-    double dt = StateHandler.getSimDt();
-    m_armSim.update(dt);
-
-    Unmanaged.feedEnable(20);
-
-    // Using negative sensor units to match physical behavior
-    wristMotor
-        .getSimCollection()
-        .setIntegratedSensorRawPosition(
-            (int)
-                (m_simEncoderSign
-                    * Units.radiansToDegrees(m_armSim.getAngleRads())
-                    / WRIST.encoderUnitsToDegrees));
-
-    wristMotor
-        .getSimCollection()
-        .setIntegratedSensorVelocity(
-            (int)
-                (m_simEncoderSign
-                    * Units.radiansToDegrees(m_armSim.getVelocityRadPerSec())
-                    / WRIST.encoderUnitsToDegrees
-                    * 10.0));
-
-    wristMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+    m_periodicProfile.stop();
   }
 
   @SuppressWarnings("RedundantThrows")
@@ -464,5 +432,7 @@ public class Wrist extends SubsystemBase implements AutoCloseable {
   public void close() throws Exception {
     m_wristLigament2d.close();
     resetSwitch.close();
+    m_telemetry.close();
+    SensorCache.remove(m_sensors);
   }
 }
@@ -0,0 +1,30 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+
+/** Hardware access for the {@link frc.robot.subsystems.Elevator}. */
+public interface ElevatorIO {
+  /** Sensor values read once per loop. The Elevator reuses a single instance. */
+  class ElevatorIOInputs {
+    public double positionMeters;
+    public double velocityMetersPerSecond;
+    public double percentOutput;
+    public double outputVoltage;
+    public double statorCurrentAmps;
+  }
+
+  /** Reads every sensor into the inputs. Called once at the start of each loop. */
+  void updateInputs(ElevatorIOInputs inputs);
+
+  default void setPercentOutput(double percentOutput) {}
+
+  /** Runs the onboard position loop to the given height with an arbitrary feedforward. */
+  default void setPosition(double positionMeters, double arbitraryFeedForward) {}
+
+  /** Sets the perceived height without moving the elevator. */
+  default void setSensorPosition(double positionMeters) {}
+
+  default void setNeutralMode(NeutralMode mode) {}
+
+  default void setPID(double f, double p, double i, double d, double iZone) {}
+}
@@ -0,0 +1,19 @@
+package frc.robot.subsystems.io;
+
+import frc.robot.utils.LoopRecord;
+
+/** Reads the elevator height back from a recorded log. Outputs are ignored. */
+public class ElevatorIOReplay implements ElevatorIO {
+  private final LoopRecord m_record;
+
+  /** @param record the record being replayed, see {@link frc.robot.utils.LogReplay#getRecord()} */
+  public ElevatorIOReplay(LoopRecord record) {
+    m_record = record;
+  }
+
+  @Override
+  public void updateInputs(ElevatorIOInputs inputs) {
+    // Only the height is recorded
+    inputs.positionMeters = m_record.elevatorPositionMeters;
+  }
+}
@@ -0,0 +1,69 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import frc.robot.Constants.ELEVATOR;
+import frc.robot.Constants.ELEVATOR.THRESHOLD;
+import frc.robot.subsystems.StateHandler;
+
+/**
+ * Simulated TalonFX elevator. The physics are stepped before every read and written back to the
+ * TalonFX sim state, so the motors' onboard closed loop still runs as it does on the robot.
+ */
+public class ElevatorIOSim extends ElevatorIOTalonFX {
+  private final ElevatorSim elevatorSim =
+      new ElevatorSim(
+          ELEVATOR.gearbox,
+          ELEVATOR.gearRatio,
+          ELEVATOR.massKg,
+          ELEVATOR.drumRadiusMeters,
+          THRESHOLD.ABSOLUTE_MIN.get(),
+          THRESHOLD.ABSOLUTE_MAX.get(),
+          true);
+  private final int m_simEncoderSign;
+
+  public ElevatorIOSim() {
+    m_simEncoderSign = elevatorMotors[0].getInverted() ? -1 : 1;
+  }
+
+  @Override
+  public void updateInputs(ElevatorIOInputs inputs) {
+    elevatorSim.setInput(MathUtil.clamp(elevatorMotors[0].getMotorOutputVoltage(), -12, 12));
+
+    double dt = StateHandler.getSimDt();
+    elevatorSim.update(dt);
+
+    // Internally sets the position of the motors in encoder counts based on our current height in
+    // meters
+    elevatorMotors[0]
+        .getSimCollection()
+        .setIntegratedSensorRawPosition(
+            (int)
+                (m_simEncoderSign
+                    * elevatorSim.getPositionMeters()
+                    / ELEVATOR.encoderCountsToMeters));
+
+    // Internally sets the velocity of the motors in encoder counts per 100 ms based on our velocity
+    // in meters per second (1000 ms)
+    elevatorMotors[0]
+        .getSimCollection()
+        .setIntegratedSensorVelocity(
+            (int)
+                (m_simEncoderSign
+                    * elevatorSim.getVelocityMetersPerSecond()
+                    / ELEVATOR.encoderCountsToMeters
+                    * 10));
+
+    // Sets the simulated voltage of the roboRio based on our current draw from the elevator
+    RoboRioSim.setVInVoltage(
+        BatterySim.calculateDefaultBatteryLoadedVoltage(elevatorSim.getCurrentDrawAmps()));
+
+    elevatorMotors[0].getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+    elevatorMotors[1].getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+
+    super.updateInputs(inputs);
+  }
+}
@@ -0,0 +1,99 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.StatorCurrentLimitConfiguration;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.TalonFXControlMode;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import frc.robot.Constants.CAN;
+import frc.robot.Constants.ELEVATOR;
+
+/** Elevator driven by two TalonFXs using their integrated encoders. */
+public class ElevatorIOTalonFX implements ElevatorIO {
+  // Initializing both motors
+  protected final TalonFX[] elevatorMotors = {
+    new TalonFX(CAN.elevatorMotorLeft), new TalonFX(CAN.elevatorMotorRight)
+  };
+
+  // Last read output of the main motor, mirrored onto the second motor
+  private double m_percentOutput;
+
+  public ElevatorIOTalonFX() {
+    for (TalonFX motor : elevatorMotors) {
+      motor.configFactoryDefault();
+      motor.setNeutralMode(NeutralMode.Brake);
+      motor.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor);
+      //      motor.setSelectedSensorPosition(0.0);
+
+      // Config PID
+      motor.selectProfileSlot(ELEVATOR.kSlotIdx, ELEVATOR.kPIDLoopIdx);
+      motor.config_kP(ELEVATOR.kSlotIdx, ELEVATOR.kP, ELEVATOR.kTimeoutMs);
+      motor.config_kI(ELEVATOR.kSlotIdx, ELEVATOR.kI, ELEVATOR.kTimeoutMs);
+      motor.config_kD(ELEVATOR.kSlotIdx, ELEVATOR.kD, ELEVATOR.kTimeoutMs);
+      // motor.config_IntegralZone(ELEVATOR.kSlotIdx, 0);
+
+      // Setting hard limits as to how fast the elevator can move forward and backward
+      //      motor.configPeakOutputForward(ELEVATOR.kMaxForwardOutput, ELEVATOR.kTimeoutMs);
+      // TODO: Review after new elevator is integrated
+      motor.configStatorCurrentLimit(new StatorCurrentLimitConfiguration(true, 40, 50, 0.1));
+    }
+    elevatorMotors[0].configPeakOutputReverse(ELEVATOR.kMaxReverseOutput, ELEVATOR.kTimeoutMs);
+
+    // Setting the right motor to output the same as the left motor
+    elevatorMotors[0].setInverted(ELEVATOR.mainMotorInversionType);
+    // elevatorMotors[1].set(TalonFXControlMode.Follower, elevatorMotors[0].getDeviceID());
+    // elevatorMotors[1].setInverted(TalonFXInvertType.OpposeMaster);
+    elevatorMotors[1].setStatusFramePeriod(StatusFrame.Status_1_General, 255);
+    elevatorMotors[1].setStatusFramePeriod(StatusFrame.Status_2_Feedback0, 255);
+  }
+
+  @Override
+  public void updateInputs(ElevatorIOInputs inputs) {
+    inputs.positionMeters =
+        elevatorMotors[0].getSelectedSensorPosition() * ELEVATOR.encoderCountsToMeters;
+    inputs.velocityMetersPerSecond =
+        elevatorMotors[0].getSelectedSensorVelocity() * ELEVATOR.encoderCountsToMeters * 10;
+    inputs.percentOutput = elevatorMotors[0].getMotorOutputPercent();
+    inputs.outputVoltage = elevatorMotors[0].getMotorOutputVoltage();
+    inputs.statorCurrentAmps = elevatorMotors[0].getStatorCurrent();
+    m_percentOutput = inputs.percentOutput;
+  }
+
+  @Override
+  public void setPercentOutput(double percentOutput) {
+    elevatorMotors[0].set(ControlMode.PercentOutput, percentOutput);
+  }
+
+  @Override
+  public void setPosition(double positionMeters, double arbitraryFeedForward) {
+    elevatorMotors[0].set(
+        TalonFXControlMode.Position,
+        positionMeters / ELEVATOR.encoderCountsToMeters,
+        DemandType.ArbitraryFeedForward,
+        arbitraryFeedForward);
+    elevatorMotors[1].set(ControlMode.PercentOutput, m_percentOutput);
+  }
+
+  @Override
+  public void setSensorPosition(double positionMeters) {
+    elevatorMotors[0].setSelectedSensorPosition(positionMeters / ELEVATOR.encoderCountsToMeters);
+  }
+
+  @Override
+  public void setNeutralMode(NeutralMode mode) {
+    elevatorMotors[0].setNeutralMode(mode);
+    elevatorMotors[1].setNeutralMode(mode);
+  }
+
+  @Override
+  public void setPID(double f, double p, double i, double d, double iZone) {
+    elevatorMotors[0].config_kF(ELEVATOR.kSlotIdx, f);
+    elevatorMotors[0].config_kP(ELEVATOR.kSlotIdx, p);
+    elevatorMotors[0].config_kI(ELEVATOR.kSlotIdx, i);
+    elevatorMotors[0].config_kD(ELEVATOR.kSlotIdx, d);
+    elevatorMotors[0].config_IntegralZone(ELEVATOR.kSlotIdx, iZone);
+  }
+}
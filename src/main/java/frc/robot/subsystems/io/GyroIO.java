@@ -0,0 +1,19 @@
+package frc.robot.subsystems.io;
+
+/** Hardware access for the gyro used by the {@link frc.robot.subsystems.SwerveDrive}. */
+public interface GyroIO {
+  /** Sensor values read once per loop. The SwerveDrive reuses a single instance. */
+  class GyroIOInputs {
+    public double yawDegrees;
+    public double pitchDegrees;
+    public double rollDegrees;
+  }
+
+  /** Reads every sensor into the inputs. Called once at the start of each loop. */
+  void updateInputs(GyroIOInputs inputs);
+
+  default void setYaw(double yawDegrees) {}
+
+  /** Zeroes the yaw and the accumulated Z angle. */
+  default void reset() {}
+}
@@ -0,0 +1,36 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.sensors.Pigeon2;
+import frc.robot.Constants.CAN;
+
+/** Pigeon 2.0 on the roboRIO CAN bus. */
+public class GyroIOPigeon2 implements GyroIO {
+  protected final Pigeon2 m_pigeon = new Pigeon2(CAN.pigeon, "rio");
+
+  public GyroIOPigeon2() {
+    m_pigeon.configFactoryDefault();
+    m_pigeon.setYaw(0);
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.yawDegrees = m_pigeon.getYaw();
+    inputs.pitchDegrees = m_pigeon.getPitch();
+    inputs.rollDegrees = m_pigeon.getRoll();
+  }
+
+  @Override
+  public void setYaw(double yawDegrees) {
+    m_pigeon.setYaw(yawDegrees);
+  }
+
+  @Override
+  public void reset() {
+    //    if (DriverStation.isFMSAttached() && Controls.getAllianceColor() ==
+    // DriverStation.Alliance.Red)
+    //      m_pigeon.setYaw(180);
+    //    else
+    m_pigeon.setYaw(0);
+    m_pigeon.setAccumZAngle(0);
+  }
+}
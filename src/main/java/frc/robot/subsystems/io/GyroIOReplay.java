@@ -0,0 +1,20 @@
+package frc.robot.subsystems.io;
+
+import frc.robot.utils.LoopRecord;
+
+/** Reads the gyro back from a recorded log. Outputs are ignored. */
+public class GyroIOReplay implements GyroIO {
+  private final LoopRecord m_record;
+
+  /** @param record the record being replayed, see {@link frc.robot.utils.LogReplay#getRecord()} */
+  public GyroIOReplay(LoopRecord record) {
+    m_record = record;
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.yawDegrees = m_record.gyroYawDegrees;
+    inputs.pitchDegrees = m_record.gyroPitchDegrees;
+    inputs.rollDegrees = m_record.gyroRollDegrees;
+  }
+}
@@ -0,0 +1,43 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.unmanaged.Unmanaged;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.util.Units;
+import frc.robot.Constants.SWERVE_DRIVE;
+import frc.robot.subsystems.StateHandler;
+
+/**
+ * Simulated Pigeon 2.0. The yaw is integrated from the simulated modules' states, so the modules
+ * must be updated before the gyro each loop.
+ */
+public class GyroIOSim extends GyroIOPigeon2 {
+  private final SwerveModuleIOSim[] m_modules;
+  private final SwerveModuleState[] m_moduleStates;
+  private double m_simYaw;
+
+  /** @param modules the simulated modules, indexed by SWERVE_MODULE_POSITION ordinal */
+  public GyroIOSim(SwerveModuleIOSim[] modules) {
+    m_modules = modules;
+    m_moduleStates = new SwerveModuleState[modules.length];
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    for (int i = 0; i < m_modules.length; i++) m_moduleStates[i] = m_modules[i].getState();
+    ChassisSpeeds chassisSpeed = SWERVE_DRIVE.kSwerveKinematics.toChassisSpeeds(m_moduleStates);
+
+    double dt = StateHandler.getSimDt();
+    m_simYaw += chassisSpeed.omegaRadiansPerSecond * dt;
+
+    Unmanaged.feedEnable(20);
+    m_pigeon.getSimCollection().setRawHeading(-Units.radiansToDegrees(m_simYaw));
+
+    super.updateInputs(inputs);
+  }
+
+  @Override
+  public void setYaw(double yawDegrees) {
+    m_pigeon.getSimCollection().setRawHeading(yawDegrees);
+  }
+}
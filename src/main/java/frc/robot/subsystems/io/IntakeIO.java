@@ -0,0 +1,19 @@
+package frc.robot.subsystems.io;
+
+/** Hardware access for the {@link frc.robot.subsystems.Intake}. */
+public interface IntakeIO {
+  /** Sensor values read once per loop. The Intake reuses a single instance. */
+  class IntakeIOInputs {
+    /** Raw integrated sensor velocity, in encoder counts per 100 ms. */
+    public double velocityEncoderUnits;
+
+    public double percentOutput;
+    public double outputVoltage;
+    public double statorCurrentAmps;
+  }
+
+  /** Reads every sensor into the inputs. Called once at the start of each loop. */
+  void updateInputs(IntakeIOInputs inputs);
+
+  default void setPercentOutput(double percentOutput) {}
+}
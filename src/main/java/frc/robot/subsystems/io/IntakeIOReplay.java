@@ -0,0 +1,10 @@
+package frc.robot.subsystems.io;
+
+/**
+ * Replayed intake. No intake sensors are recorded, so the inputs stay at zero and outputs are
+ * ignored.
+ */
+public class IntakeIOReplay implements IntakeIO {
+  @Override
+  public void updateInputs(IntakeIOInputs inputs) {}
+}
@@ -0,0 +1,50 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.unmanaged.Unmanaged;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.INTAKE;
+import frc.robot.subsystems.StateHandler;
+
+/** Simulated TalonFX intake. The physics are stepped before every read. */
+public class IntakeIOSim extends IntakeIOTalonFX {
+  private final FlywheelSim m_intakeSim =
+      new FlywheelSim(
+          // Sim Values
+          LinearSystemId.identifyVelocitySystem(0.8, 0.6), INTAKE.gearBox, INTAKE.gearRatio);
+  private double m_simDistance;
+  private boolean m_stalled;
+
+  /** Holds the rollers still, e.g. to simulate a game piece jamming the intake. */
+  public void setStalled(boolean stalled) {
+    m_stalled = stalled;
+  }
+
+  @Override
+  public void updateInputs(IntakeIOInputs inputs) {
+    m_intakeSim.setInputVoltage(MathUtil.clamp(intakeMotor.getMotorOutputVoltage(), -12, 12));
+
+    double dt = StateHandler.getSimDt();
+    m_intakeSim.update(dt);
+    if (m_stalled) m_intakeSim.setState(VecBuilder.fill(0));
+    m_simDistance += m_intakeSim.getAngularVelocityRadPerSec() * dt;
+
+    Unmanaged.feedEnable(20);
+
+    intakeMotor
+        .getSimCollection()
+        .setIntegratedSensorRawPosition((int) (m_simDistance / INTAKE.kMotorDistancePerPulse));
+    intakeMotor
+        .getSimCollection()
+        .setIntegratedSensorVelocity(
+            (int)
+                (m_intakeSim.getAngularVelocityRadPerSec() / (INTAKE.kMotorDistancePerPulse * 10)));
+
+    intakeMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+
+    super.updateInputs(inputs);
+  }
+}
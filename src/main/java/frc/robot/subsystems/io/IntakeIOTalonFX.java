@@ -0,0 +1,48 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.StatorCurrentLimitConfiguration;
+import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
+import com.ctre.phoenix.motorcontrol.TalonFXFeedbackDevice;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import frc.robot.Constants.CAN;
+import frc.robot.Constants.INTAKE;
+
+/** Intake driven by a single TalonFX. */
+public class IntakeIOTalonFX implements IntakeIO {
+  protected final TalonFX intakeMotor = new TalonFX(CAN.intakeMotor);
+
+  public IntakeIOTalonFX() {
+    // factory default configs
+    intakeMotor.configFactoryDefault();
+    intakeMotor.setInverted(true);
+
+    intakeMotor.configSelectedFeedbackSensor(TalonFXFeedbackDevice.IntegratedSensor, 0, 0);
+
+    // set current limit on TalonFX motors
+    intakeMotor.configSupplyCurrentLimit(new SupplyCurrentLimitConfiguration(true, 35, 40, 0.1));
+    intakeMotor.configStatorCurrentLimit(new StatorCurrentLimitConfiguration(true, 40, 50, 0.1));
+    intakeMotor.setStatusFramePeriod(1, 255);
+    intakeMotor.setStatusFramePeriod(2, 255);
+    intakeMotor.setNeutralMode(NeutralMode.Brake);
+    intakeMotor.configVoltageCompSaturation(10);
+    intakeMotor.enableVoltageCompensation(true);
+
+    intakeMotor.config_kF(0, INTAKE.kF);
+    intakeMotor.config_kP(0, INTAKE.kP);
+  }
+
+  @Override
+  public void updateInputs(IntakeIOInputs inputs) {
+    inputs.velocityEncoderUnits = intakeMotor.getSelectedSensorVelocity();
+    inputs.percentOutput = intakeMotor.getMotorOutputPercent();
+    inputs.outputVoltage = intakeMotor.getMotorOutputVoltage();
+    inputs.statorCurrentAmps = intakeMotor.getStatorCurrent();
+  }
+
+  @Override
+  public void setPercentOutput(double percentOutput) {
+    intakeMotor.set(ControlMode.PercentOutput, percentOutput);
+  }
+}
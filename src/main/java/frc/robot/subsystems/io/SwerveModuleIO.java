@@ -0,0 +1,35 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+
+/** Hardware access for one {@link frc.robot.subsystems.SwerveModule}. */
+public interface SwerveModuleIO {
+  /** Sensor values read once per loop. Each SwerveModule reuses a single instance. */
+  class SwerveModuleIOInputs {
+    public double driveMeters;
+    public double driveVelocityMetersPerSecond;
+    public double driveOutputVoltage;
+    public double headingDegrees;
+    public double turnOutputVoltage;
+
+    /** Absolute encoder reading, before the module's offset is applied. */
+    public double absoluteHeadingDegrees;
+  }
+
+  /** Reads every sensor into the inputs. Called once at the start of each loop. */
+  void updateInputs(SwerveModuleIOInputs inputs);
+
+  default void setDrivePercentOutput(double percentOutput) {}
+
+  /** Runs the onboard velocity loop with an arbitrary feedforward. */
+  default void setDriveVelocity(double velocityMetersPerSecond, double arbitraryFeedForward) {}
+
+  default void setTurnPosition(double headingDegrees) {}
+
+  /** Sets the perceived heading without turning the module. */
+  default void setTurnSensorPosition(double headingDegrees) {}
+
+  default void setDriveNeutralMode(NeutralMode mode) {}
+
+  default void setTurnNeutralMode(NeutralMode mode) {}
+}
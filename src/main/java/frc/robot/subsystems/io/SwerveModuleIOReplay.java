@@ -0,0 +1,25 @@
+package frc.robot.subsystems.io;
+
+import frc.robot.utils.LoopRecord;
+
+/** Reads one module's sensors back from a recorded log. Outputs are ignored. */
+public class SwerveModuleIOReplay implements SwerveModuleIO {
+  private final LoopRecord m_record;
+  private final int m_moduleNumber;
+
+  /**
+   * @param record the record being replayed, see {@link frc.robot.utils.LogReplay#getRecord()}
+   * @param moduleNumber the module's SWERVE_MODULE_POSITION ordinal
+   */
+  public SwerveModuleIOReplay(LoopRecord record, int moduleNumber) {
+    m_record = record;
+    m_moduleNumber = moduleNumber;
+  }
+
+  @Override
+  public void updateInputs(SwerveModuleIOInputs inputs) {
+    inputs.driveMeters = m_record.moduleDriveMeters[m_moduleNumber];
+    inputs.driveVelocityMetersPerSecond = m_record.moduleVelocityMetersPerSecond[m_moduleNumber];
+    inputs.headingDegrees = m_record.moduleHeadingDegrees[m_moduleNumber];
+  }
+}
@@ -0,0 +1,104 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.unmanaged.Unmanaged;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.SWERVE_MODULE;
+import frc.robot.subsystems.StateHandler;
+
+/**
+ * Simulated swerve module. The physics are stepped before every read and written back to the
+ * TalonFX sim state, so the motors' onboard closed loops still run as they do on the robot.
+ */
+public class SwerveModuleIOSim extends SwerveModuleIOTalonFX {
+  private final FlywheelSim m_turnMotorSim =
+      new FlywheelSim(
+          // Sim Values
+          LinearSystemId.identifyVelocitySystem(0.25, 0.000001),
+          SWERVE_MODULE.kTurnGearbox,
+          SWERVE_MODULE.kTurningMotorGearRatio,
+          VecBuilder.fill(0));
+
+  private final FlywheelSim m_driveMotorSim =
+      new FlywheelSim(
+          // Sim Values
+          LinearSystemId.identifyVelocitySystem(0.8, 0.6),
+          SWERVE_MODULE.kDriveGearbox,
+          SWERVE_MODULE.kDriveMotorGearRatio);
+
+  private double m_driveMotorSimDistance;
+  private double m_turnMotorSimDistance;
+
+  private final int m_driveEncoderSimSign;
+  private final int m_turnEncoderSimSign;
+
+  // The state read by the last updateInputs() call, used by the simulated gyro
+  private final SwerveModuleState m_state = new SwerveModuleState();
+
+  public SwerveModuleIOSim(int turnMotorId, int driveMotorId, int angleEncoderId) {
+    super(turnMotorId, driveMotorId, angleEncoderId);
+    m_turnEncoderSimSign = m_turnMotor.getInverted() ? -1 : 1;
+    m_driveEncoderSimSign = m_driveMotor.getInverted() ? -1 : 1;
+  }
+
+  /** Returns the module state read by the last {@link #updateInputs} call. Updated in place. */
+  public SwerveModuleState getState() {
+    return m_state;
+  }
+
+  @Override
+  public void updateInputs(SwerveModuleIOInputs inputs) {
+    m_turnMotorSim.setInputVoltage(MathUtil.clamp(m_turnMotor.getMotorOutputVoltage(), -12, 12));
+    m_driveMotorSim.setInputVoltage(MathUtil.clamp(m_driveMotor.getMotorOutputVoltage(), -12, 12));
+
+    double dt = StateHandler.getSimDt();
+    m_turnMotorSim.update(dt);
+    m_driveMotorSim.update(dt);
+
+    m_turnMotorSimDistance += m_turnMotorSim.getAngularVelocityRadPerSec() * dt;
+    m_driveMotorSimDistance += m_driveMotorSim.getAngularVelocityRadPerSec() * dt;
+
+    Unmanaged.feedEnable(20);
+
+    m_turnMotor
+        .getSimCollection()
+        .setIntegratedSensorRawPosition(
+            (int)
+                (m_turnEncoderSimSign
+                    * m_turnMotorSimDistance
+                    / SWERVE_MODULE.kTurningMotorDistancePerPulse));
+    m_turnMotor
+        .getSimCollection()
+        .setIntegratedSensorVelocity(
+            (int)
+                (m_turnEncoderSimSign
+                    * m_turnMotorSim.getAngularVelocityRadPerSec()
+                    / (SWERVE_MODULE.kTurningMotorDistancePerPulse * 10)));
+    m_driveMotor
+        .getSimCollection()
+        .setIntegratedSensorRawPosition(
+            (int)
+                (m_driveEncoderSimSign
+                    * m_driveMotorSimDistance
+                    / SWERVE_MODULE.kDriveMotorDistancePerPulse));
+    m_driveMotor
+        .getSimCollection()
+        .setIntegratedSensorVelocity(
+            (int)
+                (m_driveEncoderSimSign
+                    * m_driveMotorSim.getAngularVelocityRadPerSec()
+                    / (SWERVE_MODULE.kDriveMotorDistancePerPulse * 10)));
+
+    m_turnMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+    m_driveMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+
+    super.updateInputs(inputs);
+    m_state.speedMetersPerSecond = inputs.driveVelocityMetersPerSecond;
+    m_state.angle = Rotation2d.fromDegrees(inputs.headingDegrees);
+  }
+}
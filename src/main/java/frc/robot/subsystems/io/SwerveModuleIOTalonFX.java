@@ -0,0 +1,91 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.SWERVE_MODULE;
+import frc.robot.utils.CtreUtils;
+
+/** Swerve module with TalonFX drive and turn motors and a CANCoder for the absolute heading. */
+public class SwerveModuleIOTalonFX implements SwerveModuleIO {
+  protected final TalonFX m_turnMotor;
+  protected final TalonFX m_driveMotor;
+  private final CANCoder m_angleEncoder;
+
+  public SwerveModuleIOTalonFX(int turnMotorId, int driveMotorId, int angleEncoderId) {
+    m_turnMotor = new TalonFX(turnMotorId);
+    m_driveMotor = new TalonFX(driveMotorId);
+    m_angleEncoder = new CANCoder(angleEncoderId);
+
+    if (RobotBase.isReal()) Timer.delay(0.2);
+    m_angleEncoder.configFactoryDefault();
+    m_angleEncoder.configAllSettings(CtreUtils.generateCanCoderConfig());
+    m_angleEncoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, 255);
+    m_angleEncoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, 255);
+
+    m_turnMotor.configFactoryDefault();
+    m_turnMotor.configAllSettings(CtreUtils.generateTurnMotorConfig());
+    m_turnMotor.setInverted(true);
+    m_turnMotor.setSelectedSensorPosition(0);
+
+    m_driveMotor.configFactoryDefault();
+    m_driveMotor.configAllSettings(CtreUtils.generateDriveMotorConfig());
+    m_driveMotor.setInverted(false);
+    m_driveMotor.setNeutralMode(NeutralMode.Brake);
+    m_turnMotor.setNeutralMode(NeutralMode.Brake);
+  }
+
+  @Override
+  public void updateInputs(SwerveModuleIOInputs inputs) {
+    inputs.driveMeters =
+        m_driveMotor.getSelectedSensorPosition() * SWERVE_MODULE.kDriveMotorDistancePerPulse;
+    inputs.driveVelocityMetersPerSecond =
+        m_driveMotor.getSelectedSensorVelocity() * SWERVE_MODULE.kDriveMotorDistancePerPulse * 10;
+    inputs.driveOutputVoltage = m_driveMotor.getMotorOutputVoltage();
+    inputs.headingDegrees =
+        m_turnMotor.getSelectedSensorPosition() * SWERVE_MODULE.kTurningMotorDistancePerPulse;
+    inputs.turnOutputVoltage = m_turnMotor.getMotorOutputVoltage();
+    inputs.absoluteHeadingDegrees = m_angleEncoder.getAbsolutePosition();
+  }
+
+  @Override
+  public void setDrivePercentOutput(double percentOutput) {
+    m_driveMotor.set(ControlMode.PercentOutput, percentOutput);
+  }
+
+  @Override
+  public void setDriveVelocity(double velocityMetersPerSecond, double arbitraryFeedForward) {
+    m_driveMotor.set(
+        ControlMode.Velocity,
+        velocityMetersPerSecond / (SWERVE_MODULE.kDriveMotorDistancePerPulse * 10),
+        DemandType.ArbitraryFeedForward,
+        arbitraryFeedForward);
+  }
+
+  @Override
+  public void setTurnPosition(double headingDegrees) {
+    m_turnMotor.set(
+        ControlMode.Position, headingDegrees / SWERVE_MODULE.kTurningMotorDistancePerPulse);
+  }
+
+  @Override
+  public void setTurnSensorPosition(double headingDegrees) {
+    m_turnMotor.setSelectedSensorPosition(
+        headingDegrees / SWERVE_MODULE.kTurningMotorDistancePerPulse);
+  }
+
+  @Override
+  public void setDriveNeutralMode(NeutralMode mode) {
+    m_driveMotor.setNeutralMode(mode);
+  }
+
+  @Override
+  public void setTurnNeutralMode(NeutralMode mode) {
+    m_turnMotor.setNeutralMode(mode);
+  }
+}
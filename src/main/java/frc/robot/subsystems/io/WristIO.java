@@ -0,0 +1,29 @@
+package frc.robot.subsystems.io;
+
+/** Hardware access for the {@link frc.robot.subsystems.Wrist}. */
+public interface WristIO {
+  /** Sensor values read once per loop. The Wrist reuses a single instance. */
+  class WristIOInputs {
+    public double positionDegrees;
+    public double velocityDegreesPerSecond;
+    public double percentOutput;
+    public double outputVoltage;
+    public double supplyCurrentAmps;
+  }
+
+  /** Reads every sensor into the inputs. Called once at the start of each loop. */
+  void updateInputs(WristIOInputs inputs);
+
+  default void setPercentOutput(double percentOutput) {}
+
+  /** Runs the onboard position loop to the given angle with an arbitrary feedforward. */
+  default void setPosition(double positionDegrees, double arbitraryFeedForward) {}
+
+  /** Sets the perceived angle without moving the wrist. */
+  default void setSensorPosition(double positionDegrees) {}
+
+  default void setPID(double f, double p, double i, double d, double iZone) {}
+
+  /** Changes only the integral gain, e.g. to hold the wrist against gravity at low angles. */
+  default void setI(double i) {}
+}
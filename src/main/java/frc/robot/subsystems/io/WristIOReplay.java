@@ -0,0 +1,20 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.math.util.Units;
+import frc.robot.utils.LoopRecord;
+
+/** Reads the wrist angle back from a recorded log. Outputs are ignored. */
+public class WristIOReplay implements WristIO {
+  private final LoopRecord m_record;
+
+  /** @param record the record being replayed, see {@link frc.robot.utils.LogReplay#getRecord()} */
+  public WristIOReplay(LoopRecord record) {
+    m_record = record;
+  }
+
+  @Override
+  public void updateInputs(WristIOInputs inputs) {
+    // Only the angle is recorded
+    inputs.positionDegrees = Units.radiansToDegrees(m_record.wristPositionRadians);
+  }
+}
@@ -0,0 +1,65 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.unmanaged.Unmanaged;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+import frc.robot.Constants.WRIST;
+import frc.robot.Constants.WRIST.THRESHOLD;
+import frc.robot.subsystems.StateHandler;
+
+/**
+ * Simulated TalonFX wrist. The physics are stepped before every read and written back to the
+ * TalonFX sim state, so the motor's onboard closed loop still runs as it does on the robot.
+ */
+public class WristIOSim extends WristIOTalonFX {
+  private final SingleJointedArmSim m_armSim =
+      new SingleJointedArmSim(
+          WRIST.gearBox,
+          WRIST.gearRatio,
+          SingleJointedArmSim.estimateMOI(WRIST.length, WRIST.mass),
+          WRIST.length,
+          THRESHOLD.ABSOLUTE_MIN.get(),
+          THRESHOLD.ABSOLUTE_MAX.get(),
+          false
+          // VecBuilder.fill(2.0 * Math.PI / 2048.0) // Add noise with a std-dev of 1 tick
+          );
+  private final int m_simEncoderSign;
+
+  public WristIOSim() {
+    m_simEncoderSign = wristMotor.getInverted() ? -1 : 1;
+  }
+
+  @Override
+  public void updateInputs(WristIOInputs inputs) {
+    m_armSim.setInputVoltage(MathUtil.clamp(wristMotor.getMotorOutputVoltage(), -12, 12));
+
+    double dt = StateHandler.getSimDt();
+    m_armSim.update(dt);
+
+    Unmanaged.feedEnable(20);
+
+    // Using negative sensor units to match physical behavior
+    wristMotor
+        .getSimCollection()
+        .setIntegratedSensorRawPosition(
+            (int)
+                (m_simEncoderSign
+                    * Units.radiansToDegrees(m_armSim.getAngleRads())
+                    / WRIST.encoderUnitsToDegrees));
+
+    wristMotor
+        .getSimCollection()
+        .setIntegratedSensorVelocity(
+            (int)
+                (m_simEncoderSign
+                    * Units.radiansToDegrees(m_armSim.getVelocityRadPerSec())
+                    / WRIST.encoderUnitsToDegrees
+                    * 10.0));
+
+    wristMotor.getSimCollection().setBusVoltage(RobotController.getBatteryVoltage());
+
+    super.updateInputs(inputs);
+  }
+}
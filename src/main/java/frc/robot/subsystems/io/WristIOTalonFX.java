@@ -0,0 +1,77 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.StatorCurrentLimitConfiguration;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import frc.robot.Constants.CAN;
+import frc.robot.Constants.WRIST;
+
+/** Wrist driven by a single TalonFX using its integrated encoder. */
+public class WristIOTalonFX implements WristIO {
+  // Initialize single wrist motor
+  protected final TalonFX wristMotor = new TalonFX(CAN.wristMotor);
+
+  public WristIOTalonFX() {
+    // Factory default configs
+    wristMotor.configFactoryDefault();
+    wristMotor.setNeutralMode(NeutralMode.Brake);
+    wristMotor.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, 0, 0);
+    wristMotor.config_kP(0, WRIST.kP);
+    wristMotor.config_kI(0, WRIST.kI);
+    wristMotor.config_kD(0, WRIST.kD);
+    wristMotor.configPeakOutputForward(WRIST.kMaxPercentOutput, WRIST.kTimeoutMs);
+    wristMotor.configPeakOutputReverse(-WRIST.kMaxPercentOutput, WRIST.kTimeoutMs);
+    wristMotor.setInverted(WRIST.motorInversionType);
+
+    // TODO: Review limits, test to see what is appropriate or not
+    wristMotor.configStatorCurrentLimit(new StatorCurrentLimitConfiguration(true, 40, 30, 0.2));
+
+    wristMotor.configAllowableClosedloopError(0, 1 / WRIST.encoderUnitsToDegrees);
+  }
+
+  @Override
+  public void updateInputs(WristIOInputs inputs) {
+    inputs.positionDegrees = wristMotor.getSelectedSensorPosition() * WRIST.encoderUnitsToDegrees;
+    inputs.velocityDegreesPerSecond =
+        wristMotor.getSelectedSensorVelocity() * WRIST.encoderUnitsToDegrees * 10;
+    inputs.percentOutput = wristMotor.getMotorOutputPercent();
+    inputs.outputVoltage = wristMotor.getMotorOutputVoltage();
+    inputs.supplyCurrentAmps = wristMotor.getSupplyCurrent();
+  }
+
+  @Override
+  public void setPercentOutput(double percentOutput) {
+    wristMotor.set(ControlMode.PercentOutput, percentOutput);
+  }
+
+  @Override
+  public void setPosition(double positionDegrees, double arbitraryFeedForward) {
+    wristMotor.set(
+        ControlMode.Position,
+        positionDegrees / WRIST.encoderUnitsToDegrees,
+        DemandType.ArbitraryFeedForward,
+        arbitraryFeedForward);
+  }
+
+  @Override
+  public void setSensorPosition(double positionDegrees) {
+    wristMotor.setSelectedSensorPosition(positionDegrees / WRIST.encoderUnitsToDegrees);
+  }
+
+  @Override
+  public void setPID(double f, double p, double i, double d, double iZone) {
+    wristMotor.config_kF(WRIST.kSlotIdx, f);
+    wristMotor.config_kP(WRIST.kSlotIdx, p);
+    wristMotor.config_kI(WRIST.kSlotIdx, i);
+    wristMotor.config_kD(WRIST.kSlotIdx, d);
+    wristMotor.config_IntegralZone(WRIST.kSlotIdx, iZone);
+  }
+
+  @Override
+  public void setI(double i) {
+    wristMotor.config_kI(0, i);
+  }
+}
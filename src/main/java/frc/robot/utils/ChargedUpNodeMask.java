@@ -4,18 +4,41 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import frc.robot.Constants.SCORING_STATE;
 import frc.robot.simulation.SimConstants;
 import frc.robot.subsystems.Controls;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReference;
 
-/** Step 1: Define all nodes in a Map Step 2: Use bitmasks Step 3: ??? Step 4: Profit */
+/**
+ * Step 1: Define all nodes in a Map Step 2: Use bitmasks Step 3: ??? Step 4: Profit
+ *
+ * <p>All of the mutable state is one immutable {@link Snapshot} that is swapped atomically, so the
+ * main loop can update the mask while e.g. the dashboard or a vision thread marks scored nodes as
+ * ignored. Read {@link #getSnapshot()} once and use it for everything that has to agree.
+ */
 public class ChargedUpNodeMask {
-  private static final Map<Integer, Translation2d> blueNodes = new HashMap<>();
-  private static final Map<Integer, Translation2d> redNodes = new HashMap<>();
-  private static Map<Integer, Translation2d> currentNodes = redNodes;
+  public static final int nodeCount = 27;
+  private static final int rowCount = 3;
+  private static final int nodesPerRow = nodeCount / rowCount;
+  private static final int rowMask = (1 << nodesPerRow) - 1;
+
+  // Node positions by index, kept as primitives so searching them doesn't allocate. Only written
+  // when the class is loaded.
+  private static final double[] blueNodeX = new double[nodeCount];
+  private static final double[] blueNodeY = new double[nodeCount];
+  private static final double[] redNodeX = new double[nodeCount];
+  private static final double[] redNodeY = new double[nodeCount];
+  private static final Translation2d[] blueNodes = new Translation2d[nodeCount];
+  private static final Translation2d[] redNodes = new Translation2d[nodeCount];
+
+  // The nodes of each row sorted by Y, so the nearest node search can start at the robot's Y and
+  // stop once the nodes are further away than the best one
+  private static final int[][] rowOrder = new int[rowCount][nodesPerRow];
+  private static final double[][] rowSortedY = new double[rowCount][nodesPerRow];
 
   /** Node Definitions */
   // Starting with Blue Nodes, numbering starts at 0 with the rightmost LOW_HYBRID node, closest to
@@ -35,108 +58,238 @@ public class ChargedUpNodeMask {
   private static final int coneNodes = hybridNodes | midConeNodes | highConeNodes;
   private static final int cubeNodes = hybridNodes | midCubeNodes | highCubeNodes;
 
-  private static int ignoredRedNodes = 0;
-  private static int ignoredBlueNodes = 0;
-  private static int validNodeMask = 0;
+  static {
+    // Rows are stored low, mid, high, each in the order of the node translations
+    Translation2d[][] rows = {
+      SimConstants.Grids.lowTranslations,
+      SimConstants.Grids.midTranslations,
+      SimConstants.Grids.highTranslations
+    };
+    for (int row = 0; row < rowCount; row++) {
+      for (int i = 0; i < nodesPerRow; i++) {
+        int node = row * nodesPerRow + i;
+        blueNodes[node] = rows[row][i];
+        redNodes[node] =
+            new Translation2d(SimConstants.fieldLength - rows[row][i].getX(), rows[row][i].getY());
+        blueNodeX[node] = blueNodes[node].getX();
+        blueNodeY[node] = blueNodes[node].getY();
+        redNodeX[node] = redNodes[node].getX();
+        redNodeY[node] = redNodes[node].getY();
+      }
+
+      // Both alliances' nodes have the same Y
+      Integer[] order = new Integer[nodesPerRow];
+      for (int i = 0; i < nodesPerRow; i++) order[i] = i;
+      int firstNode = row * nodesPerRow;
+      Arrays.sort(order, Comparator.comparingDouble(i -> blueNodeY[firstNode + i]));
+      for (int i = 0; i < nodesPerRow; i++) {
+        rowOrder[row][i] = order[i];
+        rowSortedY[row][i] = blueNodeY[firstNode + order[i]];
+      }
+    }
+  }
+
+  /** Receives each valid node, see {@link Snapshot#forEachValidNode(NodeVisitor)}. */
+  @FunctionalInterface
+  public interface NodeVisitor {
+    void visit(int nodeIndex, double x, double y);
+  }
+
+  /** The valid nodes at one point in time. Never changes, so it can be shared between threads. */
+  public static final class Snapshot {
+    private static final Snapshot kEmpty = new Snapshot(0, Alliance.Red, 0);
+
+    /** Nodes the robot could score on, before removing the ignored ones. */
+    private final int m_candidateMask;
+    /** Which alliance's grid the node indices refer to. */
+    public final Alliance nodeAlliance;
+    /** Bits 0-31 are Blue node indices, bits 32-63 are Red ones. */
+    public final long ignoredNodes;
+
+    public final int validNodeMask;
+    private final double[] m_nodeX;
+    private final double[] m_nodeY;
+    private final Translation2d[] m_nodes;
+
+    private Snapshot(int candidateMask, Alliance nodeAlliance, long ignoredNodes) {
+      m_candidateMask = candidateMask;
+      this.nodeAlliance = nodeAlliance;
+      this.ignoredNodes = ignoredNodes;
+
+      boolean red = nodeAlliance == Alliance.Red;
+      int ignored = (int) (red ? ignoredNodes >>> 32 : ignoredNodes);
+      validNodeMask = candidateMask & ~ignored;
+      m_nodeX = red ? redNodeX : blueNodeX;
+      m_nodeY = red ? redNodeY : blueNodeY;
+      m_nodes = red ? redNodes : blueNodes;
+    }
+
+    private Snapshot withIgnoredNodes(long ignored) {
+      return ignored == ignoredNodes ? this : new Snapshot(m_candidateMask, nodeAlliance, ignored);
+    }
+
+    /** Visits every valid node in index order without building a list. */
+    public void forEachValidNode(NodeVisitor visitor) {
+      for (int mask = validNodeMask & gridNodes; mask != 0; mask &= mask - 1) {
+        int node = Integer.numberOfTrailingZeros(mask);
+        visitor.visit(node, m_nodeX[node], m_nodeY[node]);
+      }
+    }
+
+    /** Returns a new list of the valid nodes, prefer {@link #forEachValidNode} every loop. */
+    public ArrayList<Translation2d> getValidNodes() {
+      var validNodes = new ArrayList<Translation2d>(Integer.bitCount(validNodeMask & gridNodes));
+      for (int mask = validNodeMask & gridNodes; mask != 0; mask &= mask - 1) {
+        validNodes.add(m_nodes[Integer.numberOfTrailingZeros(mask)]);
+      }
+      return validNodes;
+    }
+
+    public Translation2d getNode(int nodeIndex) {
+      return m_nodes[nodeIndex];
+    }
+
+    /** Returns the index of the valid node nearest to the robot, or -1 if there are none. */
+    public int getTargetNodeIndex(Pose2d robotPose) {
+      double robotX = robotPose.getX();
+      double robotY = robotPose.getY();
+      int nearestNode = -1;
+      double nearestDistance = Double.POSITIVE_INFINITY;
+
+      for (int row = 0; row < rowCount; row++) {
+        int firstNode = row * nodesPerRow;
+        int validInRow = (validNodeMask >>> firstNode) & rowMask;
+        if (validInRow == 0) continue;
 
-  private static final ArrayList<Translation2d> validNodes = new ArrayList<>();
+        // Search outwards from the robot's Y in both directions
+        double[] sortedY = rowSortedY[row];
+        int above = lowerBound(sortedY, robotY);
+        int below = above - 1;
+        while (below >= 0 || above < nodesPerRow) {
+          double belowDy = below >= 0 ? robotY - sortedY[below] : Double.POSITIVE_INFINITY;
+          double aboveDy =
+              above < nodesPerRow ? sortedY[above] - robotY : Double.POSITIVE_INFINITY;
+          boolean searchBelow = belowDy <= aboveDy;
+          double dy = searchBelow ? belowDy : aboveDy;
+          // Every remaining node in this row is further away
+          if (dy * dy >= nearestDistance) break;
 
-  public static void initializeNodeMaps() {
-    // Split nodes into separate lists to make it easier to filter
-    for (int i = 0; i < SimConstants.Grids.lowTranslations.length; i++) {
-      blueNodes.put(i, SimConstants.Grids.lowTranslations[i]);
-      redNodes.put(i, SimConstants.allianceFlip(SimConstants.Grids.lowTranslations[i]));
+          int i = rowOrder[row][searchBelow ? below-- : above++];
+          if ((validInRow & (1 << i)) == 0) continue;
+          int node = firstNode + i;
+          double dx = m_nodeX[node] - robotX;
+          double distance = dx * dx + (m_nodeY[node] - robotY) * (m_nodeY[node] - robotY);
+          if (distance < nearestDistance) {
+            nearestDistance = distance;
+            nearestNode = node;
+          }
+        }
+      }
+      return nearestNode;
     }
 
-    for (int i = 0; i < SimConstants.Grids.midTranslations.length; i++) {
-      blueNodes.put(i + 9, SimConstants.Grids.midTranslations[i]);
-      redNodes.put(i + 9, SimConstants.allianceFlip(SimConstants.Grids.midTranslations[i]));
+    public Pose2d getTargetNode(Pose2d robotPose) {
+      int node = getTargetNodeIndex(robotPose);
+      if (node < 0) return new Pose2d();
+      else return getNodePose(node);
     }
 
-    for (int i = 0; i < SimConstants.Grids.highTranslations.length; i++) {
-      blueNodes.put(i + 18, SimConstants.Grids.highTranslations[i]);
-      redNodes.put(i + 18, SimConstants.allianceFlip(SimConstants.Grids.highTranslations[i]));
+    public Pose2d getNodePose(int nodeIndex) {
+      return new Pose2d(m_nodes[nodeIndex], Rotation2d.fromDegrees(0));
     }
+  }
 
-    // Padding
-    //    blueNodes.put(27, new Translation2d());
-    //    blueNodes.put(28, new Translation2d());
-    //    blueNodes.put(29, new Translation2d());
-    //    blueNodes.put(30, new Translation2d());
-    //    blueNodes.put(31, new Translation2d());
-    //    redNodes.put(27, SimConstants.allianceFlip(new Translation2d()));
-    //    redNodes.put(28, SimConstants.allianceFlip(new Translation2d()));
-    //    redNodes.put(29, SimConstants.allianceFlip(new Translation2d()));
-    //    redNodes.put(30, SimConstants.allianceFlip(new Translation2d()));
-    //    redNodes.put(31, SimConstants.allianceFlip(new Translation2d()));
+  private final AtomicReference<Snapshot> m_snapshot = new AtomicReference<>(Snapshot.kEmpty);
+
+  public Snapshot getSnapshot() {
+    return m_snapshot.get();
   }
 
-  public static void addIgnoredNode(int nodeIndex) {
-    if (nodeIndex < 32) ignoredBlueNodes = ignoredBlueNodes | 1 << nodeIndex;
-    else if (nodeIndex < 64) ignoredRedNodes = ignoredRedNodes | 1 << (nodeIndex - 32);
+  /** Stops targeting a node, e.g. once it was scored on. Safe to call from any thread. */
+  public void addIgnoredNode(int nodeIndex) {
+    if (nodeIndex < 0 || nodeIndex >= 64) return;
+    m_snapshot.updateAndGet(s -> s.withIgnoredNodes(s.ignoredNodes | 1L << nodeIndex));
   }
 
-  public static void removeIgnoredNode(int nodeIndex) {
-    if (nodeIndex < 32) ignoredBlueNodes = ignoredBlueNodes & ~(1 << nodeIndex);
-    else if (nodeIndex < 64) ignoredRedNodes = ignoredRedNodes & ~(1 << (nodeIndex - 32));
+  /** Safe to call from any thread. */
+  public void removeIgnoredNode(int nodeIndex) {
+    if (nodeIndex < 0 || nodeIndex >= 64) return;
+    m_snapshot.updateAndGet(s -> s.withIgnoredNodes(s.ignoredNodes & ~(1L << nodeIndex)));
   }
 
-  public static void updateNodeMask(Pose2d robotPose, SCORING_STATE scoringState) {
-    validNodeMask = 0xFFFF_FFFF;
+  public void updateNodeMask(Pose2d robotPose, SCORING_STATE scoringState) {
+    int candidateMask;
+    Alliance nodeAlliance;
 
     if (Controls.getAllianceColor() == DriverStation.Alliance.Red) {
       if (robotPose.getX() > SimConstants.fieldLength / 2) {
-        validNodeMask = gridNodes & ~ignoredRedNodes;
-        currentNodes = redNodes;
+        candidateMask = gridNodes;
+        nodeAlliance = Alliance.Red;
       } else {
-        validNodeMask = coopertitionNodes & ~ignoredBlueNodes;
-        currentNodes = blueNodes;
+        candidateMask = coopertitionNodes;
+        nodeAlliance = Alliance.Blue;
       }
     } else {
       if (robotPose.getX() < SimConstants.fieldLength / 2) {
-        validNodeMask = gridNodes & ~ignoredBlueNodes;
-        currentNodes = blueNodes;
+        candidateMask = gridNodes;
+        nodeAlliance = Alliance.Blue;
       } else {
-        validNodeMask = coopertitionNodes & ~ignoredRedNodes;
-        currentNodes = redNodes;
+        candidateMask = coopertitionNodes;
+        nodeAlliance = Alliance.Red;
       }
     }
 
     if (scoringState == SCORING_STATE.LOW || scoringState == SCORING_STATE.LOW_REVERSE) {
-      validNodeMask = validNodeMask & hybridNodes;
+      candidateMask = candidateMask & hybridNodes;
     }
     if (scoringState == SCORING_STATE.MID_CONE) {
-      validNodeMask = validNodeMask & midConeNodes;
+      candidateMask = candidateMask & midConeNodes;
     }
     if (scoringState == SCORING_STATE.MID_CUBE) {
-      validNodeMask = validNodeMask & midCubeNodes;
+      candidateMask = candidateMask & midCubeNodes;
     }
     if (scoringState == SCORING_STATE.HIGH_CONE) {
-      validNodeMask = validNodeMask & highConeNodes;
+      candidateMask = candidateMask & highConeNodes;
     }
     if (scoringState == SCORING_STATE.HIGH_CUBE) {
-      validNodeMask = validNodeMask & highCubeNodes;
+      candidateMask = candidateMask & highCubeNodes;
     }
+
+    // Retried if a node was ignored meanwhile, so that isn't lost. Nothing is allocated while the
+    // mask stays the same.
+    int mask = candidateMask;
+    m_snapshot.updateAndGet(
+        s ->
+            s.m_candidateMask == mask && s.nodeAlliance == nodeAlliance
+                ? s
+                : new Snapshot(mask, nodeAlliance, s.ignoredNodes));
   }
 
-  public static ArrayList<Translation2d> getValidNodes() {
-    validNodes.clear();
+  public ArrayList<Translation2d> getValidNodes() {
+    return getSnapshot().getValidNodes();
+  }
 
-    for (int i = 0; i < 27; i++) {
-      int mask = 1 << i;
-      int validNode = validNodeMask & mask;
-      if (validNode != 0) {
-        validNodes.add(currentNodes.get(i));
-      }
-    }
+  public void forEachValidNode(NodeVisitor visitor) {
+    getSnapshot().forEachValidNode(visitor);
+  }
+
+  public int getTargetNodeIndex(Pose2d robotPose) {
+    return getSnapshot().getTargetNodeIndex(robotPose);
+  }
 
-    return validNodes;
+  public Pose2d getTargetNode(Pose2d robotPose) {
+    return getSnapshot().getTargetNode(robotPose);
   }
 
-  public static Pose2d getTargetNode(Pose2d robotPose) {
-    var validNodes = getValidNodes();
-    if (validNodes.size() == 0) return new Pose2d();
-    else
-      return new Pose2d(robotPose.getTranslation().nearest(validNodes), Rotation2d.fromDegrees(0));
+  // Index of the first value that is not less than the key
+  private static int lowerBound(double[] sorted, double key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] < key) low = mid + 1;
+      else high = mid;
+    }
+    return low;
   }
 }
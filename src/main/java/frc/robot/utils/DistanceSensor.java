@@ -6,9 +6,7 @@ package frc.robot.utils;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.networktables.DoublePublisher;
-import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismRoot2d;
@@ -17,45 +15,125 @@ import edu.wpi.first.wpilibj.util.Color8Bit;
 import frc.robot.Constants.INTAKE;
 import frc.robot.Constants.INTAKE.INTAKE_STATE;
 import frc.robot.Constants.INTAKE.SENSOR_STATUS;
-import frc.robot.Constants.STATE_HANDLER;
 import frc.robot.simulation.SimConstants;
+import frc.robot.utils.Telemetry.RATE;
 import java.io.IOException;
-import java.io.StringReader;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 
 public class DistanceSensor implements AutoCloseable {
   private final int socketPort = 25000;
 
-  private byte[] buffer = new byte[512];
-  private final double[] sensorValuesMM = new double[] {0, 0, 0};
+  /*
+   * Binary packet layout sent by the Teensy (big-endian).
+   * Must match teensy/Teensy Firmware/src/main.cpp
+   *
+   * [0-1]   magic (0x42, 0x01)
+   * [2-5]   sequence number (uint32)
+   * [6-9]   Teensy timestamp in ms (uint32)
+   * [10-15] sensor 1-3 distance in mm (uint16 each)
+   * [16-18] sensor 1-3 status (uint8 each, SENSOR_STATUS ordinal)
+   */
+  static final byte kPacketMagic0 = 0x42;
+  static final byte kPacketMagic1 = 0x01;
+  static final int kPacketLength = 19;
+  static final int kSensorCount = 3;
+
+  // The Teensy sends a packet every 100 ms
+  static final double kStaleTimeoutSeconds = 0.5;
+
+  private static final SENSOR_STATUS[] kStatusValues = SENSOR_STATUS.values();
+
+  /** Immutable set of sensor values decoded from one packet. */
+  public static final class Reading {
+    static final Reading kEmpty =
+        new Reading(
+            -1,
+            0,
+            Double.NEGATIVE_INFINITY,
+            new double[] {-1, -1, -1},
+            new SENSOR_STATUS[] {
+              SENSOR_STATUS.UNREPORTED, SENSOR_STATUS.UNREPORTED, SENSOR_STATUS.UNREPORTED
+            });
+
+    private final long sequenceNumber;
+    private final long teensyTimestampMs;
+    private final double timestampSeconds;
+    private final double[] valuesMM;
+    private final SENSOR_STATUS[] status;
+
+    private Reading(
+        long sequenceNumber,
+        long teensyTimestampMs,
+        double timestampSeconds,
+        double[] valuesMM,
+        SENSOR_STATUS[] status) {
+      this.sequenceNumber = sequenceNumber;
+      this.teensyTimestampMs = teensyTimestampMs;
+      this.timestampSeconds = timestampSeconds;
+      this.valuesMM = valuesMM.clone();
+      this.status = status.clone();
+    }
+
+    public long getSequenceNumber() {
+      return sequenceNumber;
+    }
+
+    public long getTeensyTimestampMs() {
+      return teensyTimestampMs;
+    }
+
+    /** FPGA timestamp of when the packet was received */
+    public double getTimestampSeconds() {
+      return timestampSeconds;
+    }
+
+    public double getSensorValueMillimeters(int sensor) {
+      if (sensor < 1 || sensor > kSensorCount) return -1;
+      return valuesMM[sensor - 1];
+    }
+
+    public SENSOR_STATUS getSensorStatus(int sensor) {
+      if (sensor < 1 || sensor > kSensorCount) return SENSOR_STATUS.UNREPORTED;
+      return status[sensor - 1];
+    }
+  }
+
+  // Only touched by whichever thread is decoding (see decodePacket())
+  private final ByteBuffer buffer = ByteBuffer.allocate(512);
+  private final DatagramPacket packet = new DatagramPacket(buffer.array(), buffer.capacity());
+  private final ByteBuffer simBuffer = ByteBuffer.allocate(kPacketLength);
+  private final double[] decodedValuesMM = new double[kSensorCount];
+  private final SENSOR_STATUS[] decodedStatus = new SENSOR_STATUS[kSensorCount];
+  private final JSONParser jsonParser = new JSONParser();
+
+  // Readers on the main loop only ever read this reference, so they never block on the receiver
+  private final AtomicReference<Reading> latestReading = new AtomicReference<>(Reading.kEmpty);
+  private final AtomicLong packetsReceived = new AtomicLong();
+  private final AtomicLong packetsDropped = new AtomicLong();
+  private final AtomicLong packetsMalformed = new AtomicLong();
 
   private DatagramSocket socket;
-  private String receivedData = "";
+  private Thread receiverThread;
+  private volatile boolean isRunning = false;
+  private volatile String receivedData = "";
   private boolean isInitialized = false;
 
-  private final boolean m_limitCanUtil = STATE_HANDLER.limitCanUtilization;
-
   private final Random rand = new Random();
-  private Object obj;
 
   // Shuffleboard setup
-  StringPublisher rawStringPub;
-  DoublePublisher sensor1InchPub,
-      sensor2InchPub,
-      sensor3InchPub,
-      sensor1MMPub,
-      sensor2MMPub,
-      sensor3MMPub,
-      coneInchesPub,
-      cubeInchesPub;
+  private final Telemetry m_telemetry = new Telemetry("DistanceSensor");
 
   // Mechanism2d visualization setup
   private final Mechanism2d mech2d =
@@ -104,40 +182,63 @@ public class DistanceSensor implements AutoCloseable {
       InetAddress address = InetAddress.getByName("10.42.1.2"); // 239.42.01.1
       socket = new DatagramSocket(socketPort, address);
       socket.setReceiveBufferSize(512);
-      socket.setSoTimeout(10);
+      // Only used to let the receiver thread check if it should stop
+      socket.setSoTimeout(100);
       isInitialized = true;
     } catch (SocketException | UnknownHostException socketFail) {
       //        socketFail.printStackTrace();
     }
     initSmartDashboard();
+
+    if (isInitialized) {
+      isRunning = true;
+      receiverThread = new Thread(this::receiveLoop, "DistanceSensor");
+      receiverThread.setDaemon(true);
+      receiverThread.start();
+    }
   }
 
+  /** Returns the last JSON packet received. Binary packets are not converted to a string. */
   public String getRawSensorData() {
     return receivedData;
   }
 
-  public double getSensorValueMillimeters(int sensor) {
-    try {
-      String sensorName = "sensor" + sensor + ".mm";
+  /** Returns the most recent reading. This never blocks. */
+  public Reading getLatestReading() {
+    return latestReading.get();
+  }
 
-      // parsing string from received data
-      obj = new JSONParser().parse(new StringReader(receivedData));
+  /** Returns true if no packet has been received within {@link #kStaleTimeoutSeconds}. */
+  public boolean isStale() {
+    return isStale(latestReading.get());
+  }
 
-      // typecasting obj to JSONObject
-      JSONObject jo = (JSONObject) obj;
+  private static boolean isStale(Reading reading) {
+    return Timer.getFPGATimestamp() - reading.getTimestampSeconds() > kStaleTimeoutSeconds;
+  }
 
-      // getting sensor value
-      long sensorValueLong = (long) jo.get(sensorName);
+  public long getSequenceNumber() {
+    return latestReading.get().getSequenceNumber();
+  }
 
-      // auto-unboxing does not go from Long to int directly, so
-      double sensorValue = (double) sensorValueLong;
+  public long getTeensyTimestampMs() {
+    return latestReading.get().getTeensyTimestampMs();
+  }
 
-      return sensorValue;
-    } catch (Exception e) {
-      // System.out.println("Failed to get sensor " + Integer.toString(sensor) + " value");
-      //      e.printStackTrace();
-      return -1;
-    }
+  public long getPacketsReceived() {
+    return packetsReceived.get();
+  }
+
+  public long getPacketsDropped() {
+    return packetsDropped.get();
+  }
+
+  public long getPacketsMalformed() {
+    return packetsMalformed.get();
+  }
+
+  public double getSensorValueMillimeters(int sensor) {
+    return latestReading.get().getSensorValueMillimeters(sensor);
   }
 
   public double getSensorValueInches(int sensor) {
@@ -145,32 +246,34 @@ public class DistanceSensor implements AutoCloseable {
   }
 
   public void simulationPeriodic() {
-    receivedData =
-        "{\"sensor1.mm\":"
-            + rand.nextInt(394)
-            + ",\"sensor2.mm\":"
-            + rand.nextInt(394)
-            + ",\"sensor3.mm\":"
-            + rand.nextInt(394)
-            + ",\"test\":"
-            + rand.nextInt(100)
-            + ",\"sensor1.status\":"
-            + "connected"
-            + ",\"sensor2.status\":"
-            + "connected"
-            + ",\"sensor3.status\":"
-            + "connected"
-            + "}";
+    // Encode a fake binary packet the same way the Teensy does so the decoder gets exercised
+    Reading lastReading = latestReading.get();
+    simBuffer.clear();
+    simBuffer.put(kPacketMagic0).put(kPacketMagic1);
+    simBuffer.putInt((int) (lastReading.getSequenceNumber() + 1));
+    simBuffer.putInt((int) (lastReading.getTeensyTimestampMs() + 100));
+    for (int i = 0; i < kSensorCount; i++) simBuffer.putShort((short) rand.nextInt(394));
+    for (int i = 0; i < kSensorCount; i++)
+      simBuffer.put((byte) SENSOR_STATUS.CONNECTED.ordinal());
+    simBuffer.flip();
+    decodePacket(simBuffer);
   }
 
   // Returns the distance in inches from the left of the intake to the center of the game piece.
   // Works off 3 sensors, 2 for cone and 1 for cube
+  // Returns 0 if the sensor data is stale.
   public double getGamepieceDistanceInches(INTAKE.INTAKE_STATE gamePiece) {
     double distanceMeters;
 
-    double leftConeSensorValue = getSensorValueMillimeters(INTAKE.leftConeSensorId) / 1000.0;
-    double rightConeSensorValue = getSensorValueMillimeters(INTAKE.rightConeSensorId) / 1000.0;
-    double cubeSensorValue = getSensorValueMillimeters(INTAKE.cubeSensorId) / 1000.0;
+    // Read the snapshot once so all three values come from the same packet
+    Reading reading = latestReading.get();
+    if (isStale(reading)) return 0;
+
+    double leftConeSensorValue =
+        reading.getSensorValueMillimeters(INTAKE.leftConeSensorId) / 1000.0;
+    double rightConeSensorValue =
+        reading.getSensorValueMillimeters(INTAKE.rightConeSensorId) / 1000.0;
+    double cubeSensorValue = reading.getSensorValueMillimeters(INTAKE.cubeSensorId) / 1000.0;
 
     switch (gamePiece) {
       case HOLDING_CONE:
@@ -197,8 +300,11 @@ public class DistanceSensor implements AutoCloseable {
   }
 
   public double getConeWidthMeters() {
-    double leftConeSensorValue = getSensorValueMillimeters(INTAKE.leftConeSensorId) / 1000.0;
-    double rightConeSensorValue = getSensorValueMillimeters(INTAKE.rightConeSensorId) / 1000.0;
+    Reading reading = latestReading.get();
+    double leftConeSensorValue =
+        reading.getSensorValueMillimeters(INTAKE.leftConeSensorId) / 1000.0;
+    double rightConeSensorValue =
+        reading.getSensorValueMillimeters(INTAKE.rightConeSensorId) / 1000.0;
     return (INTAKE.innerIntakeWidth + leftConeSensorValue - rightConeSensorValue) / 2;
   }
 
@@ -211,17 +317,20 @@ public class DistanceSensor implements AutoCloseable {
   }
 
   private void initSmartDashboard() {
-    var distanceSensorTab =
-        NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("DistanceSensor");
-    rawStringPub = distanceSensorTab.getStringTopic("Raw String Data").publish();
-    sensor1MMPub = distanceSensorTab.getDoubleTopic("Sensor1MM").publish();
-    sensor2MMPub = distanceSensorTab.getDoubleTopic("Sensor2MM").publish();
-    sensor3MMPub = distanceSensorTab.getDoubleTopic("Sensor3MM").publish();
-    sensor1InchPub = distanceSensorTab.getDoubleTopic("Sensor1Inches").publish();
-    sensor2InchPub = distanceSensorTab.getDoubleTopic("Sensor2Inches").publish();
-    sensor3InchPub = distanceSensorTab.getDoubleTopic("Sensor3Inches").publish();
-    coneInchesPub = distanceSensorTab.getDoubleTopic("ConeDistanceInches").publish();
-    cubeInchesPub = distanceSensorTab.getDoubleTopic("CubeDistanceInches").publish();
+    // Not required during matches
+    m_telemetry.addString("Raw String Data", this::getRawSensorData, RATE.HZ_10);
+    m_telemetry.addDouble("Sensor1MM", () -> getSensorValueMillimeters(1), RATE.HZ_10);
+    m_telemetry.addDouble("Sensor2MM", () -> getSensorValueMillimeters(2), RATE.HZ_10);
+    m_telemetry.addDouble("Sensor3MM", () -> getSensorValueMillimeters(3), RATE.HZ_10);
+    m_telemetry.addDouble("Sensor1Inches", () -> getSensorValueInches(1), RATE.HZ_10);
+    m_telemetry.addDouble("Sensor2Inches", () -> getSensorValueInches(2), RATE.HZ_10);
+    m_telemetry.addDouble("Sensor3Inches", () -> getSensorValueInches(3), RATE.HZ_10);
+    m_telemetry.addDouble("ConeDistanceInches", this::getConeDistanceInches, RATE.HZ_10);
+    m_telemetry.addDouble("CubeDistanceInches", this::getCubeDistanceInches, RATE.HZ_10);
+    m_telemetry.addInteger("Packets Received", this::getPacketsReceived, RATE.HZ_1);
+    m_telemetry.addInteger("Packets Dropped", this::getPacketsDropped, RATE.HZ_1);
+    m_telemetry.addInteger("Packets Malformed", this::getPacketsMalformed, RATE.HZ_1);
+    m_telemetry.addBoolean("Stale", this::isStale, RATE.ON_CHANGE);
 
     coneIntakeLig.setColor(new Color8Bit(128, 0, 0));
     cubeIntakeLig.setColor(new Color8Bit(128, 0, 0));
@@ -235,97 +344,119 @@ public class DistanceSensor implements AutoCloseable {
     return isInitialized;
   }
 
+  // Returns UNREPORTED if the sensor data is stale.
   public INTAKE.SENSOR_STATUS getSensorStatus(int sensor) {
-    try {
-      String sensorName = "sensor" + sensor + ".status";
-
-      // parsing string from received data
-      obj = new JSONParser().parse(new StringReader(receivedData));
-
-      // typecasting obj to JSONObject
-      JSONObject jo = (JSONObject) obj;
-
-      // getting sensor status
-      String status = (String) jo.get(sensorName);
-
-      switch (status) {
-        case "failed":
-          return SENSOR_STATUS.FAILED;
-        case "disconnected":
-          return SENSOR_STATUS.DISCONNECTED;
-        case "timeout":
-          return SENSOR_STATUS.TIMEOUT;
-        case "connected":
-          return SENSOR_STATUS.CONNECTED;
-        default:
-          return SENSOR_STATUS.UNREPORTED;
-      }
+    Reading reading = latestReading.get();
+    if (isStale(reading)) return SENSOR_STATUS.UNREPORTED;
+    return reading.getSensorStatus(sensor);
+  }
 
-    } catch (Exception e) {
-      // System.out.println("Boo hoo I can't read the file :_(");
-      e.printStackTrace();
-      return SENSOR_STATUS.UNREPORTED;
+  private static SENSOR_STATUS parseSensorStatus(Object status) {
+    if (status == null) return SENSOR_STATUS.UNREPORTED;
+
+    switch ((String) status) {
+      case "failed":
+        return SENSOR_STATUS.FAILED;
+      case "disconnected":
+        return SENSOR_STATUS.DISCONNECTED;
+      case "timeout":
+        return SENSOR_STATUS.TIMEOUT;
+      case "connected":
+        return SENSOR_STATUS.CONNECTED;
+      default:
+        return SENSOR_STATUS.UNREPORTED;
     }
   }
 
-  public void updateSmartDashboard() {
-    if (!m_limitCanUtil) {
-      // Put not required stuff here
-      sensor1MMPub.set(getSensorValueMillimeters(1));
-      sensor2MMPub.set(getSensorValueMillimeters(2));
-      sensor3MMPub.set(getSensorValueMillimeters(3));
-      sensor1InchPub.set(getSensorValueInches(1));
-      sensor2InchPub.set(getSensorValueInches(2));
-      sensor3InchPub.set(getSensorValueInches(3));
-      coneInchesPub.set(getConeDistanceInches());
-      cubeInchesPub.set(getCubeDistanceInches());
-      rawStringPub.set(receivedData);
-
-      // Mech2d updates
-      //      coneRoot.setPosition(
-      //          INTAKE.innerIntakeWidth * 0.25
-      //              + Units.inchesToMeters(getConeDistanceInches())
-      //              - getConeWidthMeters() / 2,
-      //          INTAKE.innerIntakeWidth * 0.1);
-      //      cubeRoot.setPosition(
-      //          INTAKE.innerIntakeWidth * 0.25
-      //              + Units.inchesToMeters(getCubeDistanceInches())
-      //              - SimConstants.cubeWidth / 2,
-      //          INTAKE.innerIntakeWidth * 0.9);
-      //      coneLig.setLength(getConeWidthMeters());
-      //      coneIntakeLig.setLength(Units.inchesToMeters(getConeDistanceInches()));
-      //      cubeIntakeLig.setLength(Units.inchesToMeters(getCubeDistanceInches()));
+  /**
+   * Decodes a single packet between the buffer's position and limit and publishes it as the latest
+   * {@link Reading}. Binary packets are read in place without allocating. Anything else is treated
+   * as a legacy JSON packet and parsed once.
+   *
+   * <p>Packets that arrive out of order are dropped unless the current reading is already stale
+   * (e.g. the Teensy rebooted and restarted its sequence numbers).
+   *
+   * @return true if the packet was decoded and published
+   */
+  synchronized boolean decodePacket(ByteBuffer data) {
+    packetsReceived.incrementAndGet();
+
+    Reading lastReading = latestReading.get();
+    long sequenceNumber;
+    long teensyTimestampMs;
+    int start = data.position();
+    int length = data.remaining();
+
+    if (length == kPacketLength
+        && data.get(start) == kPacketMagic0
+        && data.get(start + 1) == kPacketMagic1) {
+      sequenceNumber = Integer.toUnsignedLong(data.getInt(start + 2));
+      teensyTimestampMs = Integer.toUnsignedLong(data.getInt(start + 6));
+      for (int i = 0; i < kSensorCount; i++) {
+        decodedValuesMM[i] = Short.toUnsignedInt(data.getShort(start + 10 + i * 2));
+        int status = Byte.toUnsignedInt(data.get(start + 16 + i));
+        decodedStatus[i] = status < kStatusValues.length ? kStatusValues[status] : kStatusValues[0];
+      }
+    } else {
+      try {
+        receivedData =
+            new String(data.array(), data.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        JSONObject jo = (JSONObject) jsonParser.parse(receivedData);
+
+        for (int i = 0; i < kSensorCount; i++) {
+          // auto-unboxing does not go from Long to int directly, so
+          decodedValuesMM[i] = (double) (long) jo.get("sensor" + (i + 1) + ".mm");
+          decodedStatus[i] = parseSensorStatus(jo.get("sensor" + (i + 1) + ".status"));
+        }
+      } catch (Exception ex) {
+        //      System.out.println("DistanceSensor-ParseError");
+        //      ex.printStackTrace();
+        packetsMalformed.incrementAndGet();
+        return false;
+      }
+      // The JSON packets don't have a sequence number
+      sequenceNumber = lastReading.getSequenceNumber() + 1;
+      teensyTimestampMs = lastReading.getTeensyTimestampMs();
     }
+
+    if (lastReading != Reading.kEmpty && !isStale(lastReading)) {
+      long missed = sequenceNumber - lastReading.getSequenceNumber() - 1;
+      if (missed < 0) {
+        packetsDropped.incrementAndGet();
+        return false;
+      }
+      packetsDropped.addAndGet(missed);
+    }
+
+    latestReading.set(
+        new Reading(
+            sequenceNumber,
+            teensyTimestampMs,
+            Timer.getFPGATimestamp(),
+            decodedValuesMM,
+            decodedStatus));
+    return true;
+  }
+
+  private void receiveLoop() {
+    while (isRunning) pollDistanceSensors();
   }
 
+  /**
+   * Blocks until a packet is received or the socket times out. This runs on the receiver thread,
+   * so it should not be called from the main robot loop.
+   */
   public void pollDistanceSensors() {
-    // This method will be called once per scheduler run
-    // testParserTab.setInteger(testParser());
     try {
       //      if (RobotBase.isSimulation()) {
       //        simulationPeriodic();
       //      } else {
-      buffer = new byte[512];
-      DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+      packet.setLength(buffer.capacity());
       socket.receive(packet);
 
-      receivedData = new String(packet.getData(), 0, packet.getLength());
-
-      for (int i = 1; i <= 3; i++) {
-        String sensorName = "sensor" + i + ".mm";
-
-        // parsing string from received data
-        obj = new JSONParser().parse(new StringReader(receivedData));
-
-        // typecasting obj to JSONObject
-        JSONObject jo = (JSONObject) obj;
-
-        // getting sensor value
-        long sensorValueLong = (long) jo.get(sensorName);
-
-        // auto-unboxing does not go from Long to int directly, so
-        sensorValuesMM[i - 1] = (double) sensorValueLong;
-      }
+      buffer.clear();
+      buffer.limit(packet.getLength());
+      decodePacket(buffer);
 
       //      }
     } catch (SocketTimeoutException ex) {
@@ -341,12 +472,28 @@ public class DistanceSensor implements AutoCloseable {
   }
 
   public void periodic() {
-    updateSmartDashboard();
+    // Mech2d updates
+    //      coneRoot.setPosition(
+    //          INTAKE.innerIntakeWidth * 0.25
+    //              + Units.inchesToMeters(getConeDistanceInches())
+    //              - getConeWidthMeters() / 2,
+    //          INTAKE.innerIntakeWidth * 0.1);
+    //      cubeRoot.setPosition(
+    //          INTAKE.innerIntakeWidth * 0.25
+    //              + Units.inchesToMeters(getCubeDistanceInches())
+    //              - SimConstants.cubeWidth / 2,
+    //          INTAKE.innerIntakeWidth * 0.9);
+    //      coneLig.setLength(getConeWidthMeters());
+    //      coneIntakeLig.setLength(Units.inchesToMeters(getConeDistanceInches()));
+    //      cubeIntakeLig.setLength(Units.inchesToMeters(getCubeDistanceInches()));
   }
 
   @SuppressWarnings("RedundantThrows")
   @Override
   public void close() throws Exception {
+    isRunning = false;
     if (socket != null) socket.close();
+    if (receiverThread != null) receiverThread.join(200);
+    m_telemetry.close();
   }
 }
@@ -0,0 +1,155 @@
+package frc.robot.utils;
+
+import edu.wpi.first.hal.HALUtil;
+import edu.wpi.first.networktables.GenericPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.UTIL;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+
+/**
+ * Feeds a log recorded by {@link LoopRecorder} back through the robot code.
+ *
+ * <p>The log is memory-mapped by {@link DataLogReader} and records are decoded one at a time as
+ * they are reached. Every {@link LoopRecord} in the log is one robot loop: the camera
+ * NetworkTables values logged before it are republished with their original timestamps, the sim
+ * clock is stepped to the record's timestamp, the record is decoded into {@link #getRecord()} and
+ * then the loop runs. Nothing waits on the wall clock, so a match replays in seconds.
+ *
+ * <p>Subsystems read their sensors from {@link #getRecord()} through their replay IO, e.g. {@link
+ * frc.robot.subsystems.io.ElevatorIOReplay}, which the RobotContainer creates when it is given the
+ * record. The HAL must be initialized with timing paused before replaying.
+ */
+public class LogReplay implements AutoCloseable {
+  private final DataLogReader m_reader;
+  private final LoopRecord m_record = new LoopRecord();
+  private final NetworkTableInstance m_ntInstance = NetworkTableInstance.getDefault();
+
+  private int m_loopRecordEntry = -1;
+  // Log entry ID to the publisher used to replay it
+  private final HashMap<Integer, GenericPublisher> m_ntEntries = new HashMap<>();
+  private final HashMap<Integer, String> m_ntEntryTypes = new HashMap<>();
+
+  private int m_loops;
+  private int m_rejectedRecords;
+
+  public LogReplay(String filename) throws IOException {
+    m_reader = new DataLogReader(filename);
+    if (!m_reader.isValid()) throw new IOException(filename + " is not a valid DataLog file");
+  }
+
+  /** The record subsystems should read from. It is overwritten before every loop. */
+  public LoopRecord getRecord() {
+    return m_record;
+  }
+
+  /** Number of loops replayed so far. */
+  public int getLoopCount() {
+    return m_loops;
+  }
+
+  /** Number of loop records that could not be decoded, e.g. from an older layout version. */
+  public int getRejectedRecordCount() {
+    return m_rejectedRecords;
+  }
+
+  /**
+   * Replays the whole log, calling robotLoop once for every recorded loop.
+   *
+   * @return the number of loops replayed
+   */
+  public int run(Runnable robotLoop) {
+    for (var record : m_reader) {
+      if (record.isStart()) {
+        startEntry(record.getStartData());
+      } else if (record.isFinish()) {
+        var publisher = m_ntEntries.remove(record.getFinishEntry());
+        m_ntEntryTypes.remove(record.getFinishEntry());
+        if (publisher != null) publisher.close();
+      } else if (!record.isControl()) {
+        if (record.getEntry() == m_loopRecordEntry) {
+          if (!readLoopRecord(record)) continue;
+          robotLoop.run();
+          m_loops++;
+        } else {
+          var publisher = m_ntEntries.get(record.getEntry());
+          if (publisher != null) {
+            replayNetworkTables(publisher, m_ntEntryTypes.get(record.getEntry()), record);
+          }
+        }
+      }
+    }
+    return m_loops;
+  }
+
+  private void startEntry(DataLogRecord.StartRecordData start) {
+    if (start.name.equals(LoopRecorder.kEntryName) && start.type.equals(LoopRecord.kType)) {
+      m_loopRecordEntry = start.entry;
+      return;
+    }
+
+    // NetworkTables entries are logged by DataLogManager as "NT:<topic name>"
+    if (!start.name.startsWith("NT:/")) return;
+    var topicName = start.name.substring(3);
+    // Integers are logged as int64 but published as int
+    var type = start.type.equals("int64") ? "int" : start.type;
+    for (var table : UTIL.kReplayNetworkTables) {
+      if (topicName.startsWith("/" + table + "/")) {
+        m_ntEntries.put(start.entry, m_ntInstance.getTopic(topicName).genericPublish(type));
+        m_ntEntryTypes.put(start.entry, type);
+        return;
+      }
+    }
+  }
+
+  private boolean readLoopRecord(DataLogRecord record) {
+    var buffer = ByteBuffer.wrap(record.getRaw()).order(ByteOrder.LITTLE_ENDIAN);
+    if (!m_record.read(buffer)) {
+      m_rejectedRecords++;
+      return false;
+    }
+
+    // The loop was recorded at the end of robotPeriodic(), so run it at the same time
+    long stepMicros = record.getTimestamp() - HALUtil.getFPGATime();
+    // The HAL truncates the step back to microseconds, so round to land on the exact timestamp
+    if (stepMicros > 0) SimHooks.stepTiming((stepMicros + 0.5) / 1e6);
+    return true;
+  }
+
+  private static void replayNetworkTables(
+      GenericPublisher publisher, String type, DataLogRecord record) {
+    long timestamp = record.getTimestamp();
+    switch (type) {
+      case "boolean":
+        publisher.setBoolean(record.getBoolean(), timestamp);
+        break;
+      case "double":
+        publisher.setDouble(record.getDouble(), timestamp);
+        break;
+      case "int":
+        publisher.setInteger(record.getInteger(), timestamp);
+        break;
+      case "string":
+      case "json":
+        publisher.setString(record.getString(), timestamp);
+        break;
+      case "double[]":
+        publisher.setDoubleArray(record.getDoubleArray(), timestamp);
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  public void close() {
+    for (var publisher : m_ntEntries.values()) publisher.close();
+    m_ntEntries.clear();
+    m_ntEntryTypes.clear();
+  }
+}
@@ -0,0 +1,201 @@
+package frc.robot.utils;
+
+import edu.wpi.first.networktables.BooleanEntry;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import frc.robot.Constants.UTIL;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Measures how long each part of the robot loop takes and how much it allocates, to find what is
+ * causing loop overruns.
+ *
+ * <p>Each measured block gets a {@link Section} from {@link #register(String)}. Calls to {@link
+ * Section#start()} and {@link Section#stop()} write into preallocated ring buffers, and {@link
+ * #periodic()} publishes the p50/p99/max of each section to NetworkTables and the DataLog at a
+ * low rate. Profiling can be toggled at runtime from "Shuffleboard/LoopProfiler/Enabled"; when
+ * disabled, start() and stop() only check a flag.
+ */
+public final class LoopProfiler {
+  private static final ArrayList<Section> m_sections = new ArrayList<>();
+  private static final long[] m_sortBuffer = new long[UTIL.kProfilerWindowSize];
+
+  private static final com.sun.management.ThreadMXBean m_threadBean = getThreadBean();
+
+  private static boolean m_enabled = UTIL.kProfilerEnabledByDefault;
+  private static NetworkTable m_table;
+  private static BooleanEntry m_enabledEntry;
+  private static int m_loopCount;
+
+  /** A block of code that is timed every time it runs. */
+  public static final class Section {
+    private final String m_name;
+    private final long[] m_durationsNs = new long[UTIL.kProfilerWindowSize];
+    private final long[] m_allocatedBytes = new long[UTIL.kProfilerWindowSize];
+    private int m_samples;
+    private long m_startNs;
+    private long m_startAllocatedBytes;
+    private boolean m_running;
+
+    private DoublePublisher m_p50Pub, m_p99Pub, m_maxPub, m_allocatedPub;
+    private DoubleLogEntry m_p50Log, m_p99Log, m_maxLog, m_allocatedLog;
+
+    private Section(String name) {
+      m_name = name;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    public void start() {
+      if (!m_enabled) return;
+      m_running = true;
+      m_startAllocatedBytes = getAllocatedBytes();
+      m_startNs = System.nanoTime();
+    }
+
+    public void stop() {
+      if (!m_running) return;
+      long durationNs = System.nanoTime() - m_startNs;
+      long allocatedBytes = getAllocatedBytes() - m_startAllocatedBytes;
+      m_running = false;
+
+      int index = m_samples % UTIL.kProfilerWindowSize;
+      m_durationsNs[index] = durationNs;
+      m_allocatedBytes[index] = allocatedBytes;
+      m_samples++;
+    }
+
+    /** Returns the number of samples currently held in the ring buffer. */
+    public int getSampleCount() {
+      return Math.min(m_samples, UTIL.kProfilerWindowSize);
+    }
+
+    /**
+     * Returns the given percentile of the call durations in the window, in nanoseconds.
+     *
+     * @param percentile 0 to 1
+     */
+    public long getDurationPercentileNs(double percentile) {
+      return getPercentile(m_durationsNs, getSampleCount(), percentile);
+    }
+
+    /** Returns the average number of bytes allocated per call in the window. */
+    public double getAverageAllocatedBytes() {
+      int count = getSampleCount();
+      if (count == 0) return 0;
+      long total = 0;
+      for (int i = 0; i < count; i++) total += m_allocatedBytes[i];
+      return (double) total / count;
+    }
+
+    private void publish(NetworkTable table, DataLog log) {
+      if (m_p50Pub == null) {
+        var sectionTable = table.getSubTable(m_name);
+        m_p50Pub = sectionTable.getDoubleTopic("p50 ms").publish();
+        m_p99Pub = sectionTable.getDoubleTopic("p99 ms").publish();
+        m_maxPub = sectionTable.getDoubleTopic("max ms").publish();
+        m_allocatedPub = sectionTable.getDoubleTopic("Allocated Bytes").publish();
+        m_p50Log = new DoubleLogEntry(log, "/profiler/" + m_name + "/p50_ms");
+        m_p99Log = new DoubleLogEntry(log, "/profiler/" + m_name + "/p99_ms");
+        m_maxLog = new DoubleLogEntry(log, "/profiler/" + m_name + "/max_ms");
+        m_allocatedLog = new DoubleLogEntry(log, "/profiler/" + m_name + "/allocated_bytes");
+      }
+      if (getSampleCount() == 0) return;
+
+      double p50 = getDurationPercentileNs(0.5) / 1e6;
+      double p99 = getDurationPercentileNs(0.99) / 1e6;
+      double max = getDurationPercentileNs(1) / 1e6;
+      double allocated = getAverageAllocatedBytes();
+      m_p50Pub.set(p50);
+      m_p99Pub.set(p99);
+      m_maxPub.set(max);
+      m_allocatedPub.set(allocated);
+      m_p50Log.append(p50);
+      m_p99Log.append(p99);
+      m_maxLog.append(max);
+      m_allocatedLog.append(allocated);
+    }
+  }
+
+  private LoopProfiler() {}
+
+  /**
+   * Returns the section with the given name, creating it if needed. Call this once, not every loop.
+   */
+  public static Section register(String name) {
+    for (var section : m_sections) if (section.getName().equals(name)) return section;
+
+    var section = new Section(name);
+    m_sections.add(section);
+    return section;
+  }
+
+  public static boolean isEnabled() {
+    return m_enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    m_enabled = enabled;
+    if (m_enabledEntry != null) m_enabledEntry.set(enabled);
+  }
+
+  /** Returns false if the JVM can't report per-thread allocations, in which case they read 0. */
+  public static boolean isAllocationTrackingSupported() {
+    return m_threadBean != null;
+  }
+
+  /** Call once per robot loop to check the runtime toggle and publish the stats. */
+  public static void periodic() {
+    if (m_enabledEntry == null) {
+      m_table =
+          NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable("LoopProfiler");
+      m_enabledEntry = m_table.getBooleanTopic("Enabled").getEntry(m_enabled);
+      m_enabledEntry.set(m_enabled);
+    }
+    m_enabled = m_enabledEntry.get();
+    if (!m_enabled) return;
+
+    if (++m_loopCount < UTIL.kProfilerPublishPeriodLoops) return;
+    m_loopCount = 0;
+
+    var log = DataLogManager.getLog();
+    for (var section : m_sections) section.publish(m_table, log);
+  }
+
+  private static long getPercentile(long[] values, int count, double percentile) {
+    if (count == 0) return 0;
+    System.arraycopy(values, 0, m_sortBuffer, 0, count);
+    Arrays.sort(m_sortBuffer, 0, count);
+    int index = (int) Math.ceil(percentile * count) - 1;
+    return m_sortBuffer[Math.max(0, Math.min(count - 1, index))];
+  }
+
+  private static long getAllocatedBytes() {
+    if (m_threadBean == null) return 0;
+    return m_threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static com.sun.management.ThreadMXBean getThreadBean() {
+    try {
+      var bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        var sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (sunBean.isThreadAllocatedMemorySupported()) {
+          sunBean.setThreadAllocatedMemoryEnabled(true);
+          return sunBean;
+        }
+      }
+    } catch (Exception | LinkageError ignored) {
+      // Not available on this JVM, only time the sections
+    }
+    return null;
+  }
+}
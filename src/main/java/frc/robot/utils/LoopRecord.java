@@ -0,0 +1,138 @@
+package frc.robot.utils;
+
+import frc.robot.Constants.INTAKE.INTAKE_STATE;
+import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
+import frc.robot.Constants.STATE_HANDLER.ZONE;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * One robot loop worth of mechanism state, packed into a fixed-size binary record by {@link
+ * LoopRecorder}. The fields are public and updated in place so a single instance can be reused
+ * every loop.
+ *
+ * <p>Record layout (little-endian, {@link #kSize} bytes):
+ *
+ * <pre>
+ * offset  size  field
+ *      0     1  version
+ *      1     1  module count (4)
+ *      2    32  module velocity (m/s) x4, double
+ *     34    32  module drive distance (m) x4, double
+ *     66    32  module heading (degrees) x4, double
+ *     98    24  gyro yaw, pitch, roll (degrees), double
+ *    122    32  elevator desired, elevator position (m), wrist desired, wrist position (rad)
+ *    154     4  intake state, current superstructure state, desired superstructure state, zone
+ *               as enum ordinals
+ * </pre>
+ */
+public final class LoopRecord {
+  public static final byte kVersion = 1;
+  public static final int kModuleCount = 4;
+  public static final int kSize = 2 + 8 * (3 * kModuleCount + 3 + 4) + 4;
+
+  /** DataLog entry type, so tools can tell the record apart from other raw entries. */
+  public static final String kType = "LoopRecord";
+
+  /** Stored as the DataLog entry metadata to describe the layout. */
+  public static final String kMetadata =
+      "v"
+          + kVersion
+          + ";little-endian;u8 version,u8 moduleCount,f64 moduleVelocity[4],"
+          + "f64 moduleDistance[4],f64 moduleHeadingDeg[4],f64 gyroYawDeg,f64 gyroPitchDeg,"
+          + "f64 gyroRollDeg,f64 elevatorDesiredM,f64 elevatorPositionM,f64 wristDesiredRad,"
+          + "f64 wristPositionRad,u8 intakeState,u8 currentState,u8 desiredState,u8 zone";
+
+  private static final INTAKE_STATE[] kIntakeStates = INTAKE_STATE.values();
+  private static final SUPERSTRUCTURE_STATE[] kSuperstructureStates = SUPERSTRUCTURE_STATE.values();
+  private static final ZONE[] kZones = ZONE.values();
+
+  public final double[] moduleVelocityMetersPerSecond = new double[kModuleCount];
+  public final double[] moduleDriveMeters = new double[kModuleCount];
+  public final double[] moduleHeadingDegrees = new double[kModuleCount];
+  public double gyroYawDegrees;
+  public double gyroPitchDegrees;
+  public double gyroRollDegrees;
+  public double elevatorDesiredPositionMeters;
+  public double elevatorPositionMeters;
+  public double wristDesiredPositionRadians;
+  public double wristPositionRadians;
+  public INTAKE_STATE intakeState = INTAKE_STATE.NONE;
+  public SUPERSTRUCTURE_STATE currentState = SUPERSTRUCTURE_STATE.STOWED;
+  public SUPERSTRUCTURE_STATE desiredState = SUPERSTRUCTURE_STATE.STOWED;
+  public ZONE currentZone = ZONE.UNDEFINED;
+
+  /** Returns a buffer with the byte order and size used by {@link #write(ByteBuffer)}. */
+  public static ByteBuffer allocateBuffer() {
+    return ByteBuffer.allocate(kSize).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /** Writes the record at the start of the buffer using absolute puts. */
+  public void write(ByteBuffer buffer) {
+    int offset = 0;
+    buffer.put(offset++, kVersion);
+    buffer.put(offset++, (byte) kModuleCount);
+    offset = putDoubles(buffer, offset, moduleVelocityMetersPerSecond);
+    offset = putDoubles(buffer, offset, moduleDriveMeters);
+    offset = putDoubles(buffer, offset, moduleHeadingDegrees);
+    buffer.putDouble(offset, gyroYawDegrees);
+    buffer.putDouble(offset + 8, gyroPitchDegrees);
+    buffer.putDouble(offset + 16, gyroRollDegrees);
+    buffer.putDouble(offset + 24, elevatorDesiredPositionMeters);
+    buffer.putDouble(offset + 32, elevatorPositionMeters);
+    buffer.putDouble(offset + 40, wristDesiredPositionRadians);
+    buffer.putDouble(offset + 48, wristPositionRadians);
+    offset += 56;
+    buffer.put(offset, (byte) intakeState.ordinal());
+    buffer.put(offset + 1, (byte) currentState.ordinal());
+    buffer.put(offset + 2, (byte) desiredState.ordinal());
+    buffer.put(offset + 3, (byte) currentZone.ordinal());
+  }
+
+  /**
+   * Reads a record written by {@link #write(ByteBuffer)} from the start of the buffer.
+   *
+   * @return false if the buffer is too short or was written with a different layout version
+   */
+  public boolean read(ByteBuffer buffer) {
+    if (buffer.limit() < kSize
+        || buffer.get(0) != kVersion
+        || buffer.get(1) != (byte) kModuleCount) {
+      return false;
+    }
+
+    int offset = 2;
+    offset = getDoubles(buffer, offset, moduleVelocityMetersPerSecond);
+    offset = getDoubles(buffer, offset, moduleDriveMeters);
+    offset = getDoubles(buffer, offset, moduleHeadingDegrees);
+    gyroYawDegrees = buffer.getDouble(offset);
+    gyroPitchDegrees = buffer.getDouble(offset + 8);
+    gyroRollDegrees = buffer.getDouble(offset + 16);
+    elevatorDesiredPositionMeters = buffer.getDouble(offset + 24);
+    elevatorPositionMeters = buffer.getDouble(offset + 32);
+    wristDesiredPositionRadians = buffer.getDouble(offset + 40);
+    wristPositionRadians = buffer.getDouble(offset + 48);
+    offset += 56;
+    intakeState = kIntakeStates[buffer.get(offset)];
+    currentState = kSuperstructureStates[buffer.get(offset + 1)];
+    desiredState = kSuperstructureStates[buffer.get(offset + 2)];
+    currentZone = kZones[buffer.get(offset + 3)];
+    return true;
+  }
+
+  private static int putDoubles(ByteBuffer buffer, int offset, double[] values) {
+    for (double value : values) {
+      buffer.putDouble(offset, value);
+      offset += 8;
+    }
+    return offset;
+  }
+
+  private static int getDoubles(ByteBuffer buffer, int offset, double[] values) {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = buffer.getDouble(offset);
+      offset += 8;
+    }
+    return offset;
+  }
+}
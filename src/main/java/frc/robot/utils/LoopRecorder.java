@@ -0,0 +1,75 @@
+package frc.robot.utils;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.RawLogEntry;
+import frc.robot.Constants.SWERVE_DRIVE.SWERVE_MODULE_POSITION;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.StateHandler;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.subsystems.Wrist;
+import java.nio.ByteBuffer;
+
+/**
+ * Logs the state of every mechanism as one {@link LoopRecord} per robot loop. Everything is written
+ * into a preallocated buffer and appended as a single raw DataLog entry, which is much cheaper than
+ * one DoubleLogEntry per value.
+ */
+public class LoopRecorder {
+  public static final String kEntryName = "/robot/loopRecord";
+
+  private static final SWERVE_MODULE_POSITION[] kModulePositions = SWERVE_MODULE_POSITION.values();
+
+  private final SwerveDrive m_swerveDrive;
+  private final Elevator m_elevator;
+  private final Wrist m_wrist;
+  private final Intake m_intake;
+  private final StateHandler m_stateHandler;
+
+  private final LoopRecord m_record = new LoopRecord();
+  private final ByteBuffer m_buffer = LoopRecord.allocateBuffer();
+  private final RawLogEntry m_entry;
+
+  public LoopRecorder(
+      DataLog log,
+      SwerveDrive swerveDrive,
+      Elevator elevator,
+      Wrist wrist,
+      Intake intake,
+      StateHandler stateHandler) {
+    m_swerveDrive = swerveDrive;
+    m_elevator = elevator;
+    m_wrist = wrist;
+    m_intake = intake;
+    m_stateHandler = stateHandler;
+    m_entry = new RawLogEntry(log, kEntryName, LoopRecord.kMetadata, LoopRecord.kType);
+  }
+
+  /** Samples every mechanism into the record. Does not write to the log. */
+  public LoopRecord sample() {
+    for (int i = 0; i < kModulePositions.length; i++) {
+      var module = m_swerveDrive.getSwerveModule(kModulePositions[i]);
+      m_record.moduleVelocityMetersPerSecond[i] = module.getVelocityMetersPerSecond();
+      m_record.moduleDriveMeters[i] = module.getDriveMeters();
+      m_record.moduleHeadingDegrees[i] = module.getHeadingDegrees();
+    }
+    m_record.gyroYawDegrees = m_swerveDrive.getHeadingDegrees();
+    m_record.gyroPitchDegrees = m_swerveDrive.getPitchDegrees();
+    m_record.gyroRollDegrees = m_swerveDrive.getRollDegrees();
+    m_record.elevatorDesiredPositionMeters = m_elevator.getDesiredPositionMeters();
+    m_record.elevatorPositionMeters = m_elevator.getHeightMeters();
+    m_record.wristDesiredPositionRadians = m_wrist.getDesiredPositionRadians();
+    m_record.wristPositionRadians = m_wrist.getPositionRadians();
+    m_record.intakeState = m_intake.getIntakeState();
+    m_record.currentState = m_stateHandler.getCurrentState();
+    m_record.desiredState = m_stateHandler.getDesiredState();
+    m_record.currentZone = m_stateHandler.getCurrentZone();
+    return m_record;
+  }
+
+  /** Call once per robot loop, after the scheduler has run. */
+  public void periodic() {
+    sample().write(m_buffer);
+    m_entry.append(m_buffer.array());
+  }
+}
@@ -0,0 +1,170 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+
+/**
+ * A trapezoid profile that is planned once and then stepped in place.
+ *
+ * <p>Constructing a {@link TrapezoidProfile} from the last setpoint every loop gives the same
+ * motion as following one profile from where it started, so this one only plans again when the
+ * goal, the constraints or the current state ({@link #reset}) change. Planning uses the same math
+ * as {@link TrapezoidProfile} and nothing here allocates.
+ */
+public class MotionProfile {
+  private double m_maxVelocity;
+  private double m_maxAcceleration;
+  private double m_goalPosition;
+  private double m_goalVelocity;
+
+  // The current setpoint
+  private double m_position;
+  private double m_velocity;
+
+  // The plan from m_position/m_velocity when it was made, mirrored so it always moves forward
+  private boolean m_replan = true;
+  private double m_direction = 1;
+  private double m_initialPosition;
+  private double m_initialVelocity;
+  private double m_directedGoalPosition;
+  private double m_directedGoalVelocity;
+  private double m_endAccel;
+  private double m_endFullSpeed;
+  private double m_endDeccel;
+  private double m_elapsedSeconds;
+
+  public MotionProfile(TrapezoidProfile.Constraints constraints) {
+    m_maxVelocity = constraints.maxVelocity;
+    m_maxAcceleration = constraints.maxAcceleration;
+  }
+
+  public void setConstraints(double maxVelocity, double maxAcceleration) {
+    if (maxVelocity == m_maxVelocity && maxAcceleration == m_maxAcceleration) return;
+    m_maxVelocity = maxVelocity;
+    m_maxAcceleration = maxAcceleration;
+    m_replan = true;
+  }
+
+  public void setGoal(double position) {
+    setGoal(position, 0);
+  }
+
+  public void setGoal(double position, double velocity) {
+    if (position == m_goalPosition && velocity == m_goalVelocity) return;
+    m_goalPosition = position;
+    m_goalVelocity = velocity;
+    m_replan = true;
+  }
+
+  /** Starts the next plan from this state, e.g. the mechanism's measured position. */
+  public void reset(double position, double velocity) {
+    m_position = position;
+    m_velocity = velocity;
+    m_replan = true;
+  }
+
+  /** Moves the setpoint along the profile. */
+  public void update(double dtSeconds) {
+    plan();
+    m_elapsedSeconds += dtSeconds;
+    sample(m_elapsedSeconds);
+  }
+
+  /** Moves the setpoint to a time since the plan started, e.g. to sample a precomputed move. */
+  public void calculate(double timeSeconds) {
+    plan();
+    m_elapsedSeconds = timeSeconds;
+    sample(m_elapsedSeconds);
+  }
+
+  public double getPosition() {
+    return m_position;
+  }
+
+  public double getVelocity() {
+    return m_velocity;
+  }
+
+  public double getGoalPosition() {
+    return m_goalPosition;
+  }
+
+  /**
+   * Time until the setpoint reaches the goal, including a goal that was just set. A new plan is
+   * made here if one is pending, which is the same plan {@link #update} would make, so this only
+   * reads.
+   */
+  public double getTimeToGoalSeconds() {
+    plan();
+    return Math.max(m_endDeccel - m_elapsedSeconds, 0);
+  }
+
+  public boolean isFinished() {
+    return getTimeToGoalSeconds() == 0;
+  }
+
+  // Same as the TrapezoidProfile constructor
+  private void plan() {
+    if (!m_replan) return;
+    m_replan = false;
+    m_elapsedSeconds = 0;
+
+    m_direction = m_position > m_goalPosition ? -1 : 1;
+    m_initialPosition = m_position * m_direction;
+    m_initialVelocity = Math.min(m_velocity * m_direction, m_maxVelocity);
+    m_directedGoalPosition = m_goalPosition * m_direction;
+    m_directedGoalVelocity = m_goalVelocity * m_direction;
+
+    // Plan a full trapezoid that starts and ends at rest, then cut off the parts before the
+    // initial velocity and after the goal velocity
+    double cutoffBegin = m_initialVelocity / m_maxAcceleration;
+    double cutoffDistBegin = cutoffBegin * cutoffBegin * m_maxAcceleration / 2.0;
+
+    double cutoffEnd = m_directedGoalVelocity / m_maxAcceleration;
+    double cutoffDistEnd = cutoffEnd * cutoffEnd * m_maxAcceleration / 2.0;
+
+    double fullTrapezoidDist =
+        cutoffDistBegin + (m_directedGoalPosition - m_initialPosition) + cutoffDistEnd;
+    double accelerationTime = m_maxVelocity / m_maxAcceleration;
+
+    double fullSpeedDist =
+        fullTrapezoidDist - accelerationTime * accelerationTime * m_maxAcceleration;
+
+    // The profile never reaches full speed
+    if (fullSpeedDist < 0) {
+      accelerationTime = Math.sqrt(fullTrapezoidDist / m_maxAcceleration);
+      fullSpeedDist = 0;
+    }
+
+    m_endAccel = accelerationTime - cutoffBegin;
+    m_endFullSpeed = m_endAccel + fullSpeedDist / m_maxVelocity;
+    m_endDeccel = m_endFullSpeed + accelerationTime - cutoffEnd;
+  }
+
+  // Same as TrapezoidProfile.calculate()
+  private void sample(double t) {
+    double position = m_initialPosition;
+    double velocity = m_initialVelocity;
+
+    if (t < m_endAccel) {
+      velocity += t * m_maxAcceleration;
+      position += (m_initialVelocity + t * m_maxAcceleration / 2.0) * t;
+    } else if (t < m_endFullSpeed) {
+      velocity = m_maxVelocity;
+      position +=
+          (m_initialVelocity + m_endAccel * m_maxAcceleration / 2.0) * m_endAccel
+              + m_maxVelocity * (t - m_endAccel);
+    } else if (t <= m_endDeccel) {
+      double timeLeft = m_endDeccel - t;
+      velocity = m_directedGoalVelocity + timeLeft * m_maxAcceleration;
+      position =
+          m_directedGoalPosition
+              - (m_directedGoalVelocity + timeLeft * m_maxAcceleration / 2.0) * timeLeft;
+    } else {
+      position = m_directedGoalPosition;
+      velocity = m_directedGoalVelocity;
+    }
+
+    m_position = position * m_direction;
+    m_velocity = velocity * m_direction;
+  }
+}
@@ -0,0 +1,85 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+
+/**
+ * Reads every sensor once per robot loop so each getter in the loop returns the same value without
+ * another CAN read.
+ *
+ * <p>Each subsystem registers a sampler that copies its IO inputs into fields. {@link
+ * #sampleAll()} runs at the very top of the loop, before the mode methods, the CommandScheduler and
+ * telemetry, and the subsystem getters then only return those fields. Samplers run in registration
+ * order, so a sampler that depends on another one (e.g. the simulated gyro on the swerve modules)
+ * must be registered after it.
+ *
+ * <p>Getters call {@link Entry#assertFresh()} to check that nothing reads an entry in the current
+ * loop before it has been sampled. The check is a Java assert, so it runs in unit tests and is free
+ * on the robot.
+ */
+public final class SensorCache {
+  private static final ArrayList<Entry> m_entries = new ArrayList<>();
+  private static long m_cycle;
+
+  /** One group of signals that are sampled together, e.g. one subsystem's IO inputs. */
+  public static final class Entry {
+    private final String m_name;
+    private final Runnable m_sampler;
+    private long m_sampledCycle = -1;
+
+    private Entry(String name, Runnable sampler) {
+      m_name = name;
+      m_sampler = sampler;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    /** Samples this entry again, e.g. after changing a sensor position mid-loop. */
+    public void sample() {
+      m_sampler.run();
+      m_sampledCycle = m_cycle;
+    }
+
+    /** Returns true if this entry has been sampled since the current loop started. */
+    public boolean isFresh() {
+      return m_sampledCycle == m_cycle;
+    }
+
+    /** Fails when assertions are enabled and this entry has not been sampled this loop. */
+    public void assertFresh() {
+      assert isFresh() : m_name + " was read before it was sampled in loop " + m_cycle;
+    }
+  }
+
+  private SensorCache() {}
+
+  /**
+   * Registers a sampler and runs it once, so the values can be read during construction.
+   *
+   * @param name used in the stale read message
+   * @param sampler copies the current sensor values into the caller's fields
+   */
+  public static Entry register(String name, Runnable sampler) {
+    var entry = new Entry(name, sampler);
+    entry.sample();
+    m_entries.add(entry);
+    return entry;
+  }
+
+  /** Stops sampling an entry, e.g. when its subsystem is closed. */
+  public static void remove(Entry entry) {
+    m_entries.remove(entry);
+  }
+
+  /** Starts a new loop and samples every registered entry. Call once at the top of the loop. */
+  public static void sampleAll() {
+    m_cycle++;
+    for (int i = 0; i < m_entries.size(); i++) m_entries.get(i).sample();
+  }
+
+  /** Number of loops started by {@link #sampleAll()}. */
+  public static long getCycle() {
+    return m_cycle;
+  }
+}
@@ -1,24 +1,126 @@
 package frc.robot.utils;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.util.Units;
 import frc.robot.Constants.ELEVATOR;
 import frc.robot.Constants.SCORING_STATE;
 import frc.robot.Constants.WRIST;
 
+/**
+ * Solves the chassis heading and elevator height to score on a node. {@link #solve} and {@link
+ * NodeSolutions} only use doubles and write into objects owned by the caller, so they don't
+ * allocate and can be called from any thread.
+ */
 public class SetpointSolver {
+  private static final double kMountAngleCos = Math.cos(ELEVATOR.mountAngleRadians.getRadians());
+
   private static SetpointSolver m_instance;
-  private Pose2d m_currentRobotPose;
-  private Pose2d m_targetPose;
-  private double m_targetTangentalOffset;
+  private final Solution m_solution = new Solution();
+
+  /** The setpoints for one node. */
+  public static final class Solution {
+    /** Heading change the chassis needs to line up with the node, in radians. */
+    public double chassisHeadingRadians;
+
+    public double elevatorHorizontalSetpointMeters;
+    public double elevatorSetpointMeters;
+    public double wristSetpointDegrees;
+    public boolean canScore;
+  }
+
+  /**
+   * The setpoints for every valid node of a {@link ChargedUpNodeMask.Snapshot}, indexed by node.
+   * Reuse one instance every loop.
+   */
+  public static final class NodeSolutions {
+    private final double[] m_chassisHeadingRadians = new double[ChargedUpNodeMask.nodeCount];
+    private final double[] m_elevatorSetpointMeters = new double[ChargedUpNodeMask.nodeCount];
+    private final Solution m_solution = new Solution();
+    private int m_solvedNodeMask;
+    private int m_scorableNodeMask;
+    private int m_bestNode = -1;
+
+    /** Solves every valid node in one pass. Nodes face 0 degrees, like {@link Pose2d}s of them. */
+    public void solve(
+        Pose2d robotPose,
+        ChargedUpNodeMask.Snapshot nodes,
+        double wristOffset,
+        SCORING_STATE scoringState) {
+      double robotX = robotPose.getX();
+      double robotY = robotPose.getY();
+      double robotHeading = robotPose.getRotation().getRadians();
+      double cos = Math.cos(robotHeading);
+      double sin = Math.sin(robotHeading);
 
-  private Rotation2d chassisSetpointDegrees;
-  private double elevatorHorizontalSetpointMeters;
-  private double elevatorSetpointMeters;
-  private double wristSetpointDegrees;
+      m_solvedNodeMask = nodes.validNodeMask;
+      m_scorableNodeMask = 0;
+      m_bestNode = -1;
+      int nearestNode = -1;
+      double nearestMeters = Double.POSITIVE_INFINITY;
+      double bestMeters = Double.POSITIVE_INFINITY;
+      for (int mask = m_solvedNodeMask; mask != 0; mask &= mask - 1) {
+        int node = Integer.numberOfTrailingZeros(mask);
+        Translation2d translation = nodes.getNode(node);
+        solve(
+            cos,
+            sin,
+            translation.getX() - robotX,
+            translation.getY() - robotY,
+            -robotHeading,
+            wristOffset,
+            scoringState,
+            0,
+            m_solution);
+        m_chassisHeadingRadians[node] = m_solution.chassisHeadingRadians;
+        m_elevatorSetpointMeters[node] = m_solution.elevatorSetpointMeters;
+
+        double meters = m_solution.elevatorHorizontalSetpointMeters;
+        if (meters < nearestMeters) {
+          nearestMeters = meters;
+          nearestNode = node;
+        }
+        if (m_solution.canScore) {
+          m_scorableNodeMask |= 1 << node;
+          if (meters < bestMeters) {
+            bestMeters = meters;
+            m_bestNode = node;
+          }
+        }
+      }
+      if (m_bestNode < 0) m_bestNode = nearestNode;
+    }
+
+    /**
+     * Returns the nearest node the robot can score on, or the nearest node if it can't score on any
+     * of them. Returns -1 if no node was valid.
+     */
+    public int getBestNode() {
+      return m_bestNode;
+    }
+
+    public int getSolvedNodeMask() {
+      return m_solvedNodeMask;
+    }
+
+    public int getScorableNodeMask() {
+      return m_scorableNodeMask;
+    }
+
+    public boolean canScore(int nodeIndex) {
+      return (m_scorableNodeMask & (1 << nodeIndex)) != 0;
+    }
+
+    public double getChassisHeadingRadians(int nodeIndex) {
+      return m_chassisHeadingRadians[nodeIndex];
+    }
+
+    public double getElevatorSetpointMeters(int nodeIndex) {
+      return m_elevatorSetpointMeters[nodeIndex];
+    }
+  }
 
   private SetpointSolver() {}
 
@@ -35,6 +137,10 @@ public class SetpointSolver {
   }
 
   public boolean canScore() {
+    return m_solution.canScore;
+  }
+
+  private static boolean canScore(double elevatorSetpointMeters, double wristSetpointDegrees) {
     return ELEVATOR.THRESHOLD.ALPHA_MIN.get() <= elevatorSetpointMeters
         && elevatorSetpointMeters <= ELEVATOR.THRESHOLD.ABSOLUTE_MAX.get()
         && Units.radiansToDegrees(WRIST.THRESHOLD.ABSOLUTE_MIN.get()) <= wristSetpointDegrees
@@ -53,39 +159,79 @@ public class SetpointSolver {
       double wristOffset,
       SCORING_STATE scoringState,
       double targetTangentalOffset) {
-    m_currentRobotPose = currentRobotPose;
-    m_targetPose = targetPose;
-    m_targetTangentalOffset = targetTangentalOffset;
+    solve(
+        currentRobotPose.getX(),
+        currentRobotPose.getY(),
+        currentRobotPose.getRotation().getRadians(),
+        targetPose.getX(),
+        targetPose.getY(),
+        targetPose.getRotation().getRadians(),
+        wristOffset,
+        scoringState,
+        targetTangentalOffset,
+        m_solution);
+  }
 
-    var solution = m_targetPose.relativeTo(m_currentRobotPose);
-    var solutionTransform =
-        new Transform2d(new Translation2d(0, m_targetTangentalOffset), Rotation2d.fromDegrees(90));
+  /** {@link #solveSetpoints(Pose2d, Pose2d, double, SCORING_STATE, double)} without allocating. */
+  public static void solve(
+      double robotX,
+      double robotY,
+      double robotHeadingRadians,
+      double targetX,
+      double targetY,
+      double targetHeadingRadians,
+      double wristOffset,
+      SCORING_STATE scoringState,
+      double targetTangentalOffset,
+      Solution result) {
+    solve(
+        Math.cos(robotHeadingRadians),
+        Math.sin(robotHeadingRadians),
+        targetX - robotX,
+        targetY - robotY,
+        targetHeadingRadians - robotHeadingRadians,
+        wristOffset,
+        scoringState,
+        targetTangentalOffset,
+        result);
+  }
 
-    var correctedSolution = solution.transformBy(solutionTransform);
+  // Same as targetPose.relativeTo(robotPose).transformBy(new Transform2d(new Translation2d(0,
+  // offset), 90 degrees)), with the robot's heading as its cos and sin and the target relative to
+  // the robot in field coordinates
+  private static void solve(
+      double cos,
+      double sin,
+      double dx,
+      double dy,
+      double relativeHeadingRadians,
+      double wristOffset,
+      SCORING_STATE scoringState,
+      double targetTangentalOffset,
+      Solution result) {
+    double x = cos * dx + sin * dy - Math.sin(relativeHeadingRadians) * targetTangentalOffset;
+    double y = -sin * dx + cos * dy + Math.cos(relativeHeadingRadians) * targetTangentalOffset;
 
-    chassisSetpointDegrees =
-        correctedSolution
-            .getRotation()
-            .plus(
-                scoringState == SCORING_STATE.LOW_REVERSE
-                    ? Rotation2d.fromDegrees(180)
-                    : Rotation2d.fromDegrees(0));
+    double heading = relativeHeadingRadians + Math.PI / 2;
+    if (scoringState == SCORING_STATE.LOW_REVERSE) heading += Math.PI;
+    result.chassisHeadingRadians = MathUtil.angleModulus(heading);
 
     // TODO: Calculate wrist offset? Otherwise use fixed offset by measured setpoints
-    elevatorHorizontalSetpointMeters = correctedSolution.getTranslation().getNorm() - wristOffset;
-    elevatorSetpointMeters =
-        Math.cos(ELEVATOR.mountAngleRadians.getRadians()) * elevatorHorizontalSetpointMeters;
+    result.elevatorHorizontalSetpointMeters = Math.hypot(x, y) - wristOffset;
+    result.elevatorSetpointMeters = kMountAngleCos * result.elevatorHorizontalSetpointMeters;
+    result.wristSetpointDegrees = 0;
+    result.canScore = canScore(result.elevatorSetpointMeters, result.wristSetpointDegrees);
   }
 
   public Rotation2d getChassisSetpointRotation2d() {
-    return chassisSetpointDegrees;
+    return new Rotation2d(m_solution.chassisHeadingRadians);
   }
 
   public double getElevatorSetpointMeters() {
-    return elevatorSetpointMeters;
+    return m_solution.elevatorSetpointMeters;
   }
 
   public double getWristSetpointDegrees() {
-    return wristSetpointDegrees;
+    return m_solution.wristSetpointDegrees;
   }
 }
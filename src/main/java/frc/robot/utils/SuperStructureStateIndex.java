@@ -0,0 +1,211 @@
+package frc.robot.utils;
+
+import static frc.robot.Constants.STATE_HANDLER.elevatorSetpointTolerance;
+import static frc.robot.Constants.STATE_HANDLER.wristSetpointTolerance;
+
+import frc.robot.Constants.ELEVATOR;
+import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
+import frc.robot.Constants.WRIST;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Lookup table for the superstructure state given the elevator height and wrist angle.
+ *
+ * <p>Every setpoint tolerance band and zone threshold is a breakpoint on its axis. Between two
+ * breakpoints (and exactly on one) the result of {@link #evaluate(double, double)} can't change, so
+ * it is evaluated once per cell when the class is loaded. A lookup is then two binary searches over
+ * a few dozen breakpoints and an array read.
+ */
+public final class SuperStructureStateIndex {
+  // Specific states defined by elevator/wrist setpoints, checked in order
+  private static final double[] kSetpointElevatorMeters = {
+    ELEVATOR.SETPOINT.STOWED.get(),
+    ELEVATOR.SETPOINT.INTAKING_LOW.get(),
+    ELEVATOR.SETPOINT.INTAKING_LOW.get(),
+    ELEVATOR.SETPOINT.SCORE_LOW_REVERSE.get(),
+    ELEVATOR.SETPOINT.INTAKING_EXTENDED_CONE.get(),
+    ELEVATOR.SETPOINT.SCORE_LOW_CONE.get(),
+    ELEVATOR.SETPOINT.SCORE_LOW_CUBE.get(),
+    ELEVATOR.SETPOINT.SCORE_MID_CONE.get(),
+    ELEVATOR.SETPOINT.SCORE_MID_CUBE.get(),
+    ELEVATOR.SETPOINT.SCORE_HIGH_CONE.get(),
+    ELEVATOR.SETPOINT.SCORE_HIGH_CUBE.get()
+  };
+  private static final double[] kSetpointWristRadians = {
+    WRIST.SETPOINT.STOWED.get(),
+    WRIST.SETPOINT.INTAKING_LOW_CONE.get(),
+    WRIST.SETPOINT.INTAKING_LOW_CUBE.get(),
+    WRIST.SETPOINT.SCORE_LOW_REVERSE.get(),
+    WRIST.SETPOINT.INTAKING_EXTENDED_CONE.get(),
+    WRIST.SETPOINT.SCORE_LOW_CONE.get(),
+    WRIST.SETPOINT.SCORE_LOW_CUBE.get(),
+    WRIST.SETPOINT.SCORE_MID_CONE.get(),
+    WRIST.SETPOINT.SCORE_MID_CUBE.get(),
+    WRIST.SETPOINT.SCORE_HIGH_CONE.get(),
+    WRIST.SETPOINT.SCORE_HIGH_CUBE.get()
+  };
+  private static final SUPERSTRUCTURE_STATE[] kSetpointStates = {
+    SUPERSTRUCTURE_STATE.STOWED,
+    SUPERSTRUCTURE_STATE.INTAKE_LOW_CONE,
+    SUPERSTRUCTURE_STATE.INTAKE_LOW_CUBE,
+    SUPERSTRUCTURE_STATE.SCORE_LOW_REVERSE,
+    SUPERSTRUCTURE_STATE.INTAKE_EXTENDED,
+    SUPERSTRUCTURE_STATE.SCORE_LOW_CONE,
+    SUPERSTRUCTURE_STATE.SCORE_LOW_CUBE,
+    SUPERSTRUCTURE_STATE.SCORE_MID_CONE,
+    SUPERSTRUCTURE_STATE.SCORE_MID_CUBE,
+    SUPERSTRUCTURE_STATE.SCORE_HIGH_CONE,
+    SUPERSTRUCTURE_STATE.SCORE_HIGH_CUBE
+  };
+
+  private static final ELEVATOR.THRESHOLD[] kElevatorZoneThresholds = {
+    ELEVATOR.THRESHOLD.ALPHA_MAX,
+    ELEVATOR.THRESHOLD.BETA_MIN,
+    ELEVATOR.THRESHOLD.BETA_MAX,
+    ELEVATOR.THRESHOLD.GAMMA_MIN,
+    ELEVATOR.THRESHOLD.GAMMA_MAX
+  };
+  private static final WRIST.THRESHOLD[] kWristZoneThresholds = {
+    WRIST.THRESHOLD.ALPHA_MIN,
+    WRIST.THRESHOLD.ALPHA_MAX,
+    WRIST.THRESHOLD.BETA_MIN,
+    WRIST.THRESHOLD.BETA_MAX,
+    WRIST.THRESHOLD.GAMMA_MIN,
+    WRIST.THRESHOLD.GAMMA_MAX
+  };
+
+  private static final double[] kElevatorBreakpoints;
+  private static final double[] kWristBreakpoints;
+  private static final int kWristCells;
+  // Indexed by elevatorCell * kWristCells + wristCell
+  private static final SUPERSTRUCTURE_STATE[] kTable;
+
+  static {
+    var elevatorBreakpoints = new TreeSet<Double>();
+    var wristBreakpoints = new TreeSet<Double>();
+    for (int i = 0; i < kSetpointStates.length; i++) {
+      elevatorBreakpoints.add(kSetpointElevatorMeters[i] - elevatorSetpointTolerance);
+      elevatorBreakpoints.add(kSetpointElevatorMeters[i] + elevatorSetpointTolerance);
+      wristBreakpoints.add(kSetpointWristRadians[i] - wristSetpointTolerance);
+      wristBreakpoints.add(kSetpointWristRadians[i] + wristSetpointTolerance);
+    }
+    for (var threshold : kElevatorZoneThresholds) elevatorBreakpoints.add(threshold.get());
+    for (var threshold : kWristZoneThresholds) wristBreakpoints.add(threshold.get());
+
+    kElevatorBreakpoints = toArray(elevatorBreakpoints);
+    kWristBreakpoints = toArray(wristBreakpoints);
+
+    int elevatorCells = getCellCount(kElevatorBreakpoints);
+    kWristCells = getCellCount(kWristBreakpoints);
+    kTable = new SUPERSTRUCTURE_STATE[elevatorCells * kWristCells];
+    for (int e = 0; e < elevatorCells; e++) {
+      double elevatorPositionMeters = getCellValue(kElevatorBreakpoints, e);
+      for (int w = 0; w < kWristCells; w++) {
+        kTable[e * kWristCells + w] =
+            evaluate(elevatorPositionMeters, getCellValue(kWristBreakpoints, w));
+      }
+    }
+  }
+
+  private SuperStructureStateIndex() {}
+
+  /**
+   * Returns the superstructure state for the given mechanism positions. Equivalent to {@link
+   * #evaluate(double, double)}.
+   */
+  public static SUPERSTRUCTURE_STATE lookup(
+      double elevatorPositionMeters, double wristPositionRadians) {
+    int elevatorCell = getCell(kElevatorBreakpoints, elevatorPositionMeters);
+    int wristCell = getCell(kWristBreakpoints, wristPositionRadians);
+    return kTable[elevatorCell * kWristCells + wristCell];
+  }
+
+  /**
+   * Which cell of the table the elevator height is in. Crossing any zone threshold or setpoint
+   * tolerance on this axis changes the cell.
+   */
+  public static int getElevatorCell(double elevatorPositionMeters) {
+    return getCell(kElevatorBreakpoints, elevatorPositionMeters);
+  }
+
+  /** Like {@link #getElevatorCell(double)}, for the wrist angle. */
+  public static int getWristCell(double wristPositionRadians) {
+    return getCell(kWristBreakpoints, wristPositionRadians);
+  }
+
+  /**
+   * Determines the superstructure state by checking every setpoint and zone in turn. This is the
+   * reference logic the lookup table is built from.
+   */
+  public static SUPERSTRUCTURE_STATE evaluate(
+      double elevatorPositionMeters, double wristPositionRadians) {
+    SUPERSTRUCTURE_STATE assumedZone = SUPERSTRUCTURE_STATE.DANGER_ZONE;
+
+    // Specific states defined by elevator/wrist setpoints
+    for (int i = 0; i < kSetpointStates.length; i++) {
+      if (Math.abs(elevatorPositionMeters - kSetpointElevatorMeters[i]) < elevatorSetpointTolerance
+          && Math.abs(wristPositionRadians - kSetpointWristRadians[i]) < wristSetpointTolerance)
+        return kSetpointStates[i];
+    }
+
+    // General states (zones) defined by region
+    if (elevatorPositionMeters <= ELEVATOR.THRESHOLD.ALPHA_MAX.get()) {
+      if (WRIST.THRESHOLD.ALPHA_MIN.get() < wristPositionRadians
+          && wristPositionRadians <= WRIST.THRESHOLD.ALPHA_MAX.get())
+        return SUPERSTRUCTURE_STATE.ALPHA_ZONE;
+      else assumedZone = SUPERSTRUCTURE_STATE.ALPHA_ZONE;
+    }
+    if (ELEVATOR.THRESHOLD.BETA_MIN.get() < elevatorPositionMeters
+        && elevatorPositionMeters < ELEVATOR.THRESHOLD.BETA_MAX.get()) {
+      if (WRIST.THRESHOLD.BETA_MIN.get() < wristPositionRadians
+          && wristPositionRadians <= WRIST.THRESHOLD.BETA_MAX.get())
+        return SUPERSTRUCTURE_STATE.BETA_ZONE;
+      else assumedZone = SUPERSTRUCTURE_STATE.BETA_ZONE;
+    }
+    if (ELEVATOR.THRESHOLD.GAMMA_MIN.get() < elevatorPositionMeters
+        && elevatorPositionMeters <= ELEVATOR.THRESHOLD.GAMMA_MAX.get()) {
+      if (WRIST.THRESHOLD.GAMMA_MIN.get() < wristPositionRadians
+          && wristPositionRadians <= WRIST.THRESHOLD.GAMMA_MAX.get())
+        return SUPERSTRUCTURE_STATE.GAMMA_ZONE;
+      else assumedZone = SUPERSTRUCTURE_STATE.GAMMA_ZONE;
+    }
+
+    return assumedZone;
+  }
+
+  /**
+   * Cells alternate between the open interval below a breakpoint and the breakpoint itself, so n
+   * breakpoints give 2n + 1 cells.
+   */
+  private static int getCellCount(double[] breakpoints) {
+    return 2 * breakpoints.length + 1;
+  }
+
+  static int getCell(double[] breakpoints, double value) {
+    // Adding 0.0 turns -0.0 into 0.0, which binarySearch would otherwise treat as smaller
+    int index = Arrays.binarySearch(breakpoints, value + 0.0);
+    return index >= 0 ? 2 * index + 1 : -2 * (index + 1);
+  }
+
+  /** Returns a value that lies within the given cell. */
+  static double getCellValue(double[] breakpoints, int cell) {
+    int index = cell / 2;
+    if (cell % 2 == 1) return breakpoints[index];
+    if (index == 0) return breakpoints[0] - 1;
+    if (index == breakpoints.length) return breakpoints[index - 1] + 1;
+    return (breakpoints[index - 1] + breakpoints[index]) / 2;
+  }
+
+  static double[] getElevatorBreakpoints() {
+    return kElevatorBreakpoints;
+  }
+
+  static double[] getWristBreakpoints() {
+    return kWristBreakpoints;
+  }
+
+  private static double[] toArray(TreeSet<Double> values) {
+    return values.stream().mapToDouble(Double::doubleValue).map(v -> v + 0.0).distinct().toArray();
+  }
+}
@@ -0,0 +1,232 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Constants.ELEVATOR;
+import frc.robot.Constants.STATE_HANDLER;
+import frc.robot.Constants.STATE_HANDLER.SETPOINT;
+import frc.robot.Constants.STATE_HANDLER.ZONE;
+import frc.robot.Constants.WRIST;
+import java.util.ArrayList;
+
+/**
+ * Plans elevator and wrist moves together in joint space instead of letting StateHandler's zone
+ * limits hold one back until the other is out of the way.
+ *
+ * <p>The keep-out rules are the same ones StateHandler enforces. Inside a zone, the elevator and
+ * the wrist stay within that zone's {@link ELEVATOR.THRESHOLD} and {@link WRIST.THRESHOLD} limits.
+ * The elevator only leaves a zone while the wrist is within the universal wrist limits. A move
+ * between zones goes through at most two waypoints: the wrist tucks into the universal limits while
+ * the elevator moves to the edge of its zone, then the elevator crosses while the wrist already
+ * heads towards its goal. Waypoints are skipped whenever both mechanisms can go straight to a later
+ * one. The goal wrist angle is clamped to its zone's limits, like StateHandler clamps it.
+ *
+ * <p>Trajectories between every pair of {@link SETPOINT}s are planned when the planner is created
+ * and kept in a table indexed by the setpoints' ordinals, so a move only has to look one up.
+ */
+public class SuperstructurePlanner {
+  private static final ZONE[] kZones = {ZONE.ALPHA, ZONE.BETA, ZONE.GAMMA};
+  private static final SETPOINT[] kSetpoints = SETPOINT.values();
+
+  private final TrapezoidProfile.Constraints m_elevatorConstraints;
+  private final TrapezoidProfile.Constraints m_wristConstraints;
+  // Row is the start setpoint, column is the goal
+  private final SuperstructureTrajectory[] m_trajectories =
+      new SuperstructureTrajectory[kSetpoints.length * kSetpoints.length];
+
+  public SuperstructurePlanner() {
+    this(ELEVATOR.m_Constraints, WRIST.m_constraints);
+  }
+
+  public SuperstructurePlanner(
+      TrapezoidProfile.Constraints elevatorConstraints,
+      TrapezoidProfile.Constraints wristConstraints) {
+    m_elevatorConstraints = elevatorConstraints;
+    m_wristConstraints = wristConstraints;
+
+    for (var start : kSetpoints) {
+      for (var goal : kSetpoints) {
+        m_trajectories[getIndex(start, goal)] =
+            plan(
+                start.getElevatorSetpointMeters(),
+                getWristGoalRadians(start),
+                goal.getElevatorSetpointMeters(),
+                goal.getWristSetpointRadians());
+      }
+    }
+  }
+
+  /** Returns the precomputed trajectory between two setpoints. */
+  public SuperstructureTrajectory getTrajectory(SETPOINT start, SETPOINT goal) {
+    return m_trajectories[getIndex(start, goal)];
+  }
+
+  /** How long moving between two setpoints takes, e.g. to time an auto. */
+  public double getTransitionTimeSeconds(SETPOINT start, SETPOINT goal) {
+    return m_trajectories[getIndex(start, goal)].getTotalTimeSeconds();
+  }
+
+  private static int getIndex(SETPOINT start, SETPOINT goal) {
+    return start.ordinal() * kSetpoints.length + goal.ordinal();
+  }
+
+  /** Where the wrist ends up for a setpoint, after clamping it to the setpoint's zone. */
+  public static double getWristGoalRadians(SETPOINT setpoint) {
+    var zone = getZone(setpoint.getElevatorSetpointMeters());
+    return MathUtil.clamp(
+        setpoint.getWristSetpointRadians(), getWristMin(zone), getWristMax(zone));
+  }
+
+  /** Plans a trajectory from any mechanism position, e.g. when a move was interrupted. */
+  public SuperstructureTrajectory plan(
+      double startElevatorMeters,
+      double startWristRadians,
+      double goalElevatorMeters,
+      double goalWristRadians) {
+    var startZone = getZone(startElevatorMeters);
+    var goalZone = getZone(goalElevatorMeters);
+    goalWristRadians =
+        MathUtil.clamp(goalWristRadians, getWristMin(goalZone), getWristMax(goalZone));
+
+    var elevatorWaypoints = new ArrayList<Double>();
+    var wristWaypoints = new ArrayList<Double>();
+    elevatorWaypoints.add(startElevatorMeters);
+    wristWaypoints.add(startWristRadians);
+    if (startZone != goalZone) {
+      // Tuck the wrist in while moving to the edge of the starting zone
+      double tuckedElevatorMeters =
+          MathUtil.clamp(
+              goalElevatorMeters, getElevatorMin(startZone), getElevatorMax(startZone));
+      elevatorWaypoints.add(tuckedElevatorMeters);
+      wristWaypoints.add(
+          MathUtil.clamp(
+              startWristRadians,
+              Math.max(STATE_HANDLER.universalWristLowerLimitRadians, getWristMin(startZone)),
+              Math.min(STATE_HANDLER.universalWristUpperLimitRadians, getWristMax(startZone))));
+      // Cross into the goal zone with the wrist as close to its goal as allowed
+      elevatorWaypoints.add(
+          MathUtil.clamp(
+              tuckedElevatorMeters, getElevatorMin(goalZone), getElevatorMax(goalZone)));
+      wristWaypoints.add(
+          MathUtil.clamp(
+              goalWristRadians,
+              Math.max(STATE_HANDLER.universalWristLowerLimitRadians, getWristMin(goalZone)),
+              Math.min(STATE_HANDLER.universalWristUpperLimitRadians, getWristMax(goalZone))));
+    }
+    elevatorWaypoints.add(goalElevatorMeters);
+    wristWaypoints.add(goalWristRadians);
+
+    // Go straight to the furthest waypoint that can be reached safely
+    var elevatorPath = new ArrayList<Double>();
+    var wristPath = new ArrayList<Double>();
+    elevatorPath.add(startElevatorMeters);
+    wristPath.add(startWristRadians);
+    int current = 0;
+    int last = elevatorWaypoints.size() - 1;
+    while (current < last) {
+      int next = last;
+      while (next > current + 1
+          && !isSafe(
+              elevatorWaypoints.get(current),
+              wristWaypoints.get(current),
+              elevatorWaypoints.get(next),
+              wristWaypoints.get(next))) {
+        next--;
+      }
+      if (elevatorWaypoints.get(next).doubleValue() != elevatorPath.get(elevatorPath.size() - 1)
+          || wristWaypoints.get(next).doubleValue() != wristPath.get(wristPath.size() - 1)) {
+        elevatorPath.add(elevatorWaypoints.get(next));
+        wristPath.add(wristWaypoints.get(next));
+      }
+      current = next;
+    }
+
+    return new SuperstructureTrajectory(
+        elevatorPath.stream().mapToDouble(Double::doubleValue).toArray(),
+        wristPath.stream().mapToDouble(Double::doubleValue).toArray(),
+        m_elevatorConstraints.maxVelocity,
+        m_elevatorConstraints.maxAcceleration,
+        m_wristConstraints.maxVelocity,
+        m_wristConstraints.maxAcceleration);
+  }
+
+  /**
+   * True if moving straight from one position to another can't break the keep-out rules. Both
+   * mechanisms move monotonically, so they stay within the box spanned by the two positions.
+   */
+  static boolean isSafe(
+      double startElevatorMeters,
+      double startWristRadians,
+      double endElevatorMeters,
+      double endWristRadians) {
+    double elevatorMin = Math.min(startElevatorMeters, endElevatorMeters);
+    double elevatorMax = Math.max(startElevatorMeters, endElevatorMeters);
+    double wristMin = Math.min(startWristRadians, endWristRadians);
+    double wristMax = Math.max(startWristRadians, endWristRadians);
+
+    if (STATE_HANDLER.universalWristLowerLimitRadians <= wristMin
+        && wristMax <= STATE_HANDLER.universalWristUpperLimitRadians) return true;
+    for (var zone : kZones) {
+      if (getElevatorMin(zone) <= elevatorMin
+          && elevatorMax <= getElevatorMax(zone)
+          && getWristMin(zone) <= wristMin
+          && wristMax <= getWristMax(zone)) return true;
+    }
+    return false;
+  }
+
+  /** The zone an elevator height belongs to, the lower one where zones overlap. */
+  static ZONE getZone(double elevatorMeters) {
+    if (elevatorMeters <= ELEVATOR.THRESHOLD.ALPHA_MAX.get()) return ZONE.ALPHA;
+    if (elevatorMeters <= ELEVATOR.THRESHOLD.BETA_MAX.get()) return ZONE.BETA;
+    return ZONE.GAMMA;
+  }
+
+  private static double getElevatorMin(ZONE zone) {
+    switch (zone) {
+      case GAMMA:
+        return ELEVATOR.THRESHOLD.GAMMA_MIN.get();
+      case BETA:
+        return ELEVATOR.THRESHOLD.BETA_MIN.get();
+      case ALPHA:
+      default:
+        return ELEVATOR.THRESHOLD.ALPHA_MIN.get();
+    }
+  }
+
+  private static double getElevatorMax(ZONE zone) {
+    switch (zone) {
+      case GAMMA:
+        return ELEVATOR.THRESHOLD.GAMMA_MAX.get();
+      case BETA:
+        return ELEVATOR.THRESHOLD.BETA_MAX.get();
+      case ALPHA:
+      default:
+        return ELEVATOR.THRESHOLD.ALPHA_MAX.get();
+    }
+  }
+
+  private static double getWristMin(ZONE zone) {
+    switch (zone) {
+      case GAMMA:
+        return WRIST.THRESHOLD.GAMMA_MIN.get();
+      case BETA:
+        return WRIST.THRESHOLD.BETA_MIN.get();
+      case ALPHA:
+      default:
+        return WRIST.THRESHOLD.ALPHA_MIN.get();
+    }
+  }
+
+  private static double getWristMax(ZONE zone) {
+    switch (zone) {
+      case GAMMA:
+        return WRIST.THRESHOLD.GAMMA_MAX.get();
+      case BETA:
+        return WRIST.THRESHOLD.BETA_MAX.get();
+      case ALPHA:
+      default:
+        return WRIST.THRESHOLD.ALPHA_MAX.get();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+
+/**
+ * A synchronized elevator and wrist motion through joint space waypoints, made by {@link
+ * SuperstructurePlanner}. Both mechanisms start and stop together at every waypoint, each with a
+ * rest-to-rest trapezoid profile. The faster one is slowed down so both take the same time.
+ */
+public class SuperstructureTrajectory {
+  /** Where the mechanisms should be at one point in time. */
+  public static final class State {
+    public double elevatorPositionMeters;
+    public double elevatorVelocityMetersPerSecond;
+    public double wristPositionRadians;
+    public double wristVelocityRadiansPerSecond;
+  }
+
+  // Waypoint i is where segment i starts, the last one is the goal
+  private final double[] m_elevatorWaypoints;
+  private final double[] m_wristWaypoints;
+  private final MotionProfile[] m_elevatorProfiles;
+  private final MotionProfile[] m_wristProfiles;
+  private final double[] m_endTimes;
+
+  /**
+   * @param elevatorWaypoints elevator positions from the start to the goal
+   * @param wristWaypoints wrist positions, the same length as elevatorWaypoints
+   */
+  SuperstructureTrajectory(
+      double[] elevatorWaypoints,
+      double[] wristWaypoints,
+      double elevatorMaxVelocity,
+      double elevatorMaxAcceleration,
+      double wristMaxVelocity,
+      double wristMaxAcceleration) {
+    m_elevatorWaypoints = elevatorWaypoints;
+    m_wristWaypoints = wristWaypoints;
+
+    int segments = elevatorWaypoints.length - 1;
+    m_elevatorProfiles = new MotionProfile[segments];
+    m_wristProfiles = new MotionProfile[segments];
+    m_endTimes = new double[segments];
+
+    double time = 0;
+    for (int i = 0; i < segments; i++) {
+      double elevatorStart = elevatorWaypoints[i];
+      double elevatorEnd = elevatorWaypoints[i + 1];
+      double wristStart = wristWaypoints[i];
+      double wristEnd = wristWaypoints[i + 1];
+      var elevatorProfile =
+          restToRest(elevatorStart, elevatorEnd, elevatorMaxVelocity, elevatorMaxAcceleration);
+      var wristProfile = restToRest(wristStart, wristEnd, wristMaxVelocity, wristMaxAcceleration);
+      double elevatorTime = elevatorProfile.getTimeToGoalSeconds();
+      double wristTime = wristProfile.getTimeToGoalSeconds();
+      double segmentTime = Math.max(elevatorTime, wristTime);
+
+      // Stretching a profile in time by k divides its velocity by k and acceleration by k^2
+      double elevatorScale = elevatorTime > 0 ? segmentTime / elevatorTime : 1;
+      double wristScale = wristTime > 0 ? segmentTime / wristTime : 1;
+      elevatorProfile.setConstraints(
+          elevatorMaxVelocity / elevatorScale,
+          elevatorMaxAcceleration / (elevatorScale * elevatorScale));
+      wristProfile.setConstraints(
+          wristMaxVelocity / wristScale, wristMaxAcceleration / (wristScale * wristScale));
+      m_elevatorProfiles[i] = elevatorProfile;
+      m_wristProfiles[i] = wristProfile;
+
+      time += segmentTime;
+      m_endTimes[i] = time;
+    }
+  }
+
+  private static MotionProfile restToRest(
+      double start, double end, double maxVelocity, double maxAcceleration) {
+    var profile = new MotionProfile(new TrapezoidProfile.Constraints(maxVelocity, maxAcceleration));
+    profile.reset(start, 0);
+    profile.setGoal(end);
+    return profile;
+  }
+
+  public double getTotalTimeSeconds() {
+    return m_endTimes.length == 0 ? 0 : m_endTimes[m_endTimes.length - 1];
+  }
+
+  public int getWaypointCount() {
+    return m_elevatorWaypoints.length;
+  }
+
+  public double getElevatorWaypointMeters(int index) {
+    return m_elevatorWaypoints[index];
+  }
+
+  public double getWristWaypointRadians(int index) {
+    return m_wristWaypoints[index];
+  }
+
+  /** Writes the state at the given time since the start into result, without allocating. */
+  public void sample(double timeSeconds, State result) {
+    int segment = 0;
+    while (segment < m_endTimes.length - 1 && timeSeconds >= m_endTimes[segment]) segment++;
+
+    if (m_endTimes.length == 0) {
+      result.elevatorPositionMeters = m_elevatorWaypoints[0];
+      result.elevatorVelocityMetersPerSecond = 0;
+      result.wristPositionRadians = m_wristWaypoints[0];
+      result.wristVelocityRadiansPerSecond = 0;
+      return;
+    }
+
+    // Past the end, the last segment holds its goal
+    double t = timeSeconds - (segment == 0 ? 0 : m_endTimes[segment - 1]);
+    var elevatorProfile = m_elevatorProfiles[segment];
+    var wristProfile = m_wristProfiles[segment];
+    elevatorProfile.calculate(t);
+    wristProfile.calculate(t);
+    result.elevatorPositionMeters = elevatorProfile.getPosition();
+    result.elevatorVelocityMetersPerSecond = elevatorProfile.getVelocity();
+    result.wristPositionRadians = wristProfile.getPosition();
+    result.wristVelocityRadiansPerSecond = wristProfile.getVelocity();
+  }
+}
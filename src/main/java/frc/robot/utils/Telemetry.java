@@ -0,0 +1,237 @@
+package frc.robot.utils;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registry for dashboard signals. Each signal is registered once with a typed publisher and a
+ * {@link RATE}, and {@link #periodic()} publishes every signal that is due in one pass at the end
+ * of the robot loop. This replaces calling SmartDashboard.putX() with string keys every loop.
+ *
+ * <p>Each subsystem owns a Telemetry instance for its signals and closes it with the subsystem.
+ */
+public class Telemetry implements AutoCloseable {
+  public enum RATE {
+    // Period in robot loops
+    HZ_50(1),
+    HZ_10(5),
+    HZ_1(50),
+    // Checked every loop, only published when the value changes
+    ON_CHANGE(1);
+
+    private final int periodLoops;
+
+    RATE(final int periodLoops) {
+      this.periodLoops = periodLoops;
+    }
+
+    public int getPeriodLoops() {
+      return periodLoops;
+    }
+  }
+
+  private abstract static class Signal {
+    private final RATE m_rate;
+
+    private Signal(RATE rate) {
+      m_rate = rate;
+    }
+
+    abstract void update(boolean onlyIfChanged);
+
+    abstract void close();
+  }
+
+  private static final class DoubleSignal extends Signal {
+    private final DoublePublisher m_publisher;
+    private final DoubleSupplier m_supplier;
+    private double m_lastValue = Double.NaN;
+
+    private DoubleSignal(DoublePublisher publisher, DoubleSupplier supplier, RATE rate) {
+      super(rate);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void update(boolean onlyIfChanged) {
+      double value = m_supplier.getAsDouble();
+      if (onlyIfChanged && Double.compare(value, m_lastValue) == 0) return;
+      m_lastValue = value;
+      m_publisher.set(value);
+    }
+
+    @Override
+    void close() {
+      m_publisher.close();
+    }
+  }
+
+  private static final class IntegerSignal extends Signal {
+    private final IntegerPublisher m_publisher;
+    private final LongSupplier m_supplier;
+    private long m_lastValue;
+    private boolean m_published;
+
+    private IntegerSignal(IntegerPublisher publisher, LongSupplier supplier, RATE rate) {
+      super(rate);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void update(boolean onlyIfChanged) {
+      long value = m_supplier.getAsLong();
+      if (onlyIfChanged && m_published && value == m_lastValue) return;
+      m_lastValue = value;
+      m_published = true;
+      m_publisher.set(value);
+    }
+
+    @Override
+    void close() {
+      m_publisher.close();
+    }
+  }
+
+  private static final class BooleanSignal extends Signal {
+    private final BooleanPublisher m_publisher;
+    private final BooleanSupplier m_supplier;
+    private boolean m_lastValue;
+    private boolean m_published;
+
+    private BooleanSignal(BooleanPublisher publisher, BooleanSupplier supplier, RATE rate) {
+      super(rate);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void update(boolean onlyIfChanged) {
+      boolean value = m_supplier.getAsBoolean();
+      if (onlyIfChanged && m_published && value == m_lastValue) return;
+      m_lastValue = value;
+      m_published = true;
+      m_publisher.set(value);
+    }
+
+    @Override
+    void close() {
+      m_publisher.close();
+    }
+  }
+
+  private static final class StringSignal extends Signal {
+    private final StringPublisher m_publisher;
+    private final Supplier<String> m_supplier;
+    private String m_lastValue;
+
+    private StringSignal(StringPublisher publisher, Supplier<String> supplier, RATE rate) {
+      super(rate);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void update(boolean onlyIfChanged) {
+      String value = m_supplier.get();
+      if (onlyIfChanged && value.equals(m_lastValue)) return;
+      m_lastValue = value;
+      m_publisher.set(value);
+    }
+
+    @Override
+    void close() {
+      m_publisher.close();
+    }
+  }
+
+  private static final ArrayList<Telemetry> m_instances = new ArrayList<>();
+  private static int m_loopCount;
+
+  private final NetworkTable m_table;
+  private final ArrayList<Signal> m_signals = new ArrayList<>();
+
+  /** Publishes signals to the given table. */
+  public Telemetry(NetworkTable table) {
+    m_table = table;
+    m_instances.add(this);
+  }
+
+  /** Publishes signals to the Shuffleboard/{tabName} table. */
+  public Telemetry(String tabName) {
+    this(NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable(tabName));
+  }
+
+  /** Returns the table used by SmartDashboard, for signals that have to keep their old keys. */
+  public static NetworkTable getSmartDashboardTable() {
+    return NetworkTableInstance.getDefault().getTable("SmartDashboard");
+  }
+
+  public void addDouble(String key, DoubleSupplier supplier, RATE rate) {
+    addDouble(m_table, key, supplier, rate);
+  }
+
+  public void addDouble(NetworkTable table, String key, DoubleSupplier supplier, RATE rate) {
+    m_signals.add(new DoubleSignal(table.getDoubleTopic(key).publish(), supplier, rate));
+  }
+
+  public void addInteger(String key, LongSupplier supplier, RATE rate) {
+    addInteger(m_table, key, supplier, rate);
+  }
+
+  public void addInteger(NetworkTable table, String key, LongSupplier supplier, RATE rate) {
+    m_signals.add(new IntegerSignal(table.getIntegerTopic(key).publish(), supplier, rate));
+  }
+
+  public void addBoolean(String key, BooleanSupplier supplier, RATE rate) {
+    addBoolean(m_table, key, supplier, rate);
+  }
+
+  public void addBoolean(NetworkTable table, String key, BooleanSupplier supplier, RATE rate) {
+    m_signals.add(new BooleanSignal(table.getBooleanTopic(key).publish(), supplier, rate));
+  }
+
+  /** The supplier should return a constant string (e.g. an enum name) to avoid allocating. */
+  public void addString(String key, Supplier<String> supplier, RATE rate) {
+    addString(m_table, key, supplier, rate);
+  }
+
+  public void addString(NetworkTable table, String key, Supplier<String> supplier, RATE rate) {
+    m_signals.add(new StringSignal(table.getStringTopic(key).publish(), supplier, rate));
+  }
+
+  /** Publishes every registered signal immediately, regardless of its rate. */
+  public void publishAll() {
+    for (var signal : m_signals) signal.update(false);
+  }
+
+  private void update(int loopCount) {
+    for (var signal : m_signals) {
+      if (loopCount % signal.m_rate.getPeriodLoops() == 0)
+        signal.update(signal.m_rate == RATE.ON_CHANGE);
+    }
+  }
+
+  /** Call once per robot loop to publish all signals that are due. */
+  public static void periodic() {
+    for (var instance : m_instances) instance.update(m_loopCount);
+    m_loopCount = (m_loopCount + 1) % RATE.HZ_1.getPeriodLoops();
+  }
+
+  @Override
+  public void close() {
+    m_instances.remove(this);
+    for (var signal : m_signals) signal.close();
+    m_signals.clear();
+  }
+}
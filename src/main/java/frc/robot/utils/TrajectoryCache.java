@@ -0,0 +1,267 @@
+package frc.robot.utils;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.PathPlannerTrajectory.StopEvent;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Reads PathPlanner paths that were precompiled at build time (./gradlew compileTrajectories)
+ * instead of parsing and generating them at boot, which takes seconds on the roboRIO.
+ *
+ * <p>Each path is compiled to pathplanner/compiled/&lt;name&gt;.traj with the states of every
+ * trajectory in the path group, for both alliances and each of {@link
+ * frc.robot.Constants.UTIL#kPrecompiledPathConstraints}. The files are memory-mapped and only the
+ * requested section is turned into {@link PathPlannerTrajectory}s, either on the first {@link
+ * #get} or ahead of time on a background thread with {@link #preload}. A compiled file that is
+ * missing, or whose CRC32 of the .path file doesn't match the current one, is ignored so the path
+ * is generated as before.
+ *
+ * <p>Event markers and stop events are not compiled, none of the autos use them.
+ */
+public final class TrajectoryCache {
+  private static final int kMagic = 0x54524a31; // "TRJ1"
+  private static final int kHeaderBytes = Integer.BYTES + Long.BYTES + Integer.BYTES;
+  private static final int kSectionBytes = 2 * Double.BYTES + 2 * Integer.BYTES;
+  // time, velocity, acceleration, x, y, heading, curvature, angular velocity, holonomic rotation,
+  // holonomic angular velocity
+  private static final int kStateDoubles = 10;
+  private static final Alliance[] kAlliances = {Alliance.Blue, Alliance.Red};
+
+  private static File m_directory;
+  private static final Map<String, Optional<ByteBuffer>> m_files = new ConcurrentHashMap<>();
+  private static final Map<String, CompletableFuture<List<PathPlannerTrajectory>>> m_trajectories =
+      new ConcurrentHashMap<>();
+  private static final ExecutorService m_loader =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "TrajectoryCache");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          });
+
+  private TrajectoryCache() {}
+
+  /**
+   * Returns a copy of the precompiled path group, or null if it wasn't precompiled with these
+   * constraints. Names starting with "Red" without their own .path file are read as the Red
+   * alliance's version of {@link TrajectoryUtils#getBluePathName}, like {@link
+   * TrajectoryUtils#readTrajectory}.
+   */
+  public static List<PathPlannerTrajectory> get(String pathName, PathConstraints constraints) {
+    var trajectories = load(pathName, constraints, false).join();
+    return trajectories == null ? null : new ArrayList<>(trajectories);
+  }
+
+  /**
+   * Starts turning the path group into trajectories on a background thread, so a later {@link
+   * #get} doesn't have to. Only call this while disabled, it competes with the robot loop.
+   */
+  public static CompletableFuture<List<PathPlannerTrajectory>> preload(
+      String pathName, PathConstraints constraints) {
+    return load(pathName, constraints, true);
+  }
+
+  /** Reads compiled paths from a directory other than the deploy directory, e.g. in tests. */
+  public static void setDirectory(File directory) {
+    m_directory = directory;
+    m_files.clear();
+    m_trajectories.clear();
+  }
+
+  private static CompletableFuture<List<PathPlannerTrajectory>> load(
+      String pathName, PathConstraints constraints, boolean async) {
+    var key = pathName + "|" + constraints.maxVelocity + "|" + constraints.maxAcceleration;
+    return m_trajectories.computeIfAbsent(
+        key,
+        k ->
+            async
+                ? CompletableFuture.supplyAsync(() -> read(pathName, constraints), m_loader)
+                : CompletableFuture.completedFuture(read(pathName, constraints)));
+  }
+
+  private static List<PathPlannerTrajectory> read(String pathName, PathConstraints constraints) {
+    var alliance = Alliance.Blue;
+    var buffer = map(pathName);
+    if (buffer.isEmpty() && pathName.startsWith("Red")) {
+      alliance = Alliance.Red;
+      buffer = map(TrajectoryUtils.getBluePathName(pathName));
+    }
+    if (buffer.isEmpty()) return null;
+
+    var data = buffer.get();
+    int sections = data.getInt(Integer.BYTES + Long.BYTES);
+    for (int i = 0; i < sections; i++) {
+      int index = kHeaderBytes + i * kSectionBytes;
+      if (data.getDouble(index) == constraints.maxVelocity
+          && data.getDouble(index + Double.BYTES) == constraints.maxAcceleration
+          && data.getInt(index + 2 * Double.BYTES) == alliance.ordinal()) {
+        try {
+          return readSection(data, data.getInt(index + 2 * Double.BYTES + Integer.BYTES));
+        } catch (IndexOutOfBoundsException e) {
+          DriverStation.reportWarning("TrajectoryCache: " + pathName + " is truncated", false);
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static List<PathPlannerTrajectory> readSection(ByteBuffer data, int index) {
+    int count = data.getInt(index);
+    index += Integer.BYTES;
+
+    var trajectories = new ArrayList<PathPlannerTrajectory>(count);
+    for (int i = 0; i < count; i++) {
+      int stateCount = data.getInt(index);
+      index += Integer.BYTES;
+
+      var states = new ArrayList<Trajectory.State>(stateCount);
+      for (int j = 0; j < stateCount; j++, index += kStateDoubles * Double.BYTES) {
+        var state = new PathPlannerState();
+        state.timeSeconds = data.getDouble(index);
+        state.velocityMetersPerSecond = data.getDouble(index + 8);
+        state.accelerationMetersPerSecondSq = data.getDouble(index + 16);
+        state.poseMeters =
+            new Pose2d(
+                data.getDouble(index + 24),
+                data.getDouble(index + 32),
+                new Rotation2d(data.getDouble(index + 40)));
+        state.curvatureRadPerMeter = data.getDouble(index + 48);
+        state.angularVelocityRadPerSec = data.getDouble(index + 56);
+        state.holonomicRotation = new Rotation2d(data.getDouble(index + 64));
+        state.holonomicAngularVelocityRadPerSec = data.getDouble(index + 72);
+        states.add(state);
+      }
+      trajectories.add(
+          new PathPlannerTrajectory(states, List.of(), new StopEvent(), new StopEvent(), true));
+    }
+    return trajectories;
+  }
+
+  // Maps the compiled file if it was compiled from the current .path file
+  private static Optional<ByteBuffer> map(String pathName) {
+    return m_files.computeIfAbsent(
+        pathName,
+        name -> {
+          var compiled = new File(getDirectory(), name + ".traj");
+          var source = getSource(name);
+          if (!compiled.exists() || !source.exists()) return Optional.empty();
+
+          try (var channel = FileChannel.open(compiled.toPath(), StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != kMagic || buffer.getLong(Integer.BYTES) != checksum(source)) {
+              DriverStation.reportWarning(
+                  "TrajectoryCache: " + compiled.getName() + " is out of date", false);
+              return Optional.empty();
+            }
+            return Optional.of(buffer);
+          } catch (IOException e) {
+            DriverStation.reportWarning("TrajectoryCache: failed to read " + compiled, false);
+            return Optional.empty();
+          }
+        });
+  }
+
+  /**
+   * Compiles one path with every constraint in the list, for both alliances. Generates the paths
+   * the same way as {@link TrajectoryUtils#readTrajectory(String, PathConstraints)}.
+   */
+  public static void compile(String pathName, double[][] constraints, File directory)
+      throws IOException {
+    var sections = new ArrayList<List<PathPlannerTrajectory>>();
+    for (var constraint : constraints) {
+      var pathConstraints = new PathConstraints(constraint[0], constraint[1]);
+      var blue = PathPlanner.loadPathGroup(pathName, pathConstraints, pathConstraints);
+      var red = new ArrayList<PathPlannerTrajectory>();
+      for (var trajectory : blue) {
+        red.add(PathPlannerTrajectory.transformTrajectoryForAlliance(trajectory, Alliance.Red));
+      }
+      sections.add(blue);
+      sections.add(red);
+    }
+
+    var file = new File(directory, pathName + ".traj");
+    try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(kMagic);
+      out.writeLong(checksum(getSource(pathName)));
+      out.writeInt(sections.size());
+
+      int index = kHeaderBytes + sections.size() * kSectionBytes;
+      for (int i = 0; i < sections.size(); i++) {
+        var constraint = constraints[i / kAlliances.length];
+        out.writeDouble(constraint[0]);
+        out.writeDouble(constraint[1]);
+        out.writeInt(kAlliances[i % kAlliances.length].ordinal());
+        out.writeInt(index);
+        index += Integer.BYTES;
+        for (var trajectory : sections.get(i)) {
+          index += Integer.BYTES + trajectory.getStates().size() * kStateDoubles * Double.BYTES;
+        }
+      }
+
+      for (var section : sections) {
+        out.writeInt(section.size());
+        for (var trajectory : section) {
+          out.writeInt(trajectory.getStates().size());
+          for (var s : trajectory.getStates()) {
+            var state = (PathPlannerState) s;
+            out.writeDouble(state.timeSeconds);
+            out.writeDouble(state.velocityMetersPerSecond);
+            out.writeDouble(state.accelerationMetersPerSecondSq);
+            out.writeDouble(state.poseMeters.getX());
+            out.writeDouble(state.poseMeters.getY());
+            out.writeDouble(state.poseMeters.getRotation().getRadians());
+            out.writeDouble(state.curvatureRadPerMeter);
+            out.writeDouble(state.angularVelocityRadPerSec);
+            out.writeDouble(state.holonomicRotation.getRadians());
+            out.writeDouble(state.holonomicAngularVelocityRadPerSec);
+          }
+        }
+      }
+    }
+  }
+
+  private static File getDirectory() {
+    if (m_directory == null) {
+      m_directory = new File(Filesystem.getDeployDirectory(), "pathplanner/compiled");
+    }
+    return m_directory;
+  }
+
+  private static File getSource(String pathName) {
+    return new File(Filesystem.getDeployDirectory(), "pathplanner/" + pathName + ".path");
+  }
+
+  private static long checksum(File file) throws IOException {
+    var crc = new CRC32();
+    crc.update(Files.readAllBytes(file.toPath()));
+    return crc.getValue();
+  }
+}
@@ -34,12 +34,19 @@ public class TrajectoryUtils {
       }
     }
 
+    if (segmentConstraints.length == 1
+        && segmentConstraints[0].maxVelocity == pathConstraint.maxVelocity
+        && segmentConstraints[0].maxAcceleration == pathConstraint.maxAcceleration) {
+      var precompiled = TrajectoryCache.get(fileName, pathConstraint);
+      if (precompiled != null) return precompiled;
+    }
+
     if (fileName.startsWith("Red")) {
       var file = new File(Filesystem.getDeployDirectory(), "pathplanner/" + fileName + ".path");
       if (!file.exists()) {
         DriverStation.reportWarning(
             "TrajectoryUtils::readTrajectory failed for " + fileName, false);
-        fileName = fileName.replace("Red", "Blue");
+        fileName = getBluePathName(fileName);
 
         var pathGroup = PathPlanner.loadPathGroup(fileName, pathConstraint, segmentConstraints);
 
@@ -64,6 +71,11 @@ public class TrajectoryUtils {
     }
   }
 
+  /** Name of the Blue path a "Red" path without its own .path file is flipped from. */
+  public static String getBluePathName(String pathName) {
+    return pathName.replace("Red", "Blue");
+  }
+
   public static List<PPSwerveControllerCommand> generatePPSwerveControllerCommand(
       SwerveDrive swerveDrive, String pathName, PathConstraints constraints) {
     var trajectories = readTrajectory(pathName, constraints);
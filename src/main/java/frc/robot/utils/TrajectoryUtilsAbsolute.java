@@ -40,7 +40,7 @@ public class TrajectoryUtilsAbsolute {
       if (!file.exists()) {
         DriverStation.reportWarning(
             "TrajectoryUtils::readTrajectory failed for " + fileName, false);
-        fileName = fileName.replace("Red", "Blue");
+        fileName = TrajectoryUtils.getBluePathName(fileName);
 
         file = new File(Filesystem.getDeployDirectory(), "pathplanner/" + fileName + ".path");
         if (!file.exists()) {
@@ -0,0 +1,163 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants.VISION.CAMERA_SERVER;
+
+/**
+ * Immutable snapshot of everything one camera published to NetworkTables, sampled once per robot
+ * loop by {@link frc.robot.subsystems.Vision}. Reading a frame instead of the NetworkTables entries
+ * directly guarantees every consumer sees the same data within a loop.
+ *
+ * <p>The arrays returned by the getters are shared with the frame and must not be modified.
+ */
+public final class VisionFrame {
+  private static final double[] kEmptyArray = new double[0];
+  private static final double[] kDefaultBotPose = {0, 0, 0, 0, 0, 0, 0};
+
+  private final CAMERA_SERVER m_camera;
+  private final double m_validTargetType;
+  private final double m_tx;
+  private final double m_ty;
+  private final double m_ta;
+  private final double m_latency;
+  private final double m_pipeline;
+  private final double m_timestamp;
+  private final double[] m_botPose;
+  private final double[] m_tagIds;
+  private final double[] m_robotPosesX;
+  private final double[] m_robotPosesY;
+  private final double[] m_robotPosesYaw;
+  private final double[] m_tagPosesX;
+  private final double[] m_tagPosesY;
+  private final Pose2d m_robotPose2d;
+
+  public VisionFrame(
+      CAMERA_SERVER camera,
+      double validTargetType,
+      double tx,
+      double ty,
+      double ta,
+      double latency,
+      double pipeline,
+      double timestamp,
+      double[] botPose,
+      double[] tagIds,
+      double[] robotPosesX,
+      double[] robotPosesY,
+      double[] robotPosesYaw,
+      double[] tagPosesX,
+      double[] tagPosesY) {
+    m_camera = camera;
+    m_validTargetType = validTargetType;
+    m_tx = tx;
+    m_ty = ty;
+    m_ta = ta;
+    m_latency = latency;
+    m_pipeline = pipeline;
+    m_timestamp = timestamp;
+    m_botPose = botPose.length >= 6 ? botPose : kDefaultBotPose;
+    m_tagIds = tagIds;
+    m_robotPosesX = robotPosesX;
+    m_robotPosesY = robotPosesY;
+    m_robotPosesYaw = robotPosesYaw;
+    m_tagPosesX = tagPosesX;
+    m_tagPosesY = tagPosesY;
+    m_robotPose2d = new Pose2d(m_botPose[0], m_botPose[1], Rotation2d.fromDegrees(m_botPose[5]));
+  }
+
+  /** Returns an empty frame for a camera that hasn't published anything yet. */
+  public static VisionFrame empty(CAMERA_SERVER camera) {
+    return new VisionFrame(
+        camera,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        kDefaultBotPose,
+        kEmptyArray,
+        kEmptyArray,
+        kEmptyArray,
+        kEmptyArray,
+        kEmptyArray,
+        kEmptyArray);
+  }
+
+  public CAMERA_SERVER getCamera() {
+    return m_camera;
+  }
+
+  /** Whether the camera has any valid targets */
+  public boolean hasTarget() {
+    return m_validTargetType > 0;
+  }
+
+  /** Raw "tv" value */
+  public double getValidTargetType() {
+    return m_validTargetType;
+  }
+
+  /** Horizontal offset from crosshair to target (degrees, CCW positive) */
+  public double getTargetXAngle() {
+    return -m_tx;
+  }
+
+  /** Vertical offset from crosshair to target (degrees) */
+  public double getTargetYAngle() {
+    return m_ty;
+  }
+
+  /** Target area (0% of image to 100% of image) */
+  public double getTargetArea() {
+    return m_ta;
+  }
+
+  /** The pipeline's latency contribution (ms) */
+  public double getCameraLatency() {
+    return m_latency;
+  }
+
+  public double getPipeline() {
+    return m_pipeline;
+  }
+
+  /** Timestamp of the detection results */
+  public double getDetectionTimestamp() {
+    return m_timestamp;
+  }
+
+  public double[] getBotPose() {
+    return m_botPose;
+  }
+
+  public Pose2d getRobotPose2d() {
+    return m_robotPose2d;
+  }
+
+  public double[] getTagIds() {
+    return m_tagIds;
+  }
+
+  public double[] getRobotPosesX() {
+    return m_robotPosesX;
+  }
+
+  public double[] getRobotPosesY() {
+    return m_robotPosesY;
+  }
+
+  public double[] getRobotPosesYaw() {
+    return m_robotPosesYaw;
+  }
+
+  public double[] getTagPosesX() {
+    return m_tagPosesX;
+  }
+
+  public double[] getTagPosesY() {
+    return m_tagPosesY;
+  }
+}
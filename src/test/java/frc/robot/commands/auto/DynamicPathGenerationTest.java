@@ -0,0 +1,58 @@
+package frc.robot.commands.auto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.Constants.SCORING_STATE;
+import frc.robot.simulation.SimConstants;
+import org.junit.jupiter.api.Test;
+
+public class DynamicPathGenerationTest {
+  static final double DELTA = 1e-6;
+
+  @Test
+  public void TestStraightPathHasNoWaypoints() {
+    // Alongside the cable bump, below the charging station
+    var start = new Translation2d(3.0, 0.6);
+    var waypoints = DynamicPathGeneration.planWaypoints(start, new Translation2d(1.9, 0.5));
+    assertTrue(waypoints.isEmpty());
+  }
+
+  @Test
+  public void TestGoesAroundChargingStation() {
+    double stationCenterY =
+        (SimConstants.Community.chargingStationLeftY + SimConstants.Community.chargingStationRightY)
+            / 2;
+    // Behind the charging station, closer to its left side
+    var start = new Translation2d(7.0, stationCenterY + 0.8);
+    var goal = new Translation2d(1.9, stationCenterY + 0.8);
+    var waypoints = DynamicPathGeneration.planWaypoints(start, goal);
+
+    assertEquals(2, waypoints.size());
+    // The shorter way is around the left side, and no waypoint is on the charging station
+    for (var waypoint : waypoints) {
+      assertTrue(waypoint.getY() > SimConstants.Community.chargingStationLeftY);
+    }
+  }
+
+  @Test
+  public void TestScoringPoseFacesGrid() {
+    var bluePose =
+        DynamicPathGeneration.getScoringPose(
+            new Pose2d(SimConstants.Grids.highX, 1.0, new Rotation2d()),
+            SCORING_STATE.HIGH_CONE);
+    assertEquals(1.0, bluePose.getY(), DELTA);
+    assertTrue(bluePose.getX() > SimConstants.Grids.outerX);
+    assertEquals(180, Math.abs(bluePose.getRotation().getDegrees()), DELTA);
+
+    var redPose =
+        DynamicPathGeneration.getScoringPose(
+            new Pose2d(SimConstants.fieldLength - SimConstants.Grids.highX, 1.0, new Rotation2d()),
+            SCORING_STATE.HIGH_CONE);
+    assertEquals(SimConstants.fieldLength - bluePose.getX(), redPose.getX(), DELTA);
+    assertEquals(0, redPose.getRotation().getDegrees(), DELTA);
+  }
+}
@@ -0,0 +1,97 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.UTIL;
+import frc.robot.RobotContainer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class AutoRunnerTest {
+  // Autos in the chooser that don't score a game piece
+  static final Set<String> kNonScoringAutos = Set.of("Do Nothing", "DriveForward", "TestSimAuto");
+
+  @BeforeEach
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+  }
+
+  @Test
+  public void TestDoNothing() throws Exception {
+    var result = AutoRunner.run("Do Nothing", AllianceStationID.Blue1);
+    assertTrue(result.finished);
+    assertEquals(0, result.simTimeSeconds, 1e-6);
+    assertEquals(0, result.scoredPieces.size());
+  }
+
+  @Test
+  public void TestDriveForwardStepsTheClock() throws Exception {
+    var result = AutoRunner.run("DriveForward", AllianceStationID.Blue1);
+    assertTrue(result.finished, result.toString());
+    assertTrue(result.simTimeSeconds > UTIL.kAutoRunnerDtSeconds, result.toString());
+    assertTrue(result.simTimeSeconds < UTIL.kAutoRunnerTimeoutSeconds, result.toString());
+    // Sim time only moves in whole steps, however fast the host runs the loop
+    double steps = result.simTimeSeconds / UTIL.kAutoRunnerDtSeconds;
+    assertEquals(Math.round(steps), steps, 1e-6, result.toString());
+  }
+
+  // Every auto in the chooser, from one station of each alliance
+  static List<Arguments> chooserAutos() throws Exception {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+    var autos = new ArrayList<Arguments>();
+    try (var robotContainer = new RobotContainer()) {
+      for (var autoName : robotContainer.getAutoNames()) {
+        autos.add(Arguments.of(autoName, AllianceStationID.Blue1));
+        autos.add(Arguments.of(autoName, AllianceStationID.Red1));
+      }
+    }
+    return autos;
+  }
+
+  @ParameterizedTest(name = "{0} {1}")
+  @MethodSource("chooserAutos")
+  public void TestChooserAutoFinishes(String autoName, AllianceStationID station) throws Exception {
+    var result = AutoRunner.run(autoName, station);
+    assertTrue(result.finished, result.toString());
+    if (!kNonScoringAutos.contains(autoName))
+      assertFalse(result.scoredPieces.isEmpty(), result.toString());
+  }
+
+  @Test
+  public void TestUnperturbedTruePoseMatchesOdometry() throws Exception {
+    var result = AutoRunner.run("DriveForward", AllianceStationID.Blue1);
+    assertEquals(
+        0,
+        result.truePose.getTranslation().getDistance(result.finalPose.getTranslation()),
+        0.01,
+        result.toString());
+  }
+
+  @Test
+  public void TestPerturbationIsRepeatable() {
+    var first = AutoRunner.Perturbation.random(new Random(4201));
+    var second = AutoRunner.Perturbation.random(new Random(4201));
+    assertEquals(first.startPoseError, second.startPoseError);
+    assertEquals(first.wheelSlip, second.wheelSlip);
+    assertEquals(first.waitScale, second.waitScale);
+    assertTrue(first.wheelSlip >= 0 && first.wheelSlip <= UTIL.kEvalMaxWheelSlip);
+  }
+
+  @Test
+  public void TestUnknownAuto() {
+    assertThrows(
+        IllegalArgumentException.class, () -> AutoRunner.run("NotAnAuto", AllianceStationID.Red1));
+  }
+}
@@ -1,6 +1,5 @@
 package frc.robot.simulation;
 
-import static frc.robot.utils.ChargedUpNodeMask.updateNodeMask;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -12,6 +11,7 @@ import frc.robot.Constants.SCORING_STATE;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.Controls;
 import frc.robot.subsystems.SwerveDrive;
+import frc.robot.utils.ChargedUpNodeMask;
 import org.junit.jupiter.api.*;
 import utils.TestUtils;
 
@@ -20,6 +20,7 @@ public class FieldSimTest {
   protected SwerveDrive m_swerveDrive;
   protected Controls m_controls;
   protected FieldSim m_fieldSim;
+  protected ChargedUpNodeMask m_nodeMask;
 
   @BeforeEach
   // this method will run before each test
@@ -29,6 +30,7 @@ public class FieldSimTest {
     m_swerveDrive = m_robotContainer.getSwerveDrive();
     m_controls = m_robotContainer.getControls();
     m_fieldSim = m_robotContainer.getFieldSim();
+    m_nodeMask = m_robotContainer.getStateHandler().getNodeMask();
   }
 
   @SuppressWarnings("PMD.SignatureDeclareThrowsException")
@@ -43,17 +45,17 @@ public class FieldSimTest {
     TestUtils.setPrivateField(m_controls, "allianceColor", DriverStation.Alliance.Red);
     m_swerveDrive.setOdometry(new Pose2d(SimConstants.fieldLength, 0, Rotation2d.fromDegrees(0)));
 
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
     assertEquals(m_fieldSim.getValidNodes().size(), 9);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() > SimConstants.fieldLength / 2);
     }
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
     assertEquals(m_fieldSim.getValidNodes().size(), 6);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() > SimConstants.fieldLength / 2);
     }
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
     assertEquals(m_fieldSim.getValidNodes().size(), 3);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() > SimConstants.fieldLength / 2);
@@ -65,17 +67,17 @@ public class FieldSimTest {
     TestUtils.setPrivateField(m_controls, "allianceColor", DriverStation.Alliance.Red);
     m_swerveDrive.setOdometry(new Pose2d(0, 0, Rotation2d.fromDegrees(0)));
 
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
     assertEquals(m_fieldSim.getValidNodes().size(), 3);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() < SimConstants.fieldLength / 2);
     }
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
     assertEquals(m_fieldSim.getValidNodes().size(), 2);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() < SimConstants.fieldLength / 2);
     }
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
     assertEquals(m_fieldSim.getValidNodes().size(), 1);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() < SimConstants.fieldLength / 2);
@@ -87,19 +89,19 @@ public class FieldSimTest {
     TestUtils.setPrivateField(m_controls, "allianceColor", DriverStation.Alliance.Blue);
     m_swerveDrive.setOdometry(new Pose2d(0, 0, Rotation2d.fromDegrees(0)));
 
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
     assertEquals(m_fieldSim.getValidNodes().size(), 9);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() < SimConstants.fieldLength / 2);
     }
 
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
     assertEquals(m_fieldSim.getValidNodes().size(), 6);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() < SimConstants.fieldLength / 2);
     }
 
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
     assertEquals(m_fieldSim.getValidNodes().size(), 3);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() < SimConstants.fieldLength / 2);
@@ -111,17 +113,17 @@ public class FieldSimTest {
     TestUtils.setPrivateField(m_controls, "allianceColor", DriverStation.Alliance.Blue);
     m_swerveDrive.setOdometry(new Pose2d(SimConstants.fieldLength, 0, Rotation2d.fromDegrees(0)));
 
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.LOW);
     assertEquals(m_fieldSim.getValidNodes().size(), 3);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() > SimConstants.fieldLength / 2);
     }
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CONE);
     assertEquals(m_fieldSim.getValidNodes().size(), 2);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() > SimConstants.fieldLength / 2);
     }
-    updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
+    m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), SCORING_STATE.MID_CUBE);
     assertEquals(m_fieldSim.getValidNodes().size(), 1);
     for (var node : m_fieldSim.getValidNodes()) {
       assertTrue(node.getX() > SimConstants.fieldLength / 2);
@@ -1,6 +1,5 @@
 package frc.robot.simulation;
 
-import static frc.robot.utils.ChargedUpNodeMask.updateNodeMask;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.wpi.first.hal.HAL;
@@ -8,6 +7,7 @@ import edu.wpi.first.wpilibj.Timer;
 import frc.robot.Constants.SCORING_STATE;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.SwerveDrive;
+import frc.robot.utils.ChargedUpNodeMask;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -18,6 +18,7 @@ public class NodeFilteringTest {
   protected RobotContainer m_robotContainer;
   protected SwerveDrive m_swerveDrive;
   protected FieldSim m_fieldSim;
+  protected ChargedUpNodeMask m_nodeMask;
 
   @BeforeEach
   // this method will run before each test
@@ -26,6 +27,7 @@ public class NodeFilteringTest {
     m_robotContainer = new RobotContainer();
     m_swerveDrive = m_robotContainer.getSwerveDrive();
     m_fieldSim = m_robotContainer.getFieldSim();
+    m_nodeMask = m_robotContainer.getStateHandler().getNodeMask();
   }
 
   @SuppressWarnings("PMD.SignatureDeclareThrowsException")
@@ -54,7 +56,7 @@ public class NodeFilteringTest {
       m_timer.reset();
       m_timer.start();
       double m_timestamp = m_timer.get();
-      updateNodeMask(m_swerveDrive.getPoseMeters(), states[i]);
+      m_nodeMask.updateNodeMask(m_swerveDrive.getPoseMeters(), states[i]);
       durations[i] = m_timer.get() - m_timestamp;
       totalTime += durations[i];
     }
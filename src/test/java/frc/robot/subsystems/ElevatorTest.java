@@ -0,0 +1,68 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.CommandTestBase;
+import frc.robot.RobotContainer;
+import frc.robot.utils.SensorCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ElevatorTest extends CommandTestBase {
+  static final double DT = 0.02;
+
+  protected RobotContainer m_robotContainer;
+  protected Elevator m_elevator;
+
+  @BeforeEach
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+    SimHooks.pauseTiming();
+    m_robotContainer = new RobotContainer();
+    m_elevator = m_robotContainer.getElevator();
+    // Nothing else commands the elevator
+    m_robotContainer.getStateHandler().disable();
+  }
+
+  @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+  @AfterEach
+  void shutdown() throws Exception {
+    m_robotContainer.close();
+    SimHooks.resumeTiming();
+  }
+
+  @Test
+  public void TestSimulationWithoutTelemetry() {
+    // Only sensor sampling and the scheduler run, Telemetry.periodic() never publishes anything
+    SensorCache.sampleAll();
+    m_elevator.setDesiredPositionMeters(0.5);
+    for (int i = 0; i < 150; i++) {
+      CommandScheduler.getInstance().run();
+      SimHooks.stepTiming(DT);
+      SensorCache.sampleAll();
+    }
+    assertEquals(0.5, m_elevator.getHeightMeters(), 0.02);
+  }
+
+  @Test
+  public void TestTimeToGoalIsOnlyRead() {
+    SensorCache.sampleAll();
+    m_elevator.setDesiredPositionMeters(0.5);
+    // Known as soon as the goal is set, and asking again doesn't restart the profile
+    double timeToGoal = m_elevator.getTimeToGoalSeconds();
+    assertTrue(timeToGoal > 0);
+    // The profile is first stepped by 0 s, the clock only moves after each loop
+    for (int i = 0; i < 10; i++) {
+      CommandScheduler.getInstance().run();
+      SimHooks.stepTiming(DT);
+      SensorCache.sampleAll();
+      assertEquals(timeToGoal - i * DT, m_elevator.getTimeToGoalSeconds(), 1e-6);
+      assertEquals(m_elevator.getTimeToGoalSeconds(), m_elevator.getTimeToGoalSeconds());
+    }
+  }
+}
@@ -12,6 +12,8 @@ import frc.robot.Constants.STATE_HANDLER.SETPOINT;
 import frc.robot.RobotContainer;
 import frc.robot.commands.intake.SetIntakeState;
 import frc.robot.commands.statehandler.SetSetpoint;
+import frc.robot.subsystems.io.IntakeIOSim;
+import frc.robot.utils.SensorCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -58,6 +60,7 @@ public class IntakeTest extends CommandTestBase {
 
     // Go To intake position
     do {
+      SensorCache.sampleAll();
       CommandScheduler.getInstance().run();
     } while (!(Math.abs(
                 m_elevator.getHeightMeters()
@@ -71,11 +74,13 @@ public class IntakeTest extends CommandTestBase {
     m_timer.reset();
     m_timer.start();
     while (m_timer.get() < 1) {
+      SensorCache.sampleAll();
       CommandScheduler.getInstance().run();
       assertSame(m_stateHandler.getDesiredSetpoint(), SETPOINT.INTAKING_LOW_CUBE);
       assertSame(m_intake.getIntakeState(), INTAKE_STATE.INTAKING_CUBE);
     }
-    m_intake.getIntakeMotor().getSimCollection().setIntegratedSensorVelocity(0);
+    ((IntakeIOSim) m_intake.getIO()).setStalled(true);
+    SensorCache.sampleAll();
     CommandScheduler.getInstance().run();
 
     assertSame(m_stateHandler.getDesiredSetpoint(), SETPOINT.STOWED);
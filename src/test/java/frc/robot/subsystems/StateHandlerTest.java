@@ -0,0 +1,199 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.CommandTestBase;
+import frc.robot.Constants.ELEVATOR;
+import frc.robot.Constants.STATE_HANDLER;
+import frc.robot.Constants.STATE_HANDLER.SETPOINT;
+import frc.robot.Constants.STATE_HANDLER.ZONE;
+import frc.robot.RobotContainer;
+import frc.robot.utils.LoopRecord;
+import frc.robot.utils.SensorCache;
+import frc.robot.utils.SuperstructurePlanner;
+import frc.robot.utils.SuperstructurePlannerTest;
+import frc.robot.utils.SuperstructureTrajectory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StateHandlerTest extends CommandTestBase {
+  static final double DT = 0.02;
+  // How far the simulated mechanisms may trail their setpoints
+  static final double kElevatorTrackingMeters = Units.inchesToMeters(1);
+  static final double kWristTrackingRadians = Units.degreesToRadians(3);
+  // Replayed moves are slowed down so most loops stay within one change detection bucket
+  static final double kSweepStepSeconds = 0.0005;
+
+  protected RobotContainer m_robotContainer;
+  protected StateHandler m_stateHandler;
+
+  @BeforeEach
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+    SimHooks.pauseTiming();
+    m_robotContainer = new RobotContainer();
+    m_stateHandler = m_robotContainer.getStateHandler();
+  }
+
+  @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+  @AfterEach
+  void shutdown() throws Exception {
+    m_robotContainer.close();
+    SimHooks.resumeTiming();
+  }
+
+  private void runLoops(int loops) {
+    for (int i = 0; i < loops; i++) {
+      SensorCache.sampleAll();
+      CommandScheduler.getInstance().run();
+      SimHooks.stepTiming(DT);
+    }
+  }
+
+  // Runs a transition and checks the measured positions, not the plan, stay out of the keep-out
+  // areas on the way
+  private void assertTransitionIsAllowed(SETPOINT start, SETPOINT goal) {
+    var elevator = m_robotContainer.getElevator();
+    var wrist = m_robotContainer.getWrist();
+    m_stateHandler.setDesiredSetpoint(goal);
+    int loops = (int) Math.ceil((m_stateHandler.getTransitionTimeSeconds(start, goal) + 1) / DT);
+    for (int i = 0; i < loops; i++) {
+      runLoops(1);
+      assertTrue(
+          SuperstructurePlannerTest.isAllowed(
+              elevator.getHeightMeters(),
+              wrist.getPositionRadians(),
+              kElevatorTrackingMeters,
+              kWristTrackingRadians),
+          start + " -> " + goal + " at " + i * DT);
+    }
+    assertEquals(
+        goal.getElevatorSetpointMeters(), elevator.getHeightMeters(), kElevatorTrackingMeters);
+    assertEquals(
+        SuperstructurePlanner.getWristGoalRadians(goal),
+        wrist.getPositionRadians(),
+        kWristTrackingRadians);
+  }
+
+  @Test
+  public void TestSteadyStateSkipsLoops() {
+    // Let the mechanisms settle at stowed
+    runLoops(250);
+    assertTrue(m_stateHandler.getSkipRate() > 0);
+  }
+
+  @Test
+  public void TestSetpointChangeIsEvaluated() {
+    runLoops(250);
+    var setpoint = SETPOINT.SCORE_HIGH_CONE;
+    m_stateHandler.setDesiredSetpoint(setpoint);
+    runLoops(1);
+    assertEquals(
+        m_stateHandler.determineSuperStructureState(
+            setpoint.getElevatorSetpointMeters(), setpoint.getWristSetpointRadians()),
+        m_stateHandler.getDesiredState());
+  }
+
+  // Replaces the container with one that reads the mechanism positions from the record
+  private void useReplay(LoopRecord record) throws Exception {
+    m_robotContainer.close();
+    m_robotContainer = new RobotContainer(record);
+    m_stateHandler = m_robotContainer.getStateHandler();
+  }
+
+  // Replays scripted mechanism positions through two setpoint moves and returns what the zone
+  // logic decided on every loop
+  private List<String> replaySetpointMoves(boolean changeDetection) throws Exception {
+    var record = new LoopRecord();
+    record.elevatorPositionMeters = SETPOINT.STOWED.getElevatorSetpointMeters();
+    record.wristPositionRadians = SuperstructurePlanner.getWristGoalRadians(SETPOINT.STOWED);
+    useReplay(record);
+    m_stateHandler.setChangeDetectionEnabled(changeDetection);
+
+    var planner = new SuperstructurePlanner();
+    var state = new SuperstructureTrajectory.State();
+    var decisions = new ArrayList<String>();
+    SETPOINT[][] moves = {
+      {SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CONE},
+      {SETPOINT.SCORE_HIGH_CONE, SETPOINT.STOWED}
+    };
+    for (var move : moves) {
+      m_stateHandler.setDesiredSetpoint(move[1]);
+      var trajectory = planner.getTrajectory(move[0], move[1]);
+      int loops = (int) Math.ceil(trajectory.getTotalTimeSeconds() / kSweepStepSeconds) + 50;
+      for (int i = 0; i <= loops; i++) {
+        trajectory.sample(i * kSweepStepSeconds, state);
+        record.elevatorPositionMeters = state.elevatorPositionMeters;
+        record.wristPositionRadians = state.wristPositionRadians;
+        runLoops(1);
+        decisions.add(
+            m_stateHandler.getCurrentState()
+                + " "
+                + m_stateHandler.getCurrentZone()
+                + " "
+                + m_stateHandler.getDesiredState()
+                + " "
+                + m_stateHandler.getElevatorLowerLimitMeters()
+                + " "
+                + m_stateHandler.getElevatorUpperLimitMeters()
+                + " "
+                + m_stateHandler.getWristLowerLimitRadians()
+                + " "
+                + m_stateHandler.getWristUpperLimitRadians()
+                + " "
+                + m_robotContainer.getElevator().getDesiredPositionMeters()
+                + " "
+                + m_robotContainer.getWrist().getDesiredPositionRadians());
+      }
+    }
+    return decisions;
+  }
+
+  @Test
+  public void TestChangeDetectionMatchesEvaluatingEveryLoop() throws Exception {
+    var everyLoop = replaySetpointMoves(false);
+    var onChange = replaySetpointMoves(true);
+    assertTrue(m_stateHandler.getSkipRate() > 0);
+    assertEquals(everyLoop.size(), onChange.size());
+    for (int i = 0; i < everyLoop.size(); i++) {
+      assertEquals(everyLoop.get(i), onChange.get(i), "loop " + i);
+    }
+  }
+
+  @Test
+  public void TestThresholdCrossedWithinOneBucket() throws Exception {
+    double tolerance = STATE_HANDLER.elevatorChangeToleranceMeters;
+    double below = ELEVATOR.THRESHOLD.BETA_MIN.get() - tolerance / 10;
+    double above = ELEVATOR.THRESHOLD.BETA_MIN.get() + tolerance / 10;
+    assertEquals(Math.round(below / tolerance), Math.round(above / tolerance));
+
+    var record = new LoopRecord();
+    record.elevatorPositionMeters = below;
+    // Within both the alpha and beta wrist limits
+    record.wristPositionRadians = Units.degreesToRadians(60);
+    useReplay(record);
+    runLoops(5);
+    assertEquals(ZONE.ALPHA, m_stateHandler.getCurrentState().getZone());
+
+    // Seen on the loop it happens, not only once the elevator leaves the bucket
+    record.elevatorPositionMeters = above;
+    runLoops(1);
+    assertEquals(ZONE.BETA, m_stateHandler.getCurrentState().getZone());
+  }
+
+  @Test
+  public void TestTransitionMeasuredPositionsRespectZoneLimits() {
+    runLoops(50);
+    assertTransitionIsAllowed(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CONE);
+    assertTransitionIsAllowed(SETPOINT.SCORE_HIGH_CONE, SETPOINT.INTAKING_LOW_CUBE);
+    assertTransitionIsAllowed(SETPOINT.INTAKING_LOW_CUBE, SETPOINT.STOWED);
+  }
+}
@@ -14,6 +14,7 @@ import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.robot.CommandTestBase;
 import frc.robot.RobotContainer;
 import frc.robot.simulation.SimConstants;
+import frc.robot.utils.SensorCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -86,6 +87,7 @@ public class SwerveDriveTest extends CommandTestBase {
     joystick.notifyNewData();
 
     for (int i = 0; i < 10; i++) {
+      SensorCache.sampleAll();
       CommandScheduler.getInstance().run();
       Timer.delay(0.02);
     }
@@ -98,6 +100,7 @@ public class SwerveDriveTest extends CommandTestBase {
     joystick.notifyNewData();
 
     for (int i = 0; i < 10; i++) {
+      SensorCache.sampleAll();
       CommandScheduler.getInstance().run();
       Timer.delay(0.02);
     }
@@ -123,6 +126,7 @@ public class SwerveDriveTest extends CommandTestBase {
     joystick.notifyNewData();
 
     for (int i = 0; i < 10; i++) {
+      SensorCache.sampleAll();
       CommandScheduler.getInstance().run();
       Timer.delay(0.02);
     }
@@ -137,6 +141,7 @@ public class SwerveDriveTest extends CommandTestBase {
     joystick.notifyNewData();
 
     for (int i = 0; i < 10; i++) {
+      SensorCache.sampleAll();
       CommandScheduler.getInstance().run();
       Timer.delay(0.02);
     }
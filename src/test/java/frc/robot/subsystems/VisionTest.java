@@ -0,0 +1,84 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.hal.HALUtil;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.CommandTestBase;
+import frc.robot.RobotContainer;
+import frc.robot.utils.SensorCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class VisionTest extends CommandTestBase {
+  protected RobotContainer m_robotContainer;
+  protected Vision m_vision;
+
+  private DoubleArrayPublisher m_botPose, m_tid, m_tagPoseX, m_tagPoseY;
+
+  @BeforeEach
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+    SimHooks.pauseTiming();
+    m_robotContainer = new RobotContainer();
+    m_vision = m_robotContainer.getVision();
+
+    var table = NetworkTableInstance.getDefault().getTable("lLocalizer");
+    m_botPose = table.getDoubleArrayTopic("botpose").publish();
+    m_tid = table.getDoubleArrayTopic("tid").publish();
+    m_tagPoseX = table.getDoubleArrayTopic("Tag Pose X").publish();
+    m_tagPoseY = table.getDoubleArrayTopic("Tag Pose Y").publish();
+  }
+
+  @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+  @AfterEach
+  void shutdown() throws Exception {
+    m_botPose.close();
+    m_tid.close();
+    m_tagPoseX.close();
+    m_tagPoseY.close();
+    m_robotContainer.close();
+    SimHooks.resumeTiming();
+  }
+
+  private void runLoop() {
+    SensorCache.sampleAll();
+    CommandScheduler.getInstance().run();
+  }
+
+  // Publishes one Limelight frame, every value with the same timestamp like the camera does
+  private void publishFrame(long time, double[] botPose, double[] tagX, double[] tagY) {
+    var tagIds = new double[tagX.length];
+    for (int i = 0; i < tagIds.length; i++) tagIds[i] = i + 1;
+    m_tid.set(tagIds, time);
+    m_tagPoseX.set(tagX, time);
+    m_tagPoseY.set(tagY, time);
+    m_botPose.set(botPose, time);
+  }
+
+  @Test
+  public void TestSamplesAreJudgedOnTheirOwnTags() {
+    // Drain anything left in the queues
+    runLoop();
+    long accepted = m_vision.getMeasurementsAccepted();
+    long rejected = m_vision.getMeasurementsRejected();
+
+    // Two frames arrive within one loop, the camera loses its tags in the newer one
+    long now = HALUtil.getFPGATime();
+    publishFrame(
+        now - 10_000,
+        new double[] {2, 2, 0, 0, 0, 0, 0},
+        new double[] {3, 2},
+        new double[] {2, 3});
+    publishFrame(now - 5_000, new double[] {2.1, 2, 0, 0, 0, 0, 0}, new double[0], new double[0]);
+    runLoop();
+
+    assertEquals(accepted + 1, m_vision.getMeasurementsAccepted());
+    assertEquals(rejected + 1, m_vision.getMeasurementsRejected());
+  }
+}
@@ -0,0 +1,59 @@
+package frc.robot.subsystems.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.SWERVE_DRIVE.SWERVE_MODULE_POSITION;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.utils.LoopRecord;
+import frc.robot.utils.SensorCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReplayIOTest {
+  static final double DELTA = 1e-9;
+
+  private final LoopRecord m_record = new LoopRecord();
+
+  @BeforeEach
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+  }
+
+  @Test
+  public void TestElevatorReadsRecord() throws Exception {
+    try (var elevator = new Elevator(new ElevatorIOReplay(m_record))) {
+      m_record.elevatorPositionMeters = 0.5;
+      // Inputs are only read at the start of the loop
+      assertEquals(0, elevator.getHeightMeters(), DELTA);
+
+      SensorCache.sampleAll();
+      assertEquals(0.5, elevator.getHeightMeters(), DELTA);
+    }
+  }
+
+  @Test
+  public void TestSwerveDriveReadsRecord() throws Exception {
+    var moduleIOs = new SwerveModuleIO[LoopRecord.kModuleCount];
+    for (int i = 0; i < moduleIOs.length; i++) moduleIOs[i] = new SwerveModuleIOReplay(m_record, i);
+
+    try (var swerveDrive = new SwerveDrive(new GyroIOReplay(m_record), moduleIOs)) {
+      for (int i = 0; i < LoopRecord.kModuleCount; i++) {
+        m_record.moduleHeadingDegrees[i] = 10.0 * i;
+        m_record.moduleDriveMeters[i] = 1.5;
+      }
+      m_record.gyroYawDegrees = 45;
+      m_record.gyroPitchDegrees = -3;
+      SensorCache.sampleAll();
+
+      assertEquals(45, swerveDrive.getHeadingDegrees(), DELTA);
+      assertEquals(-3, swerveDrive.getPitchDegrees(), DELTA);
+      for (var position : SWERVE_MODULE_POSITION.values()) {
+        var module = swerveDrive.getSwerveModule(position);
+        assertEquals(10.0 * position.ordinal(), module.getHeadingDegrees(), DELTA);
+        assertEquals(1.5, module.getDriveMeters(), DELTA);
+      }
+    }
+  }
+}
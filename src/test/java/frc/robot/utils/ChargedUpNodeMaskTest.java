@@ -1,7 +1,7 @@
 package frc.robot.utils;
 
-import static frc.robot.utils.ChargedUpNodeMask.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.wpi.first.hal.AllianceStationID;
 import edu.wpi.first.hal.HAL;
@@ -15,6 +15,8 @@ import frc.robot.simulation.SimConstants;
 import frc.robot.subsystems.Controls;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +25,7 @@ import org.junit.jupiter.api.Test;
 public class ChargedUpNodeMaskTest {
   protected RobotContainer m_robotContainer;
   protected Controls m_controls;
+  protected ChargedUpNodeMask m_nodeMask;
 
   private static final ArrayList<Translation2d> blueNodes = new ArrayList<>();
   private static final ArrayList<Translation2d> blueHybridNodes = new ArrayList<>();
@@ -44,12 +47,10 @@ public class ChargedUpNodeMaskTest {
 
   @BeforeAll
   static void setupNodeArrays() {
-    initializeNodeMaps();
-
     // Split nodes into separate lists to make it easier to filter
     for (int i = 0; i < SimConstants.Grids.lowTranslations.length; i++) {
       blueHybridNodes.add(SimConstants.Grids.lowTranslations[i]);
-      redHybridNodes.add(SimConstants.allianceFlip(SimConstants.Grids.lowTranslations[i]));
+      redHybridNodes.add(mirror(SimConstants.Grids.lowTranslations[i]));
     }
 
     for (int i = 0; i < SimConstants.Grids.nodeRowCount; i++) {
@@ -58,19 +59,19 @@ public class ChargedUpNodeMaskTest {
       // Generate Mid Nodes
       if (isCube) {
         blueMidCubeNodes.add(SimConstants.Grids.midTranslations[i]);
-        redMidCubeNodes.add(SimConstants.allianceFlip(SimConstants.Grids.midTranslations[i]));
+        redMidCubeNodes.add(mirror(SimConstants.Grids.midTranslations[i]));
       } else {
         blueMidConeNodes.add(SimConstants.Grids.midTranslations[i]);
-        redMidConeNodes.add(SimConstants.allianceFlip(SimConstants.Grids.midTranslations[i]));
+        redMidConeNodes.add(mirror(SimConstants.Grids.midTranslations[i]));
       }
 
       // Generate High Nodes
       if (isCube) {
         blueHighCubeNodes.add(SimConstants.Grids.highTranslations[i]);
-        redHighCubeNodes.add(SimConstants.allianceFlip(SimConstants.Grids.highTranslations[i]));
+        redHighCubeNodes.add(mirror(SimConstants.Grids.highTranslations[i]));
       } else {
         blueHighConeNodes.add(SimConstants.Grids.highTranslations[i]);
-        redHighConeNodes.add(SimConstants.allianceFlip(SimConstants.Grids.highTranslations[i]));
+        redHighConeNodes.add(mirror(SimConstants.Grids.highTranslations[i]));
       }
     }
     blueNodes.addAll(blueHybridNodes);
@@ -101,7 +102,7 @@ public class ChargedUpNodeMaskTest {
       }
       for (int j = 3; j < 6; j++) {
         blueCoopertitionNodes.add(gridRow[j]);
-        redCoopertitionNodes.add(SimConstants.allianceFlip(gridRow[j]));
+        redCoopertitionNodes.add(mirror(gridRow[j]));
       }
     }
   }
@@ -112,6 +113,7 @@ public class ChargedUpNodeMaskTest {
     assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
     m_robotContainer = new RobotContainer();
     m_controls = m_robotContainer.getControls();
+    m_nodeMask = m_robotContainer.getStateHandler().getNodeMask();
   }
 
   @SuppressWarnings("PMD.SignatureDeclareThrowsException")
@@ -131,29 +133,29 @@ public class ChargedUpNodeMaskTest {
     SCORING_STATE state;
 
     state = SCORING_STATE.STOWED;
-    updateNodeMask(robotPose, state);
+    m_nodeMask.updateNodeMask(robotPose, state);
     // Use HashSet to ignore list order
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(redNodes));
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(redNodes));
 
     state = SCORING_STATE.LOW;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(redHybridNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(redHybridNodes));
 
     state = SCORING_STATE.MID_CONE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(redMidConeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(redMidConeNodes));
 
     state = SCORING_STATE.MID_CUBE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(redMidCubeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(redMidCubeNodes));
 
     state = SCORING_STATE.HIGH_CONE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(redHighConeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(redHighConeNodes));
 
     state = SCORING_STATE.HIGH_CUBE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(redHighCubeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(redHighCubeNodes));
   }
 
   @Test
@@ -166,27 +168,119 @@ public class ChargedUpNodeMaskTest {
     SCORING_STATE state;
 
     state = SCORING_STATE.STOWED;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(blueNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(blueNodes));
 
     state = SCORING_STATE.LOW;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(blueHybridNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(blueHybridNodes));
 
     state = SCORING_STATE.MID_CONE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(blueMidConeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(blueMidConeNodes));
 
     state = SCORING_STATE.MID_CUBE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(blueMidCubeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(blueMidCubeNodes));
 
     state = SCORING_STATE.HIGH_CONE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(blueHighConeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(blueHighConeNodes));
 
     state = SCORING_STATE.HIGH_CUBE;
-    updateNodeMask(robotPose, state);
-    assertEquals(new HashSet<>(getValidNodes()), new HashSet<>(blueHighCubeNodes));
+    m_nodeMask.updateNodeMask(robotPose, state);
+    assertEquals(new HashSet<>(m_nodeMask.getValidNodes()), new HashSet<>(blueHighCubeNodes));
+  }
+
+  @Test
+  public void TestNearestNodeMatchesLinearSearch() {
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.notifyNewData();
+    m_controls.periodic();
+
+    var random = new Random(4201);
+    for (var state : SCORING_STATE.values()) {
+      for (int i = 0; i < 100; i++) {
+        var robotPose =
+            new Pose2d(random.nextDouble() * 4, random.nextDouble() * 6, new Rotation2d());
+        m_nodeMask.updateNodeMask(robotPose, state);
+        var validNodes = m_nodeMask.getValidNodes();
+        if (validNodes.isEmpty()) {
+          assertEquals(-1, m_nodeMask.getTargetNodeIndex(robotPose));
+          continue;
+        }
+        var expected = robotPose.getTranslation().nearest(validNodes);
+        assertEquals(expected, m_nodeMask.getTargetNode(robotPose).getTranslation());
+      }
+    }
+  }
+
+  @Test
+  public void TestForEachValidNode() {
+    DriverStationSim.setAllianceStationId(AllianceStationID.Red1);
+    DriverStationSim.notifyNewData();
+    m_controls.periodic();
+
+    m_nodeMask.updateNodeMask(new Pose2d(14, 1, Rotation2d.fromDegrees(0)), SCORING_STATE.MID_CONE);
+    var visited = new ArrayList<Translation2d>();
+    m_nodeMask.forEachValidNode((node, x, y) -> visited.add(new Translation2d(x, y)));
+    assertEquals(m_nodeMask.getValidNodes(), visited);
+  }
+
+  @Test
+  public void TestIgnoredNodesAreNotLostUnderContention() throws Exception {
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.notifyNewData();
+    m_controls.periodic();
+
+    // Each thread ignores its own even nodes, and flips a Red node on and off, while the main
+    // thread keeps swapping the mask
+    var nodeMask = new ChargedUpNodeMask();
+    int threadCount = 4;
+    var start = new CountDownLatch(1);
+    var threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      int first = t * 2;
+      threads[t] =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  return;
+                }
+                for (int node = first; node < 27; node += threadCount * 2) {
+                  nodeMask.addIgnoredNode(node);
+                  for (int i = 0; i < 100; i++) {
+                    nodeMask.addIgnoredNode(32 + first);
+                    nodeMask.removeIgnoredNode(32 + first);
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    start.countDown();
+    var states = SCORING_STATE.values();
+    for (int i = 0; i < 10000; i++) {
+      nodeMask.updateNodeMask(new Pose2d(), states[i % states.length]);
+    }
+    for (var thread : threads) thread.join();
+
+    nodeMask.updateNodeMask(new Pose2d(), SCORING_STATE.STOWED);
+    var snapshot = nodeMask.getSnapshot();
+    assertEquals(0, snapshot.ignoredNodes >>> 32);
+    var validNodes = snapshot.getValidNodes();
+    assertEquals(13, validNodes.size());
+    for (int node = 0; node < 27; node++) {
+      var translation = snapshot.getNode(node);
+      assertEquals(node % 2 == 1, validNodes.contains(translation));
+    }
+
+    nodeMask.removeIgnoredNode(0);
+    assertTrue(nodeMask.getValidNodes().contains(snapshot.getNode(0)));
+  }
+
+  private static Translation2d mirror(Translation2d translation) {
+    return new Translation2d(SimConstants.fieldLength - translation.getX(), translation.getY());
   }
 }
@@ -0,0 +1,101 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.INTAKE.SENSOR_STATUS;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DistanceSensorTest {
+  protected DistanceSensor m_distanceSensor;
+
+  @BeforeEach
+  // this method will run before each test
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+    m_distanceSensor = new DistanceSensor();
+  }
+
+  @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+  @AfterEach
+  // this method will run after each test
+  void shutdown() throws Exception {
+    m_distanceSensor.close();
+  }
+
+  private static ByteBuffer createPacket(int sequenceNumber, int... valuesMM) {
+    ByteBuffer packet = ByteBuffer.allocate(DistanceSensor.kPacketLength);
+    packet.put(DistanceSensor.kPacketMagic0).put(DistanceSensor.kPacketMagic1);
+    packet.putInt(sequenceNumber);
+    packet.putInt(0xFFFFFFF0);
+    for (int value : valuesMM) packet.putShort((short) value);
+    packet.put((byte) SENSOR_STATUS.CONNECTED.ordinal());
+    packet.put((byte) SENSOR_STATUS.TIMEOUT.ordinal());
+    packet.put((byte) SENSOR_STATUS.FAILED.ordinal());
+    packet.flip();
+    return packet;
+  }
+
+  @Test
+  public void TestBinaryPacket() {
+    assertTrue(m_distanceSensor.decodePacket(createPacket(1234, 100, 200, 65535)));
+    assertEquals(1234, m_distanceSensor.getSequenceNumber());
+    assertEquals(0xFFFFFFF0L, m_distanceSensor.getTeensyTimestampMs());
+    assertEquals(100, m_distanceSensor.getSensorValueMillimeters(1));
+    assertEquals(200, m_distanceSensor.getSensorValueMillimeters(2));
+    assertEquals(65535, m_distanceSensor.getSensorValueMillimeters(3));
+    assertEquals(SENSOR_STATUS.CONNECTED, m_distanceSensor.getSensorStatus(1));
+    assertEquals(SENSOR_STATUS.TIMEOUT, m_distanceSensor.getSensorStatus(2));
+    assertEquals(SENSOR_STATUS.FAILED, m_distanceSensor.getSensorStatus(3));
+    assertFalse(m_distanceSensor.isStale());
+  }
+
+  @Test
+  public void TestDroppedPackets() {
+    assertTrue(m_distanceSensor.decodePacket(createPacket(1, 10, 10, 10)));
+    assertTrue(m_distanceSensor.decodePacket(createPacket(4, 40, 40, 40)));
+    assertEquals(2, m_distanceSensor.getPacketsDropped());
+
+    // Out of order packets are dropped and don't overwrite the newer reading
+    assertFalse(m_distanceSensor.decodePacket(createPacket(3, 30, 30, 30)));
+    assertEquals(3, m_distanceSensor.getPacketsDropped());
+    assertEquals(4, m_distanceSensor.getSequenceNumber());
+    assertEquals(40, m_distanceSensor.getSensorValueMillimeters(1));
+    assertEquals(3, m_distanceSensor.getPacketsReceived());
+  }
+
+  @Test
+  public void TestJsonFallback() {
+    String json =
+        "{\"sensor1.mm\":10,\"sensor2.mm\":20,\"sensor3.mm\":30,\"test\":5,"
+            + "\"sensor1.status\":\"connected\",\"sensor2.status\":\"disconnected\","
+            + "\"sensor3.status\":\"timeout\"}";
+
+    assertTrue(
+        m_distanceSensor.decodePacket(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8))));
+    assertEquals(10, m_distanceSensor.getSensorValueMillimeters(1));
+    assertEquals(20, m_distanceSensor.getSensorValueMillimeters(2));
+    assertEquals(30, m_distanceSensor.getSensorValueMillimeters(3));
+    assertEquals(SENSOR_STATUS.CONNECTED, m_distanceSensor.getSensorStatus(1));
+    assertEquals(SENSOR_STATUS.DISCONNECTED, m_distanceSensor.getSensorStatus(2));
+    assertEquals(SENSOR_STATUS.TIMEOUT, m_distanceSensor.getSensorStatus(3));
+    assertEquals(json, m_distanceSensor.getRawSensorData());
+  }
+
+  @Test
+  public void TestMalformedPacket() {
+    assertFalse(
+        m_distanceSensor.decodePacket(
+            ByteBuffer.wrap("not a packet".getBytes(StandardCharsets.UTF_8))));
+    assertEquals(-1, m_distanceSensor.getSensorValueMillimeters(1));
+    assertEquals(SENSOR_STATUS.UNREPORTED, m_distanceSensor.getSensorStatus(1));
+    assertEquals(1, m_distanceSensor.getPacketsMalformed());
+    assertTrue(m_distanceSensor.isStale());
+  }
+}
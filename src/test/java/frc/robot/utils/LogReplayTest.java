@@ -0,0 +1,63 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.hal.HALUtil;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.RawLogEntry;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import java.io.File;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogReplayTest {
+  static final double DELTA = 0; // values must round trip exactly
+  static final int kLoops = 100;
+
+  @TempDir File m_tempDir;
+
+  @BeforeEach
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+    SimHooks.pauseTiming();
+  }
+
+  @AfterEach
+  void shutdown() {
+    SimHooks.resumeTiming();
+  }
+
+  @Test
+  public void TestReplayLoops() throws Exception {
+    long startMicros = HALUtil.getFPGATime() + 1_000_000;
+
+    var log = new DataLog(m_tempDir.getAbsolutePath(), "test.wpilog");
+    var entry =
+        new RawLogEntry(log, LoopRecorder.kEntryName, LoopRecord.kMetadata, LoopRecord.kType);
+    var record = new LoopRecord();
+    var buffer = LoopRecord.allocateBuffer();
+    for (int i = 0; i < kLoops; i++) {
+      record.elevatorPositionMeters = i * 0.01;
+      record.write(buffer);
+      entry.append(buffer.array(), startMicros + i * 20_000L);
+    }
+    log.close();
+
+    try (var replay = new LogReplay(new File(m_tempDir, "test.wpilog").getAbsolutePath())) {
+      int[] loops = new int[1];
+      replay.run(
+          () -> {
+            // The clock is stepped to each record before the loop runs
+            assertEquals(startMicros + loops[0] * 20_000L, HALUtil.getFPGATime());
+            assertEquals(loops[0] * 0.01, replay.getRecord().elevatorPositionMeters, DELTA);
+            loops[0]++;
+          });
+      assertEquals(kLoops, loops[0]);
+      assertEquals(kLoops, replay.getLoopCount());
+      assertEquals(0, replay.getRejectedRecordCount());
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.Constants.UTIL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class LoopProfilerTest {
+  @AfterEach
+  void shutdown() {
+    LoopProfiler.setEnabled(UTIL.kProfilerEnabledByDefault);
+  }
+
+  @Test
+  public void TestDisabled() {
+    LoopProfiler.setEnabled(false);
+    var section = LoopProfiler.register("TestDisabled");
+    section.start();
+    section.stop();
+    assertEquals(0, section.getSampleCount());
+  }
+
+  @Test
+  public void TestRingBuffer() {
+    LoopProfiler.setEnabled(true);
+    var section = LoopProfiler.register("TestRingBuffer");
+    assertSame(section, LoopProfiler.register("TestRingBuffer"));
+
+    for (int i = 0; i < UTIL.kProfilerWindowSize + 10; i++) {
+      section.start();
+      section.stop();
+    }
+    assertEquals(UTIL.kProfilerWindowSize, section.getSampleCount());
+
+    long p50 = section.getDurationPercentileNs(0.5);
+    long p99 = section.getDurationPercentileNs(0.99);
+    long max = section.getDurationPercentileNs(1);
+    assertTrue(0 <= p50 && p50 <= p99 && p99 <= max);
+    assertTrue(section.getAverageAllocatedBytes() >= 0);
+  }
+}
@@ -0,0 +1,71 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.Constants.INTAKE.INTAKE_STATE;
+import frc.robot.Constants.STATE_HANDLER.SUPERSTRUCTURE_STATE;
+import frc.robot.Constants.STATE_HANDLER.ZONE;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+public class LoopRecordTest {
+  static final double DELTA = 0; // values must round trip exactly
+
+  @Test
+  public void TestRoundTrip() {
+    var record = new LoopRecord();
+    for (int i = 0; i < LoopRecord.kModuleCount; i++) {
+      record.moduleVelocityMetersPerSecond[i] = 1.5 * i;
+      record.moduleDriveMeters[i] = -2.25 * i;
+      record.moduleHeadingDegrees[i] = 90.0 * i + 0.1;
+    }
+    record.gyroYawDegrees = 123.4;
+    record.gyroPitchDegrees = -5.6;
+    record.gyroRollDegrees = 7.8;
+    record.elevatorDesiredPositionMeters = 1.1;
+    record.elevatorPositionMeters = 1.05;
+    record.wristDesiredPositionRadians = 2.2;
+    record.wristPositionRadians = 2.15;
+    record.intakeState = INTAKE_STATE.HOLDING_CONE;
+    record.currentState = SUPERSTRUCTURE_STATE.SCORE_HIGH_CONE;
+    record.desiredState = SUPERSTRUCTURE_STATE.STOWED;
+    record.currentZone = ZONE.GAMMA;
+
+    var buffer = LoopRecord.allocateBuffer();
+    assertEquals(LoopRecord.kSize, buffer.capacity());
+    record.write(buffer);
+
+    var decoded = new LoopRecord();
+    assertTrue(decoded.read(buffer));
+    assertArrayEquals(
+        record.moduleVelocityMetersPerSecond, decoded.moduleVelocityMetersPerSecond, DELTA);
+    assertArrayEquals(record.moduleDriveMeters, decoded.moduleDriveMeters, DELTA);
+    assertArrayEquals(record.moduleHeadingDegrees, decoded.moduleHeadingDegrees, DELTA);
+    assertEquals(record.gyroYawDegrees, decoded.gyroYawDegrees, DELTA);
+    assertEquals(record.gyroPitchDegrees, decoded.gyroPitchDegrees, DELTA);
+    assertEquals(record.gyroRollDegrees, decoded.gyroRollDegrees, DELTA);
+    assertEquals(
+        record.elevatorDesiredPositionMeters, decoded.elevatorDesiredPositionMeters, DELTA);
+    assertEquals(record.elevatorPositionMeters, decoded.elevatorPositionMeters, DELTA);
+    assertEquals(record.wristDesiredPositionRadians, decoded.wristDesiredPositionRadians, DELTA);
+    assertEquals(record.wristPositionRadians, decoded.wristPositionRadians, DELTA);
+    assertEquals(record.intakeState, decoded.intakeState);
+    assertEquals(record.currentState, decoded.currentState);
+    assertEquals(record.desiredState, decoded.desiredState);
+    assertEquals(record.currentZone, decoded.currentZone);
+  }
+
+  @Test
+  public void TestRejectsBadRecord() {
+    var record = new LoopRecord();
+    assertFalse(record.read(ByteBuffer.allocate(LoopRecord.kSize - 1)));
+
+    var buffer = LoopRecord.allocateBuffer();
+    record.write(buffer);
+    buffer.put(0, (byte) (LoopRecord.kVersion + 1));
+    assertFalse(record.read(buffer));
+  }
+}
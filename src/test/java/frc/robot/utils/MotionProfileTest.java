@@ -0,0 +1,62 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import org.junit.jupiter.api.Test;
+
+public class MotionProfileTest {
+  static final double DELTA = 1e-6;
+  static final double DT = 0.02;
+  static final TrapezoidProfile.Constraints kConstraints = new TrapezoidProfile.Constraints(1, 2);
+
+  @Test
+  public void TestMatchesReplanningEveryLoop() {
+    var profile = new MotionProfile(kConstraints);
+    var expected = new TrapezoidProfile.State(0.2, 0);
+    profile.reset(0.2, 0);
+
+    // Move up, then change the goal down while still moving
+    double[] goals = {1.5, -0.4};
+    for (double goal : goals) {
+      profile.setGoal(goal);
+      for (int i = 0; i < 60; i++) {
+        expected =
+            new TrapezoidProfile(kConstraints, new TrapezoidProfile.State(goal, 0), expected)
+                .calculate(DT);
+        profile.update(DT);
+        assertEquals(expected.position, profile.getPosition(), DELTA);
+        assertEquals(expected.velocity, profile.getVelocity(), DELTA);
+      }
+    }
+  }
+
+  @Test
+  public void TestTimeToGoal() {
+    var profile = new MotionProfile(kConstraints);
+    profile.setGoal(2);
+    double totalTime =
+        new TrapezoidProfile(
+                kConstraints, new TrapezoidProfile.State(2, 0), new TrapezoidProfile.State())
+            .totalTime();
+    assertEquals(totalTime, profile.getTimeToGoalSeconds(), DELTA);
+
+    profile.update(0.5);
+    assertEquals(totalTime - 0.5, profile.getTimeToGoalSeconds(), DELTA);
+
+    while (!profile.isFinished()) profile.update(DT);
+    assertEquals(2, profile.getPosition(), DELTA);
+    assertEquals(0, profile.getVelocity(), DELTA);
+  }
+
+  @Test
+  public void TestConstraintsChangeReplans() {
+    var profile = new MotionProfile(kConstraints);
+    profile.setGoal(2);
+    double slowTime = profile.getTimeToGoalSeconds();
+
+    profile.setConstraints(2, 4);
+    assertTrue(profile.getTimeToGoalSeconds() < slowTime);
+  }
+}
@@ -0,0 +1,62 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class SensorCacheTest {
+  private SensorCache.Entry m_first;
+  private SensorCache.Entry m_second;
+
+  @AfterEach
+  void shutdown() {
+    if (m_first != null) SensorCache.remove(m_first);
+    if (m_second != null) SensorCache.remove(m_second);
+  }
+
+  @Test
+  public void TestSamplesOncePerLoop() {
+    int[] samples = new int[1];
+    m_first = SensorCache.register("first", () -> samples[0]++);
+    // Sampled on registration so it can be read in constructors
+    assertEquals(1, samples[0]);
+    m_first.assertFresh();
+
+    long cycle = SensorCache.getCycle();
+    SensorCache.sampleAll();
+    assertEquals(cycle + 1, SensorCache.getCycle());
+    assertEquals(2, samples[0]);
+    assertTrue(m_first.isFresh());
+
+    SensorCache.remove(m_first);
+    SensorCache.sampleAll();
+    assertEquals(2, samples[0]);
+    assertFalse(m_first.isFresh());
+  }
+
+  @Test
+  public void TestStaleReadFails() {
+    boolean[] firstFreshInSecond = new boolean[1];
+    boolean[] secondFreshInFirst = new boolean[1];
+    m_first = SensorCache.register("first", () -> secondFreshInFirst[0] = isFresh(m_second));
+    m_second = SensorCache.register("second", () -> firstFreshInSecond[0] = isFresh(m_first));
+
+    // Entries are sampled in registration order
+    SensorCache.sampleAll();
+    assertFalse(secondFreshInFirst[0]);
+    assertTrue(firstFreshInSecond[0]);
+
+    SensorCache.remove(m_second);
+    SensorCache.sampleAll();
+    // Tests run with assertions enabled
+    assertThrows(AssertionError.class, m_second::assertFresh);
+  }
+
+  private static boolean isFresh(SensorCache.Entry entry) {
+    return entry != null && entry.isFresh();
+  }
+}
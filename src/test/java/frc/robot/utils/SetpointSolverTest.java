@@ -0,0 +1,114 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.Constants.ELEVATOR;
+import frc.robot.Constants.SCORING_STATE;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SetpointSolverTest {
+  static final double DELTA = 1e-9;
+
+  @BeforeEach
+  void setup() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+  }
+
+  @Test
+  public void TestMatchesPoseMath() {
+    var random = new Random(4201);
+    var solution = new SetpointSolver.Solution();
+    for (int i = 0; i < 100; i++) {
+      var robotPose =
+          new Pose2d(
+              random.nextDouble() * 4,
+              random.nextDouble() * 6,
+              Rotation2d.fromDegrees(random.nextDouble() * 360));
+      var targetPose =
+          new Pose2d(random.nextDouble(), random.nextDouble() * 6, Rotation2d.fromDegrees(0));
+      double wristOffset = random.nextDouble() * 0.3;
+      double tangentalOffset = random.nextDouble() * 0.2 - 0.1;
+      var scoringState = i % 2 == 0 ? SCORING_STATE.MID_CONE : SCORING_STATE.LOW_REVERSE;
+
+      SetpointSolver.solve(
+          robotPose.getX(),
+          robotPose.getY(),
+          robotPose.getRotation().getRadians(),
+          targetPose.getX(),
+          targetPose.getY(),
+          targetPose.getRotation().getRadians(),
+          wristOffset,
+          scoringState,
+          tangentalOffset,
+          solution);
+
+      var expected =
+          targetPose
+              .relativeTo(robotPose)
+              .transformBy(
+                  new Transform2d(
+                      new Translation2d(0, tangentalOffset), Rotation2d.fromDegrees(90)));
+      var expectedHeading =
+          expected
+              .getRotation()
+              .plus(Rotation2d.fromDegrees(scoringState == SCORING_STATE.LOW_REVERSE ? 180 : 0));
+      double expectedElevator =
+          Math.cos(ELEVATOR.mountAngleRadians.getRadians())
+              * (expected.getTranslation().getNorm() - wristOffset);
+
+      assertEquals(
+          0,
+          new Rotation2d(solution.chassisHeadingRadians).minus(expectedHeading).getRadians(),
+          DELTA);
+      assertEquals(expectedElevator, solution.elevatorSetpointMeters, DELTA);
+    }
+  }
+
+  @Test
+  public void TestBatchPicksNearestScorableNode() {
+    var nodeMask = new ChargedUpNodeMask();
+    var robotPose = new Pose2d(2.0, 2.5, Rotation2d.fromDegrees(180));
+    nodeMask.updateNodeMask(robotPose, SCORING_STATE.MID_CONE);
+    var nodes = nodeMask.getSnapshot();
+
+    var solutions = new SetpointSolver.NodeSolutions();
+    solutions.solve(robotPose, nodes, 0, SCORING_STATE.MID_CONE);
+    assertEquals(nodes.validNodeMask, solutions.getSolvedNodeMask());
+
+    var solution = new SetpointSolver.Solution();
+    int bestNode = solutions.getBestNode();
+    double bestMeters = Double.POSITIVE_INFINITY;
+    for (int node = 0; node < ChargedUpNodeMask.nodeCount; node++) {
+      if ((nodes.validNodeMask & (1 << node)) == 0) continue;
+      var target = nodes.getNodePose(node);
+      SetpointSolver.solve(
+          robotPose.getX(),
+          robotPose.getY(),
+          robotPose.getRotation().getRadians(),
+          target.getX(),
+          target.getY(),
+          0,
+          0,
+          SCORING_STATE.MID_CONE,
+          0,
+          solution);
+      assertEquals(solution.elevatorSetpointMeters, solutions.getElevatorSetpointMeters(node));
+      assertEquals(solution.chassisHeadingRadians, solutions.getChassisHeadingRadians(node));
+      assertEquals(solution.canScore, solutions.canScore(node));
+      if (solution.canScore) bestMeters = Math.min(bestMeters, solution.elevatorSetpointMeters);
+    }
+
+    assertTrue(bestNode >= 0);
+    if (solutions.getScorableNodeMask() != 0) {
+      assertEquals(bestMeters, solutions.getElevatorSetpointMeters(bestNode));
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.math.util.Units;
+import org.junit.jupiter.api.Test;
+
+public class SuperStructureStateIndexTest {
+  private static void assertMatches(double elevatorPositionMeters, double wristPositionRadians) {
+    assertEquals(
+        SuperStructureStateIndex.evaluate(elevatorPositionMeters, wristPositionRadians),
+        SuperStructureStateIndex.lookup(elevatorPositionMeters, wristPositionRadians),
+        () -> "Elevator: " + elevatorPositionMeters + " Wrist: " + wristPositionRadians);
+  }
+
+  @Test
+  public void TestEveryCell() {
+    var elevatorBreakpoints = SuperStructureStateIndex.getElevatorBreakpoints();
+    var wristBreakpoints = SuperStructureStateIndex.getWristBreakpoints();
+
+    for (int e = 0; e < 2 * elevatorBreakpoints.length + 1; e++) {
+      double elevatorPositionMeters = SuperStructureStateIndex.getCellValue(elevatorBreakpoints, e);
+      assertEquals(
+          e, SuperStructureStateIndex.getCell(elevatorBreakpoints, elevatorPositionMeters));
+      for (int w = 0; w < 2 * wristBreakpoints.length + 1; w++) {
+        double wristPositionRadians = SuperStructureStateIndex.getCellValue(wristBreakpoints, w);
+        assertMatches(elevatorPositionMeters, wristPositionRadians);
+      }
+    }
+  }
+
+  @Test
+  public void TestBreakpointEdges() {
+    // Values one ulp either side of a breakpoint are the most likely to land in the wrong cell
+    for (double e : SuperStructureStateIndex.getElevatorBreakpoints()) {
+      for (double w : SuperStructureStateIndex.getWristBreakpoints()) {
+        for (double elevator : new double[] {Math.nextDown(e), e, Math.nextUp(e)}) {
+          for (double wrist : new double[] {Math.nextDown(w), w, Math.nextUp(w)}) {
+            assertMatches(elevator, wrist);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void TestSweep() {
+    for (double e = Units.inchesToMeters(-5); e < Units.inchesToMeters(55); e += 0.001) {
+      for (double w = Units.degreesToRadians(-30); w < Units.degreesToRadians(190); w += 0.002) {
+        assertMatches(e, w);
+      }
+    }
+    assertMatches(-0.0, -0.0);
+    assertMatches(Double.NaN, 0);
+    assertMatches(0, Double.NaN);
+  }
+}
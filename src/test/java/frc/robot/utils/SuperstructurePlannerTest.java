@@ -0,0 +1,213 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.Constants.ELEVATOR;
+import frc.robot.Constants.STATE_HANDLER;
+import frc.robot.Constants.STATE_HANDLER.SETPOINT;
+import frc.robot.Constants.WRIST;
+import org.junit.jupiter.api.Test;
+
+public class SuperstructurePlannerTest {
+  static final double DELTA = 1e-9;
+  static final double DT = 0.001;
+  // Stopping at the waypoints may at most slow a move down by this much
+  static final double kMaxRestToRestSlowdown = 1.75;
+
+  final SuperstructurePlanner m_planner = new SuperstructurePlanner();
+
+  @Test
+  public void TestEverySetpointPairReachesItsGoal() {
+    var state = new SuperstructureTrajectory.State();
+    for (var start : SETPOINT.values()) {
+      for (var goal : SETPOINT.values()) {
+        var trajectory = m_planner.getTrajectory(start, goal);
+        assertEquals(start.getElevatorSetpointMeters(), trajectory.getElevatorWaypointMeters(0));
+        assertEquals(
+            SuperstructurePlanner.getWristGoalRadians(start),
+            trajectory.getWristWaypointRadians(0));
+
+        trajectory.sample(trajectory.getTotalTimeSeconds(), state);
+        assertEquals(goal.getElevatorSetpointMeters(), state.elevatorPositionMeters, DELTA);
+        assertEquals(
+            SuperstructurePlanner.getWristGoalRadians(goal), state.wristPositionRadians, DELTA);
+        assertEquals(0, state.elevatorVelocityMetersPerSecond, DELTA);
+        assertEquals(0, state.wristVelocityRadiansPerSecond, DELTA);
+      }
+    }
+  }
+
+  @Test
+  public void TestTableMatchesPlanning() {
+    for (var start : SETPOINT.values()) {
+      for (var goal : SETPOINT.values()) {
+        var planned =
+            m_planner.plan(
+                start.getElevatorSetpointMeters(),
+                SuperstructurePlanner.getWristGoalRadians(start),
+                goal.getElevatorSetpointMeters(),
+                goal.getWristSetpointRadians());
+        var cached = m_planner.getTrajectory(start, goal);
+        assertEquals(planned.getWaypointCount(), cached.getWaypointCount());
+        assertEquals(planned.getTotalTimeSeconds(), cached.getTotalTimeSeconds());
+        assertEquals(
+            cached.getTotalTimeSeconds(), m_planner.getTransitionTimeSeconds(start, goal));
+      }
+    }
+    assertEquals(0, m_planner.getTransitionTimeSeconds(SETPOINT.STOWED, SETPOINT.STOWED));
+  }
+
+  @Test
+  public void TestTrajectoriesRespectZoneLimits() {
+    var state = new SuperstructureTrajectory.State();
+    for (var start : SETPOINT.values()) {
+      for (var goal : SETPOINT.values()) {
+        var trajectory = m_planner.getTrajectory(start, goal);
+        for (int i = 0; i < trajectory.getWaypointCount() - 1; i++) {
+          assertTrue(
+              SuperstructurePlanner.isSafe(
+                  trajectory.getElevatorWaypointMeters(i),
+                  trajectory.getWristWaypointRadians(i),
+                  trajectory.getElevatorWaypointMeters(i + 1),
+                  trajectory.getWristWaypointRadians(i + 1)),
+              start + " -> " + goal);
+        }
+
+        for (double t = 0; t <= trajectory.getTotalTimeSeconds(); t += DT) {
+          trajectory.sample(t, state);
+          assertTrue(isAllowed(state), start + " -> " + goal + " at " + t);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void TestCrossingZonesMovesBothMechanismsTogether() {
+    var trajectory = m_planner.getTrajectory(SETPOINT.STOWED, SETPOINT.SCORE_HIGH_CONE);
+    // Moving one mechanism at a time through the same waypoints
+    double serializedTime = 0;
+    for (int i = 0; i < trajectory.getWaypointCount() - 1; i++) {
+      serializedTime +=
+          profileTime(
+                  trajectory.getElevatorWaypointMeters(i),
+                  trajectory.getElevatorWaypointMeters(i + 1),
+                  ELEVATOR.m_Constraints.maxVelocity,
+                  ELEVATOR.m_Constraints.maxAcceleration)
+              + profileTime(
+                  trajectory.getWristWaypointRadians(i),
+                  trajectory.getWristWaypointRadians(i + 1),
+                  WRIST.m_constraints.maxVelocity,
+                  WRIST.m_constraints.maxAcceleration);
+    }
+    assertTrue(trajectory.getTotalTimeSeconds() < serializedTime);
+  }
+
+  @Test
+  public void TestCrossingZonesIsBoundedBySingleSegment() {
+    for (var start : SETPOINT.values()) {
+      for (var goal : SETPOINT.values()) {
+        var trajectory = m_planner.getTrajectory(start, goal);
+        int last = trajectory.getWaypointCount() - 1;
+        if (last < 2) continue;
+
+        var elevatorWaypoints = new double[last + 1];
+        var wristWaypoints = new double[last + 1];
+        for (int i = 0; i <= last; i++) {
+          elevatorWaypoints[i] = trajectory.getElevatorWaypointMeters(i);
+          wristWaypoints[i] = trajectory.getWristWaypointRadians(i);
+        }
+        // Neither mechanism can be faster than going straight to its goal without stopping
+        double elevatorTime =
+            straightTime(
+                elevatorWaypoints,
+                ELEVATOR.m_Constraints.maxVelocity,
+                ELEVATOR.m_Constraints.maxAcceleration);
+        double wristTime =
+            straightTime(
+                wristWaypoints,
+                WRIST.m_constraints.maxVelocity,
+                WRIST.m_constraints.maxAcceleration);
+        double lowerBound = Math.max(elevatorTime, wristTime);
+
+        double time = trajectory.getTotalTimeSeconds();
+        assertTrue(time >= lowerBound - DELTA, start + " -> " + goal);
+        assertTrue(time <= kMaxRestToRestSlowdown * lowerBound, start + " -> " + goal);
+      }
+    }
+  }
+
+  // Time to pass through the waypoints only stopping where the mechanism turns around, e.g. when
+  // the wrist has to tuck in first
+  static double straightTime(double[] waypoints, double maxVelocity, double maxAcceleration) {
+    double time = 0;
+    int runStart = 0;
+    double direction = 0;
+    for (int i = 1; i < waypoints.length; i++) {
+      double step = Math.signum(waypoints[i] - waypoints[i - 1]);
+      if (step == 0) continue;
+      if (step == -direction) {
+        time += profileTime(waypoints[runStart], waypoints[i - 1], maxVelocity, maxAcceleration);
+        runStart = i - 1;
+      }
+      direction = step;
+    }
+    int last = waypoints.length - 1;
+    return time + profileTime(waypoints[runStart], waypoints[last], maxVelocity, maxAcceleration);
+  }
+
+  @Test
+  public void TestPlanFromAnyPosition() {
+    var state = new SuperstructureTrajectory.State();
+    var goal = SETPOINT.INTAKING_LOW_CONE;
+    var trajectory =
+        m_planner.plan(
+            ELEVATOR.THRESHOLD.GAMMA_MAX.get(),
+            WRIST.THRESHOLD.GAMMA_MAX.get(),
+            goal.getElevatorSetpointMeters(),
+            goal.getWristSetpointRadians());
+    for (double t = 0; t <= trajectory.getTotalTimeSeconds(); t += DT) {
+      trajectory.sample(t, state);
+      assertTrue(isAllowed(state), "at " + t);
+    }
+    trajectory.sample(trajectory.getTotalTimeSeconds(), state);
+    assertEquals(goal.getElevatorSetpointMeters(), state.elevatorPositionMeters, DELTA);
+  }
+
+  static boolean isAllowed(SuperstructureTrajectory.State state) {
+    return isAllowed(state.elevatorPositionMeters, state.wristPositionRadians, DELTA, DELTA);
+  }
+
+  // The wrist is either tucked in or the mechanisms are both within one zone's limits, give or
+  // take a margin for each
+  public static boolean isAllowed(
+      double elevator, double wrist, double elevatorMargin, double wristMargin) {
+    if (STATE_HANDLER.universalWristLowerLimitRadians - wristMargin <= wrist
+        && wrist <= STATE_HANDLER.universalWristUpperLimitRadians + wristMargin) return true;
+
+    ELEVATOR.THRESHOLD[][] elevatorLimits = {
+      {ELEVATOR.THRESHOLD.ALPHA_MIN, ELEVATOR.THRESHOLD.ALPHA_MAX},
+      {ELEVATOR.THRESHOLD.BETA_MIN, ELEVATOR.THRESHOLD.BETA_MAX},
+      {ELEVATOR.THRESHOLD.GAMMA_MIN, ELEVATOR.THRESHOLD.GAMMA_MAX}
+    };
+    WRIST.THRESHOLD[][] wristLimits = {
+      {WRIST.THRESHOLD.ALPHA_MIN, WRIST.THRESHOLD.ALPHA_MAX},
+      {WRIST.THRESHOLD.BETA_MIN, WRIST.THRESHOLD.BETA_MAX},
+      {WRIST.THRESHOLD.GAMMA_MIN, WRIST.THRESHOLD.GAMMA_MAX}
+    };
+    for (int zone = 0; zone < elevatorLimits.length; zone++) {
+      if (elevatorLimits[zone][0].get() - elevatorMargin <= elevator
+          && elevator <= elevatorLimits[zone][1].get() + elevatorMargin
+          && wristLimits[zone][0].get() - wristMargin <= wrist
+          && wrist <= wristLimits[zone][1].get() + wristMargin) return true;
+    }
+    return false;
+  }
+
+  static double profileTime(double start, double end, double maxVelocity, double maxAcceleration) {
+    double distance = Math.abs(end - start);
+    double accelerationTime = maxVelocity / maxAcceleration;
+    if (distance < accelerationTime * maxVelocity) return 2 * Math.sqrt(distance / maxAcceleration);
+    return distance / maxVelocity + accelerationTime;
+  }
+}
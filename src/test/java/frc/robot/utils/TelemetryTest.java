@@ -0,0 +1,69 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.utils.Telemetry.RATE;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TelemetryTest {
+  private Telemetry m_telemetry;
+
+  @BeforeEach
+  void constructTelemetry() {
+    m_telemetry = new Telemetry("TelemetryTest");
+  }
+
+  @AfterEach
+  void shutdown() {
+    m_telemetry.close();
+  }
+
+  @Test
+  public void TestRates() {
+    int[] calls = new int[RATE.values().length];
+    for (var rate : RATE.values()) {
+      m_telemetry.addDouble(rate.name(), () -> calls[rate.ordinal()]++, rate);
+    }
+
+    // One full HZ_1 period, so the result doesn't depend on where the loop counter started
+    for (int i = 0; i < RATE.HZ_1.getPeriodLoops(); i++) Telemetry.periodic();
+
+    assertEquals(50, calls[RATE.HZ_50.ordinal()]);
+    assertEquals(10, calls[RATE.HZ_10.ordinal()]);
+    assertEquals(1, calls[RATE.HZ_1.ordinal()]);
+    assertEquals(50, calls[RATE.ON_CHANGE.ordinal()]);
+  }
+
+  @Test
+  public void TestOnChange() {
+    var value = new String[] {"A"};
+    m_telemetry.addString("OnChange", () -> value[0], RATE.ON_CHANGE);
+    var subscriber =
+        NetworkTableInstance.getDefault()
+            .getTable("Shuffleboard")
+            .getSubTable("TelemetryTest")
+            .getStringTopic("OnChange")
+            .subscribe("");
+
+    Telemetry.periodic();
+    assertEquals("A", subscriber.get());
+
+    value[0] = "B";
+    Telemetry.periodic();
+    assertEquals("B", subscriber.get());
+    subscriber.close();
+  }
+
+  @Test
+  public void TestClose() {
+    int[] calls = new int[1];
+    m_telemetry.addBoolean("Closed", () -> calls[0]++ >= 0, RATE.HZ_50);
+    Telemetry.periodic();
+    m_telemetry.close();
+    Telemetry.periodic();
+    assertEquals(1, calls[0]);
+  }
+}
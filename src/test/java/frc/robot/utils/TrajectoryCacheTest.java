@@ -0,0 +1,94 @@
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TrajectoryCacheTest {
+  static final double DELTA = 1e-9;
+  static final PathConstraints kConstraints = new PathConstraints(1, 1);
+
+  @TempDir File m_directory;
+
+  @BeforeEach
+  void setup() throws Exception {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+    TrajectoryCache.compile("BumpTwo", new double[][] {{1, 1}}, m_directory);
+    TrajectoryCache.setDirectory(m_directory);
+  }
+
+  @AfterEach
+  void shutdown() {
+    TrajectoryCache.setDirectory(null);
+  }
+
+  @Test
+  public void TestMatchesGeneratedPath() {
+    assertStatesEqual(
+        PathPlanner.loadPathGroup("BumpTwo", kConstraints, kConstraints),
+        TrajectoryCache.get("BumpTwo", kConstraints));
+  }
+
+  @Test
+  public void TestRedAlliance() throws Exception {
+    // Red paths are flipped from the Blue path with the same name, like TrajectoryUtils does
+    var source = new File(Filesystem.getDeployDirectory(), "pathplanner/BumpTwo.path");
+    var blueSource = new File(Filesystem.getDeployDirectory(), "pathplanner/BlueBumpTwo.path");
+    Files.copy(source.toPath(), blueSource.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    try {
+      TrajectoryCache.compile("BlueBumpTwo", new double[][] {{1, 1}}, m_directory);
+      TrajectoryCache.setDirectory(m_directory);
+
+      var expected = PathPlanner.loadPathGroup("BumpTwo", kConstraints, kConstraints);
+      for (int i = 0; i < expected.size(); i++) {
+        expected.set(
+            i,
+            PathPlannerTrajectory.transformTrajectoryForAlliance(expected.get(i), Alliance.Red));
+      }
+      assertStatesEqual(expected, TrajectoryCache.preload("RedBumpTwo", kConstraints).get());
+    } finally {
+      Files.delete(blueSource.toPath());
+    }
+  }
+
+  @Test
+  public void TestNotPrecompiled() {
+    assertNull(TrajectoryCache.get("BumpTwo", new PathConstraints(2, 2)));
+    assertNull(TrajectoryCache.get("DriveForward", kConstraints));
+  }
+
+  private static void assertStatesEqual(
+      List<PathPlannerTrajectory> expected, List<PathPlannerTrajectory> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      var expectedStates = expected.get(i).getStates();
+      var actualStates = actual.get(i).getStates();
+      assertEquals(expectedStates.size(), actualStates.size());
+      for (int j = 0; j < expectedStates.size(); j++) {
+        var e = (PathPlannerState) expectedStates.get(j);
+        var a = (PathPlannerState) actualStates.get(j);
+        assertEquals(e.timeSeconds, a.timeSeconds, DELTA);
+        assertEquals(e.velocityMetersPerSecond, a.velocityMetersPerSecond, DELTA);
+        assertEquals(e.poseMeters, a.poseMeters);
+        assertEquals(e.holonomicRotation, a.holonomicRotation);
+        assertEquals(
+            e.holonomicAngularVelocityRadPerSec, a.holonomicAngularVelocityRadPerSec, DELTA);
+      }
+    }
+  }
+}
@@ -22,6 +22,45 @@ const IPAddress GATEWAY_IP(10, 42, 01, 1);
 
 const IPAddress MULTICAST_IP(10, 42, 01, 2);
 
+/*
+ * Packet format. Binary packets are decoded in place on the roboRIO. Set this
+ * to false to send the old JSON packets instead (easier to read when
+ * debugging).
+ */
+constexpr bool SEND_BINARY_PACKETS = true;
+
+/*
+ * Binary packet layout (big-endian). Must match DistanceSensor.java
+ *
+ * [0-1]   magic (0x42, 0x01)
+ * [2-5]   sequence number (uint32)
+ * [6-9]   timestamp in ms (uint32)
+ * [10-15] sensor 1-3 distance in mm (uint16 each)
+ * [16-18] sensor 1-3 status (uint8 each)
+ */
+constexpr uint8_t PACKET_MAGIC_0 = 0x42;
+constexpr uint8_t PACKET_MAGIC_1 = 0x01;
+constexpr size_t PACKET_LENGTH = 19;
+constexpr size_t SENSOR_COUNT = 3;
+
+/*
+ * Sensor status codes. Must match the order of INTAKE.SENSOR_STATUS in
+ * Constants.java
+ */
+enum SensorStatus : uint8_t {
+    STATUS_UNREPORTED = 0,
+    STATUS_DISCONNECTED = 1,
+    STATUS_TIMEOUT = 2,
+    STATUS_FAILED = 3,
+    STATUS_CONNECTED = 4,
+};
+
+const char *const STATUS_NAMES[] = {"unreported", "disconnected", "timeout",
+                                    "failed", "connected"};
+const char *const STATUS_KEYS[] = {"sensor1.status", "sensor2.status",
+                                   "sensor3.status"};
+const char *const MM_KEYS[] = {"sensor1.mm", "sensor2.mm", "sensor3.mm"};
+
 EthernetUDP udp;
 
 uint8_t ReplyBuffer[] = "acknowledged";  // a string to send back
@@ -32,6 +71,54 @@ VL53L0X sensor3;
 
 StaticJsonDocument<1000> doc;
 
+uint8_t packet[PACKET_LENGTH];
+uint32_t sequenceNumber = 0;
+uint16_t distances[SENSOR_COUNT] = {0, 0, 0};
+uint8_t statuses[SENSOR_COUNT] = {STATUS_UNREPORTED, STATUS_UNREPORTED,
+                                  STATUS_UNREPORTED};
+
+void putUint16(uint8_t *dest, uint16_t value) {
+    dest[0] = (value >> 8) & 0xFF;
+    dest[1] = value & 0xFF;
+}
+
+void putUint32(uint8_t *dest, uint32_t value) {
+    dest[0] = (value >> 24) & 0xFF;
+    dest[1] = (value >> 16) & 0xFF;
+    dest[2] = (value >> 8) & 0xFF;
+    dest[3] = value & 0xFF;
+}
+
+/*
+ * Read one sensor and record its distance and status
+ */
+void readSensor(VL53L0X &sensor, size_t index) {
+    uint16_t distance = sensor.readRangeContinuousMillimeters();
+    if (sensor.timeoutOccurred()) {
+        Serial.print(" TIMEOUT");
+        statuses[index] = STATUS_TIMEOUT;
+    } else if (distance == 65535) {
+        statuses[index] = STATUS_FAILED;
+    } else {
+        statuses[index] = STATUS_CONNECTED;
+    }
+    distances[index] = distance;
+}
+
+/*
+ * Encode the latest readings into the fixed-layout binary packet
+ */
+void encodePacket() {
+    packet[0] = PACKET_MAGIC_0;
+    packet[1] = PACKET_MAGIC_1;
+    putUint32(&packet[2], sequenceNumber);
+    putUint32(&packet[6], millis());
+    for (size_t i = 0; i < SENSOR_COUNT; i++) {
+        putUint16(&packet[10 + i * 2], distances[i]);
+        packet[16 + i] = statuses[i];
+    }
+}
+
 void setup() {
     Serial.begin(115200);
     while (!Serial && millis() < 4000) {
@@ -72,7 +159,7 @@ void setup() {
     sensor1.setTimeout(500);
     if (!sensor1.init()) {
         Serial.println("Failed to detect and initialize sensor1!");
-        doc["sensor1.status"] = "disconnected";
+        statuses[0] = STATUS_DISCONNECTED;
     }
     sensor1.startContinuous();
 
@@ -80,7 +167,7 @@ void setup() {
     sensor2.setTimeout(500);
     if (!sensor2.init()) {
         Serial.println("Failed to detect and initialize sensor2!");
-        doc["sensor2.status"] = "disconnected";
+        statuses[1] = STATUS_DISCONNECTED;
     }
     sensor2.startContinuous();
 
@@ -88,46 +175,22 @@ void setup() {
     sensor3.setTimeout(500);
     if (!sensor3.init()) {
         Serial.println("Failed to detect and initialize sensor3!");
-        doc["sensor3.status"] = "disconnected";
+        statuses[2] = STATUS_DISCONNECTED;
     }
     sensor3.startContinuous();
 }
 
 uint8_t i = 0;
 void loop() {
-    int distance = sensor1.readRangeContinuousMillimeters();
-    if (sensor1.timeoutOccurred()) {
-        Serial.print(" TIMEOUT");
-        doc["sensor1.status"] = "timeout";
-    } else if (distance == -1 || distance == 65535) {
-        doc["sensor1.status"] = "failed";
-    } else {
-        doc["sensor1.status"] = "connected";
-    }
-    doc["sensor1.mm"] = distance;
-
-    int distance2 = sensor2.readRangeContinuousMillimeters();
-    if (sensor2.timeoutOccurred()) {
-        Serial.print(" TIMEOUT");
-        doc["sensor2.status"] = "timeout";
-    } else if (distance2 == -1 || distance2 == 65535) {
-        doc["sensor2.status"] = "failed";
-    } else {
-        doc["sensor2.status"] = "connected";
-    }
-    doc["sensor2.mm"] = distance2;
-
-    int distance3 = sensor3.readRangeContinuousMillimeters();
-    if (sensor3.timeoutOccurred()) {
-        Serial.print(" TIMEOUT");
-        doc["sensor3.status"] = "timeout";
-    } else if (distance3 == -1 || distance3 == 65535) {
-        doc["sensor3.status"] = "failed";
-    } else {
-        doc["sensor3.status"] = "connected";
+    readSensor(sensor1, 0);
+    readSensor(sensor2, 1);
+    readSensor(sensor3, 2);
+    sequenceNumber++;
+
+    for (size_t j = 0; j < SENSOR_COUNT; j++) {
+        doc[STATUS_KEYS[j]] = STATUS_NAMES[statuses[j]];
+        doc[MM_KEYS[j]] = distances[j];
     }
-    doc["sensor3.mm"] = distance3;
-
 
     /*
      * Read our sensor values (fake value for now)
@@ -136,10 +199,15 @@ void loop() {
     doc["test"] = i;
 
     /*
-     * Send our JSON packet over UDP to the multicast address
+     * Send our packet over UDP to the multicast address
      */
     udp.beginPacket(MULTICAST_IP, UDP_PORT);
-    serializeJson(doc, udp);
+    if (SEND_BINARY_PACKETS) {
+        encodePacket();
+        udp.write(packet, PACKET_LENGTH);
+    } else {
+        serializeJson(doc, udp);
+    }
     udp.endPacket();
 
     /*
@@ -149,4 +217,4 @@ void loop() {
     Serial.println("");
 
     delay(100);
-}
\ No newline at end of file
+}